@@ -0,0 +1,52 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.ActivationLayer;
+import model.Tensor;
+
+// JMH benchmarks for ActivationLayer forward and backward passes over a 256 x 1024 batch
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ActivationLayerBenchmark {
+    @Param({"relu", "sigmoid"})
+    String function;
+
+    private ActivationLayer layer;
+    private Tensor input;
+    private Tensor gradient;
+
+    @Setup
+    public void setUp() {
+        layer = new ActivationLayer(function);
+        input = BenchmarkData.filledTensor(256, 1024);
+        gradient = BenchmarkData.filledTensor(256, 1024);
+        layer.forward(input);
+    }
+
+    @Benchmark
+    public Tensor forward() {
+        return layer.forward(input);
+    }
+
+    @Benchmark
+    public Tensor backward() {
+        return layer.backward(gradient);
+    }
+}
@@ -0,0 +1,46 @@
+package benchmark;
+
+import model.ActivationLayer;
+import model.DenseLayer;
+import model.NeuralNetwork;
+import model.Tensor;
+
+// Builds the deterministic inputs shared by the benchmarks
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    // EFFECTS: returns a rows x cols tensor filled with deterministic values in [-1, 1]
+    static Tensor filledTensor(int rows, int cols) {
+        Tensor tensor = new Tensor(rows, cols);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                tensor.set(i, j, Math.sin(i * 31 + j));
+            }
+        }
+        return tensor;
+    }
+
+    // EFFECTS: returns an MLP with relu between dense layers of the given widths, input first
+    static NeuralNetwork mlp(int... widths) {
+        NeuralNetwork network = new NeuralNetwork();
+        for (int i = 0; i + 1 < widths.length; i++) {
+            if (i > 0) {
+                network.addLayer(new ActivationLayer("relu"));
+            }
+            network.addLayer(new DenseLayer(widths[i], widths[i + 1]));
+        }
+        return network;
+    }
+
+    // EFFECTS: parses a shape such as "32x64x128" into its dimensions
+    static int[] parseShape(String shape) {
+        String[] parts = shape.split("x");
+        int[] dims = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            dims[i] = Integer.parseInt(parts[i]);
+        }
+        return dims;
+    }
+}
@@ -0,0 +1,60 @@
+package benchmark;
+
+import java.util.concurrent.ForkJoinPool;
+
+import model.DenseLayer;
+import model.Layer;
+import model.NeuralNetwork;
+import model.SgdOptimizer;
+import model.Tensor;
+
+// Measures how NeuralNetwork.train scales with data parallelism on a 3-layer MLP, reporting
+// samples per second for each number of shards. Each shard runs on its own thread, and the dense
+// layers compute on the calling thread so that only data parallelism is measured.
+// Usage: DataParallelScalingBenchmark [samples batchSize epochs]
+public class DataParallelScalingBenchmark {
+    private static final int[] SHARD_COUNTS = {1, 2, 4, 8, 16};
+    private static final int[] SHAPE = {256, 512, 512, 10};
+    private static final int WARMUP_EPOCHS = 2;
+
+    public static void main(String[] args) {
+        int samples = args.length > 0 ? Integer.parseInt(args[0]) : 8192;
+        int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+        int epochs = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        Tensor inputs = BenchmarkData.filledTensor(samples, SHAPE[0]);
+        Tensor targets = BenchmarkData.filledTensor(samples, SHAPE[SHAPE.length - 1]);
+
+        System.out.printf("MLP 256-512-512-10, %d samples, batch %d, %d available processors%n",
+                samples, batchSize, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%8s %14s %9s%n", "shards", "samples/s", "speedup");
+        double baseline = 0;
+        for (int shards : SHARD_COUNTS) {
+            ForkJoinPool pool = new ForkJoinPool(shards);
+            double rate = samplesPerSecond(shards, pool, inputs, targets, batchSize, epochs);
+            pool.shutdown();
+            if (shards == 1) {
+                baseline = rate;
+            }
+            System.out.printf("%8d %14.0f %8.2fx%n", shards, rate, rate / baseline);
+        }
+    }
+
+    // EFFECTS: trains a fresh network split into shards on pool and returns its samples per second
+    private static double samplesPerSecond(int shards, ForkJoinPool pool, Tensor inputs, Tensor targets,
+            int batchSize, int epochs) {
+        NeuralNetwork network = BenchmarkData.mlp(SHAPE);
+        for (Layer layer : network.getLayers()) {
+            if (layer instanceof DenseLayer) {
+                ((DenseLayer) layer).setComputePool(null);
+            }
+        }
+        network.setShuffleSeed(1L);
+        network.setDataParallelism(shards, pool);
+        SgdOptimizer optimizer = new SgdOptimizer(1e-3);
+        network.train(inputs, targets, batchSize, WARMUP_EPOCHS, optimizer);
+        long start = System.nanoTime();
+        network.train(inputs, targets, batchSize, epochs, optimizer);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return (double) inputs.getRows() * epochs / seconds;
+    }
+}
@@ -0,0 +1,74 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.DType;
+import model.DenseLayer;
+import model.OffHeapArena;
+import model.Tensor;
+
+// JMH benchmarks for DenseLayer forward and backward passes; shapes are batch x input x output
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DenseLayerBenchmark {
+    @Param({"32x64x64", "128x256x256", "256x1024x1024"})
+    String shape;
+
+    @Param({"FLOAT64", "FLOAT32"})
+    DType dtype;
+
+    @Param({"HEAP", "OFF_HEAP"})
+    String storage;
+
+    private OffHeapArena arena;
+    private DenseLayer layer;
+    private Tensor input;
+    private Tensor gradient;
+
+    @Setup
+    public void setUp() {
+        int[] dims = BenchmarkData.parseShape(shape);
+        layer = new DenseLayer(dims[1], dims[2], dtype);
+        if (storage.equals("OFF_HEAP")) {
+            arena = new OffHeapArena();
+            layer = new DenseLayer(arena.copyOf(layer.getWeights()), arena.copyOf(layer.getBiases()));
+        }
+        input = BenchmarkData.filledTensor(dims[0], dims[1]).toDType(dtype);
+        gradient = BenchmarkData.filledTensor(dims[0], dims[2]).toDType(dtype);
+        layer.forward(input); // backward needs a cached input
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (arena != null) {
+            arena.close();
+        }
+    }
+
+    @Benchmark
+    public Tensor forward() {
+        return layer.forward(input);
+    }
+
+    @Benchmark
+    public Tensor backward() {
+        return layer.backward(gradient);
+    }
+}
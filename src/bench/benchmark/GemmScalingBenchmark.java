@@ -0,0 +1,65 @@
+package benchmark;
+
+import java.util.concurrent.ForkJoinPool;
+
+import model.DenseLayer;
+import model.Tensor;
+
+// Measures how DenseLayer forward and backward passes scale with the size of the compute pool.
+// Usage: GemmScalingBenchmark [inputSize outputSize batchSize]
+public class GemmScalingBenchmark {
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16};
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASURED_ITERATIONS = 5;
+
+    public static void main(String[] args) {
+        int inputSize = args.length > 0 ? Integer.parseInt(args[0]) : 1024;
+        int outputSize = args.length > 1 ? Integer.parseInt(args[1]) : 1024;
+        int batchSize = args.length > 2 ? Integer.parseInt(args[2]) : 512;
+
+        DenseLayer layer = new DenseLayer(inputSize, outputSize);
+        Tensor input = filledTensor(batchSize, inputSize);
+        Tensor gradient = filledTensor(batchSize, outputSize);
+        double flops = 6.0 * batchSize * inputSize * outputSize; // forward + two gradient products
+
+        System.out.printf("DenseLayer %dx%d, batch %d, %d available processors%n",
+                inputSize, outputSize, batchSize, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%8s %12s %10s %9s%n", "threads", "ms/step", "GFLOP/s", "speedup");
+        double baseline = 0;
+        for (int threads : THREAD_COUNTS) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            layer.setComputePool(pool);
+            double millis = timeStep(layer, input, gradient);
+            pool.shutdown();
+            if (threads == 1) {
+                baseline = millis;
+            }
+            System.out.printf("%8d %12.2f %10.2f %8.2fx%n", threads, millis, flops / millis / 1e6, baseline / millis);
+        }
+    }
+
+    // EFFECTS: returns the mean time in milliseconds of one forward and backward pass
+    private static double timeStep(DenseLayer layer, Tensor input, Tensor gradient) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            layer.forward(input);
+            layer.backward(gradient);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            layer.forward(input);
+            layer.backward(gradient);
+        }
+        return (System.nanoTime() - start) / 1e6 / MEASURED_ITERATIONS;
+    }
+
+    // EFFECTS: returns a rows x cols tensor filled with deterministic values in [-1, 1]
+    private static Tensor filledTensor(int rows, int cols) {
+        Tensor tensor = new Tensor(rows, cols);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                tensor.set(i, j, Math.sin(i * 31 + j));
+            }
+        }
+        return tensor;
+    }
+}
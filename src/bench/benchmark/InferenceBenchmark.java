@@ -0,0 +1,52 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.InferenceSession;
+import model.Tensor;
+
+// JMH benchmark for predictions of one shared InferenceSession served to several threads at once;
+// shapes are the layer widths of the MLP, input first. Run with -t to change the thread count.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class InferenceBenchmark {
+
+    @Param({"64x128x10", "256x512x512x10"})
+    String shape;
+
+    @Param({"1", "32"})
+    int rows;
+
+    private InferenceSession session;
+    private Tensor input;
+
+    @Setup
+    public void setUp() {
+        int[] widths = BenchmarkData.parseShape(shape);
+        session = BenchmarkData.mlp(widths).newInferenceSession();
+        input = BenchmarkData.filledTensor(rows, widths[0]);
+    }
+
+    @Benchmark
+    public Tensor predict() {
+        return session.predict(input);
+    }
+}
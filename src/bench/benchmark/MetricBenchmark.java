@@ -0,0 +1,53 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.Metric;
+import model.Tensor;
+
+// JMH benchmarks for the MSE loss and its gradient; shapes are batch x outputs
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricBenchmark {
+    @Param({"64x10", "256x1024"})
+    String shape;
+
+    private Metric metric;
+    private Tensor output;
+    private Tensor target;
+
+    @Setup
+    public void setUp() {
+        int[] dims = BenchmarkData.parseShape(shape);
+        metric = new Metric();
+        output = BenchmarkData.filledTensor(dims[0], dims[1]);
+        target = BenchmarkData.filledTensor(dims[0], dims[1]);
+        target.multiply(target);
+    }
+
+    @Benchmark
+    public double calculateLoss() {
+        return metric.calculateLoss(output, target);
+    }
+
+    @Benchmark
+    public Tensor lossGradient() {
+        return metric.lossGradient(output, target);
+    }
+}
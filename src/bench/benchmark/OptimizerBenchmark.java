@@ -0,0 +1,48 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.DenseLayer;
+import model.SgdOptimizer;
+
+// JMH benchmark for one SGD update of a square DenseLayer's weights and biases
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OptimizerBenchmark {
+    @Param({"64", "256", "1024"})
+    int size;
+
+    private DenseLayer layer;
+    private SgdOptimizer optimizer;
+
+    @Setup
+    public void setUp() {
+        layer = new DenseLayer(size, size);
+        layer.forward(BenchmarkData.filledTensor(32, size));
+        layer.backward(BenchmarkData.filledTensor(32, size));
+        // A tiny rate keeps the repeated updates from moving the weights far
+        optimizer = new SgdOptimizer(1e-12);
+    }
+
+    @Benchmark
+    public DenseLayer updateParameters() {
+        optimizer.updateParameters(layer);
+        return layer;
+    }
+}
@@ -0,0 +1,92 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.NeuralNetwork;
+import persistence.CheckpointReader;
+import persistence.CheckpointWriter;
+import persistence.JsonReader;
+import persistence.JsonWriter;
+
+// JMH benchmarks for saving a network and loading it back, as JSON streamed by JsonWriter and
+// JsonReader.readNetwork, as JSON through an org.json tree (the previous implementation, kept as a
+// baseline), or as a binary checkpoint (CheckpointWriter and CheckpointReader, which maps the
+// weights lazily); the network has two square hidden layers of the given width
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersistenceBenchmark {
+    @Param({"64", "256"})
+    int width;
+
+    @Param({"JSON", "JSON_TREE", "CHECKPOINT"})
+    String format;
+
+    private NeuralNetwork network;
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        network = BenchmarkData.mlp(width, width, width);
+        file = Files.createTempFile("jtorch-bench", format.equals("CHECKPOINT") ? ".ckpt" : ".json");
+        write();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Path write() throws IOException {
+        if (format.equals("CHECKPOINT")) {
+            new CheckpointWriter(file.toString()).write(network);
+            return file;
+        } else if (format.equals("JSON_TREE")) {
+            Files.writeString(file, network.toJson().toString(4));
+            return file;
+        }
+        JsonWriter writer = new JsonWriter(file.toString());
+        writer.open();
+        writer.write(network);
+        writer.close();
+        return file;
+    }
+
+    @Benchmark
+    public NeuralNetwork read() throws IOException {
+        if (format.equals("CHECKPOINT")) {
+            return new CheckpointReader(file.toString()).read();
+        } else if (format.equals("JSON_TREE")) {
+            JSONObject json = new JsonReader(file.toString()).readJson();
+            return NeuralNetwork.fromJson(json);
+        }
+        return new JsonReader(file.toString()).readNetwork();
+    }
+
+    @Benchmark
+    public NeuralNetwork roundTrip() throws IOException {
+        write();
+        return read();
+    }
+}
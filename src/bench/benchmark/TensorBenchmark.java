@@ -0,0 +1,63 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.Tensor;
+
+// JMH benchmarks for element-wise Tensor operations and copying the data out of a tensor
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TensorBenchmark {
+    @Param({"64", "256", "1024"})
+    int size;
+
+    private Tensor target;
+    private Tensor addend;
+    private Tensor signs;
+
+    @Setup
+    public void setUp() {
+        target = BenchmarkData.filledTensor(size, size);
+        addend = BenchmarkData.filledTensor(size, size);
+        // Multiplying by +-1 keeps the values from drifting into denormals or infinity
+        signs = new Tensor(size, size);
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                signs.set(i, j, (i + j) % 2 == 0 ? 1.0 : -1.0);
+            }
+        }
+    }
+
+    @Benchmark
+    public Tensor add() {
+        target.add(addend);
+        return target;
+    }
+
+    @Benchmark
+    public Tensor multiply() {
+        target.multiply(signs);
+        return target;
+    }
+
+    @Benchmark
+    public double[][] getData() {
+        return target.getData();
+    }
+}
@@ -0,0 +1,66 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.DType;
+import model.NeuralNetwork;
+import model.SgdOptimizer;
+import model.Tensor;
+
+// JMH benchmark for one epoch of NeuralNetwork.train over 2048 samples in batches of 64;
+// shapes are the layer widths of the MLP, input first
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrainingBenchmark {
+    private static final int SAMPLES = 2048;
+    private static final int BATCH_SIZE = 64;
+
+    @Param({"64x128x10", "256x512x512x10"})
+    String shape;
+
+    // A dtype, or MIXED for float32 compute on float64 master weights
+    @Param({"FLOAT64", "FLOAT32", "MIXED"})
+    String precision;
+
+    private NeuralNetwork network;
+    private SgdOptimizer optimizer;
+    private Tensor inputs;
+    private Tensor targets;
+
+    @Setup
+    public void setUp() {
+        int[] widths = BenchmarkData.parseShape(shape);
+        network = BenchmarkData.mlp(widths);
+        if (precision.equals("MIXED")) {
+            network.setMixedPrecision(true);
+        } else {
+            network.setDType(DType.valueOf(precision));
+        }
+        network.setShuffleSeed(1L);
+        optimizer = new SgdOptimizer(1e-3);
+        inputs = BenchmarkData.filledTensor(SAMPLES, widths[0]).toDType(network.getComputeDType());
+        targets = BenchmarkData.filledTensor(SAMPLES, widths[widths.length - 1]).toDType(network.getComputeDType());
+    }
+
+    @Benchmark
+    public NeuralNetwork trainOneEpoch() {
+        network.train(inputs, targets, BATCH_SIZE, 1, optimizer);
+        return network;
+    }
+}
@@ -0,0 +1,128 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import model.ActivationLayer;
+import model.DenseLayer;
+import model.Layer;
+import model.NeuralNetwork;
+import model.SgdOptimizer;
+import model.Tensor;
+
+// Measures end-to-end NeuralNetwork.train throughput for a few standard MLP shapes, reporting
+// samples per second, time per epoch and optimizer steps per epoch. A change in steps per epoch
+// means the training loop itself changed, not just its speed. Both training entry points are
+// measured: "tensor" slices one dataset tensor into batches, "list" passes pre-split batches.
+// Usage: TrainingThroughputBenchmark [samples batchSize epochs]
+public class TrainingThroughputBenchmark {
+    // Layer widths of each benchmarked MLP, input first
+    private static final int[][] SHAPES = {{64, 128, 10}, {256, 512, 512, 10}, {784, 1024, 1024, 10}};
+    private static final int WARMUP_EPOCHS = 2;
+
+    public static void main(String[] args) {
+        int samples = args.length > 0 ? Integer.parseInt(args[0]) : 4096;
+        int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : 128;
+        int epochs = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        System.out.printf("%d samples, batch %d, %d epochs, %d available processors%n",
+                samples, batchSize, epochs, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-22s %-7s %14s %12s %12s%n", "shape", "api", "samples/s", "ms/epoch", "steps/epoch");
+        for (int[] shape : SHAPES) {
+            run(shape, samples, batchSize, epochs, false);
+            run(shape, samples, batchSize, epochs, true);
+        }
+    }
+
+    // EFFECTS: trains a fresh network of the given shape through the tensor or list API and prints
+    // its throughput
+    private static void run(int[] shape, int samples, int batchSize, int epochs, boolean useList) {
+        NeuralNetwork network = buildNetwork(shape);
+        network.setShuffleSeed(1L);
+        Tensor inputs = filledTensor(samples, shape[0]);
+        Tensor targets = filledTensor(samples, shape[shape.length - 1]);
+        CountingOptimizer optimizer = new CountingOptimizer(1e-3);
+
+        List<Tensor> inputBatches = split(inputs, batchSize);
+        List<Tensor> targetBatches = split(targets, batchSize);
+
+        train(network, useList ? inputBatches : null, useList ? targetBatches : null, inputs, targets,
+                batchSize, WARMUP_EPOCHS, optimizer);
+        optimizer.updates = 0;
+        long start = System.nanoTime();
+        train(network, useList ? inputBatches : null, useList ? targetBatches : null, inputs, targets,
+                batchSize, epochs, optimizer);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        int denseLayers = shape.length - 1;
+        System.out.printf("%-22s %-7s %14.0f %12.2f %12d%n", describe(shape), useList ? "list" : "tensor",
+                (double) samples * epochs / seconds, seconds * 1e3 / epochs,
+                optimizer.updates / denseLayers / epochs);
+    }
+
+    // EFFECTS: trains through the list API when batch lists are given, else through the tensor API
+    private static void train(NeuralNetwork network, List<Tensor> inputBatches, List<Tensor> targetBatches,
+            Tensor inputs, Tensor targets, int batchSize, int epochs, SgdOptimizer optimizer) {
+        if (inputBatches != null) {
+            network.train(inputBatches, targetBatches, epochs, optimizer);
+        } else {
+            network.train(inputs, targets, batchSize, epochs, optimizer);
+        }
+    }
+
+    // EFFECTS: returns consecutive row views of tensor holding at most batchSize rows each
+    private static List<Tensor> split(Tensor tensor, int batchSize) {
+        List<Tensor> batches = new ArrayList<>();
+        for (int start = 0; start < tensor.getRows(); start += batchSize) {
+            batches.add(tensor.sliceRows(start, Math.min(start + batchSize, tensor.getRows())));
+        }
+        return batches;
+    }
+
+    // EFFECTS: returns an MLP with relu between dense layers of the given widths
+    private static NeuralNetwork buildNetwork(int[] shape) {
+        NeuralNetwork network = new NeuralNetwork();
+        for (int i = 0; i + 1 < shape.length; i++) {
+            if (i > 0) {
+                network.addLayer(new ActivationLayer("relu"));
+            }
+            network.addLayer(new DenseLayer(shape[i], shape[i + 1]));
+        }
+        return network;
+    }
+
+    // EFFECTS: returns the widths of shape joined by "-"
+    private static String describe(int[] shape) {
+        StringBuilder sb = new StringBuilder();
+        for (int width : shape) {
+            sb.append(sb.length() == 0 ? "" : "-").append(width);
+        }
+        return sb.toString();
+    }
+
+    // EFFECTS: returns a rows x cols tensor filled with deterministic values in [-1, 1]
+    private static Tensor filledTensor(int rows, int cols) {
+        Tensor tensor = new Tensor(rows, cols);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                tensor.set(i, j, Math.sin(i * 31 + j));
+            }
+        }
+        return tensor;
+    }
+
+    // SGD that counts how many layer updates it performs
+    private static class CountingOptimizer extends SgdOptimizer {
+        private long updates;
+
+        CountingOptimizer(double learningRate) {
+            super(learningRate);
+        }
+
+        @Override
+        public void updateParameters(Layer layer) {
+            updates++;
+            super.updateParameters(layer);
+        }
+    }
+}
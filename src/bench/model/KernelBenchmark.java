@@ -0,0 +1,81 @@
+package model;
+
+import java.util.Random;
+
+// Compares the scalar kernels with the active kernels for each element-wise operation and for the
+// GEMM micro-kernel. Run with --add-modules jdk.incubator.vector to measure the vector kernels;
+// without it both columns use the scalar kernels.
+// Usage: KernelBenchmark [length]
+public class KernelBenchmark {
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    private interface Operation {
+        void run(Kernels kernels);
+    }
+
+    public static void main(String[] args) {
+        int len = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 16;
+        Random rand = new Random(1);
+        double[] x = randomArray(rand, len);
+        double[] y = randomArray(rand, len);
+        double[] out = new double[len];
+        double[] signs = new double[len]; // multiplying by +-1 keeps out from drifting to denormals
+        for (int i = 0; i < len; i++) {
+            signs[i] = (i & 1) == 0 ? 1.0 : -1.0;
+        }
+        double[] packedA = randomArray(rand, Gemm.KC * Gemm.MC);
+        double[] packedB = randomArray(rand, Gemm.KC * Gemm.NR);
+        double[] tile = new double[Gemm.MR * Gemm.NR];
+
+        Kernels active = Kernels.active();
+        System.out.printf("Active kernels: %s, %d elements%n", active.name(), len);
+        System.out.printf("%-22s %14s %14s %9s%n", "operation", "scalar ns/op", "active ns/op", "speedup");
+        compare("add", len, active, k -> k.add(out, 0, x, 0, len));
+        compare("multiply", len, active, k -> k.multiply(out, 0, signs, 0, len));
+        compare("relu", len, active, k -> k.relu(x, 0, out, 0, len));
+        compare("reluBackward", len, active, k -> k.reluBackward(x, 0, y, 0, out, 0, len));
+        compare("sigmoid", len, active, k -> k.sigmoid(x, 0, out, 0, len));
+        compare("sigmoidBackward", len, active, k -> k.sigmoidBackward(x, 0, y, 0, out, 0, len));
+        compare("sumSquaredDifference", len, active, k -> out[0] = k.sumSquaredDifference(x, 0, y, 0, len));
+        compare("scaledDifference", len, active, k -> k.scaledDifference(x, 0, y, 0, len, out, 0, len));
+        compare("gemmMicroKernel", 1, active, k -> {
+            for (int ir = 0; ir < Gemm.MC; ir += Gemm.MR) {
+                k.gemmMicroKernel(packedA, ir * Gemm.KC, packedB, 0, Gemm.KC, tile, 0, Gemm.NR);
+            }
+        });
+    }
+
+    // EFFECTS: prints the time per call of op with the scalar and the active kernels
+    private static void compare(String name, int len, Kernels active, Operation op) {
+        double scalarNanos = time(Kernels.scalar(), op, len);
+        double activeNanos = time(active, op, len);
+        System.out.printf("%-22s %14.0f %14.0f %8.2fx%n", name, scalarNanos, activeNanos, scalarNanos / activeNanos);
+    }
+
+    // EFFECTS: returns the mean nanoseconds per call of op using kernels
+    private static double time(Kernels kernels, Operation op, int len) {
+        int calls = Math.max(10, (1 << 24) / Math.max(len, 1 << 12));
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            for (int i = 0; i < calls; i++) {
+                op.run(kernels);
+            }
+        }
+        long start = System.nanoTime();
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            for (int i = 0; i < calls; i++) {
+                op.run(kernels);
+            }
+        }
+        return (double) (System.nanoTime() - start) / (MEASURED_ROUNDS * calls);
+    }
+
+    // EFFECTS: returns an array of len values in [-4, 4)
+    private static double[] randomArray(Random rand, int len) {
+        double[] values = new double[len];
+        for (int i = 0; i < len; i++) {
+            values[i] = rand.nextDouble() * 8 - 4;
+        }
+        return values;
+    }
+}
@@ -4,8 +4,13 @@ import org.json.JSONObject;
 
 // Represents an activation layer in a neural network.
 public class ActivationLayer extends Layer {
+    // Buffer slots for the tensors reused across training steps
+    private static final int OUTPUT = 0;
+    private static final int INPUT_GRADIENT = 1;
+    private static final int INPUT_COPY = 2;
+    private static final int GRADIENT_COPY = 3;
 
-    private String activationFunction;
+    private final String activationFunction;
     private Tensor inputCache; // Stores input for use in backward pass
 
     // EFFECTS: initializes the activation layer with the specified function;
@@ -13,12 +18,11 @@ public class ActivationLayer extends Layer {
     public ActivationLayer(String activationFunction) {
         if (activationFunction == null || (!activationFunction.equalsIgnoreCase("relu")
                 && !activationFunction.equalsIgnoreCase("sigmoid"))) {
-            EventLog.getInstance()
-                    .logEvent(new Event("Unsupported activation function attempted: '" + activationFunction + "'"));
+            EventLog.getInstance().warn(() -> "Unsupported activation function attempted: '" + activationFunction
+                    + "'");
             throw new IllegalArgumentException("Unsupported activation function");
         }
-        EventLog.getInstance()
-                .logEvent(new Event("Initialized ActivationLayer with function '" + activationFunction + "'"));
+        EventLog.getInstance().info(() -> "Initialized ActivationLayer with function '" + activationFunction + "'");
         this.activationFunction = activationFunction.toLowerCase();
     }
 
@@ -26,65 +30,156 @@ public class ActivationLayer extends Layer {
     // EFFECTS: applies activation function to input tensor;
     // throws IllegalArgumentException if input is null
     public Tensor forward(Tensor input) {
+        checkInput(input);
+        this.inputCache = input; // Store input for backpropagation
+
+        Tensor output = buffer(OUTPUT, input.getRows(), input.getCols(), input.getDType());
+        apply(input, output);
+        return output;
+    }
+
+    // EFFECTS: applies activation function to input tensor, returning a new tensor without keeping
+    // the input; safe to call from several threads at once;
+    // throws IllegalArgumentException if input is null
+    public Tensor infer(Tensor input) {
+        checkInput(input);
+        Tensor output = new Tensor(input.getRows(), input.getCols(), input.getDType());
+        apply(input, output);
+        return output;
+    }
+
+    // Helper method to reject a null input
+    private static void checkInput(Tensor input) {
         if (input == null) {
-            EventLog.getInstance()
-                    .logEvent(new Event("Attempted forward pass with null input tensor in ActivationLayer."));
+            EventLog.getInstance().warn(() -> "Attempted forward pass with null input tensor in ActivationLayer.");
             throw new IllegalArgumentException("Input cannot be null");
         }
-        this.inputCache = input; // Store input for backpropagation
+    }
 
-        double[][] inputData = input.getData();
-        double[][] outputData = new double[inputData.length][inputData[0].length];
-
-        for (int i = 0; i < inputData.length; i++) {
-            for (int j = 0; j < inputData[i].length; j++) {
-                double x = inputData[i][j];
-                if (activationFunction.equals("relu")) {
-                    outputData[i][j] = Math.max(0, x);
-                } else if (activationFunction.equals("sigmoid")) {
-                    outputData[i][j] = 1 / (1 + Math.exp(-x));
-                }
+    // Helper method writing the activation of every element of input into output; an off-heap
+    // input is first copied into output, which is on the heap, and activated there in place
+    private void apply(Tensor input, Tensor output) {
+        int cols = input.getCols();
+        Kernels kernels = Kernels.active();
+        boolean relu = activationFunction.equals("relu");
+        Tensor source = input;
+        if (input.isOffHeap()) {
+            output.copyFrom(input);
+            source = output;
+        }
+
+        for (int i = 0; i < input.getRows(); i++) {
+            int inRow = source.rowStart(i);
+            int outRow = output.rowStart(i);
+            if (input.getDType() == DType.FLOAT32) {
+                forwardRow(kernels, relu, source.floatArray(), inRow, output.floatArray(), outRow, cols);
+            } else {
+                forwardRow(kernels, relu, source.array(), inRow, output.array(), outRow, cols);
             }
         }
-        return new Tensor(outputData);
+    }
+
+    // Helper method applying the activation to one row
+    private static void forwardRow(Kernels kernels, boolean relu, double[] in, int inRow, double[] out, int outRow,
+            int cols) {
+        if (relu) {
+            kernels.relu(in, inRow, out, outRow, cols);
+        } else {
+            kernels.sigmoid(in, inRow, out, outRow, cols);
+        }
+    }
+
+    // Helper method applying the activation to one FLOAT32 row
+    private static void forwardRow(Kernels kernels, boolean relu, float[] in, int inRow, float[] out, int outRow,
+            int cols) {
+        if (relu) {
+            kernels.relu(in, inRow, out, outRow, cols);
+        } else {
+            kernels.sigmoid(in, inRow, out, outRow, cols);
+        }
     }
 
     // EFFECTS: computes gradient of activation function and multiplies
     // element-wise;
-    // throws IllegalArgumentException if gradient is null
+    // throws IllegalArgumentException if gradient is null or its dtype differs from the last input
     public Tensor backward(Tensor gradient) {
+        checkGradient(gradient);
+        int rows = gradient.getRows();
+        int cols = gradient.getCols();
+        Tensor outputGrad = buffer(INPUT_GRADIENT, rows, cols, gradient.getDType());
+        Tensor input = onHeap(inputCache, INPUT_COPY);
+        Tensor grad = onHeap(gradient, GRADIENT_COPY);
+        Kernels kernels = Kernels.active();
+        boolean relu = activationFunction.equals("relu");
+
+        for (int i = 0; i < rows; i++) {
+            int inRow = input.rowStart(i);
+            int gradRow = grad.rowStart(i);
+            int outRow = outputGrad.rowStart(i);
+            if (gradient.getDType() == DType.FLOAT32) {
+                backwardRow(kernels, relu, input.floatArray(), inRow, grad.floatArray(), gradRow,
+                        outputGrad.floatArray(), outRow, cols);
+            } else {
+                backwardRow(kernels, relu, input.array(), inRow, grad.array(), gradRow,
+                        outputGrad.array(), outRow, cols);
+            }
+        }
+        return outputGrad;
+    }
+
+    // Helper method to reject a null gradient or one whose dtype differs from the last input
+    private void checkGradient(Tensor gradient) {
         if (gradient == null) {
-            EventLog.getInstance()
-                    .logEvent(new Event("Attempted backward pass with null gradient tensor in ActivationLayer."));
+            EventLog.getInstance().warn(() -> "Attempted backward pass with null gradient tensor in ActivationLayer.");
             throw new IllegalArgumentException("Gradient cannot be null");
         }
+        if (gradient.getDType() != inputCache.getDType()) {
+            throw new IllegalArgumentException("Gradient dtype does not match input");
+        }
+    }
 
-        double[][] gradData = gradient.getData();
-        double[][] inputData = inputCache.getData();
-        double[][] outputGradData = new double[gradData.length][gradData[0].length];
-
-        for (int i = 0; i < gradData.length; i++) {
-            for (int j = 0; j < gradData[i].length; j++) {
-                double x = inputData[i][j];
-                double derivative = 0.0;
-                if (activationFunction.equals("relu")) {
-                    derivative = x > 0 ? 1 : 0;
-                } else if (activationFunction.equals("sigmoid")) {
-                    double sigmoid = 1 / (1 + Math.exp(-x));
-                    derivative = sigmoid * (1 - sigmoid);
-                }
-                outputGradData[i][j] = gradData[i][j] * derivative;
-            }
+    // Helper method returning tensor if it is on the heap, and otherwise a copy of it in the
+    // buffer for slot, so that an off-heap input or gradient is read into a reused heap tensor
+    private Tensor onHeap(Tensor tensor, int slot) {
+        if (!tensor.isOffHeap()) {
+            return tensor;
         }
-        return new Tensor(outputGradData);
+        Tensor copy = buffer(slot, tensor.getRows(), tensor.getCols(), tensor.getDType());
+        copy.copyFrom(tensor);
+        return copy;
+    }
+
+    // Helper method applying the activation's derivative to one row
+    private static void backwardRow(Kernels kernels, boolean relu, double[] in, int inRow, double[] grad,
+            int gradRow, double[] out, int outRow, int cols) {
+        if (relu) {
+            kernels.reluBackward(in, inRow, grad, gradRow, out, outRow, cols);
+        } else {
+            kernels.sigmoidBackward(in, inRow, grad, gradRow, out, outRow, cols);
+        }
+    }
+
+    // Helper method applying the activation's derivative to one FLOAT32 row
+    private static void backwardRow(Kernels kernels, boolean relu, float[] in, int inRow, float[] grad, int gradRow,
+            float[] out, int outRow, int cols) {
+        if (relu) {
+            kernels.reluBackward(in, inRow, grad, gradRow, out, outRow, cols);
+        } else {
+            kernels.sigmoidBackward(in, inRow, grad, gradRow, out, outRow, cols);
+        }
+    }
+
+    // EFFECTS: returns a new activation layer with the same function
+    @Override
+    Layer replica() {
+        return new ActivationLayer(activationFunction);
     }
 
     // EFFECTS: does nothing as activation layers typically have no parameters;
     // throws IllegalArgumentException if optimizer is null
     public void updateParameters(Optimizer optimizer) {
         if (optimizer == null) {
-            EventLog.getInstance()
-                    .logEvent(new Event("Attempted to update parameters with null optimizer in ActivationLayer."));
+            EventLog.getInstance().warn(() -> "Attempted to update parameters with null optimizer in ActivationLayer.");
             throw new IllegalArgumentException("Optimizer cannot be null");
         }
     }
@@ -103,16 +198,16 @@ public class ActivationLayer extends Layer {
         JSONObject json = new JSONObject();
         json.put("type", "ActivationLayer");
         json.put("activationFunction", activationFunction);
-        EventLog.getInstance()
-                .logEvent(new Event("Serialized ActivationLayer to JSON with function '" + activationFunction + "'"));
+        EventLog.getInstance().debug(() -> "Serialized ActivationLayer to JSON with function '"
+                + activationFunction + "'");
         return json;
     }
 
     // EFFECTS: Construct ActivationLayer from a JSONObject
     public static ActivationLayer fromJson(JSONObject json) {
         String activationFunction = json.getString("activationFunction");
-        EventLog.getInstance().logEvent(
-                new Event("Deserialized ActivationLayer from JSON with function '" + activationFunction + "'"));
+        EventLog.getInstance().debug(() -> "Deserialized ActivationLayer from JSON with function '"
+                + activationFunction + "'");
         return new ActivationLayer(activationFunction);
     }
 }
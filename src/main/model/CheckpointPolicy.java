@@ -0,0 +1,278 @@
+package model;
+
+import org.json.JSONObject;
+import persistence.CheckpointWriter;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Represents a policy that saves binary checkpoints of a network while it trains, every everySteps
+// optimizer steps or every everyMillis milliseconds, whichever comes first (0 turns either off).
+// When a checkpoint is due, the training thread copies the parameters into a preallocated
+// snapshot, which costs about as much as one optimizer update, and a background thread writes it
+// with CheckpointWriter to a temporary file, forces it to disk and atomically renames it to
+// checkpoint-<step>.ckpt in the directory. Only the newest keep checkpoints are kept, counting
+// those already in the directory when the policy is created, which are older than any it writes. The
+// checkpoints hold the full training state, so NeuralNetwork.resume can continue from any of them.
+// Two snapshots are used in turn, so training never waits for the disk: if both are still being
+// written when a checkpoint comes due, it is taken at the first step after one is free.
+public class CheckpointPolicy implements AutoCloseable {
+    private static final int SNAPSHOTS = 2;
+    private static final Pattern CHECKPOINT_NAME = Pattern.compile("checkpoint-(\\d{10})\\.ckpt");
+
+    private final Path directory;
+    private final int everySteps;
+    private final long everyNanos;
+    private final int keep;
+    private final ExecutorService writer;
+    private final BlockingQueue<Snapshot> freeSnapshots = new ArrayBlockingQueue<>(SNAPSHOTS);
+    private final Deque<Path> checkpoints = new ArrayDeque<>(); // Oldest first; guarded by itself
+    private volatile IOException failure;
+    private volatile boolean closed;
+    private long steps;
+    private long lastCheckpointStep;
+    private long lastCheckpointNanos;
+    private long deferredSteps;
+
+    // EFFECTS: creates a policy writing checkpoints to directory (created if missing) every
+    // everySteps steps and every everyMillis milliseconds, keeping the newest keep of them and of
+    // the checkpoints already in directory; close throws the IOException if those cannot be listed;
+    // throws IllegalArgumentException if directory is null, everySteps or everyMillis is negative,
+    // both are 0, or keep <= 0
+    public CheckpointPolicy(Path directory, int everySteps, long everyMillis, int keep) {
+        if (directory == null || everySteps < 0 || everyMillis < 0 || (everySteps == 0 && everyMillis == 0)
+                || keep <= 0) {
+            EventLog.getInstance().warn(() -> "Invalid checkpoint policy parameters provided.");
+            throw new IllegalArgumentException("Invalid checkpoint policy parameters");
+        }
+        this.directory = directory;
+        this.everySteps = everySteps;
+        this.everyNanos = TimeUnit.MILLISECONDS.toNanos(everyMillis);
+        this.keep = keep;
+        this.writer = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "checkpoint-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < SNAPSHOTS; i++) {
+            freeSnapshots.add(new Snapshot());
+        }
+        this.lastCheckpointNanos = System.nanoTime();
+        findExistingCheckpoints();
+    }
+
+    // Helper method adding the checkpoints already in the directory, ordered by step, to those
+    // kept, so that a policy continuing an earlier run also deletes that run's checkpoints
+    private void findExistingCheckpoints() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> CHECKPOINT_NAME.matcher(file.getFileName().toString()).matches())
+                    .sorted(Comparator.comparingLong(CheckpointPolicy::stepOf))
+                    .forEach(checkpoints::addLast);
+        } catch (IOException e) {
+            failure = e;
+            EventLog.getInstance().warn(() -> "Failed to list checkpoints in " + directory + ": " + e.getMessage());
+        }
+    }
+
+    // EFFECTS: returns the step in the name of checkpoint, which matches CHECKPOINT_NAME
+    private static long stepOf(Path checkpoint) {
+        Matcher matcher = CHECKPOINT_NAME.matcher(checkpoint.getFileName().toString());
+        matcher.matches();
+        return Long.parseLong(matcher.group(1));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: counts one optimizer step of nn and, if a checkpoint is due and a snapshot is free,
+    // snapshots nn and the state of optimizer and queues the snapshot to be written;
+    // does nothing once the policy is closed
+    void onStep(NeuralNetwork nn, Optimizer optimizer) {
+        if (closed) {
+            return;
+        }
+        steps++;
+        boolean due = (everySteps > 0 && steps - lastCheckpointStep >= everySteps)
+                || (everyNanos > 0 && System.nanoTime() - lastCheckpointNanos >= everyNanos);
+        if (!due) {
+            return;
+        }
+        Snapshot snapshot = freeSnapshots.poll();
+        if (snapshot == null) {
+            deferredSteps++;
+            return;
+        }
+        snapshot.capture(nn, optimizer);
+        lastCheckpointStep = steps;
+        lastCheckpointNanos = System.nanoTime();
+        writer.execute(() -> write(snapshot));
+    }
+
+    // Helper method run by the background thread: writes snapshot to a temporary file, forces it
+    // to disk, renames it into place and deletes the checkpoints beyond keep
+    private void write(Snapshot snapshot) {
+        Path target = directory.resolve(String.format("checkpoint-%010d.ckpt", snapshot.step));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(directory);
+            new CheckpointWriter(temp.toString()).write(snapshot.network, snapshot.trainingState);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            EventLog.getInstance().debug(() -> "Wrote checkpoint " + target);
+            prune(target);
+        } catch (IOException e) {
+            failure = e;
+            EventLog.getInstance().warn(() -> "Failed to write checkpoint " + target + ": " + e.getMessage());
+        } finally {
+            freeSnapshots.add(snapshot);
+        }
+    }
+
+    // Helper method recording target as the newest checkpoint and deleting the oldest beyond keep
+    private void prune(Path target) throws IOException {
+        synchronized (checkpoints) {
+            checkpoints.remove(target);
+            checkpoints.addLast(target);
+            while (checkpoints.size() > keep) {
+                Files.deleteIfExists(checkpoints.removeFirst());
+            }
+        }
+    }
+
+    // EFFECTS: returns the checkpoints that are still kept, those found in the directory when this
+    // policy was created first, and each group oldest first
+    public List<Path> getCheckpoints() {
+        synchronized (checkpoints) {
+            return new ArrayList<>(checkpoints);
+        }
+    }
+
+    // EFFECTS: returns the number of steps at which a due checkpoint waited for a free snapshot
+    public long getDeferredSteps() {
+        return deferredSteps;
+    }
+
+    // EFFECTS: blocks until every queued checkpoint has been written
+    void awaitWrites() throws InterruptedException {
+        try {
+            writer.submit(() -> null).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops taking checkpoints, waits for the queued ones to be written and stops the
+    // background thread; throws IOException if writing any checkpoint failed
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        writer.shutdown();
+        try {
+            // Keep waiting: a checkpoint being renamed into place must not be abandoned
+            boolean terminated = false;
+            while (!terminated) {
+                terminated = writer.awaitTermination(1, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // Represents a copy of a network's parameters and training state waiting to be written;
+    // its tensors are reused by later checkpoints of a network with the same architecture
+    private static final class Snapshot {
+        private NeuralNetwork network;
+        private JSONObject trainingState;
+        private long step;
+
+        // MODIFIES: this
+        // EFFECTS: copies the parameters and training state of source and the state of optimizer
+        void capture(NeuralNetwork source, Optimizer optimizer) {
+            if (!matches(source)) {
+                network = new NeuralNetwork();
+                network.setDType(source.getDType());
+                for (Layer layer : source.getLayers()) {
+                    network.addLayer(copyLayer(layer));
+                }
+            } else {
+                for (int i = 0; i < source.getLayers().size(); i++) {
+                    if (source.getLayers().get(i) instanceof DenseLayer) {
+                        DenseLayer from = (DenseLayer) source.getLayers().get(i);
+                        DenseLayer to = (DenseLayer) network.getLayers().get(i);
+                        to.getWeights().copyFrom(from.getWeights());
+                        to.getBiases().copyFrom(from.getBiases());
+                    }
+                }
+            }
+            this.step = source.getStepCount();
+            this.trainingState = source.trainingState(optimizer);
+        }
+
+        // EFFECTS: returns true if the snapshot holds a network with the architecture of source
+        private boolean matches(NeuralNetwork source) {
+            if (network == null || network.getDType() != source.getDType()
+                    || network.getLayers().size() != source.getLayers().size()) {
+                return false;
+            }
+            for (int i = 0; i < source.getLayers().size(); i++) {
+                Layer from = source.getLayers().get(i);
+                Layer to = network.getLayers().get(i);
+                if (!(from instanceof DenseLayer)) {
+                    if (to instanceof DenseLayer || !from.toJson().toString().equals(to.toJson().toString())) {
+                        return false;
+                    }
+                } else if (!(to instanceof DenseLayer) || !sameShape((DenseLayer) from, (DenseLayer) to)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // EFFECTS: returns true if both layers have parameters of the same shapes
+        private static boolean sameShape(DenseLayer a, DenseLayer b) {
+            return a.getWeights().getRows() == b.getWeights().getRows()
+                    && a.getWeights().getCols() == b.getWeights().getCols();
+        }
+
+        // EFFECTS: returns a copy of layer whose parameters live on the heap
+        private static Layer copyLayer(Layer layer) {
+            if (layer instanceof DenseLayer) {
+                DenseLayer dense = (DenseLayer) layer;
+                return new DenseLayer(copyTensor(dense.getWeights()), copyTensor(dense.getBiases()));
+            }
+            return ActivationLayer.fromJson(layer.toJson());
+        }
+
+        // EFFECTS: returns a heap copy of tensor
+        private static Tensor copyTensor(Tensor tensor) {
+            Tensor copy = new Tensor(tensor.getRows(), tensor.getCols(), tensor.getDType());
+            copy.copyFrom(tensor);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package model;
+
+// Represents the element type a tensor stores. FLOAT32 halves the memory and bandwidth of
+// parameters and activations at the cost of precision; arithmetic runs in the tensor's own type.
+public enum DType {
+    FLOAT64(Double.BYTES),
+    FLOAT32(Float.BYTES);
+
+    private final int byteSize;
+
+    DType(int byteSize) {
+        this.byteSize = byteSize;
+    }
+
+    // EFFECTS: returns the number of bytes used to store one element
+    public int getByteSize() {
+        return byteSize;
+    }
+}
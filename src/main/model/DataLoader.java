@@ -0,0 +1,208 @@
+package model;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Represents a source of mini-batches drawn from a dataset. Each call to iterator() starts a new
+// epoch; up to prefetch batches ahead of the consumer are assembled by worker threads, so that
+// loading and decoding samples overlaps with training on the previous batch. Batches are
+// delivered in a fixed order for a given shuffle seed, however many workers there are.
+public class DataLoader implements Iterable<DataLoader.Batch>, AutoCloseable {
+    private final Dataset dataset;
+    private final int batchSize;
+    private final boolean shuffle;
+    private final boolean dropLast;
+    private final int prefetch;
+    private final ExecutorService workers; // null when batches are assembled on the caller's thread
+    private final Random random;
+
+    // EFFECTS: creates a loader that yields batches of batchSize samples in dataset order on the
+    // calling thread, keeping a smaller last batch;
+    // throws IllegalArgumentException if dataset is null or batchSize <= 0
+    public DataLoader(Dataset dataset, int batchSize) {
+        this(dataset, batchSize, false, false, 0, 1);
+    }
+
+    // EFFECTS: creates a loader that yields batches of batchSize samples, reshuffling the samples
+    // every epoch if shuffle is true and skipping a final partial batch if dropLast is true;
+    // batches are assembled by the given number of worker threads (0 assembles them on the
+    // caller's thread) and at most prefetch batches are queued ahead of the consumer;
+    // throws IllegalArgumentException if dataset is null, batchSize <= 0, workers < 0,
+    // prefetch <= 0, or dropLast leaves no batches
+    public DataLoader(Dataset dataset, int batchSize, boolean shuffle, boolean dropLast, int workers, int prefetch) {
+        if (dataset == null || batchSize <= 0 || workers < 0 || prefetch <= 0
+                || (dropLast && dataset.size() < batchSize)) {
+            EventLog.getInstance().warn(() -> "Invalid data loader parameters provided.");
+            throw new IllegalArgumentException("Invalid data loader parameters");
+        }
+        this.dataset = dataset;
+        this.batchSize = batchSize;
+        this.shuffle = shuffle;
+        this.dropLast = dropLast;
+        this.prefetch = prefetch;
+        this.workers = workers == 0 ? null : Executors.newFixedThreadPool(workers, r -> {
+            Thread thread = new Thread(r, "data-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.random = new Random();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: seeds the random source used to shuffle samples, making the batch contents reproducible
+    public void setSeed(long seed) {
+        random.setSeed(seed);
+    }
+
+    // EFFECTS: returns the number of batches in each epoch
+    public int batchesPerEpoch() {
+        int size = dataset.size();
+        return dropLast ? size / batchSize : (size + batchSize - 1) / batchSize;
+    }
+
+    // EFFECTS: returns the number of samples delivered in each epoch
+    public int samplesPerEpoch() {
+        return dropLast ? batchesPerEpoch() * batchSize : dataset.size();
+    }
+
+    // EFFECTS: starts a new epoch and returns an iterator over its batches
+    @Override
+    public Iterator<Batch> iterator() {
+        return new EpochIterator(nextOrder());
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops the worker threads; batches still queued are discarded
+    @Override
+    public void close() {
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    // Helper method returning the sample order for the next epoch
+    private int[] nextOrder() {
+        int[] order = new int[dataset.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        if (shuffle) {
+            synchronized (random) {
+                for (int i = order.length - 1; i > 0; i--) {
+                    int j = random.nextInt(i + 1);
+                    int tmp = order[i];
+                    order[i] = order[j];
+                    order[j] = tmp;
+                }
+            }
+        }
+        return order;
+    }
+
+    // Helper method assembling the samples order[start, end) into one batch
+    private Batch assemble(int[] order, int start, int end) {
+        int rows = end - start;
+        int inputSize = dataset.inputSize();
+        int targetSize = dataset.targetSize();
+        double[] inputs = new double[rows * inputSize];
+        double[] targets = new double[rows * targetSize];
+        for (int i = 0; i < rows; i++) {
+            dataset.load(order[start + i], inputs, i * inputSize, targets, i * targetSize);
+        }
+        return new Batch(new Tensor(rows, inputSize, inputs), new Tensor(rows, targetSize, targets));
+    }
+
+    // Represents one batch of inputs and the matching targets
+    public static final class Batch {
+        private final Tensor inputs;
+        private final Tensor targets;
+
+        // EFFECTS: creates a batch from inputs and targets with the same number of rows
+        Batch(Tensor inputs, Tensor targets) {
+            this.inputs = inputs;
+            this.targets = targets;
+        }
+
+        // EFFECTS: returns the inputs of this batch, one sample per row
+        public Tensor getInputs() {
+            return inputs;
+        }
+
+        // EFFECTS: returns the targets of this batch, one sample per row
+        public Tensor getTargets() {
+            return targets;
+        }
+    }
+
+    // Iterates over the batches of one epoch, keeping up to prefetch of them in flight
+    private final class EpochIterator implements Iterator<Batch> {
+        private final int[] order;
+        private final int batches;
+        private final ArrayDeque<Future<Batch>> inFlight = new ArrayDeque<>();
+        private int submitted;
+        private int delivered;
+
+        // EFFECTS: creates the iterator and queues the first batches for the workers
+        EpochIterator(int[] order) {
+            this.order = order;
+            this.batches = batchesPerEpoch();
+            while (workers != null && submitted < batches && inFlight.size() < prefetch) {
+                submitNext();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return delivered < batches;
+        }
+
+        // EFFECTS: returns the next batch, waiting for a worker to finish it if necessary;
+        // throws NoSuchElementException if the epoch is over, and rethrows any RuntimeException
+        // raised by the dataset while assembling the batch
+        @Override
+        public Batch next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more batches in this epoch");
+            }
+            Batch batch = workers == null ? assembleBatch(delivered) : await(inFlight.poll());
+            delivered++;
+            if (workers != null && submitted < batches) {
+                submitNext();
+            }
+            return batch;
+        }
+
+        // Helper method handing the next batch to the workers
+        private void submitNext() {
+            int index = submitted++;
+            inFlight.add(workers.submit(() -> assembleBatch(index)));
+        }
+
+        // Helper method assembling the batch with the given index
+        private Batch assembleBatch(int index) {
+            int start = index * batchSize;
+            return assemble(order, start, Math.min(start + batchSize, order.length));
+        }
+
+        // Helper method waiting for a batch from the workers
+        private Batch await(Future<Batch> future) {
+            try {
+                return future.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException("Failed to load batch", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a batch", e);
+            }
+        }
+    }
+}
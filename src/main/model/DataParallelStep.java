@@ -0,0 +1,163 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+// Runs the forward and backward pass of a training step data-parallel. The mini-batch is split by
+// rows into shards; shard 0 runs on the network's own layers and every other shard on a replica of
+// them, which shares the parameters but keeps its own inputs, results and gradients. The
+// gradients of all shards are then summed in a tree (shard i adds shard i + 1, then shard i adds
+// shard i + 2, and so on, the pairs of each level in parallel) into the network's own layers,
+// ready for one optimizer step. Each shard scales its loss gradient by its share of the rows, so
+// the sum is the gradient of the whole batch.
+final class DataParallelStep {
+    private final int shards;
+    private final ForkJoinPool pool;
+    private final List<List<Layer>> replicas = new ArrayList<>(); // Layers of shards 1, 2, ...
+    private final List<Layer> source = new ArrayList<>(); // The layers the replicas were made from
+    private final Tensor[] lossGradients;
+
+    // REQUIRES: shards > 1 and pool is not null
+    // EFFECTS: creates a step that splits batches into up to shards shards run on pool
+    DataParallelStep(int shards, ForkJoinPool pool) {
+        this.shards = shards;
+        this.pool = pool;
+        this.lossGradients = new Tensor[shards];
+    }
+
+    // EFFECTS: returns the number of shards batches are split into, at most
+    int getShards() {
+        return shards;
+    }
+
+    // EFFECTS: returns the pool the shards run on
+    ForkJoinPool getPool() {
+        return pool;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: makes the replicas match layers, creating them again if the layers were added,
+    // replaced or removed and otherwise pointing them at the layers' current parameters; returns
+    // false if some layer cannot be replicated, in which case the step must run on one thread
+    boolean prepare(List<Layer> layers) {
+        if (!source.equals(layers)) {
+            if (!createReplicas(layers)) {
+                return false;
+            }
+        }
+        for (List<Layer> replica : replicas) {
+            for (int i = 0; i < layers.size(); i++) {
+                replica.get(i).shareParameters(layers.get(i));
+            }
+        }
+        return true;
+    }
+
+    // Helper method creating shards - 1 replicas of layers that reuse their buffers across steps
+    private boolean createReplicas(List<Layer> layers) {
+        replicas.clear();
+        source.clear();
+        for (int s = 1; s < shards; s++) {
+            List<Layer> replica = new ArrayList<>(layers.size());
+            for (Layer layer : layers) {
+                Layer copy = layer.replica();
+                if (copy == null) {
+                    replicas.clear();
+                    return false;
+                }
+                copy.setReuseBuffers(true);
+                replica.add(copy);
+            }
+            replicas.add(replica);
+        }
+        source.addAll(layers);
+        return true;
+    }
+
+    // REQUIRES: prepare(layers) returned true; layers reuse their buffers
+    // MODIFIES: this, layers
+    // EFFECTS: runs forward and backward for input and expected split into shards, leaves the sum
+    // of the shards' gradients in layers and returns the loss of the whole batch; the loss
+    // gradient is multiplied by scale as in Metric.lossGradient
+    double forwardBackward(List<Layer> layers, Tensor input, Tensor expected, Metric metric, double scale) {
+        int rows = input.getRows();
+        int count = Math.min(shards, rows);
+        List<Callable<Double>> tasks = new ArrayList<>(count);
+        for (int s = 0; s < count; s++) {
+            List<Layer> shardLayers = s == 0 ? layers : replicas.get(s - 1);
+            int shard = s;
+            int start = (int) ((long) s * rows / count);
+            int end = (int) ((long) (s + 1) * rows / count);
+            double weight = (double) (end - start) / rows;
+            tasks.add(() -> runShard(shard, shardLayers, input.sliceRows(start, end),
+                    expected.sliceRows(start, end), metric, scale, weight));
+        }
+        double loss = 0;
+        for (double shardLoss : invokeAll(tasks)) {
+            loss += shardLoss;
+        }
+        reduceGradients(layers, count);
+        return loss;
+    }
+
+    // Helper method running forward and backward for one shard holding the fraction weight of the
+    // batch's rows; returns its loss multiplied by weight
+    private double runShard(int shard, List<Layer> shardLayers, Tensor input, Tensor expected, Metric metric,
+            double scale, double weight) {
+        Tensor output = input;
+        for (Layer layer : shardLayers) {
+            output = layer.forward(output);
+        }
+        Tensor grad = Tensor.reuseOrAllocate(lossGradients[shard], output.getRows(), output.getCols(),
+                output.getDType());
+        lossGradients[shard] = grad;
+        double loss = metric.calculateLoss(output, expected) * weight;
+        metric.lossGradient(output, expected, grad, scale * weight);
+        for (int i = shardLayers.size() - 1; i >= 0; i--) {
+            grad = shardLayers.get(i).backward(grad);
+        }
+        return loss;
+    }
+
+    // Helper method summing the gradients of shards 1 .. count - 1 into layers, pairwise in a tree
+    private void reduceGradients(List<Layer> layers, int count) {
+        for (int stride = 1; stride < count; stride *= 2) {
+            List<Callable<Double>> pairs = new ArrayList<>();
+            for (int s = 0; s + stride < count; s += 2 * stride) {
+                List<Layer> target = s == 0 ? layers : replicas.get(s - 1);
+                List<Layer> other = replicas.get(s + stride - 1);
+                pairs.add(() -> {
+                    for (int i = 0; i < target.size(); i++) {
+                        target.get(i).addGradients(other.get(i));
+                    }
+                    return 0.0;
+                });
+            }
+            invokeAll(pairs);
+        }
+    }
+
+    // Helper method running tasks on the pool and returning their results, rethrowing the first
+    // failure
+    private List<Double> invokeAll(List<Callable<Double>> tasks) {
+        List<Double> results = new ArrayList<>(tasks.size());
+        try {
+            for (Future<Double> future : pool.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during a data-parallel step", e);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,21 @@
+package model;
+
+// Represents a source of training samples that a DataLoader reads one row at a time. Rows may be
+// loaded from several worker threads at once, so implementations must be safe for concurrent reads.
+public interface Dataset {
+
+    // EFFECTS: returns the number of samples
+    int size();
+
+    // EFFECTS: returns the number of input values per sample
+    int inputSize();
+
+    // EFFECTS: returns the number of target values per sample
+    int targetSize();
+
+    // REQUIRES: 0 <= index < size(), input has inputSize() elements from inputOffset and target has
+    // targetSize() elements from targetOffset
+    // MODIFIES: input, target
+    // EFFECTS: writes the input and target values of sample index into the given arrays
+    void load(int index, double[] input, int inputOffset, double[] target, int targetOffset);
+}
@@ -1,84 +1,150 @@
 package model;
 
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import org.json.JSONObject;
 
 // Represents a fully connected (dense) layer in a neural network.
+// During mixed-precision training the weights and biases stay in their own dtype as master
+// copies, while forward and backward run on copies in a narrower compute dtype.
 public class DenseLayer extends Layer {
+    // Buffer slots for the tensors reused across training steps
+    private static final int OUTPUT = 0;
+    private static final int INPUT_GRADIENT = 1;
+    private static final int WEIGHT_GRADIENT = 2;
+    private static final int BIAS_GRADIENT = 3;
+    private static final int MASTER_WEIGHT_GRADIENT = 4;
+    private static final int MASTER_BIAS_GRADIENT = 5;
 
     private Tensor weights;
     private Tensor biases;
+    private DType computeDType; // null computes in the dtype of the weights
+    private Tensor computeWeights; // weights in the compute dtype; the same tensor unless they differ
+    private Tensor computeBiases;
     private Tensor inputCache; // Stores input for use in backward pass
     private Tensor weightGradients;
     private Tensor biasGradients;
+    private Tensor computeWeightGradients; // gradients from backward, in the compute dtype
+    private Tensor computeBiasGradients;
+    private ForkJoinPool computePool = ForkJoinPool.commonPool(); // Runs large matrix products
 
     // EFFECTS: initializes weights and biases randomly;
     // throws IllegalArgumentException if inputSize <= 0 or outputSize <= 0
     public DenseLayer(int inputSize, int outputSize) {
+        this(inputSize, outputSize, DType.FLOAT64);
+    }
+
+    // EFFECTS: initializes weights and biases randomly, stored as dtype;
+    // throws IllegalArgumentException if inputSize <= 0, outputSize <= 0 or dtype is null
+    public DenseLayer(int inputSize, int outputSize, DType dtype) {
+        this(inputSize, outputSize, dtype, new Random());
+    }
+
+    // EFFECTS: initializes weights and biases with values drawn from random, stored as dtype, so
+    // that a seeded random gives the same initial parameters every run;
+    // throws IllegalArgumentException if inputSize <= 0, outputSize <= 0, or dtype or random is null
+    public DenseLayer(int inputSize, int outputSize, DType dtype, Random random) {
         if (inputSize <= 0 || outputSize <= 0) {
+            EventLog.getInstance().warn(() -> "Attempted to create a DenseLayer with input size " + inputSize
+                    + " and output size " + outputSize + ".");
             throw new IllegalArgumentException("Input and output sizes must be positive");
         }
-        this.weights = initializeRandomTensor(inputSize, outputSize);
-        this.biases = initializeRandomTensor(1, outputSize);
-        EventLog.getInstance().logEvent(new Event("Dense layer initialized with input size " + inputSize
-                + " and output size " + outputSize));
+        if (dtype == null) {
+            EventLog.getInstance().warn(() -> "Attempted to create a DenseLayer with null dtype.");
+            throw new IllegalArgumentException("Data type cannot be null");
+        }
+        if (random == null) {
+            EventLog.getInstance().warn(() -> "Attempted to create a DenseLayer with null random generator.");
+            throw new IllegalArgumentException("Random generator cannot be null");
+        }
+        this.weights = initializeRandomTensor(inputSize, outputSize, dtype, random);
+        this.biases = initializeRandomTensor(1, outputSize, dtype, random);
+        refreshComputeTensors();
+        EventLog.getInstance().info(() -> "Dense layer initialized with input size " + inputSize
+                + " and output size " + outputSize + (dtype == DType.FLOAT64 ? "" : " (" + dtype + ")"));
     }
 
     // EFFECTS: initializes weights and biases to given Tensor values;
-    // throws IllegalArgumentException if weights and biases Tensors are null.
+    // throws IllegalArgumentException if weights and biases Tensors are null or have different dtypes.
     public DenseLayer(Tensor weights, Tensor biases) {
         if (weights == null || biases == null) {
+            EventLog.getInstance().warn(() -> "Attempted to create a DenseLayer with null weights or biases.");
             throw new IllegalArgumentException("Weights and biases cannot be null");
         }
+        if (weights.getDType() != biases.getDType()) {
+            EventLog.getInstance().warn(() -> "Attempted to create a DenseLayer with " + weights.getDType()
+                    + " weights and " + biases.getDType() + " biases.");
+            throw new IllegalArgumentException("Weights and biases must have the same dtype");
+        }
         this.weights = weights;
         this.biases = biases;
-        EventLog.getInstance().logEvent(new Event("Dense layer initialized with preloaded weights and biases. "
-                + getDescription()));
+        refreshComputeTensors();
+        EventLog.getInstance().info(() -> "Dense layer initialized with preloaded weights and biases. "
+                + getDescription());
+    }
+
+    // EFFECTS: initializes a replica computing on the parameters of source
+    private DenseLayer(DenseLayer source) {
+        shareParameters(source);
+        this.computePool = source.computePool;
     }
 
     // MODIFIES: this
     // EFFECTS: computes output = input * weights + biases;
     // throws IllegalArgumentException if input is null or dimensions are invalid
     public Tensor forward(Tensor input) {
+        Tensor weights = computeWeights;
+        checkInput(input, weights);
+
+        this.inputCache = input; // Store input for backpropagation
+
+        Tensor output = buffer(OUTPUT, input.getRows(), weights.getCols(), weights.getDType());
+
+        matMul(input, weights, computeBiases, output);
+        return output;
+    }
+
+    // EFFECTS: computes output = input * weights + biases into a new tensor without keeping the
+    // input; safe to call from several threads at once;
+    // throws IllegalArgumentException if input is null or dimensions are invalid
+    public Tensor infer(Tensor input) {
+        Tensor weights = computeWeights;
+        Tensor biases = computeBiases;
+        checkInput(input, weights);
+        Tensor output = new Tensor(input.getRows(), weights.getCols(), weights.getDType());
+        matMul(input, weights, biases, output);
+        return output;
+    }
+
+    // Helper method to reject inputs that do not fit the weights
+    private void checkInput(Tensor input, Tensor weights) {
         if (input == null) {
-            EventLog.getInstance().logEvent(new Event("Attempted forward pass with null input tensor in DenseLayer."));
+            EventLog.getInstance().warn(() -> "Attempted forward pass with null input tensor in DenseLayer.");
             throw new IllegalArgumentException("Input cannot be null");
         }
-        double[][] inputData = input.getData();
-        double[][] weightData = weights.getData();
-        double[][] biasData = biases.getData();
-
-        if (inputData[0].length != weightData.length) {
-            EventLog.getInstance()
-                    .logEvent(new Event("Input dimensions do not match weights in DenseLayer forward pass: "
-                            + "Input dimensions: " + inputData[0].length + ", Weight dimensions: "
-                            + weightData.length));
+        if (input.getCols() != weights.getRows()) {
+            EventLog.getInstance().warn(() -> "Input dimensions do not match weights in DenseLayer forward pass: "
+                    + "Input dimensions: " + input.getCols() + ", Weight dimensions: " + weights.getRows());
             throw new IllegalArgumentException("Input dimensions do not match weights");
         }
-
-        this.inputCache = input; // Store input for backpropagation
-
-        int batchSize = inputData.length;
-        int outputSize = weightData[0].length;
-        double[][] outputData = new double[batchSize][outputSize];
-
-        matMul(inputData, weightData, biasData, batchSize, outputSize, outputData);
-        return new Tensor(outputData);
+        if (input.getDType() != weights.getDType()) {
+            EventLog.getInstance().warn(() -> "Input dtype " + input.getDType() + " does not match weights dtype "
+                    + weights.getDType() + " in DenseLayer forward pass.");
+            throw new IllegalArgumentException("Input dtype does not match weights");
+        }
     }
 
     // Helper method to compute matrix multiplication of input, weights, and biases
-    private void matMul(double[][] inputData, double[][] weightData, double[][] biasData, int batchSize,
-            int outputSize, double[][] outputData) {
-        for (int i = 0; i < batchSize; i++) {
-            for (int j = 0; j < outputSize; j++) {
-                double sum = biasData[0][j];
-                for (int k = 0; k < inputData[i].length; k++) {
-                    sum += inputData[i][k] * weightData[k][j];
-                }
-                outputData[i][j] = sum;
+    private void matMul(Tensor input, Tensor weights, Tensor biases, Tensor output) {
+        for (int i = 0; i < output.getRows(); i++) {
+            if (output.getDType() == DType.FLOAT32) {
+                biases.readRow(0, output.floatArray(), output.rowStart(i));
+            } else {
+                biases.readRow(0, output.array(), output.rowStart(i));
             }
         }
+        Gemm.multiply(input, false, weights, false, output, true, computePool);
     }
 
     // MODIFIES: this
@@ -86,60 +152,43 @@ public class DenseLayer extends Layer {
     // throws IllegalArgumentException if gradient is null
     public Tensor backward(Tensor gradient) {
         if (gradient == null) {
-            EventLog.getInstance()
-                    .logEvent(new Event("Attempted backward pass with null gradient tensor in DenseLayer."));
+            EventLog.getInstance().warn(() -> "Attempted backward pass with null gradient tensor in DenseLayer.");
             throw new IllegalArgumentException("Gradient cannot be null");
         }
-        double[][] gradData = gradient.getData();
-        double[][] inputData = inputCache.getData();
-        double[][] weightData = weights.getData();
-
-        int batchSize = inputData.length;
-        int inputSize = inputData[0].length;
-        int outputSize = gradData[0].length;
 
         // Compute gradients for weights and biases
-        computeWeightAndBiasGradients(gradData, inputData, batchSize, inputSize, outputSize);
+        computeWeightAndBiasGradients(gradient, inputCache);
 
         // Compute gradient to pass to previous layer
-        double[][] prevGradData = computePrevGradient(gradData, weightData, batchSize, inputSize, outputSize);
-
-        return new Tensor(prevGradData);
+        return computePrevGradient(gradient);
     }
 
     // Helper method to compute weight and bias gradients
-    private void computeWeightAndBiasGradients(double[][] gradData, double[][] inputData,
-            int batchSize, int inputSize, int outputSize) {
-        double[][] weightGradData = new double[inputSize][outputSize];
-        double[][] biasGradData = new double[1][outputSize];
-
-        for (int i = 0; i < batchSize; i++) {
-            for (int k = 0; k < outputSize; k++) {
-                biasGradData[0][k] += gradData[i][k];
-                for (int j = 0; j < inputSize; j++) {
-                    weightGradData[j][k] += inputData[i][j] * gradData[i][k];
-                }
-            }
+    private void computeWeightAndBiasGradients(Tensor gradient, Tensor input) {
+        int outputSize = gradient.getCols();
+        Tensor weightGrad = buffer(WEIGHT_GRADIENT, input.getCols(), outputSize, computeWeights.getDType());
+        Tensor biasGrad = buffer(BIAS_GRADIENT, 1, outputSize, computeWeights.getDType());
+
+        // weightGrad = input^T * gradient
+        Gemm.multiply(input, true, gradient, false, weightGrad, false, computePool);
+        // biasGrad = column sums of gradient
+        Gemm.sumRows(gradient, biasGrad, computePool);
+        this.computeWeightGradients = weightGrad;
+        this.computeBiasGradients = biasGrad;
+        if (computeWeights == weights) {
+            this.weightGradients = weightGrad;
+            this.biasGradients = biasGrad;
         }
-        this.weightGradients = new Tensor(weightGradData);
-        this.biasGradients = new Tensor(biasGradData);
     }
 
     // Helper method to compute the gradient to pass to the previous layer
-    private double[][] computePrevGradient(double[][] gradData, double[][] weightData,
-            int batchSize, int inputSize, int outputSize) {
-        double[][] prevGradData = new double[batchSize][inputSize];
-
-        for (int i = 0; i < batchSize; i++) {
-            for (int j = 0; j < inputSize; j++) {
-                double sum = 0.0;
-                for (int k = 0; k < outputSize; k++) {
-                    sum += gradData[i][k] * weightData[j][k];
-                }
-                prevGradData[i][j] = sum;
-            }
-        }
-        return prevGradData;
+    private Tensor computePrevGradient(Tensor gradient) {
+        Tensor prevGrad = buffer(INPUT_GRADIENT, gradient.getRows(), computeWeights.getRows(),
+                computeWeights.getDType());
+
+        // prevGrad = gradient * weights^T
+        Gemm.multiply(gradient, false, computeWeights, true, prevGrad, false, computePool);
+        return prevGrad;
     }
 
     // MODIFIES: this
@@ -147,10 +196,10 @@ public class DenseLayer extends Layer {
     // throws IllegalArgumentException if optimizer is null
     public void updateParameters(Optimizer optimizer) {
         if (optimizer == null) {
-            EventLog.getInstance()
-                    .logEvent(new Event("Attempted to update parameters with null optimizer in DenseLayer."));
+            EventLog.getInstance().warn(() -> "Attempted to update parameters with null optimizer in DenseLayer.");
             throw new IllegalArgumentException("Optimizer cannot be null");
         }
+        ensureWritableParameters();
         optimizer.updateParameters(this);
     }
 
@@ -159,17 +208,124 @@ public class DenseLayer extends Layer {
         return "Dense Layer (" + getInputSize() + " -> " + getOutputSize() + ")";
     }
 
+    // MODIFIES: this
+    // EFFECTS: converts the weights and biases to dtype and discards the gradients;
+    // throws IllegalArgumentException if dtype is null
+    @Override
+    public void setDType(DType dtype) {
+        super.setDType(dtype);
+        if (dtype != weights.getDType()) {
+            weights = weights.toDType(dtype);
+            biases = biases.toDType(dtype);
+            refreshComputeTensors();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: makes forward and backward compute in dtype on copies of the weights and biases,
+    // which stay in their own dtype as master copies; null computes on the weights themselves
+    @Override
+    void setComputeDType(DType dtype) {
+        computeDType = dtype;
+        refreshComputeTensors();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: sets the weight and bias gradients to those of the last backward pass multiplied by
+    // factor and converted to the dtype of the weights, for the optimizer to apply to the master
+    // copies; returns false if any of them is infinite or NaN
+    @Override
+    boolean unscaleGradients(double factor) {
+        weightGradients = buffer(MASTER_WEIGHT_GRADIENT, weights.getRows(), weights.getCols(), weights.getDType());
+        biasGradients = buffer(MASTER_BIAS_GRADIENT, 1, biases.getCols(), biases.getDType());
+        boolean finite = weightGradients.copyScaled(computeWeightGradients, factor);
+        return biasGradients.copyScaled(computeBiasGradients, factor) && finite;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: copies the updated weights and biases into their compute copies, rounding them to
+    // the compute dtype
+    @Override
+    void refreshComputeParameters() {
+        if (computeWeights != weights) {
+            computeWeights.copyScaled(weights, 1.0);
+            computeBiases.copyScaled(biases, 1.0);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: replaces read-only weights or biases with heap copies, keeping the gradients of the
+    // last backward pass; layers computing on their parameters directly compute on the copies
+    @Override
+    void ensureWritableParameters() {
+        if (weights.isReadOnly()) {
+            Tensor copy = weights.toHeap();
+            computeWeights = computeWeights == weights ? copy : computeWeights;
+            weights = copy;
+        }
+        if (biases.isReadOnly()) {
+            Tensor copy = biases.toHeap();
+            computeBiases = computeBiases == biases ? copy : computeBiases;
+            biases = copy;
+        }
+    }
+
+    // EFFECTS: returns a dense layer sharing this layer's weights and biases, and their compute
+    // copies, with its own input and gradients
+    @Override
+    Layer replica() {
+        return new DenseLayer(this);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: makes this replica compute on the current weights and biases of source and their
+    // compute copies
+    @Override
+    void shareParameters(Layer source) {
+        DenseLayer dense = (DenseLayer) source;
+        weights = dense.weights;
+        biases = dense.biases;
+        computeDType = dense.computeDType;
+        computeWeights = dense.computeWeights;
+        computeBiases = dense.computeBiases;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds the weight and bias gradients of replica's last backward pass, in the compute
+    // dtype, to those of this layer
+    @Override
+    void addGradients(Layer replica) {
+        DenseLayer other = (DenseLayer) replica;
+        computeWeightGradients.add(other.computeWeightGradients);
+        computeBiasGradients.add(other.computeBiasGradients);
+    }
+
+    // Helper method to (re)create the compute copies of the parameters and drop stale gradients
+    private void refreshComputeTensors() {
+        DType dtype = computeDType == null ? weights.getDType() : computeDType;
+        computeWeights = weights.toDType(dtype);
+        computeBiases = biases.toDType(dtype);
+        weightGradients = null;
+        biasGradients = null;
+        computeWeightGradients = null;
+        computeBiasGradients = null;
+    }
+
+    // EFFECTS: returns the dtype of the weights and biases, which inputs must match
+    public DType getDType() {
+        return weights.getDType();
+    }
+
     // Helper method to initialize tensors with random values
-    private Tensor initializeRandomTensor(int rows, int cols) {
-        double[][] data = new double[rows][cols];
-        Random rand = new Random();
+    private Tensor initializeRandomTensor(int rows, int cols, DType dtype, Random rand) {
+        Tensor tensor = new Tensor(rows, cols, dtype);
         double stdDev = 1.0 / Math.sqrt(rows);
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < cols; j++) {
-                data[i][j] = rand.nextGaussian() * stdDev;
+                tensor.set(i, j, rand.nextGaussian() * stdDev);
             }
         }
-        return new Tensor(data);
+        return tensor;
     }
 
     // Getters for weights, biases, and gradients
@@ -190,20 +346,33 @@ public class DenseLayer extends Layer {
     }
 
     public int getInputSize() {
-        return weights.getData().length;
+        return weights.getRows();
     }
 
     public int getOutputSize() {
-        return weights.getData()[0].length;
+        return weights.getCols();
+    }
+
+    public ForkJoinPool getComputePool() {
+        return computePool;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: sets the pool that large matrix products are split over;
+    // null runs every product on the calling thread
+    public void setComputePool(ForkJoinPool computePool) {
+        this.computePool = computePool;
     }
 
     // Setters for weights and biases
     public void setWeights(Tensor weights) {
         this.weights = weights;
+        refreshComputeTensors();
     }
 
     public void setBiases(Tensor biases) {
         this.biases = biases;
+        refreshComputeTensors();
     }
 
     @Override
@@ -212,17 +381,28 @@ public class DenseLayer extends Layer {
         json.put("type", "DenseLayer");
         json.put("weights", weights.toJson());
         json.put("biases", biases.toJson());
-        EventLog.getInstance().logEvent(new Event("Serialized DenseLayer to JSON with input size "
-                + weights.getData().length + " and output size " + weights.getData()[0].length));
+        EventLog.getInstance().debug(() -> "Serialized DenseLayer to JSON with input size " + weights.getRows()
+                + " and output size " + weights.getCols());
         return json;
     }
 
-    // EFFECTS: Construct DenseLayer from a JSONObject
+    // EFFECTS: Construct DenseLayer from a JSONObject, keeping the dtype it was saved with
     public static DenseLayer fromJson(JSONObject json) {
         Tensor weights = Tensor.fromJson(json.getJSONObject("weights"));
-        Tensor biases = Tensor.fromJson(json.getJSONObject("biases"));
-        EventLog.getInstance().logEvent(new Event("Deserialized DenseLayer from JSON with input size "
-                + weights.getData().length + " and output size " + weights.getData()[0].length));
+        return fromJson(json, weights, Tensor.fromJson(json.getJSONObject("biases"), weights.getDType()));
+    }
+
+    // EFFECTS: Construct DenseLayer from a JSONObject with parameters converted to dtype;
+    // throws IllegalArgumentException if dtype is null
+    public static DenseLayer fromJson(JSONObject json, DType dtype) {
+        Tensor weights = Tensor.fromJson(json.getJSONObject("weights"), dtype);
+        return fromJson(json, weights, Tensor.fromJson(json.getJSONObject("biases"), dtype));
+    }
+
+    // Helper method finishing deserialization once the parameters have been read
+    private static DenseLayer fromJson(JSONObject json, Tensor weights, Tensor biases) {
+        EventLog.getInstance().debug(() -> "Deserialized DenseLayer from JSON with input size " + weights.getRows()
+                + " and output size " + weights.getCols());
         return new DenseLayer(weights, biases);
     }
 }
@@ -1,6 +1,5 @@
 package model;
 
-import java.util.Calendar;
 import java.util.Date;
 
 /**
@@ -8,17 +7,30 @@ import java.util.Date;
  */
 public class Event {
     private static final int HASH_CONSTANT = 13;
-    private Date dateLogged;
-    private String description;
+    private final long timeLogged; // Milliseconds since the epoch; cheaper to take than a Calendar
+    private final LogLevel level;
+    private final String description;
 
     /**
-     * Creates an event with the given description
+     * Creates an INFO event with the given description
      * and the current date/time stamp.
      * 
      * @param description a description of the event
      */
     public Event(String description) {
-        dateLogged = Calendar.getInstance().getTime();
+        this(LogLevel.INFO, description);
+    }
+
+    /**
+     * Creates an event with the given level and description
+     * and the current date/time stamp.
+     *
+     * @param level the severity of the event
+     * @param description a description of the event
+     */
+    public Event(LogLevel level, String description) {
+        this.timeLogged = System.currentTimeMillis();
+        this.level = level;
         this.description = description;
     }
 
@@ -28,7 +40,16 @@ public class Event {
      * @return the date of the event
      */
     public Date getDate() {
-        return dateLogged;
+        return new Date(timeLogged);
+    }
+
+    /**
+     * Gets the level of this event.
+     *
+     * @return the level of the event
+     */
+    public LogLevel getLevel() {
+        return level;
     }
 
     /**
@@ -52,17 +73,18 @@ public class Event {
 
         Event otherEvent = (Event) other;
 
-        return (this.dateLogged.equals(otherEvent.dateLogged) 
+        return (this.timeLogged == otherEvent.timeLogged
+                && this.level == otherEvent.level
                 && this.description.equals(otherEvent.description));
     }
 
     @Override
     public int hashCode() {
-        return (HASH_CONSTANT * dateLogged.hashCode() + description.hashCode());
+        return (HASH_CONSTANT * Long.hashCode(timeLogged) + description.hashCode());
     }
 
     @Override
     public String toString() {
-        return dateLogged.toString() + "\n" + description;
+        return getDate().toString() + "\n" + description;
     }
 }
\ No newline at end of file
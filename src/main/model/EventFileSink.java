@@ -0,0 +1,149 @@
+package model;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.LockSupport;
+
+// Represents a background thread that appends the events of an EventLog to a rolling text file.
+// Once about maxBytes characters have been written, the file is renamed to file.1 (shifting older
+// backups up to file.maxBackups, beyond which they are deleted) and a new file is started. Logging
+// threads never wait for the sink; if it falls more than the log's capacity behind, the
+// overwritten events are reported as dropped in the file.
+public class EventFileSink implements AutoCloseable {
+    private static final long POLL_NANOS = 50_000_000L;
+
+    private final EventLog log;
+    private final Path file;
+    private final long maxBytes;
+    private final int maxBackups;
+    private final Thread thread;
+    private volatile boolean running;
+    private volatile IOException failure;
+    private BufferedWriter writer;
+    private long written;
+    private long nextSequence;
+
+    // EFFECTS: creates a sink that will write the events logged from now on to file, rolling it
+    // over after maxBytes and keeping maxBackups old files; call start to begin draining;
+    // throws IllegalArgumentException if log or file is null, maxBytes <= 0 or maxBackups < 0
+    public EventFileSink(EventLog log, Path file, long maxBytes, int maxBackups) {
+        if (log == null || file == null || maxBytes <= 0 || maxBackups < 0) {
+            throw new IllegalArgumentException("Invalid event file sink parameters");
+        }
+        this.log = log;
+        this.file = file;
+        this.maxBytes = maxBytes;
+        this.maxBackups = maxBackups;
+        this.nextSequence = log.getNextSequence();
+        this.thread = new Thread(this::drainLoop, "event-file-sink");
+        thread.setDaemon(true);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: opens the file for appending and starts the background thread;
+    // throws IOException if the file cannot be opened
+    public void start() throws IOException {
+        openWriter();
+        running = true;
+        thread.start();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops the background thread after writing every event logged before this call
+    // and closes the file; throws IOException if writing failed at any point
+    @Override
+    public void close() throws IOException {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // Helper method run by the background thread
+    private void drainLoop() {
+        try {
+            boolean more = true;
+            while (more) {
+                more = running;
+                drain();
+                writer.flush();
+                if (more) {
+                    LockSupport.parkNanos(this, POLL_NANOS);
+                }
+            }
+            writer.close();
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    // Helper method writing every event published since the last call
+    private void drain() throws IOException {
+        long end = log.getNextSequence();
+        long oldest = log.oldestSequence(end);
+        if (nextSequence < oldest) {
+            writeLine("... " + (oldest - nextSequence) + " events dropped or cleared");
+            nextSequence = oldest;
+        }
+        while (nextSequence < end) {
+            Event event = log.eventAt(nextSequence);
+            if (event == null && nextSequence >= log.oldestSequence(log.getNextSequence())) {
+                return; // Claimed but not yet written; pick it up on the next pass
+            }
+            if (event != null) {
+                writeLine(event.getDate() + " " + event.getLevel() + " " + event.getDescription());
+            }
+            nextSequence++;
+        }
+    }
+
+    // Helper method appending one line and rolling the file over when it is full
+    private void writeLine(String line) throws IOException {
+        writer.write(line);
+        writer.newLine();
+        written += line.length() + 1;
+        if (written >= maxBytes) {
+            writer.close();
+            rollOver();
+            openWriter();
+        }
+    }
+
+    // Helper method shifting file to file.1, file.1 to file.2, and so on
+    private void rollOver() throws IOException {
+        if (maxBackups == 0) {
+            Files.deleteIfExists(file);
+            return;
+        }
+        Files.deleteIfExists(backup(maxBackups));
+        for (int i = maxBackups - 1; i >= 1; i--) {
+            if (Files.exists(backup(i))) {
+                Files.move(backup(i), backup(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(file, backup(1), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // EFFECTS: returns the path of the given backup of file
+    Path backup(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    // Helper method opening file for appending
+    private void openWriter() throws IOException {
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+        written = Files.size(file);
+    }
+}
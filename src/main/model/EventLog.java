@@ -1,62 +1,261 @@
 package model;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
 
 /**
  * Represents a log of neural network related events.
  * We use the Singleton Design Pattern to ensure that there is only
  * one EventLog in the system and that the system has global access
  * to the single instance of the EventLog.
+ *
+ * <p>The log keeps only the most recent events in a fixed-size ring buffer,
+ * so long training runs cannot grow it without limit. Any number of threads
+ * may log concurrently without locking: each event claims a sequence number
+ * and overwrites the oldest entry in its slot. An {@link EventFileSink} can
+ * drain events to disk in the background before they are overwritten.
+ *
+ * <p>Events below the configured {@link LogLevel} (INFO unless the
+ * jtorch.eventlog.level property says otherwise) are discarded. The
+ * levelled methods take the message as a Supplier, so a disabled event
+ * costs one volatile read and never builds its description.
  */
 public class EventLog implements Iterable<Event> {
+    /** number of events kept unless the jtorch.eventlog.capacity property says otherwise */
+    static final int DEFAULT_CAPACITY = 8192;
+
     /** the only EventLog in the system (Singleton Design Pattern) */
-    private static EventLog theLog;
-    private Collection<Event> events;
+    private static final EventLog THE_LOG =
+            new EventLog(Integer.getInteger("jtorch.eventlog.capacity", DEFAULT_CAPACITY));
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final AtomicLong nextSequence = new AtomicLong();
+    private volatile long firstSequence; // Events before this were cleared
+    private volatile LogLevel threshold =
+            LogLevel.valueOf(System.getProperty("jtorch.eventlog.level", LogLevel.INFO.name()));
 
     /**
-     * Prevent external construction.
-     * (Singleton Design Pattern).
+     * Creates a log that keeps the given number of most recent events,
+     * rounded up to a power of two. Only the singleton and tests construct logs.
+     *
+     * @param capacity the minimum number of events to keep
+     * @throws IllegalArgumentException if capacity is not positive
      */
-    private EventLog() {
-        events = new ArrayList<Event>();
+    EventLog(int capacity) {
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Event log capacity must be positive");
+        }
+        int size = Integer.highestOneBit(capacity);
+        size = size < capacity ? size << 1 : size;
+        slots = new AtomicReferenceArray<>(size);
+        mask = size - 1;
     }
 
     /**
-     * Gets instance of EventLog - creates it
-     * if it doesn't already exist.
+     * Gets instance of EventLog. The instance is created when the class is
+     * initialized, so concurrent callers always see the same log.
      * (Singleton Design Pattern)
-     * 
+     *
      * @return instance of EventLog
      */
     public static EventLog getInstance() {
-        if (theLog == null) {
-            theLog = new EventLog();
+        return THE_LOG;
+    }
+
+    /**
+     * Sets the lowest level of event that is recorded.
+     *
+     * @param level the new threshold
+     * @throws IllegalArgumentException if level is null
+     */
+    public void setLevel(LogLevel level) {
+        if (level == null) {
+            throw new IllegalArgumentException("Level cannot be null");
+        }
+        threshold = level;
+    }
+
+    /**
+     * Gets the lowest level of event that is recorded.
+     *
+     * @return the current threshold
+     */
+    public LogLevel getLevel() {
+        return threshold;
+    }
+
+    /**
+     * Checks whether events of the given level are recorded.
+     *
+     * @param level the level to check
+     * @return true if events of this level are recorded
+     */
+    public boolean isEnabled(LogLevel level) {
+        return level.compareTo(threshold) >= 0;
+    }
+
+    /**
+     * Records an event with the message produced by the given supplier,
+     * if events of this level are enabled; otherwise the supplier is not called.
+     *
+     * @param level the level of the event
+     * @param message produces the description of the event
+     */
+    public void log(LogLevel level, Supplier<String> message) {
+        if (isEnabled(level)) {
+            append(new Event(level, message.get()));
         }
+    }
 
-        return theLog;
+    /**
+     * Records a TRACE event. See {@link #log(LogLevel, Supplier)}.
+     *
+     * @param message produces the description of the event
+     */
+    public void trace(Supplier<String> message) {
+        log(LogLevel.TRACE, message);
     }
 
     /**
-     * Adds an event to the event log.
-     * 
+     * Records a DEBUG event. See {@link #log(LogLevel, Supplier)}.
+     *
+     * @param message produces the description of the event
+     */
+    public void debug(Supplier<String> message) {
+        log(LogLevel.DEBUG, message);
+    }
+
+    /**
+     * Records an INFO event. See {@link #log(LogLevel, Supplier)}.
+     *
+     * @param message produces the description of the event
+     */
+    public void info(Supplier<String> message) {
+        log(LogLevel.INFO, message);
+    }
+
+    /**
+     * Records a WARN event. See {@link #log(LogLevel, Supplier)}.
+     *
+     * @param message produces the description of the event
+     */
+    public void warn(Supplier<String> message) {
+        log(LogLevel.WARN, message);
+    }
+
+    /**
+     * Adds an event to the event log if its level is enabled, overwriting
+     * the oldest event if the log is full. Safe to call from any thread.
+     *
      * @param e the event to be added
      */
     public void logEvent(Event e) {
-        events.add(e);
+        if (isEnabled(e.getLevel())) {
+            append(e);
+        }
+    }
+
+    /**
+     * Stores an event in the next slot of the ring. A slow producer whose
+     * slot has already been claimed by an event one lap later drops its
+     * own event rather than overwriting the newer one.
+     *
+     * @param e the event to be added
+     */
+    private void append(Event e) {
+        long sequence = nextSequence.getAndIncrement();
+        int slot = (int) sequence & mask;
+        Entry entry = new Entry(sequence, e);
+        Entry current = slots.get(slot);
+        while (current == null || current.sequence < sequence) {
+            if (slots.compareAndSet(slot, current, entry)) {
+                return;
+            }
+            current = slots.get(slot);
+        }
     }
 
     /**
      * Clears the event log and logs the event.
      */
     public void clear() {
-        events.clear();
-        logEvent(new Event("Event log cleared."));
+        firstSequence = nextSequence.get();
+        append(new Event("Event log cleared."));
     }
 
+    /**
+     * Gets the number of events this log keeps before overwriting the oldest.
+     *
+     * @return the capacity of the log
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the events currently in the log,
+     * oldest first. Events logged while iterating are not included.
+     */
     @Override
     public Iterator<Event> iterator() {
-        return events.iterator();
+        long end = nextSequence.get();
+        List<Event> snapshot = new ArrayList<>();
+        for (long sequence = oldestSequence(end); sequence < end; sequence++) {
+            Event event = eventAt(sequence);
+            if (event != null) {
+                snapshot.add(event);
+            }
+        }
+        return snapshot.iterator();
+    }
+
+    /**
+     * Gets the sequence number the next logged event will receive.
+     *
+     * @return the number of events ever logged
+     */
+    long getNextSequence() {
+        return nextSequence.get();
+    }
+
+    /**
+     * Gets the sequence number of the oldest event still held,
+     * given the current next sequence number.
+     *
+     * @param end the next sequence number
+     * @return the oldest sequence number that has not been cleared or overwritten
+     */
+    long oldestSequence(long end) {
+        return Math.max(firstSequence, end - slots.length());
+    }
+
+    /**
+     * Gets the event with the given sequence number.
+     *
+     * @param sequence the sequence number of the event
+     * @return the event, or null if it has been overwritten or is still being written
+     */
+    Event eventAt(long sequence) {
+        Entry entry = slots.get((int) sequence & mask);
+        return entry != null && entry.sequence == sequence ? entry.event : null;
+    }
+
+    /**
+     * An event together with the sequence number it was logged under, so
+     * readers can tell whether a slot still holds the event they expect.
+     */
+    private static final class Entry {
+        private final long sequence;
+        private final Event event;
+
+        Entry(long sequence, Event event) {
+            this.sequence = sequence;
+            this.event = event;
+        }
     }
 }
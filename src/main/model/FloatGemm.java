@@ -0,0 +1,233 @@
+package model;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+// FLOAT32 counterpart of the sequential GEMM in Gemm: the same packed, cache-blocked scheme on
+// float arrays. A 256-bit vector holds eight floats, so the micro-kernel tile is twice as wide
+// as for doubles, and the B block is twice as long for the same number of bytes in L2.
+// Gemm.multiply dispatches here for FLOAT32 tensors and splits large products over threads.
+final class FloatGemm {
+
+    // Micro-kernel tile, chosen so the accumulators fit in registers
+    static final int MR = 8;
+    static final int NR = 8;
+
+    // Cache blocking, matching the byte sizes of the blocks used for doubles
+    static final int MC = 128;
+    static final int KC = 256;
+    static final int NC = 1024;
+
+    // Products with fewer multiply-adds than this are not worth packing
+    private static final long SMALL_PRODUCT = 32L * 32L * 32L;
+
+    private static final Kernels KERNELS = Kernels.active();
+
+    private static final ThreadLocal<float[]> PACKED_A = ThreadLocal.withInitial(() -> new float[MC * KC]);
+    private static final ThreadLocal<float[]> PACKED_B = ThreadLocal.withInitial(() -> new float[KC * NC]);
+    private static final ThreadLocal<float[]> EDGE_TILE = ThreadLocal.withInitial(() -> new float[MR * NR]);
+
+    private FloatGemm() {
+    }
+
+    // REQUIRES: a, b and c are laid out row-major with room for the given shapes
+    // MODIFIES: c
+    // EFFECTS: computes c = op(a) * op(b), or c += op(a) * op(b) when accumulate is true,
+    // where op(a) is m x k, op(b) is k x n and c is m x n; op(x) transposes x when the
+    // corresponding flag is set
+    static void multiply(boolean transA, boolean transB, int m, int n, int k,
+            float[] a, int aOff, int lda, float[] b, int bOff, int ldb,
+            float[] c, int cOff, int ldc, boolean accumulate) {
+        if (!accumulate) {
+            for (int i = 0; i < m; i++) {
+                Arrays.fill(c, cOff + i * ldc, cOff + i * ldc + n, 0f);
+            }
+        }
+        if (m == 0 || n == 0 || k == 0) {
+            return;
+        }
+        if ((long) m * n * k < SMALL_PRODUCT) {
+            multiplySmall(transA, transB, m, n, k, a, aOff, lda, b, bOff, ldb, c, cOff, ldc);
+            return;
+        }
+        multiplyBlocked(transA, transB, m, n, k, a, aOff, lda, b, bOff, ldb, c, cOff, ldc);
+    }
+
+    // REQUIRES: a and b are laid out row-major with room for the given shapes, c as for multiply
+    // MODIFIES: c
+    // EFFECTS: same as multiply, but reads a and b through buffers so that off-heap operands are
+    // used in place; they are only read while packing, so this runs at the speed of multiply
+    static void multiply(boolean transA, boolean transB, int m, int n, int k,
+            FloatBuffer a, int aOff, int lda, FloatBuffer b, int bOff, int ldb,
+            float[] c, int cOff, int ldc, boolean accumulate) {
+        if (!accumulate) {
+            for (int i = 0; i < m; i++) {
+                Arrays.fill(c, cOff + i * ldc, cOff + i * ldc + n, 0f);
+            }
+        }
+        float[] packedA = PACKED_A.get();
+        float[] packedB = PACKED_B.get();
+        float[] edge = EDGE_TILE.get();
+        for (int jc = 0; jc < n; jc += NC) {
+            int nc = Math.min(NC, n - jc);
+            for (int pc = 0; pc < k; pc += KC) {
+                int kc = Math.min(KC, k - pc);
+                packB(transB, b, bOff, ldb, pc, jc, kc, nc, packedB);
+                for (int ic = 0; ic < m; ic += MC) {
+                    int mc = Math.min(MC, m - ic);
+                    packA(transA, a, aOff, lda, ic, pc, mc, kc, packedA);
+                    multiplyPacked(packedA, packedB, mc, nc, kc, c, cOff + ic * ldc + jc, ldc, edge);
+                }
+            }
+        }
+    }
+
+    // Helper method for products too small to benefit from packing
+    private static void multiplySmall(boolean transA, boolean transB, int m, int n, int k,
+            float[] a, int aOff, int lda, float[] b, int bOff, int ldb,
+            float[] c, int cOff, int ldc) {
+        int aRowStep = transA ? 1 : lda;
+        int aColStep = transA ? lda : 1;
+        int bRowStep = transB ? 1 : ldb;
+        int bColStep = transB ? ldb : 1;
+        for (int i = 0; i < m; i++) {
+            int cRow = cOff + i * ldc;
+            for (int p = 0; p < k; p++) {
+                float av = a[aOff + i * aRowStep + p * aColStep];
+                int bRow = bOff + p * bRowStep;
+                for (int j = 0; j < n; j++) {
+                    c[cRow + j] += av * b[bRow + j * bColStep];
+                }
+            }
+        }
+    }
+
+    // Helper method running the packed, cache-blocked product
+    private static void multiplyBlocked(boolean transA, boolean transB, int m, int n, int k,
+            float[] a, int aOff, int lda, float[] b, int bOff, int ldb,
+            float[] c, int cOff, int ldc) {
+        float[] packedA = PACKED_A.get();
+        float[] packedB = PACKED_B.get();
+        float[] edge = EDGE_TILE.get();
+        for (int jc = 0; jc < n; jc += NC) {
+            int nc = Math.min(NC, n - jc);
+            for (int pc = 0; pc < k; pc += KC) {
+                int kc = Math.min(KC, k - pc);
+                packB(transB, b, bOff, ldb, pc, jc, kc, nc, packedB);
+                for (int ic = 0; ic < m; ic += MC) {
+                    int mc = Math.min(MC, m - ic);
+                    packA(transA, a, aOff, lda, ic, pc, mc, kc, packedA);
+                    multiplyPacked(packedA, packedB, mc, nc, kc, c, cOff + ic * ldc + jc, ldc, edge);
+                }
+            }
+        }
+    }
+
+    // Helper method to pack op(a)[ic:ic+mc, pc:pc+kc] into MR-row slivers, each stored
+    // column by column (kc columns of MR values), zero-padding the last sliver
+    private static void packA(boolean transA, float[] a, int aOff, int lda,
+            int ic, int pc, int mc, int kc, float[] packed) {
+        int dst = 0;
+        for (int ir = 0; ir < mc; ir += MR) {
+            int rows = Math.min(MR, mc - ir);
+            for (int p = 0; p < kc; p++) {
+                for (int r = 0; r < rows; r++) {
+                    int i = ic + ir + r;
+                    int col = pc + p;
+                    packed[dst + r] = transA ? a[aOff + col * lda + i] : a[aOff + i * lda + col];
+                }
+                for (int r = rows; r < MR; r++) {
+                    packed[dst + r] = 0f;
+                }
+                dst += MR;
+            }
+        }
+    }
+
+    // Helper method packing as packA does, reading a through a buffer
+    private static void packA(boolean transA, FloatBuffer a, int aOff, int lda,
+            int ic, int pc, int mc, int kc, float[] packed) {
+        int dst = 0;
+        for (int ir = 0; ir < mc; ir += MR) {
+            int rows = Math.min(MR, mc - ir);
+            for (int p = 0; p < kc; p++) {
+                for (int r = 0; r < rows; r++) {
+                    int i = ic + ir + r;
+                    int col = pc + p;
+                    packed[dst + r] = transA ? a.get(aOff + col * lda + i) : a.get(aOff + i * lda + col);
+                }
+                for (int r = rows; r < MR; r++) {
+                    packed[dst + r] = 0f;
+                }
+                dst += MR;
+            }
+        }
+    }
+
+    // Helper method to pack op(b)[pc:pc+kc, jc:jc+nc] into NR-column slivers, each stored
+    // row by row (kc rows of NR values), zero-padding the last sliver
+    private static void packB(boolean transB, float[] b, int bOff, int ldb,
+            int pc, int jc, int kc, int nc, float[] packed) {
+        int dst = 0;
+        for (int jr = 0; jr < nc; jr += NR) {
+            int cols = Math.min(NR, nc - jr);
+            for (int p = 0; p < kc; p++) {
+                int row = pc + p;
+                for (int s = 0; s < cols; s++) {
+                    int j = jc + jr + s;
+                    packed[dst + s] = transB ? b[bOff + j * ldb + row] : b[bOff + row * ldb + j];
+                }
+                for (int s = cols; s < NR; s++) {
+                    packed[dst + s] = 0f;
+                }
+                dst += NR;
+            }
+        }
+    }
+
+    // Helper method packing as packB does, reading b through a buffer
+    private static void packB(boolean transB, FloatBuffer b, int bOff, int ldb,
+            int pc, int jc, int kc, int nc, float[] packed) {
+        int dst = 0;
+        for (int jr = 0; jr < nc; jr += NR) {
+            int cols = Math.min(NR, nc - jr);
+            for (int p = 0; p < kc; p++) {
+                int row = pc + p;
+                for (int s = 0; s < cols; s++) {
+                    int j = jc + jr + s;
+                    packed[dst + s] = transB ? b.get(bOff + j * ldb + row) : b.get(bOff + row * ldb + j);
+                }
+                for (int s = cols; s < NR; s++) {
+                    packed[dst + s] = 0f;
+                }
+                dst += NR;
+            }
+        }
+    }
+
+    // Helper method to multiply a packed mc x kc block of A with a packed kc x nc block of B
+    // and add the result to the mc x nc block of c starting at cOff
+    private static void multiplyPacked(float[] packedA, float[] packedB, int mc, int nc, int kc,
+            float[] c, int cOff, int ldc, float[] edge) {
+        for (int jr = 0; jr < nc; jr += NR) {
+            int cols = Math.min(NR, nc - jr);
+            int bBase = jr * kc;
+            for (int ir = 0; ir < mc; ir += MR) {
+                int rows = Math.min(MR, mc - ir);
+                int aBase = ir * kc;
+                if (rows == MR && cols == NR) {
+                    KERNELS.gemmMicroKernel(packedA, aBase, packedB, bBase, kc, c, cOff + ir * ldc + jr, ldc);
+                } else {
+                    Arrays.fill(edge, 0f);
+                    KERNELS.gemmMicroKernel(packedA, aBase, packedB, bBase, kc, edge, 0, NR);
+                    for (int r = 0; r < rows; r++) {
+                        int cRow = cOff + (ir + r) * ldc + jr;
+                        for (int s = 0; s < cols; s++) {
+                            c[cRow + s] += edge[r * NR + s];
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
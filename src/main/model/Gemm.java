@@ -0,0 +1,492 @@
+package model;
+
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// General matrix multiplication kernel shared by the layers: C = op(A) * op(B) (+ C),
+// where op(X) is X or its transpose. Matrices are row-major arrays addressed through an
+// offset and a leading dimension (the row stride), as stored by Tensor.
+//
+// Large products follow the usual blocked scheme: op(B) is packed in KC x NC blocks that
+// stay in L2, op(A) in MC x KC blocks, and an MR x NR micro-kernel accumulates a tile of C
+// in local variables so each packed element is loaded once per tile instead of once per
+// multiply-add. Small products skip packing and use a plain loop.
+//
+// When given a ForkJoinPool, products large enough to amortize task overhead are split
+// into tiles of C that are computed independently: the tile shape follows the problem,
+// so tall products split by rows, wide ones by columns, and square ones into 2D tiles.
+//
+// The Tensor entry points handle both dtypes; FLOAT32 products run on FloatGemm. Operands
+// stored off-heap are read in place through buffers while packing, always taking the blocked path.
+final class Gemm {
+
+    // Micro-kernel tile, chosen so the accumulators fit in registers
+    static final int MR = 8;
+    static final int NR = 4;
+
+    // Cache blocking: an MC x KC block of A and a KC x NR sliver of B stay in L1/L2,
+    // and the packed KC x NC block of B stays in L2
+    static final int MC = 128;
+    static final int KC = 256;
+    static final int NC = 512;
+
+    // Products with fewer multiply-adds than this are not worth packing
+    private static final long SMALL_PRODUCT = 32L * 32L * 32L;
+
+    // Products with fewer multiply-adds than this always run on the calling thread
+    static final long PARALLEL_THRESHOLD = 1L << 21;
+
+    // Parallel tasks are not split below this many multiply-adds (or additions for sums)
+    private static final long MIN_TASK_WORK = 1L << 18;
+
+    private static final Kernels KERNELS = Kernels.active();
+
+    private static final ThreadLocal<double[]> PACKED_A = ThreadLocal.withInitial(() -> new double[MC * KC]);
+    private static final ThreadLocal<double[]> PACKED_B = ThreadLocal.withInitial(() -> new double[KC * NC]);
+    private static final ThreadLocal<double[]> EDGE_TILE = ThreadLocal.withInitial(() -> new double[MR * NR]);
+
+    private Gemm() {
+    }
+
+    // REQUIRES: a, b and c are laid out row-major with room for the given shapes
+    // MODIFIES: c
+    // EFFECTS: computes c = op(a) * op(b), or c += op(a) * op(b) when accumulate is true,
+    // where op(a) is m x k, op(b) is k x n and c is m x n; op(x) transposes x when the
+    // corresponding flag is set
+    static void multiply(boolean transA, boolean transB, int m, int n, int k,
+            double[] a, int aOff, int lda, double[] b, int bOff, int ldb,
+            double[] c, int cOff, int ldc, boolean accumulate) {
+        if (!accumulate) {
+            for (int i = 0; i < m; i++) {
+                Arrays.fill(c, cOff + i * ldc, cOff + i * ldc + n, 0.0);
+            }
+        }
+        if (m == 0 || n == 0 || k == 0) {
+            return;
+        }
+        if ((long) m * n * k < SMALL_PRODUCT) {
+            multiplySmall(transA, transB, m, n, k, a, aOff, lda, b, bOff, ldb, c, cOff, ldc);
+            return;
+        }
+        multiplyBlocked(transA, transB, m, n, k, a, aOff, lda, b, bOff, ldb, c, cOff, ldc);
+    }
+
+    // REQUIRES: a and b are laid out row-major with room for the given shapes, c as for multiply
+    // MODIFIES: c
+    // EFFECTS: same as multiply, but reads a and b through buffers so that off-heap operands are
+    // used in place; they are only read while packing, so this runs at the speed of multiply
+    static void multiply(boolean transA, boolean transB, int m, int n, int k,
+            DoubleBuffer a, int aOff, int lda, DoubleBuffer b, int bOff, int ldb,
+            double[] c, int cOff, int ldc, boolean accumulate) {
+        if (!accumulate) {
+            for (int i = 0; i < m; i++) {
+                Arrays.fill(c, cOff + i * ldc, cOff + i * ldc + n, 0.0);
+            }
+        }
+        double[] packedA = PACKED_A.get();
+        double[] packedB = PACKED_B.get();
+        double[] edge = EDGE_TILE.get();
+        for (int jc = 0; jc < n; jc += NC) {
+            int nc = Math.min(NC, n - jc);
+            for (int pc = 0; pc < k; pc += KC) {
+                int kc = Math.min(KC, k - pc);
+                packB(transB, b, bOff, ldb, pc, jc, kc, nc, packedB);
+                for (int ic = 0; ic < m; ic += MC) {
+                    int mc = Math.min(MC, m - ic);
+                    packA(transA, a, aOff, lda, ic, pc, mc, kc, packedA);
+                    multiplyPacked(packedA, packedB, mc, nc, kc, c, cOff + ic * ldc + jc, ldc, edge);
+                }
+            }
+        }
+    }
+
+    // MODIFIES: c
+    // EFFECTS: computes c = op(a) * op(b), or c += op(a) * op(b) when accumulate is true;
+    // a and b may be stored off-heap, c may not;
+    // throws IllegalArgumentException if the shapes are incompatible or the dtypes differ
+    static void multiply(Tensor a, boolean transA, Tensor b, boolean transB, Tensor c, boolean accumulate) {
+        checkShapes(a, transA, b, transB, c);
+        int m = c.getRows();
+        int n = c.getCols();
+        int k = transA ? a.getRows() : a.getCols();
+        if (a.isOffHeap() || b.isOffHeap()) {
+            multiplyBuffers(a, transA, b, transB, c, accumulate, m, n, k);
+            return;
+        }
+        if (c.getDType() == DType.FLOAT32) {
+            FloatGemm.multiply(transA, transB, m, n, k, a.floatArray(), a.rowStart(0), a.getRowStride(),
+                    b.floatArray(), b.rowStart(0), b.getRowStride(), c.floatArray(), c.rowStart(0),
+                    c.getRowStride(), accumulate);
+            return;
+        }
+        multiply(transA, transB, m, n, k, a.array(), a.rowStart(0), a.getRowStride(),
+                b.array(), b.rowStart(0), b.getRowStride(), c.array(), c.rowStart(0), c.getRowStride(), accumulate);
+    }
+
+    // MODIFIES: c
+    // EFFECTS: same as multiply(a, transA, b, transB, c, accumulate), but splits large products
+    // over pool; runs on the calling thread if pool is null or the product is small
+    static void multiply(Tensor a, boolean transA, Tensor b, boolean transB, Tensor c, boolean accumulate,
+            ForkJoinPool pool) {
+        int m = c.getRows();
+        int n = c.getCols();
+        int k = transA ? a.getRows() : a.getCols();
+        if (!runsInParallel(pool, (long) m * n * k)) {
+            multiply(a, transA, b, transB, c, accumulate);
+            return;
+        }
+        checkShapes(a, transA, b, transB, c);
+        long grain = Math.max(MIN_TASK_WORK, (long) m * n * k / (4L * pool.getParallelism()));
+        pool.invoke(new TileTask(a, transA, b, transB, c, accumulate, grain, 0, m, 0, n));
+    }
+
+    // Helper method running multiply(a, transA, b, transB, c, accumulate) through buffers
+    private static void multiplyBuffers(Tensor a, boolean transA, Tensor b, boolean transB, Tensor c,
+            boolean accumulate, int m, int n, int k) {
+        if (c.getDType() == DType.FLOAT32) {
+            FloatGemm.multiply(transA, transB, m, n, k, a.floatBuffer(), a.rowStart(0), a.getRowStride(),
+                    b.floatBuffer(), b.rowStart(0), b.getRowStride(), c.floatArray(), c.rowStart(0),
+                    c.getRowStride(), accumulate);
+        } else {
+            multiply(transA, transB, m, n, k, a.doubleBuffer(), a.rowStart(0), a.getRowStride(),
+                    b.doubleBuffer(), b.rowStart(0), b.getRowStride(), c.array(), c.rowStart(0), c.getRowStride(),
+                    accumulate);
+        }
+    }
+
+    // Helper method to check that op(a) * op(b) is defined, has the shape of c, and that all
+    // three tensors store the same dtype; throws IllegalArgumentException otherwise
+    private static void checkShapes(Tensor a, boolean transA, Tensor b, boolean transB, Tensor c) {
+        int m = transA ? a.getCols() : a.getRows();
+        int k = transA ? a.getRows() : a.getCols();
+        int kb = transB ? b.getCols() : b.getRows();
+        int n = transB ? b.getRows() : b.getCols();
+        if (k != kb || c.getRows() != m || c.getCols() != n) {
+            throw new IllegalArgumentException("Incompatible shapes for matrix multiplication");
+        }
+        if (a.getDType() != c.getDType() || b.getDType() != c.getDType()) {
+            throw new IllegalArgumentException("Matrix multiplication operands must have the same dtype");
+        }
+    }
+
+    // MODIFIES: sums
+    // EFFECTS: sets sums[0][j] to the sum of column j of a, splitting the columns over pool
+    // when a is large; each column is summed in row order, so the result does not depend on pool.
+    // a may be stored off-heap, sums may not;
+    // throws IllegalArgumentException if sums is not 1 x a.getCols() or has another dtype than a
+    static void sumRows(Tensor a, Tensor sums, ForkJoinPool pool) {
+        if (sums.getRows() != 1 || sums.getCols() != a.getCols()) {
+            throw new IllegalArgumentException("Sums must be a single row matching the columns of a");
+        }
+        if (sums.getDType() != a.getDType()) {
+            throw new IllegalArgumentException("Sums must have the same dtype as a");
+        }
+        long work = (long) a.getRows() * a.getCols();
+        if (runsInParallel(pool, work)) {
+            pool.invoke(new ColumnSumTask(a, sums, Math.max(MIN_TASK_WORK, work / (4L * pool.getParallelism())),
+                    0, a.getCols()));
+        } else {
+            sumColumns(a, sums, 0, a.getCols());
+        }
+    }
+
+    // MODIFIES: sums
+    // EFFECTS: sets sums[0][c0:c1] to the column sums of a over all rows, in row order
+    private static void sumColumns(Tensor a, Tensor sums, int c0, int c1) {
+        if (a.getDType() == DType.FLOAT32) {
+            sumFloatColumns(a, sums, c0, c1);
+            return;
+        }
+        double[] out = sums.array();
+        int outStart = sums.rowStart(0);
+        Arrays.fill(out, outStart + c0, outStart + c1, 0.0);
+        if (a.isOffHeap()) {
+            DoubleBuffer data = a.doubleBuffer();
+            for (int i = 0; i < a.getRows(); i++) {
+                int row = a.rowStart(i);
+                for (int j = c0; j < c1; j++) {
+                    out[outStart + j] += data.get(row + j);
+                }
+            }
+            return;
+        }
+        double[] data = a.array();
+        for (int i = 0; i < a.getRows(); i++) {
+            int row = a.rowStart(i);
+            for (int j = c0; j < c1; j++) {
+                out[outStart + j] += data[row + j];
+            }
+        }
+    }
+
+    // Helper method computing sumColumns for FLOAT32 tensors
+    private static void sumFloatColumns(Tensor a, Tensor sums, int c0, int c1) {
+        float[] out = sums.floatArray();
+        int outStart = sums.rowStart(0);
+        Arrays.fill(out, outStart + c0, outStart + c1, 0f);
+        if (a.isOffHeap()) {
+            FloatBuffer data = a.floatBuffer();
+            for (int i = 0; i < a.getRows(); i++) {
+                int row = a.rowStart(i);
+                for (int j = c0; j < c1; j++) {
+                    out[outStart + j] += data.get(row + j);
+                }
+            }
+            return;
+        }
+        float[] data = a.floatArray();
+        for (int i = 0; i < a.getRows(); i++) {
+            int row = a.rowStart(i);
+            for (int j = c0; j < c1; j++) {
+                out[outStart + j] += data[row + j];
+            }
+        }
+    }
+
+    // Helper method deciding whether a job of the given size is worth splitting over pool
+    private static boolean runsInParallel(ForkJoinPool pool, long work) {
+        return pool != null && pool.getParallelism() > 1 && work >= PARALLEL_THRESHOLD;
+    }
+
+    // Helper method for products too small to benefit from packing
+    private static void multiplySmall(boolean transA, boolean transB, int m, int n, int k,
+            double[] a, int aOff, int lda, double[] b, int bOff, int ldb,
+            double[] c, int cOff, int ldc) {
+        int aRowStep = transA ? 1 : lda;
+        int aColStep = transA ? lda : 1;
+        int bRowStep = transB ? 1 : ldb;
+        int bColStep = transB ? ldb : 1;
+        for (int i = 0; i < m; i++) {
+            int cRow = cOff + i * ldc;
+            for (int p = 0; p < k; p++) {
+                double av = a[aOff + i * aRowStep + p * aColStep];
+                int bRow = bOff + p * bRowStep;
+                for (int j = 0; j < n; j++) {
+                    c[cRow + j] += av * b[bRow + j * bColStep];
+                }
+            }
+        }
+    }
+
+    // Helper method running the packed, cache-blocked product
+    private static void multiplyBlocked(boolean transA, boolean transB, int m, int n, int k,
+            double[] a, int aOff, int lda, double[] b, int bOff, int ldb,
+            double[] c, int cOff, int ldc) {
+        double[] packedA = PACKED_A.get();
+        double[] packedB = PACKED_B.get();
+        double[] edge = EDGE_TILE.get();
+        for (int jc = 0; jc < n; jc += NC) {
+            int nc = Math.min(NC, n - jc);
+            for (int pc = 0; pc < k; pc += KC) {
+                int kc = Math.min(KC, k - pc);
+                packB(transB, b, bOff, ldb, pc, jc, kc, nc, packedB);
+                for (int ic = 0; ic < m; ic += MC) {
+                    int mc = Math.min(MC, m - ic);
+                    packA(transA, a, aOff, lda, ic, pc, mc, kc, packedA);
+                    multiplyPacked(packedA, packedB, mc, nc, kc, c, cOff + ic * ldc + jc, ldc, edge);
+                }
+            }
+        }
+    }
+
+    // Helper method to pack op(a)[ic:ic+mc, pc:pc+kc] into MR-row slivers, each stored
+    // column by column (kc columns of MR values), zero-padding the last sliver
+    private static void packA(boolean transA, double[] a, int aOff, int lda,
+            int ic, int pc, int mc, int kc, double[] packed) {
+        int dst = 0;
+        for (int ir = 0; ir < mc; ir += MR) {
+            int rows = Math.min(MR, mc - ir);
+            for (int p = 0; p < kc; p++) {
+                for (int r = 0; r < rows; r++) {
+                    int i = ic + ir + r;
+                    int col = pc + p;
+                    packed[dst + r] = transA ? a[aOff + col * lda + i] : a[aOff + i * lda + col];
+                }
+                for (int r = rows; r < MR; r++) {
+                    packed[dst + r] = 0.0;
+                }
+                dst += MR;
+            }
+        }
+    }
+
+    // Helper method packing as packA does, reading a through a buffer
+    private static void packA(boolean transA, DoubleBuffer a, int aOff, int lda,
+            int ic, int pc, int mc, int kc, double[] packed) {
+        int dst = 0;
+        for (int ir = 0; ir < mc; ir += MR) {
+            int rows = Math.min(MR, mc - ir);
+            for (int p = 0; p < kc; p++) {
+                for (int r = 0; r < rows; r++) {
+                    int i = ic + ir + r;
+                    int col = pc + p;
+                    packed[dst + r] = transA ? a.get(aOff + col * lda + i) : a.get(aOff + i * lda + col);
+                }
+                for (int r = rows; r < MR; r++) {
+                    packed[dst + r] = 0.0;
+                }
+                dst += MR;
+            }
+        }
+    }
+
+    // Helper method to pack op(b)[pc:pc+kc, jc:jc+nc] into NR-column slivers, each stored
+    // row by row (kc rows of NR values), zero-padding the last sliver
+    private static void packB(boolean transB, double[] b, int bOff, int ldb,
+            int pc, int jc, int kc, int nc, double[] packed) {
+        int dst = 0;
+        for (int jr = 0; jr < nc; jr += NR) {
+            int cols = Math.min(NR, nc - jr);
+            for (int p = 0; p < kc; p++) {
+                int row = pc + p;
+                for (int s = 0; s < cols; s++) {
+                    int j = jc + jr + s;
+                    packed[dst + s] = transB ? b[bOff + j * ldb + row] : b[bOff + row * ldb + j];
+                }
+                for (int s = cols; s < NR; s++) {
+                    packed[dst + s] = 0.0;
+                }
+                dst += NR;
+            }
+        }
+    }
+
+    // Helper method packing as packB does, reading b through a buffer
+    private static void packB(boolean transB, DoubleBuffer b, int bOff, int ldb,
+            int pc, int jc, int kc, int nc, double[] packed) {
+        int dst = 0;
+        for (int jr = 0; jr < nc; jr += NR) {
+            int cols = Math.min(NR, nc - jr);
+            for (int p = 0; p < kc; p++) {
+                int row = pc + p;
+                for (int s = 0; s < cols; s++) {
+                    int j = jc + jr + s;
+                    packed[dst + s] = transB ? b.get(bOff + j * ldb + row) : b.get(bOff + row * ldb + j);
+                }
+                for (int s = cols; s < NR; s++) {
+                    packed[dst + s] = 0.0;
+                }
+                dst += NR;
+            }
+        }
+    }
+
+    // Helper method to multiply a packed mc x kc block of A with a packed kc x nc block of B
+    // and add the result to the mc x nc block of c starting at cOff
+    private static void multiplyPacked(double[] packedA, double[] packedB, int mc, int nc, int kc,
+            double[] c, int cOff, int ldc, double[] edge) {
+        for (int jr = 0; jr < nc; jr += NR) {
+            int cols = Math.min(NR, nc - jr);
+            int bBase = jr * kc;
+            for (int ir = 0; ir < mc; ir += MR) {
+                int rows = Math.min(MR, mc - ir);
+                int aBase = ir * kc;
+                if (rows == MR && cols == NR) {
+                    KERNELS.gemmMicroKernel(packedA, aBase, packedB, bBase, kc, c, cOff + ir * ldc + jr, ldc);
+                } else {
+                    Arrays.fill(edge, 0.0);
+                    KERNELS.gemmMicroKernel(packedA, aBase, packedB, bBase, kc, edge, 0, NR);
+                    for (int r = 0; r < rows; r++) {
+                        int cRow = cOff + (ir + r) * ldc + jr;
+                        for (int s = 0; s < cols; s++) {
+                            c[cRow + s] += edge[r * NR + s];
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // Represents the computation of the tile c[r0:r1, c0:c1] of a product, split recursively
+    // along its longer side until each piece is about grain multiply-adds; each piece multiplies
+    // views of the operands, so the same task serves every dtype
+    private static final class TileTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Tensor a;
+        private final boolean transA;
+        private final Tensor b;
+        private final boolean transB;
+        private final Tensor c;
+        private final boolean accumulate;
+        private final long grain;
+        private final int r0;
+        private final int r1;
+        private final int c0;
+        private final int c1;
+
+        TileTask(Tensor a, boolean transA, Tensor b, boolean transB, Tensor c, boolean accumulate, long grain,
+                int r0, int r1, int c0, int c1) {
+            this.a = a;
+            this.transA = transA;
+            this.b = b;
+            this.transB = transB;
+            this.c = c;
+            this.accumulate = accumulate;
+            this.grain = grain;
+            this.r0 = r0;
+            this.r1 = r1;
+            this.c0 = c0;
+            this.c1 = c1;
+        }
+
+        // EFFECTS: returns a task for the tile c[r0:r1, c0:c1] of the same product
+        private TileTask tile(int r0, int r1, int c0, int c1) {
+            return new TileTask(a, transA, b, transB, c, accumulate, grain, r0, r1, c0, c1);
+        }
+
+        @Override
+        protected void compute() {
+            int rows = r1 - r0;
+            int cols = c1 - c0;
+            int k = transA ? a.getRows() : a.getCols();
+            boolean splitRows = rows >= cols && rows >= 2 * MR;
+            boolean splitCols = !splitRows && cols >= 2 * NR;
+            if ((long) rows * cols * k <= grain || (!splitRows && !splitCols)) {
+                // Rows r0:r1 of op(a) times columns c0:c1 of op(b)
+                Tensor tileA = transA ? a.view(0, k, r0, r1) : a.view(r0, r1, 0, k);
+                Tensor tileB = transB ? b.view(c0, c1, 0, k) : b.view(0, k, c0, c1);
+                multiply(tileA, transA, tileB, transB, c.view(r0, r1, c0, c1), accumulate);
+            } else if (splitRows) {
+                int mid = r0 + (rows / 2) / MR * MR;
+                invokeAll(tile(r0, mid, c0, c1), tile(mid, r1, c0, c1));
+            } else {
+                int mid = c0 + (cols / 2) / NR * NR;
+                invokeAll(tile(r0, r1, c0, mid), tile(r0, r1, mid, c1));
+            }
+        }
+    }
+
+    // Represents the column sums of a for the columns [c0, c1), split recursively over columns
+    private static final class ColumnSumTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Tensor a;
+        private final Tensor sums;
+        private final long grain;
+        private final int c0;
+        private final int c1;
+
+        ColumnSumTask(Tensor a, Tensor sums, long grain, int c0, int c1) {
+            this.a = a;
+            this.sums = sums;
+            this.grain = grain;
+            this.c0 = c0;
+            this.c1 = c1;
+        }
+
+        @Override
+        protected void compute() {
+            int cols = c1 - c0;
+            if ((long) a.getRows() * cols <= grain || cols < 2 * NR) {
+                sumColumns(a, sums, c0, c1);
+            } else {
+                int mid = c0 + cols / 2;
+                invokeAll(new ColumnSumTask(a, sums, grain, c0, mid), new ColumnSumTask(a, sums, grain, mid, c1));
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Represents a network prepared for serving predictions to many threads at once.
+// The session holds the network's layers as they were when it was created and only ever calls
+// Layer.infer on them, which reads the parameters and keeps nothing from a call, so requests
+// never see each other's inputs and no input stays reachable after its call returns. Adding,
+// replacing or removing layers of the network afterwards does not affect the session; the
+// parameters themselves are shared, so the network must not be trained while the session is used.
+public final class InferenceSession {
+    private final Layer[] layers;
+    private final DType dtype;
+
+    // EFFECTS: creates a session over the current layers of network, computing in its compute dtype;
+    // throws IllegalArgumentException if network is null
+    public InferenceSession(NeuralNetwork network) {
+        if (network == null) {
+            EventLog.getInstance().warn(() -> "Attempted to create an inference session without a network.");
+            throw new IllegalArgumentException("Network cannot be null");
+        }
+        List<Layer> networkLayers = network.getLayers();
+        this.layers = networkLayers.toArray(new Layer[0]);
+        this.dtype = network.getComputeDType();
+    }
+
+    // EFFECTS: returns the output of the network for input, converted to the session's dtype first;
+    // safe to call from several threads at once;
+    // throws IllegalArgumentException if input is null or does not fit the first layer
+    public Tensor predict(Tensor input) {
+        if (input == null) {
+            EventLog.getInstance().warn(() -> "Attempted to predict with null input tensor.");
+            throw new IllegalArgumentException("Input cannot be null");
+        }
+        Tensor output = input.toDType(dtype);
+        for (Layer layer : layers) {
+            output = layer.infer(output);
+        }
+        return output;
+    }
+
+    // EFFECTS: returns the outputs for inputs, in order, computed in a single pass over the rows of
+    // all inputs stacked into one batch; each output is a view of the batch's output rows for its
+    // input. Safe to call from several threads at once;
+    // throws IllegalArgumentException if inputs is null, empty, contains null, or its tensors have
+    // different numbers of columns or do not fit the first layer
+    public List<Tensor> predictAll(List<Tensor> inputs) {
+        Tensor batch = stack(inputs);
+        Tensor output = batch;
+        for (Layer layer : layers) {
+            output = layer.infer(output);
+        }
+        List<Tensor> outputs = new ArrayList<>(inputs.size());
+        int row = 0;
+        for (Tensor input : inputs) {
+            outputs.add(output.sliceRows(row, row + input.getRows()));
+            row += input.getRows();
+        }
+        return outputs;
+    }
+
+    // Helper method copying the rows of inputs, converted to the session's dtype, into one tensor
+    private Tensor stack(List<Tensor> inputs) {
+        if (inputs == null || inputs.isEmpty() || inputs.get(0) == null) {
+            EventLog.getInstance().warn(() -> "Attempted to predict a batch without inputs.");
+            throw new IllegalArgumentException("Inputs cannot be null or empty");
+        }
+        int cols = inputs.get(0).getCols();
+        int rows = 0;
+        for (Tensor input : inputs) {
+            if (input == null || input.getCols() != cols) {
+                EventLog.getInstance().warn(() -> "Batched inputs are null or have different numbers of columns.");
+                throw new IllegalArgumentException("Inputs must be non-null with the same number of columns");
+            }
+            rows = Math.addExact(rows, input.getRows());
+        }
+        Tensor batch = new Tensor(rows, cols, dtype);
+        int row = 0;
+        for (Tensor input : inputs) {
+            batch.sliceRows(row, row + input.getRows()).copyFrom(input);
+            row += input.getRows();
+        }
+        return batch;
+    }
+
+    // EFFECTS: returns the dtype predictions are computed and returned in
+    public DType getDType() {
+        return dtype;
+    }
+
+    // EFFECTS: returns the number of layers in the session
+    public int getLayerCount() {
+        return layers.length;
+    }
+}
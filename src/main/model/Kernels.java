@@ -0,0 +1,122 @@
+package model;
+
+// Represents the inner loops shared by tensors, layers and metrics. Each operation works on a
+// contiguous run of elements in row-major storage, so callers loop over rows and pass offsets.
+//
+// The active implementation uses SIMD kernels from the jdk.incubator.vector module when the JVM
+// was started with --add-modules jdk.incubator.vector and the hardware has 256-bit vectors;
+// otherwise, or when the system property jtorch.simd is false, it uses plain scalar loops.
+abstract class Kernels {
+
+    private static final Kernels SCALAR = new ScalarKernels();
+    private static final Kernels ACTIVE = load();
+
+    // EFFECTS: returns the implementation used by the model
+    static Kernels active() {
+        return ACTIVE;
+    }
+
+    // EFFECTS: returns the scalar implementation
+    static Kernels scalar() {
+        return SCALAR;
+    }
+
+    // EFFECTS: returns the vector implementation if it is enabled and usable, else the scalar one
+    private static Kernels load() {
+        if (!Boolean.parseBoolean(System.getProperty("jtorch.simd", "true"))
+                || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return SCALAR;
+        }
+        try {
+            return (Kernels) Class.forName("model.VectorKernels").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError | UnsupportedOperationException e) {
+            return SCALAR;
+        }
+    }
+
+    // EFFECTS: returns a short name for this implementation
+    abstract String name();
+
+    // MODIFIES: dst
+    // EFFECTS: dst[dOff + i] += src[sOff + i] for 0 <= i < len
+    abstract void add(double[] dst, int dOff, double[] src, int sOff, int len);
+
+    // MODIFIES: dst
+    // EFFECTS: dst[dOff + i] *= src[sOff + i] for 0 <= i < len
+    abstract void multiply(double[] dst, int dOff, double[] src, int sOff, int len);
+
+    // MODIFIES: out
+    // EFFECTS: out[oOff + i] = max(0, in[iOff + i]) for 0 <= i < len
+    abstract void relu(double[] in, int iOff, double[] out, int oOff, int len);
+
+    // MODIFIES: out
+    // EFFECTS: out[oOff + i] = grad[gOff + i] * (in[iOff + i] > 0 ? 1 : 0) for 0 <= i < len
+    abstract void reluBackward(double[] in, int iOff, double[] grad, int gOff, double[] out, int oOff, int len);
+
+    // MODIFIES: out
+    // EFFECTS: out[oOff + i] = 1 / (1 + exp(-in[iOff + i])) for 0 <= i < len
+    abstract void sigmoid(double[] in, int iOff, double[] out, int oOff, int len);
+
+    // MODIFIES: out
+    // EFFECTS: out[oOff + i] = grad[gOff + i] * s * (1 - s), where s is the sigmoid of in[iOff + i],
+    // for 0 <= i < len
+    abstract void sigmoidBackward(double[] in, int iOff, double[] grad, int gOff, double[] out, int oOff, int len);
+
+    // EFFECTS: returns the sum of (a[aOff + i] - b[bOff + i])^2 for 0 <= i < len
+    abstract double sumSquaredDifference(double[] a, int aOff, double[] b, int bOff, int len);
+
+    // MODIFIES: out
+    // EFFECTS: out[oOff + i] = 2 * (a[aOff + i] - b[bOff + i]) / count for 0 <= i < len
+    abstract void scaledDifference(double[] a, int aOff, double[] b, int bOff, double count,
+            double[] out, int oOff, int len);
+
+    // REQUIRES: pa holds kc columns of Gemm.MR values from aIdx, pb holds kc rows of Gemm.NR values
+    // from bIdx, and c has an MR x NR tile with row stride ldc at cIdx
+    // MODIFIES: c
+    // EFFECTS: adds the product of the packed A and B slivers to the tile of c
+    abstract void gemmMicroKernel(double[] pa, int aIdx, double[] pb, int bIdx, int kc,
+            double[] c, int cIdx, int ldc);
+
+    // The overloads below are the FLOAT32 versions of the kernels above. They compute in float,
+    // except that sumSquaredDifference returns its sum as a double.
+
+    // MODIFIES: dst
+    // EFFECTS: dst[dOff + i] += src[sOff + i] for 0 <= i < len
+    abstract void add(float[] dst, int dOff, float[] src, int sOff, int len);
+
+    // MODIFIES: dst
+    // EFFECTS: dst[dOff + i] *= src[sOff + i] for 0 <= i < len
+    abstract void multiply(float[] dst, int dOff, float[] src, int sOff, int len);
+
+    // MODIFIES: out
+    // EFFECTS: out[oOff + i] = max(0, in[iOff + i]) for 0 <= i < len
+    abstract void relu(float[] in, int iOff, float[] out, int oOff, int len);
+
+    // MODIFIES: out
+    // EFFECTS: out[oOff + i] = grad[gOff + i] * (in[iOff + i] > 0 ? 1 : 0) for 0 <= i < len
+    abstract void reluBackward(float[] in, int iOff, float[] grad, int gOff, float[] out, int oOff, int len);
+
+    // MODIFIES: out
+    // EFFECTS: out[oOff + i] = 1 / (1 + exp(-in[iOff + i])) for 0 <= i < len
+    abstract void sigmoid(float[] in, int iOff, float[] out, int oOff, int len);
+
+    // MODIFIES: out
+    // EFFECTS: out[oOff + i] = grad[gOff + i] * s * (1 - s), where s is the sigmoid of in[iOff + i],
+    // for 0 <= i < len
+    abstract void sigmoidBackward(float[] in, int iOff, float[] grad, int gOff, float[] out, int oOff, int len);
+
+    // EFFECTS: returns the sum of (a[aOff + i] - b[bOff + i])^2 for 0 <= i < len
+    abstract double sumSquaredDifference(float[] a, int aOff, float[] b, int bOff, int len);
+
+    // MODIFIES: out
+    // EFFECTS: out[oOff + i] = 2 * (a[aOff + i] - b[bOff + i]) / count for 0 <= i < len
+    abstract void scaledDifference(float[] a, int aOff, float[] b, int bOff, double count,
+            float[] out, int oOff, int len);
+
+    // REQUIRES: pa holds kc columns of FloatGemm.MR values from aIdx, pb holds kc rows of
+    // FloatGemm.NR values from bIdx, and c has an MR x NR tile with row stride ldc at cIdx
+    // MODIFIES: c
+    // EFFECTS: adds the product of the packed A and B slivers to the tile of c
+    abstract void gemmMicroKernel(float[] pa, int aIdx, float[] pb, int bIdx, int kc,
+            float[] c, int cIdx, int ldc);
+}
@@ -1,15 +1,26 @@
 package model;
 
+import java.util.Arrays;
+
 import persistence.Writable;
 
 // Represents a layer in a neural network.
 public abstract class Layer implements Writable {
 
+    private boolean reuseBuffers;
+    private Tensor[] buffers = new Tensor[0]; // Tensors handed out by buffer(), kept for the next step
+
     // MODIFIES: this
     // EFFECTS: processes the input tensor and returns the output tensor;
     // throws IllegalArgumentException if input is null
     public abstract Tensor forward(Tensor input);
 
+    // EFFECTS: returns the output for the input computed from the parameters alone, without
+    // recording anything for a backward pass or reusing result tensors, so any number of threads
+    // may call it at once while the parameters are not being changed;
+    // throws IllegalArgumentException if input is null
+    public abstract Tensor infer(Tensor input);
+
     // EFFECTS: computes and returns the gradient tensor for the previous layer;
     // throws IllegalArgumentException if gradient is null
     public abstract Tensor backward(Tensor gradient);
@@ -21,4 +32,90 @@ public abstract class Layer implements Writable {
 
     // EFFECTS: returns a string representation of the layer
     public abstract String getDescription();
+
+    // MODIFIES: this
+    // EFFECTS: converts the layer's parameters to dtype; layers without parameters compute in the
+    // dtype of their input and ignore this;
+    // throws IllegalArgumentException if dtype is null
+    public void setDType(DType dtype) {
+        if (dtype == null) {
+            throw new IllegalArgumentException("Data type cannot be null");
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: makes forward and backward compute in dtype while the parameters keep their own
+    // dtype (mixed precision); null computes in the parameters' dtype. Layers without parameters
+    // compute in the dtype of their input and ignore this.
+    void setComputeDType(DType dtype) {
+    }
+
+    // MODIFIES: this
+    // EFFECTS: converts the gradients of the last backward pass to the parameters' dtype,
+    // multiplied by factor, so the optimizer can apply them; returns false if any of them is
+    // infinite or NaN. Layers without parameters return true.
+    boolean unscaleGradients(double factor) {
+        return true;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: brings the compute copies of the parameters up to date after an optimizer step;
+    // does nothing for layers that compute on their parameters directly
+    void refreshComputeParameters() {
+    }
+
+    // EFFECTS: returns a layer that computes like this one on the same parameters but keeps its own
+    // inputs, results and gradients, so that shards of a batch can run forward and backward on
+    // several threads at once; returns null if the layer cannot be replicated
+    Layer replica() {
+        return null;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: makes this replica compute on the current parameters of source, the layer it was
+    // made from, in case they were replaced since; does nothing for layers without parameters
+    void shareParameters(Layer source) {
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds the gradients of the last backward pass of replica, a replica of this layer, to
+    // those of this layer's last backward pass; does nothing for layers without parameters
+    void addGradients(Layer replica) {
+    }
+
+    // MODIFIES: this
+    // EFFECTS: replaces read-only parameters, e.g. ones mapped from a checkpoint, with heap copies
+    // so that an optimizer step can update them; does nothing for layers without parameters
+    void ensureWritableParameters() {
+    }
+
+    // MODIFIES: this
+    // EFFECTS: when reuse is true, forward and backward write into the tensors they returned on
+    // the previous call with the same batch shape instead of allocating new ones, so those results
+    // are overwritten by the next call; NeuralNetwork enables this only for the duration of a
+    // training step
+    void setReuseBuffers(boolean reuse) {
+        this.reuseBuffers = reuse;
+    }
+
+    // EFFECTS: returns true if forward and backward currently reuse their result tensors
+    boolean isReusingBuffers() {
+        return reuseBuffers;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns a rows x cols tensor of dtype for a result identified by slot; while buffers
+    // are reused this is the tensor last returned for slot, reallocated only when the shape or
+    // dtype changes, and otherwise it is a new tensor. The contents are unspecified and must be
+    // overwritten.
+    Tensor buffer(int slot, int rows, int cols, DType dtype) {
+        if (!reuseBuffers) {
+            return new Tensor(rows, cols, dtype);
+        }
+        if (slot >= buffers.length) {
+            buffers = Arrays.copyOf(buffers, slot + 1);
+        }
+        buffers[slot] = Tensor.reuseOrAllocate(buffers[slot], rows, cols, dtype);
+        return buffers[slot];
+    }
 }
@@ -0,0 +1,10 @@
+package model;
+
+// Represents the severity of an event, from the most detailed to the most important.
+// EventLog records only events at or above its configured level.
+public enum LogLevel {
+    TRACE,
+    DEBUG,
+    INFO,
+    WARN
+}
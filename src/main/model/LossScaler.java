@@ -0,0 +1,82 @@
+package model;
+
+import org.json.JSONObject;
+
+// Represents the dynamic loss scale used in mixed-precision training. The loss is multiplied by
+// the scale before backpropagation so that small gradients do not underflow in FLOAT32. If the
+// scaled gradients overflow, the step is skipped and the scale is halved; after growthInterval
+// steps in a row without overflow, the scale is doubled again.
+public class LossScaler {
+    static final double DEFAULT_INITIAL_SCALE = 65536.0;
+    static final int DEFAULT_GROWTH_INTERVAL = 2000;
+
+    private double scale;
+    private final int growthInterval;
+    private int goodSteps;
+    private long skippedSteps;
+
+    // EFFECTS: creates a scaler starting at 65536 that doubles the scale every 2000 good steps
+    public LossScaler() {
+        this(DEFAULT_INITIAL_SCALE, DEFAULT_GROWTH_INTERVAL);
+    }
+
+    // EFFECTS: creates a scaler starting at initialScale that doubles the scale after
+    // growthInterval steps in a row without overflow;
+    // throws IllegalArgumentException if initialScale < 1 or is not finite, or growthInterval <= 0
+    public LossScaler(double initialScale, int growthInterval) {
+        if (!(initialScale >= 1.0) || Double.isInfinite(initialScale) || growthInterval <= 0) {
+            EventLog.getInstance().warn(() -> "Invalid loss scaler parameters provided.");
+            throw new IllegalArgumentException("Invalid loss scaler parameters");
+        }
+        this.scale = initialScale;
+        this.growthInterval = growthInterval;
+    }
+
+    // EFFECTS: returns the factor the loss is currently multiplied by
+    public double getScale() {
+        return scale;
+    }
+
+    // EFFECTS: returns the number of optimizer steps skipped because the gradients overflowed
+    public long getSkippedSteps() {
+        return skippedSteps;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records whether the gradients of the last step were finite, halving the scale
+    // (but not below 1) after an overflow and doubling it after growthInterval good steps
+    void update(boolean finite) {
+        if (!finite) {
+            skippedSteps++;
+            goodSteps = 0;
+            scale = Math.max(1.0, scale / 2);
+            EventLog.getInstance().debug(() -> "Gradients overflowed; skipped step and reduced loss scale to "
+                    + scale);
+            return;
+        }
+        goodSteps++;
+        if (goodSteps == growthInterval) {
+            goodSteps = 0;
+            scale *= 2;
+            EventLog.getInstance().debug(() -> "Increased loss scale to " + scale);
+        }
+    }
+
+    // EFFECTS: returns the scale, growth interval and step counters, for training checkpoints
+    JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        json.put("scale", scale);
+        json.put("growthInterval", growthInterval);
+        json.put("goodSteps", goodSteps);
+        json.put("skippedSteps", skippedSteps);
+        return json;
+    }
+
+    // EFFECTS: returns the scaler saved by toJson, in the same state
+    static LossScaler fromJson(JSONObject json) {
+        LossScaler scaler = new LossScaler(json.getDouble("scale"), json.getInt("growthInterval"));
+        scaler.goodSteps = json.getInt("goodSteps");
+        scaler.skippedSteps = json.getLong("skippedSteps");
+        return scaler;
+    }
+}
@@ -8,30 +8,40 @@ public class Metric {
     // not match
     public double calculateLoss(Tensor output, Tensor target) {
         if (output == null || target == null) {
-            EventLog.getInstance()
-                    .logEvent(new Event("Attempted to calculate loss with null output or target tensor."));
+            EventLog.getInstance().warn(() -> "Attempted to calculate loss with null output or target tensor.");
             throw new IllegalArgumentException("Output and target cannot be null");
         }
-        double[][] outputData = output.getData();
-        double[][] targetData = target.getData();
+        checkSameShape("calculateLoss", output, target);
 
-        if (outputData.length != targetData.length || outputData[0].length != targetData[0].length) {
-            EventLog.getInstance().logEvent(new Event("Dimension mismatch in calculateLoss: Output dimensions "
-                    + outputData.length + "x" + outputData[0].length + ", Target dimensions "
-                    + targetData.length + "x" + targetData[0].length));
-            throw new IllegalArgumentException("Output and target must have the same dimensions");
+        double loss = output.getDType() == DType.FLOAT32 ? floatSquaredError(output, target)
+                : squaredError(output, target);
+        return loss / (output.getRows() * output.getCols());
+    }
+
+    // Helper method summing the squared differences of output and target
+    private static double squaredError(Tensor output, Tensor target) {
+        Kernels kernels = Kernels.active();
+        double[] outputRow = scratchRow(output);
+        double[] targetRow = scratchRow(target);
+        double loss = 0.0;
+        for (int i = 0; i < output.getRows(); i++) {
+            loss += kernels.sumSquaredDifference(row(output, i, outputRow), rowOffset(output, i),
+                    row(target, i, targetRow), rowOffset(target, i), output.getCols());
         }
+        return loss;
+    }
 
+    // Helper method summing the squared differences of FLOAT32 output and target
+    private static double floatSquaredError(Tensor output, Tensor target) {
+        Kernels kernels = Kernels.active();
+        float[] outputRow = floatScratchRow(output);
+        float[] targetRow = floatScratchRow(target);
         double loss = 0.0;
-        int count = 0;
-        for (int i = 0; i < outputData.length; i++) {
-            for (int j = 0; j < outputData[i].length; j++) {
-                double diff = outputData[i][j] - targetData[i][j];
-                loss += diff * diff;
-                count++;
-            }
+        for (int i = 0; i < output.getRows(); i++) {
+            loss += kernels.sumSquaredDifference(row(output, i, outputRow), rowOffset(output, i),
+                    row(target, i, targetRow), rowOffset(target, i), output.getCols());
         }
-        return loss / count;
+        return loss;
     }
 
     // EFFECTS: computes and returns the accuracy;
@@ -39,32 +49,23 @@ public class Metric {
     // not match
     public double calculateAccuracy(Tensor output, Tensor target) {
         if (output == null || target == null) {
-            EventLog.getInstance()
-                    .logEvent(new Event("Attempted to calculate accuracy with null output or target tensor."));
+            EventLog.getInstance().warn(() -> "Attempted to calculate accuracy with null output or target tensor.");
             throw new IllegalArgumentException("Output and target cannot be null");
         }
-        double[][] outputData = output.getData();
-        double[][] targetData = target.getData();
-
-        if (outputData.length != targetData.length || outputData[0].length != targetData[0].length) {
-            EventLog.getInstance().logEvent(new Event("Dimension mismatch in calculateAccuracy: Output dimensions "
-                    + outputData.length + "x" + outputData[0].length + ", Target dimensions "
-                    + targetData.length + "x" + targetData[0].length));
-            throw new IllegalArgumentException("Output and target must have the same dimensions");
-        }
+        checkSameShape("calculateAccuracy", output, target);
 
-        return calculateTotalAccuracy(outputData, targetData);
+        return calculateTotalAccuracy(output, target);
     }
 
     // Helper method for calculating total accuracy
     // EFFECTS: computes and returns the total accuracy
-    private double calculateTotalAccuracy(double[][] outputData, double[][] targetData) {
+    private double calculateTotalAccuracy(Tensor output, Tensor target) {
         int correct = 0;
         int total = 0;
-        for (int i = 0; i < outputData.length; i++) {
-            for (int j = 0; j < outputData[i].length; j++) {
-                double outputValue = outputData[i][j] >= 0.5 ? 1.0 : 0.0;
-                double targetValue = targetData[i][j];
+        for (int i = 0; i < output.getRows(); i++) {
+            for (int j = 0; j < output.getCols(); j++) {
+                double outputValue = output.get(i, j) >= 0.5 ? 1.0 : 0.0;
+                double targetValue = target.get(i, j);
                 if (outputValue == targetValue) {
                     correct++;
                 }
@@ -80,28 +81,108 @@ public class Metric {
     // not match
     public Tensor lossGradient(Tensor output, Tensor target) {
         if (output == null || target == null) {
-            EventLog.getInstance()
-                    .logEvent(new Event("Attempted to compute loss gradient with null output or target tensor."));
+            EventLog.getInstance().warn(() -> "Attempted to compute loss gradient with null output or target tensor.");
             throw new IllegalArgumentException("Output and target cannot be null");
         }
-        double[][] outputData = output.getData();
-        double[][] targetData = target.getData();
+        checkSameShape("lossGradient", output, target);
 
-        if (outputData.length != targetData.length || outputData[0].length != targetData[0].length) {
-            EventLog.getInstance().logEvent(new Event("Dimension mismatch in lossGradient: Output dimensions "
-                    + outputData.length + "x" + outputData[0].length + ", Target dimensions "
-                    + targetData.length + "x" + targetData[0].length));
-            throw new IllegalArgumentException("Output and target must have the same dimensions");
+        Tensor grad = new Tensor(output.getRows(), output.getCols(), output.getDType());
+        lossGradient(output, target, grad);
+        return grad;
+    }
+
+    // REQUIRES: output, target and grad all have the same shape and dtype
+    // MODIFIES: grad
+    // EFFECTS: writes the gradient of the loss with respect to output into grad
+    void lossGradient(Tensor output, Tensor target, Tensor grad) {
+        lossGradient(output, target, grad, 1.0);
+    }
+
+    // REQUIRES: output, target and grad all have the same shape and dtype, grad is on the heap,
+    // and scale > 0
+    // MODIFIES: grad
+    // EFFECTS: writes the gradient of the loss multiplied by scale with respect to output into grad;
+    // scaling keeps small float32 gradients from underflowing during mixed-precision training
+    void lossGradient(Tensor output, Tensor target, Tensor grad, double scale) {
+        double count = output.getRows() * output.getCols() / scale;
+        if (output.getDType() == DType.FLOAT32) {
+            floatScaledDifference(output, target, count, grad);
+        } else {
+            scaledDifference(output, target, count, grad);
         }
+    }
 
-        double[][] gradData = new double[outputData.length][outputData[0].length];
-        int count = outputData.length * outputData[0].length;
+    // Helper method writing (output - target) / count into grad
+    private static void scaledDifference(Tensor output, Tensor target, double count, Tensor grad) {
+        Kernels kernels = Kernels.active();
+        double[] outputRow = scratchRow(output);
+        double[] targetRow = scratchRow(target);
+        for (int i = 0; i < output.getRows(); i++) {
+            kernels.scaledDifference(row(output, i, outputRow), rowOffset(output, i), row(target, i, targetRow),
+                    rowOffset(target, i), count, grad.array(), grad.rowStart(i), output.getCols());
+        }
+    }
 
-        for (int i = 0; i < outputData.length; i++) {
-            for (int j = 0; j < outputData[i].length; j++) {
-                gradData[i][j] = 2 * (outputData[i][j] - targetData[i][j]) / count;
-            }
+    // Helper method writing (output - target) / count into grad for FLOAT32 tensors
+    private static void floatScaledDifference(Tensor output, Tensor target, double count, Tensor grad) {
+        Kernels kernels = Kernels.active();
+        float[] outputRow = floatScratchRow(output);
+        float[] targetRow = floatScratchRow(target);
+        for (int i = 0; i < output.getRows(); i++) {
+            kernels.scaledDifference(row(output, i, outputRow), rowOffset(output, i), row(target, i, targetRow),
+                    rowOffset(target, i), count, grad.floatArray(), grad.rowStart(i), output.getCols());
+        }
+    }
+
+    // Helper method returning an array for one row of tensor if it is stored off-heap, and null
+    // otherwise; the kernels then read off-heap rows through it
+    private static double[] scratchRow(Tensor tensor) {
+        return tensor.isOffHeap() ? new double[tensor.getCols()] : null;
+    }
+
+    // Helper method returning an array for one FLOAT32 row of tensor if it is stored off-heap, and
+    // null otherwise
+    private static float[] floatScratchRow(Tensor tensor) {
+        return tensor.isOffHeap() ? new float[tensor.getCols()] : null;
+    }
+
+    // Helper method returning the array holding row i of tensor: its own storage if scratch is null,
+    // and otherwise scratch after reading the row into it
+    private static double[] row(Tensor tensor, int i, double[] scratch) {
+        if (scratch == null) {
+            return tensor.array();
+        }
+        tensor.readRow(i, scratch, 0);
+        return scratch;
+    }
+
+    // Helper method returning the array holding FLOAT32 row i of tensor, as row does
+    private static float[] row(Tensor tensor, int i, float[] scratch) {
+        if (scratch == null) {
+            return tensor.floatArray();
+        }
+        tensor.readRow(i, scratch, 0);
+        return scratch;
+    }
+
+    // Helper method returning where row i of tensor starts in the array row returns for it
+    private static int rowOffset(Tensor tensor, int i) {
+        return tensor.isOffHeap() ? 0 : tensor.rowStart(i);
+    }
+
+    // Helper method to check that output and target have matching dimensions and dtypes
+    // EFFECTS: throws IllegalArgumentException if output and target shapes or dtypes differ
+    private void checkSameShape(String operation, Tensor output, Tensor target) {
+        if (output.getDType() != target.getDType()) {
+            EventLog.getInstance().warn(() -> "Dtype mismatch in " + operation + ": Output dtype "
+                    + output.getDType() + ", Target dtype " + target.getDType());
+            throw new IllegalArgumentException("Output and target must have the same dtype");
+        }
+        if (!output.sameShape(target)) {
+            EventLog.getInstance().warn(() -> "Dimension mismatch in " + operation + ": Output dimensions "
+                    + output.getRows() + "x" + output.getCols() + ", Target dimensions " + target.getRows() + "x"
+                    + target.getCols());
+            throw new IllegalArgumentException("Output and target must have the same dimensions");
         }
-        return new Tensor(gradData);
     }
 }
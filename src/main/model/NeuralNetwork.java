@@ -1,53 +1,75 @@
 package model;
 
 import java.util.List;
+import java.util.Random;
 
 import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
 
+import persistence.CheckpointReader;
 import persistence.Writable;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
 
 // Represents a neural network composed of multiple layers.
 public class NeuralNetwork implements Writable {
 
     private List<Layer> layers;
     private TrainingListener trainingListener;
+    private Random shuffleRandom = new Random(); // Orders mini-batches in each epoch
+    private Tensor lossGradientBuffer; // Reused across training steps
+    private DType dtype = DType.FLOAT64; // Element type of every parameter and activation
+    private boolean mixedPrecision; // Activations and gradients in FLOAT32, parameters in FLOAT64
+    private LossScaler lossScaler = new LossScaler();
+    private CheckpointPolicy checkpointPolicy; // Saves checkpoints in the background while training
+    private TrainingProgress progress = new TrainingProgress();
+    private TrainingProgress resumeFrom; // Where the next train call continues after resume, if set
+    private PredictionCache predictionCache; // Answers repeated predict calls, if set
+    private DataParallelStep dataParallel; // Splits each mini-batch over layer replicas, if set
 
     // EFFECTS: initializes an empty list of layers
     public NeuralNetwork() {
         layers = new ArrayList<>();
     }
 
-    // MODIFIES: this
-    // EFFECTS: adds the layer to the network;
+    // MODIFIES: this, layer
+    // EFFECTS: adds the layer to the network, converting its parameters to the network's dtype;
     // throws IllegalArgumentException if layer is null
     public void addLayer(Layer layer) {
         if (layer == null) {
-            EventLog.getInstance().logEvent(new Event("Attempted to add a null layer to the network."));
+            EventLog.getInstance().warn(() -> "Attempted to add a null layer to the network.");
             throw new IllegalArgumentException("Layer cannot be null");
         }
+        layer.setDType(dtype);
+        layer.setComputeDType(mixedPrecision ? DType.FLOAT32 : null);
         layers.add(layer);
-        EventLog.getInstance().logEvent(new Event("Added layer: " + layer.getDescription()
-                + " to the network. Network now has " + layers.size() + " layers."));
+        invalidatePredictions();
+        EventLog.getInstance().info(() -> "Added layer: " + layer.getDescription()
+                + " to the network. Network now has " + layers.size() + " layers.");
     }
 
-    // MODIFIES: this
-    // EFFECTS: updates the layer at the specified index from the network with the new layer;
+    // MODIFIES: this, layer
+    // EFFECTS: updates the layer at the specified index from the network with the new layer,
+    // converting its parameters to the network's dtype;
     // throws IllegalArgumentException if index is invalid or layer is null
     public void updateLayer(int index, Layer layer) {
         if (layer == null) {
-            EventLog.getInstance().logEvent(new Event("Attempted to update layer with null layer."));
+            EventLog.getInstance().warn(() -> "Attempted to update layer with null layer.");
             throw new IllegalArgumentException("Layer cannot be null");
         }
         if (index < 0 || index >= layers.size()) {
-            EventLog.getInstance().logEvent(new Event("Attempted to update layer at invalid index: " + index));
+            EventLog.getInstance().warn(() -> "Attempted to update layer at invalid index: " + index);
             throw new IllegalArgumentException("Invalid index");
         }
+        layer.setDType(dtype);
+        layer.setComputeDType(mixedPrecision ? DType.FLOAT32 : null);
         layers.set(index, layer);
-        EventLog.getInstance().logEvent(new Event("Updated layer at index " + index + " with new layer: "
-                + layer.getDescription()));
+        invalidatePredictions();
+        EventLog.getInstance().info(() -> "Updated layer at index " + index + " with new layer: "
+                + layer.getDescription());
     }
 
     // MODIFIES: this
@@ -55,12 +77,109 @@ public class NeuralNetwork implements Writable {
     // throws IllegalArgumentException if index is invalid
     public void removeLayer(int index) {
         if (index < 0 || index >= layers.size()) {
-            EventLog.getInstance().logEvent(new Event("Attempted to remove layer at invalid index: " + index));
+            EventLog.getInstance().warn(() -> "Attempted to remove layer at invalid index: " + index);
             throw new IllegalArgumentException("Invalid index");
         }
         layers.remove(index);
-        EventLog.getInstance().logEvent(new Event("Removed layer at index " + index + ". Network now has "
-                + layers.size() + " layers."));
+        invalidatePredictions();
+        EventLog.getInstance().info(() -> "Removed layer at index " + index + ". Network now has " + layers.size()
+                + " layers.");
+    }
+
+    // MODIFIES: this
+    // EFFECTS: converts every parameter of the network to dtype; inputs and targets given to
+    // train and predict are converted to it as well, so FLOAT32 halves the memory and bandwidth
+    // of parameters and activations;
+    // throws IllegalArgumentException if dtype is null
+    public void setDType(DType dtype) {
+        if (dtype == null) {
+            EventLog.getInstance().warn(() -> "Attempted to set a null dtype on the network.");
+            throw new IllegalArgumentException("Data type cannot be null");
+        }
+        this.dtype = dtype;
+        this.mixedPrecision = false;
+        for (int i = 0; i < layers.size(); i++) {
+            layers.get(i).setDType(dtype);
+            layers.get(i).setComputeDType(null);
+        }
+        lossGradientBuffer = null;
+        invalidatePredictions();
+        EventLog.getInstance().info(() -> "Network dtype set to " + dtype);
+    }
+
+    // EFFECTS: returns the element type of the network's parameters
+    public DType getDType() {
+        return dtype;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: when enabled, keeps every parameter in FLOAT64 as a master copy while the forward
+    // and backward passes run in FLOAT32 on rounded copies of them; the loss is multiplied by the
+    // loss scaler's scale before backpropagation so small gradients survive in FLOAT32, and the
+    // optimizer applies the unscaled gradients to the master copies, which are then rounded
+    // into the FLOAT32 copies again. When disabled, the network computes in FLOAT64 throughout.
+    public void setMixedPrecision(boolean enabled) {
+        setDType(DType.FLOAT64);
+        this.mixedPrecision = enabled;
+        for (int i = 0; i < layers.size(); i++) {
+            layers.get(i).setComputeDType(enabled ? DType.FLOAT32 : null);
+        }
+        invalidatePredictions();
+        EventLog.getInstance().info(() -> "Mixed precision " + (enabled ? "enabled" : "disabled"));
+    }
+
+    // EFFECTS: returns true if the network trains with mixed precision
+    public boolean isMixedPrecision() {
+        return mixedPrecision;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: sets the loss scaler used during mixed-precision training;
+    // throws IllegalArgumentException if lossScaler is null
+    public void setLossScaler(LossScaler lossScaler) {
+        if (lossScaler == null) {
+            EventLog.getInstance().warn(() -> "Attempted to set a null loss scaler on the network.");
+            throw new IllegalArgumentException("Loss scaler cannot be null");
+        }
+        this.lossScaler = lossScaler;
+    }
+
+    // EFFECTS: returns the loss scaler used during mixed-precision training
+    public LossScaler getLossScaler() {
+        return lossScaler;
+    }
+
+    // EFFECTS: returns the element type activations and gradients are computed in
+    public DType getComputeDType() {
+        return mixedPrecision ? DType.FLOAT32 : dtype;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: sets the policy that checkpoints the network during training, or removes it if
+    // policy is null; the caller closes the policy once training is done
+    public void setCheckpointPolicy(CheckpointPolicy policy) {
+        this.checkpointPolicy = policy;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: makes each training step split its mini-batch by rows into up to shards shards that
+    // run forward and backward at once on pool, each on its own replica of the layers sharing
+    // their parameters; the shards' gradients are summed in a tree and one optimizer step is
+    // applied, so the step matches a single-threaded one up to rounding. shards == 1 trains on
+    // the calling thread again. Layers that cannot be replicated also train on the calling thread.
+    // throws IllegalArgumentException if shards <= 0, or if shards > 1 and pool is null
+    public void setDataParallelism(int shards, ForkJoinPool pool) {
+        if (shards <= 0 || (shards > 1 && pool == null)) {
+            EventLog.getInstance().warn(() -> "Invalid data parallelism: " + shards + " shards on pool " + pool);
+            throw new IllegalArgumentException("Shards must be positive and need a pool when more than one");
+        }
+        this.dataParallel = shards == 1 ? null : new DataParallelStep(shards, pool);
+        EventLog.getInstance().info(() -> "Data parallelism set to " + shards + " shards");
+    }
+
+    // EFFECTS: returns the number of shards each mini-batch is split into, at most
+    public int getDataParallelism() {
+        return dataParallel == null ? 1 : dataParallel.getShards();
     }
 
     // MODIFIES: this
@@ -76,47 +195,302 @@ public class NeuralNetwork implements Writable {
     // notifies UI of loss for each epoch throughout training
     public void train(List<Tensor> inputs, List<Tensor> targets, int epochs, Optimizer optimizer) {
         if (inputs == null || targets == null || optimizer == null || epochs <= 0 || inputs.size() != targets.size()) {
-            EventLog.getInstance().logEvent(new Event("Invalid training parameters provided."));
+            EventLog.getInstance().warn(() -> "Invalid training parameters provided.");
             throw new IllegalArgumentException("Invalid training parameters");
         }
-        EventLog.getInstance().logEvent(new Event("Training started for " + epochs + " epochs with optimizer: "
-                + optimizer.getClass().getSimpleName()));
+        EventLog.getInstance().info(() -> "Training started for " + epochs + " epochs with optimizer: "
+                + optimizer.getClass().getSimpleName());
         Metric metric = new Metric();
-        for (int epoch = 0; epoch < epochs; epoch++) {
-            trainEpoch(inputs, targets, optimizer, metric);
-            double totalLoss = trainEpoch(inputs, targets, optimizer, metric);
-            double averageLoss = totalLoss / inputs.size();
+        for (int epoch = firstEpoch(inputs.size()); epoch < epochs; epoch++) {
+            int trained = trainedBatches(epoch);
+            progress.startEpoch(epoch, null, trained);
+            double totalLoss = trainEpoch(inputs, targets, trained, optimizer, metric);
+            finishEpoch(epoch, epochs, totalLoss / inputs.size());
+        }
+        EventLog.getInstance().info(() -> "Training completed after " + epochs + " epochs.");
+    }
+
+    // MODIFIES: this
+    // EFFECTS: trains the network for the specified number of epochs on the rows of inputs and
+    // targets, taking one optimizer step per mini-batch of batchSize rows; batches are views of
+    // the dataset rather than copies, the last batch of an epoch may be smaller, and the batch
+    // order is reshuffled every epoch;
+    // throws IllegalArgumentException if inputs, targets or optimizer is null, row counts do not
+    // match, batchSize <= 0, or epochs <= 0;
+    // notifies UI of loss for each epoch throughout training
+    public void train(Tensor inputs, Tensor targets, int batchSize, int epochs, Optimizer optimizer) {
+        if (inputs == null || targets == null || optimizer == null || epochs <= 0 || batchSize <= 0
+                || inputs.getRows() != targets.getRows()) {
+            EventLog.getInstance().warn(() -> "Invalid training parameters provided.");
+            throw new IllegalArgumentException("Invalid training parameters");
+        }
+        EventLog.getInstance().info(() -> "Training started for " + epochs + " epochs with batch size " + batchSize
+                + " and optimizer: " + optimizer.getClass().getSimpleName());
+        int[] order = batchOrder((inputs.getRows() + batchSize - 1) / batchSize);
+        Tensor data = inputs.toDType(getComputeDType()); // Converted once so the batches are views again
+        Tensor labels = targets.toDType(getComputeDType());
+        Metric metric = new Metric();
+        for (int epoch = firstEpoch(order.length); epoch < epochs; epoch++) {
+            int trained = trainedBatches(epoch);
+            if (trained == 0) {
+                shuffle(order); // A resumed epoch keeps the order it was interrupted in
+            }
+            progress.startEpoch(epoch, order, trained);
+            double totalLoss = trainEpoch(data, labels, batchSize, order, trained, optimizer, metric);
+            finishEpoch(epoch, epochs, totalLoss / inputs.getRows());
+        }
+        EventLog.getInstance().info(() -> "Training completed after " + epochs + " epochs.");
+    }
+
+    // MODIFIES: this
+    // EFFECTS: trains the network for the specified number of epochs on the batches produced by
+    // loader, taking one optimizer step per batch; the loader's workers prepare upcoming batches
+    // while the current one is trained;
+    // throws IllegalArgumentException if loader or optimizer is null, or epochs <= 0;
+    // notifies UI of loss for each epoch throughout training
+    public void train(DataLoader loader, int epochs, Optimizer optimizer) {
+        if (loader == null || optimizer == null || epochs <= 0) {
+            EventLog.getInstance().warn(() -> "Invalid training parameters provided.");
+            throw new IllegalArgumentException("Invalid training parameters");
+        }
+        EventLog.getInstance().info(() -> "Training started for " + epochs + " epochs from a data loader"
+                + " with optimizer: " + optimizer.getClass().getSimpleName());
+        Metric metric = new Metric();
+        for (int epoch = firstEpoch(loader.batchesPerEpoch()); epoch < epochs; epoch++) {
+            trainedBatches(epoch); // The loader's order cannot be restored, so an interrupted epoch restarts
+            progress.startEpoch(epoch, null, 0);
+            double totalLoss = 0;
+            for (DataLoader.Batch batch : loader) {
+                double loss = trainBatch(batch.getInputs(), batch.getTargets(), optimizer, metric);
+                totalLoss += loss * batch.getInputs().getRows();
+            }
+            finishEpoch(epoch, epochs, totalLoss / loader.samplesPerEpoch());
+        }
+        EventLog.getInstance().info(() -> "Training completed after " + epochs + " epochs.");
+    }
+
+    // EFFECTS: returns the number of optimizer steps taken since the network was created, counting
+    // the steps before the checkpoint it was resumed from
+    public long getStepCount() {
+        return progress.getStep();
+    }
+
+    // EFFECTS: returns everything besides the parameters that training needs to continue exactly
+    // where it is: the progress counters, the batch order and shuffle random state, the settings
+    // of optimizer, and the loss scaler when training with mixed precision
+    JSONObject trainingState(Optimizer optimizer) {
+        JSONObject json = progress.toJson(shuffleRandom);
+        json.put("optimizer", optimizer.toJson());
+        json.put("mixedPrecision", mixedPrecision);
+        if (mixedPrecision) {
+            json.put("lossScaler", lossScaler.toJson());
+        }
+        return json;
+    }
 
-            EventLog.getInstance().logEvent(
-                    new Event("Epoch " + (epoch + 1) + "/" + epochs + " completed. Average Loss: " + averageLoss));
+    // MODIFIES: optimizer
+    // EFFECTS: loads the network saved in a checkpoint written by a CheckpointPolicy, with its
+    // parameters copied onto the heap, and restores optimizer to the state it was saved in. The
+    // next train call with the same data, batch size, epochs and kind of optimizer then continues
+    // the interrupted one from the step the checkpoint was taken at, drawing the same batch
+    // orders, so it ends with the parameters the uninterrupted run would have had. (Training from
+    // a DataLoader restarts the interrupted epoch instead, as the loader's order is not saved.)
+    // Training listeners and checkpoint policies are not saved and have to be set again;
+    // throws IOException if the checkpoint cannot be read or holds no training state
+    public static NeuralNetwork resume(String checkpoint, Optimizer optimizer) throws IOException {
+        CheckpointReader reader = new CheckpointReader(checkpoint);
+        NeuralNetwork nn = reader.read();
+        JSONObject state = reader.readTrainingState();
+        if (state == null) {
+            throw new IOException(checkpoint + " holds no training state");
+        }
+        try {
+            optimizer.restoreState(state.getJSONObject("optimizer"));
+            nn.restoreProgress(state);
+        } catch (JSONException | IllegalArgumentException e) {
+            throw new IOException("Malformed training state in " + checkpoint, e);
+        }
+        EventLog.getInstance().info(() -> "Resumed training from " + checkpoint + " at step " + nn.getStepCount());
+        return nn;
+    }
 
-            // Notifies listener of new epoch and loss
-            if (trainingListener != null) {
-                trainingListener.onEpochEnd(epoch + 1, epochs, averageLoss);
+    // Helper method restoring the training state saved by trainingState and moving the mapped
+    // parameters onto the heap, where training updates them fastest
+    private void restoreProgress(JSONObject state) {
+        for (int i = 0; i < layers.size(); i++) {
+            if (layers.get(i) instanceof DenseLayer) {
+                DenseLayer dense = (DenseLayer) layers.get(i);
+                updateLayer(i, new DenseLayer(dense.getWeights().toHeap(), dense.getBiases().toHeap()));
             }
         }
-        EventLog.getInstance().logEvent(new Event("Training completed after " + epochs + " epochs."));
+        if (state.optBoolean("mixedPrecision")) {
+            setMixedPrecision(true);
+            lossScaler = LossScaler.fromJson(state.getJSONObject("lossScaler"));
+        }
+        shuffleRandom = TrainingProgress.loadRandom(state.getString("shuffleRandom"));
+        progress = TrainingProgress.fromJson(state);
+        resumeFrom = TrainingProgress.fromJson(state);
     }
 
-    // Helper method to train for one epoch
-    private double trainEpoch(List<Tensor> inputs, List<Tensor> targets, Optimizer optimizer, Metric metric) {
+    // MODIFIES: this
+    // EFFECTS: seeds the random source that orders mini-batches, making training reproducible
+    public void setShuffleSeed(long seed) {
+        this.shuffleRandom = new Random(seed);
+    }
+
+    // Helper method to shuffle the batch order in place (Fisher-Yates)
+    private void shuffle(int[] order) {
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = shuffleRandom.nextInt(i + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+    }
+
+    // Helper method to log the end of an epoch and notify the listener
+    private void finishEpoch(int epoch, int epochs, double averageLoss) {
+        EventLog.getInstance().info(() -> "Epoch " + (epoch + 1) + "/" + epochs + " completed. Average Loss: "
+                + averageLoss);
+
+        // Notifies listener of new epoch and loss
+        if (trainingListener != null) {
+            trainingListener.onEpochEnd(epoch + 1, epochs, averageLoss);
+        }
+    }
+
+    // Helper method returning the epoch a train call starts at: 0, or after resume the epoch the
+    // checkpoint was taken in (the next one if it was taken after the last batch of its epoch)
+    private int firstEpoch(int batchesPerEpoch) {
+        if (resumeFrom == null) {
+            return 0;
+        }
+        return resumeFrom.getBatch() < batchesPerEpoch ? resumeFrom.getEpoch() : resumeFrom.getEpoch() + 1;
+    }
+
+    // Helper method returning the number of batches of epoch trained before the checkpoint the
+    // network was resumed from (0 unless epoch is the interrupted one); only the first epoch of a
+    // train call can be a resumed one, so this also ends the resume
+    private int trainedBatches(int epoch) {
+        int trained = resumeFrom != null && resumeFrom.getEpoch() == epoch ? resumeFrom.getBatch() : 0;
+        resumeFrom = null;
+        return trained;
+    }
+
+    // Helper method returning the batch order to shuffle each epoch: the order of the interrupted
+    // epoch after resume, or 0, 1, ..., batches - 1;
+    // throws IllegalArgumentException if a resumed run is given a different number of batches
+    private int[] batchOrder(int batches) {
+        int[] order = new int[batches];
+        int[] saved = resumeFrom == null ? null : resumeFrom.getOrder();
+        if (saved != null && saved.length != batches) {
+            EventLog.getInstance().warn(() -> "Resumed training with " + batches + " batches per epoch instead of "
+                    + saved.length + ".");
+            throw new IllegalArgumentException("Resumed training needs the same data and batch size");
+        }
+        for (int b = 0; b < batches; b++) {
+            order[b] = saved == null ? b : saved[b];
+        }
+        return order;
+    }
+
+    // Helper method to train for one epoch, skipping the first trained batches
+    private double trainEpoch(List<Tensor> inputs, List<Tensor> targets, int trained, Optimizer optimizer,
+            Metric metric) {
         double totalLoss = 0;
-        for (int i = 0; i < inputs.size(); i++) {
-            Tensor output = forwardPass(inputs.get(i));
-            double loss = metric.calculateLoss(output, targets.get(i));
-            totalLoss += loss;
-            Tensor lossGradient = metric.lossGradient(output, targets.get(i));
-            backwardPass(lossGradient);
-            updateParameters(optimizer);
+        for (int i = trained; i < inputs.size(); i++) {
+            totalLoss += trainBatch(inputs.get(i), targets.get(i), optimizer, metric);
+        }
+        return totalLoss;
+    }
+
+    // Helper method to train for one epoch on row views of inputs and targets, visiting batches in
+    // the given order from position trained on; returns the sum of the batch losses weighted by
+    // batch size
+    private double trainEpoch(Tensor inputs, Tensor targets, int batchSize, int[] order, int trained,
+            Optimizer optimizer, Metric metric) {
+        double totalLoss = 0;
+        for (int i = trained; i < order.length; i++) {
+            int b = order[i];
+            int start = b * batchSize;
+            int end = Math.min(start + batchSize, inputs.getRows());
+            double loss = trainBatch(inputs.sliceRows(start, end), targets.sliceRows(start, end), optimizer, metric);
+            totalLoss += loss * (end - start);
         }
         return totalLoss;
     }
 
+    // MODIFIES: this
+    // EFFECTS: runs one forward pass, backward pass and optimizer step and returns the loss;
+    // layers write into the activation and gradient tensors of the previous step, so once the
+    // batch shape is stable a step allocates nothing (unless input or target has to be
+    // converted to the compute dtype). With mixed precision the step is skipped if the scaled
+    // gradients overflowed.
+    double trainBatch(Tensor input, Tensor target, Optimizer optimizer, Metric metric) {
+        setReuseBuffers(true);
+        try {
+            double scale = mixedPrecision ? lossScaler.getScale() : 1.0;
+            double loss = forwardBackward(input.toDType(getComputeDType()), target.toDType(getComputeDType()),
+                    metric, scale);
+            if (mixedPrecision) {
+                updateMasterParameters(optimizer, scale);
+            } else {
+                updateParameters(optimizer);
+            }
+            progress.finishStep();
+            if (checkpointPolicy != null) {
+                checkpointPolicy.onStep(this, optimizer);
+            }
+            return loss;
+        } finally {
+            setReuseBuffers(false);
+        }
+    }
+
+    // Helper method running the forward and backward pass of a step, data-parallel if enabled;
+    // leaves the gradients in the layers and returns the loss
+    private double forwardBackward(Tensor input, Tensor expected, Metric metric, double scale) {
+        if (dataParallel != null && dataParallel.prepare(layers)) {
+            return dataParallel.forwardBackward(layers, input, expected, metric, scale);
+        }
+        Tensor output = forwardPass(input);
+        double loss = metric.calculateLoss(output, expected);
+        lossGradientBuffer = Tensor.reuseOrAllocate(lossGradientBuffer, output.getRows(), output.getCols(),
+                output.getDType());
+        metric.lossGradient(output, expected, lossGradientBuffer, scale);
+        backwardPass(lossGradientBuffer);
+        return loss;
+    }
+
+    // Helper method for the mixed-precision optimizer step: unscales the gradients into the
+    // master dtype and, if they are all finite, updates the master parameters and their
+    // FLOAT32 copies; the loss scaler backs off or grows accordingly
+    private void updateMasterParameters(Optimizer optimizer, double scale) {
+        boolean finite = true;
+        for (int i = 0; i < layers.size(); i++) {
+            finite &= layers.get(i).unscaleGradients(1.0 / scale);
+        }
+        if (finite) {
+            updateParameters(optimizer);
+            for (int i = 0; i < layers.size(); i++) {
+                layers.get(i).refreshComputeParameters();
+            }
+        }
+        lossScaler.update(finite);
+    }
+
+    // Helper method to switch buffer reuse on or off in every layer
+    private void setReuseBuffers(boolean reuse) {
+        for (int i = 0; i < layers.size(); i++) {
+            layers.get(i).setReuseBuffers(reuse);
+        }
+    }
+
     // Helper method for the forward pass
     private Tensor forwardPass(Tensor input) {
         Tensor output = input;
-        for (Layer layer : layers) {
-            output = layer.forward(output);
+        for (int i = 0; i < layers.size(); i++) {
+            output = layers.get(i).forward(output);
         }
         return output;
     }
@@ -131,19 +505,63 @@ public class NeuralNetwork implements Writable {
 
     // Helper method to update parameters of all layers
     private void updateParameters(Optimizer optimizer) {
-        for (Layer layer : layers) {
-            layer.updateParameters(optimizer);
+        for (int i = 0; i < layers.size(); i++) {
+            layers.get(i).updateParameters(optimizer);
         }
+        invalidatePredictions();
     }
 
-    // EFFECTS: computes the output of the network for the given input;
+    // EFFECTS: computes the output of the network for the given input, in the compute dtype, using
+    // Layer.infer so that nothing is kept from the call; answers from the prediction cache when one
+    // is set and it holds the output for the same input. May be called from several threads at once
+    // while the network is not being trained or changed;
     // throws IllegalArgumentException if input is null
     public Tensor predict(Tensor input) {
         if (input == null) {
-            EventLog.getInstance().logEvent(new Event("Attempted to predict with null input tensor."));
+            EventLog.getInstance().warn(() -> "Attempted to predict with null input tensor.");
             throw new IllegalArgumentException("Input cannot be null");
         }
-        return forwardPass(input);
+        PredictionCache cache = predictionCache;
+        Tensor converted = input.toDType(getComputeDType());
+        return cache == null ? inferPass(converted) : cache.getOrCompute(converted, this::inferPass);
+    }
+
+    // Helper method running input through every layer's inference path
+    private Tensor inferPass(Tensor input) {
+        Tensor output = input;
+        for (int i = 0; i < layers.size(); i++) {
+            output = layers.get(i).infer(output);
+        }
+        return output;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: makes predict answer repeated inputs from cache, or stops caching if cache is null;
+    // the cache is invalidated whenever layers are added, replaced or removed, the dtype changes or
+    // an optimizer step updates the parameters
+    public void setPredictionCache(PredictionCache cache) {
+        if (cache != null) {
+            cache.invalidate();
+        }
+        this.predictionCache = cache;
+    }
+
+    // EFFECTS: returns the prediction cache, or null if predictions are not cached
+    public PredictionCache getPredictionCache() {
+        return predictionCache;
+    }
+
+    // Helper method dropping cached predictions after the model changed
+    private void invalidatePredictions() {
+        if (predictionCache != null) {
+            predictionCache.invalidate();
+        }
+    }
+
+    // EFFECTS: returns a session serving predictions from the current layers and parameters to any
+    // number of threads at once
+    public InferenceSession newInferenceSession() {
+        return new InferenceSession(this);
     }
 
     // EFFECTS: returns a string listing the layers and their configurations
@@ -153,8 +571,8 @@ public class NeuralNetwork implements Writable {
             sb.append(layer.getClass().getSimpleName());
             if (layer instanceof DenseLayer) {
                 DenseLayer denseLayer = (DenseLayer) layer;
-                sb.append(" (input size: ").append(denseLayer.getWeights().getData().length);
-                sb.append(", output size: ").append(denseLayer.getWeights().getData()[0].length).append(")");
+                sb.append(" (input size: ").append(denseLayer.getInputSize());
+                sb.append(", output size: ").append(denseLayer.getOutputSize()).append(")");
             } else if (layer instanceof ActivationLayer) {
                 ActivationLayer activationLayer = (ActivationLayer) layer;
                 sb.append(" (activation: ").append(activationLayer.getActivationFunction()).append(")");
@@ -177,19 +595,31 @@ public class NeuralNetwork implements Writable {
             layersArray.put(layer.toJson());
         }
         json.put("layers", layersArray);
+        if (dtype != DType.FLOAT64) {
+            json.put("dtype", dtype.name());
+        }
         return json;
     }
 
-    // EFFECTS: Construct NeuralNetwork from a JSONObject
+    // EFFECTS: Construct NeuralNetwork from a JSONObject, keeping the dtype it was saved with
+    // (FLOAT64 for files written before dtypes existed)
     public static NeuralNetwork fromJson(JSONObject json) {
+        return fromJson(json, DType.valueOf(json.optString("dtype", DType.FLOAT64.name())));
+    }
+
+    // EFFECTS: Construct NeuralNetwork from a JSONObject with every parameter converted to dtype,
+    // e.g. to train a FLOAT64 checkpoint in FLOAT32;
+    // throws IllegalArgumentException if dtype is null
+    public static NeuralNetwork fromJson(JSONObject json, DType dtype) {
         NeuralNetwork nn = new NeuralNetwork();
+        nn.setDType(dtype);
         JSONArray layersArray = json.getJSONArray("layers");
         for (int i = 0; i < layersArray.length(); i++) {
             JSONObject layerJson = layersArray.getJSONObject(i);
             String type = layerJson.getString("type");
             Layer layer = null;
             if (type.equals("DenseLayer")) {
-                layer = DenseLayer.fromJson(layerJson);
+                layer = DenseLayer.fromJson(layerJson, dtype);
             } else if (type.equals("ActivationLayer")) {
                 layer = ActivationLayer.fromJson(layerJson);
             }
@@ -197,8 +627,7 @@ public class NeuralNetwork implements Writable {
                 nn.addLayer(layer);
             }
         }
-        EventLog.getInstance()
-                .logEvent(new Event("Deserialized NeuralNetwork from JSON with " + nn.layers.size() + " layers."));
+        EventLog.getInstance().info(() -> "Deserialized NeuralNetwork from JSON with " + nn.layers.size() + " layers.");
         return nn;
     }
 }
@@ -0,0 +1,110 @@
+package model;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+// Represents a scope for tensors stored in native memory outside the heap, such as large weight
+// matrices or datasets that should neither count toward the heap nor be scanned by the garbage
+// collector. Every tensor allocated from the arena, and every view of one, stays valid until the
+// arena is closed; closing releases all of their memory at once, and later use of those tensors
+// throws IllegalStateException. Closing while another thread is still computing with one of the
+// tensors, or reading a buffer obtained from asReadOnlyBuffer, is not allowed.
+public class OffHeapArena implements AutoCloseable {
+    private static final MethodHandle INVOKE_CLEANER = findCleaner();
+
+    private final List<ByteBuffer> buffers = new ArrayList<>();
+    private volatile boolean open = true;
+    private long allocatedBytes;
+
+    // MODIFIES: this
+    // EFFECTS: returns a new rows x cols tensor of zeros stored as dtype in this arena;
+    // throws IllegalArgumentException if rows <= 0, cols <= 0, dtype is null, or the tensor would
+    // need more than Integer.MAX_VALUE bytes, and IllegalStateException if the arena is closed
+    public synchronized Tensor allocate(int rows, int cols, DType dtype) {
+        int bytes = Tensor.checkedByteSize(rows, cols, dtype);
+        if (!open) {
+            throw new IllegalStateException("Arena is closed");
+        }
+        ByteBuffer storage = ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+        buffers.add(storage);
+        allocatedBytes += bytes;
+        EventLog.getInstance().debug(() -> "Allocated off-heap " + dtype + " tensor of " + rows + "x" + cols);
+        return new Tensor(rows, cols, dtype, storage, this);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns a copy of source with the same dtype stored in this arena;
+    // throws IllegalArgumentException if source is null, and IllegalStateException if the arena
+    // is closed
+    public Tensor copyOf(Tensor source) {
+        if (source == null) {
+            EventLog.getInstance().warn(() -> "Attempted to copy a null tensor off-heap.");
+            throw new IllegalArgumentException("Source tensor cannot be null");
+        }
+        Tensor copy = allocate(source.getRows(), source.getCols(), source.getDType());
+        copy.copyScaled(source, 1.0);
+        return copy;
+    }
+
+    // EFFECTS: returns the number of bytes of native memory held by this arena
+    public synchronized long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    // EFFECTS: returns true until the arena is closed
+    public boolean isOpen() {
+        return open;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: releases the memory of every tensor allocated from this arena; does nothing if
+    // the arena is already closed
+    @Override
+    public synchronized void close() {
+        if (!open) {
+            return;
+        }
+        open = false;
+        for (ByteBuffer buffer : buffers) {
+            free(buffer);
+        }
+        buffers.clear();
+        long released = allocatedBytes;
+        allocatedBytes = 0;
+        EventLog.getInstance().info(() -> "Closed off-heap arena, releasing " + released + " bytes.");
+    }
+
+    // Helper method freeing the memory of a direct buffer right away; if the JDK offers no way to
+    // do so, the memory is freed once the collector finds the buffer unreachable
+    private static void free(ByteBuffer buffer) {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invokeExact(buffer);
+        } catch (Throwable e) {
+            EventLog.getInstance().warn(() -> "Could not free off-heap buffer: " + e);
+        }
+    }
+
+    // Helper method looking up sun.misc.Unsafe.invokeCleaner, bound to the Unsafe instance;
+    // returns null if it is not available
+    private static MethodHandle findCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            MethodHandle handle = MethodHandles.lookup().findVirtual(unsafeClass, "invokeCleaner",
+                    MethodType.methodType(void.class, ByteBuffer.class));
+            return handle.bindTo(field.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
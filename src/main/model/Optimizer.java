@@ -1,5 +1,6 @@
 package model;
 
+import org.json.JSONObject;
 import persistence.Writable;
 
 // Represents an optimizer used for updating neural network parameters during training.
@@ -9,4 +10,10 @@ public abstract class Optimizer implements Writable {
     // EFFECTS: updates the parameters of the layer;
     // throws IllegalArgumentException if layer is null
     public abstract void updateParameters(Layer layer);
+
+    // MODIFIES: this
+    // EFFECTS: restores the state saved by toJson, so that training resumed from a checkpoint
+    // takes exactly the steps it would have taken without the interruption;
+    // throws IllegalArgumentException if state was not saved by this kind of optimizer
+    public abstract void restoreState(JSONObject state);
 }
@@ -0,0 +1,181 @@
+package model;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+// Represents a bounded cache of network outputs keyed by the content of their inputs, for traffic
+// that repeats the same inputs. Keys hash the shape, dtype and element bits of an input and are
+// compared element by element on a hash match, so only bit-identical inputs hit. When the cache
+// holds more than maxEntries outputs or more than maxBytes of inputs and outputs, the least
+// recently used entries are evicted. A NeuralNetwork invalidates its cache whenever its layers,
+// dtype or parameters change; a layer changed directly, e.g. with DenseLayer.setWeights, is not
+// noticed and needs invalidate() to be called by hand. Any number of threads may use the cache.
+public final class PredictionCache {
+    private static final long ENTRY_OVERHEAD_BYTES = 96; // Rough size of a map entry, key and tensors
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<Key, Tensor> entries = new LinkedHashMap<>(16, 0.75f, true); // Access order
+    private long bytes; // Guarded by this
+    private long generation; // Guarded by this; incremented by invalidate()
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    // EFFECTS: creates an empty cache holding at most maxEntries outputs and maxBytes of inputs and
+    // outputs;
+    // throws IllegalArgumentException if maxEntries <= 0 or maxBytes <= 0
+    public PredictionCache(int maxEntries, long maxBytes) {
+        if (maxEntries <= 0 || maxBytes <= 0) {
+            EventLog.getInstance().warn(() -> "Invalid prediction cache bounds: " + maxEntries + " entries, "
+                    + maxBytes + " bytes");
+            throw new IllegalArgumentException("Cache bounds must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns a copy of the cached output for input if there is one, otherwise computes it
+    // with predictor outside the cache's lock, caches it unless the cache was invalidated in the
+    // meantime, and returns a copy of it; the caller owns the returned tensor either way
+    public Tensor getOrCompute(Tensor input, UnaryOperator<Tensor> predictor) {
+        Key key = new Key(input);
+        long seen;
+        synchronized (this) {
+            Tensor cached = entries.get(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return copy(cached);
+            }
+            seen = generation;
+        }
+        misses.incrementAndGet();
+        Tensor output = copy(predictor.apply(input));
+        put(key, output, seen);
+        return copy(output);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: removes every entry; outputs still being computed from before the call are not cached
+    public synchronized void invalidate() {
+        generation++;
+        if (!entries.isEmpty()) {
+            entries.clear();
+            bytes = 0;
+        }
+    }
+
+    // Helper method caching output for key if nothing was invalidated since seen, then evicting the
+    // least recently used entries until the cache is within its bounds
+    private synchronized void put(Key key, Tensor output, long seen) {
+        if (seen != generation) {
+            return;
+        }
+        Tensor previous = entries.put(key, output);
+        bytes += entryBytes(key, output) - (previous == null ? 0 : entryBytes(key, previous));
+        Iterator<Map.Entry<Key, Tensor>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxEntries || bytes > maxBytes) {
+            Map.Entry<Key, Tensor> entry = eldest.next();
+            bytes -= entryBytes(entry.getKey(), entry.getValue());
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    // Helper method estimating the memory held by one entry
+    private static long entryBytes(Key key, Tensor output) {
+        long outputBytes = (long) output.getRows() * output.getCols() * output.getDType().getByteSize();
+        return ENTRY_OVERHEAD_BYTES + key.byteSize() + outputBytes;
+    }
+
+    // Helper method copying a tensor onto the heap so the cache and its callers never share one
+    private static Tensor copy(Tensor tensor) {
+        Tensor copy = new Tensor(tensor.getRows(), tensor.getCols(), tensor.getDType());
+        copy.copyFrom(tensor);
+        return copy;
+    }
+
+    // EFFECTS: returns the number of lookups answered from the cache
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    // EFFECTS: returns the number of lookups that had to compute their output
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    // EFFECTS: returns the number of entries evicted to stay within the bounds
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    // EFFECTS: returns the fraction of lookups answered from the cache, or 0 if there were none
+    public double getHitRate() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    // EFFECTS: returns the number of cached outputs
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    // EFFECTS: returns the estimated memory held by the cached inputs and outputs
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    // Represents the content of an input: its dtype, shape and elements, copied so that later
+    // changes to the input do not affect the cache, with the hash computed once
+    private static final class Key {
+        private final DType dtype;
+        private final int rows;
+        private final int cols;
+        private final double[] data; // FLOAT64 elements, null for FLOAT32
+        private final float[] floatData; // FLOAT32 elements, null for FLOAT64
+        private final int hash;
+
+        Key(Tensor input) {
+            dtype = input.getDType();
+            rows = input.getRows();
+            cols = input.getCols();
+            data = dtype == DType.FLOAT64 ? new double[rows * cols] : null;
+            floatData = dtype == DType.FLOAT32 ? new float[rows * cols] : null;
+            for (int i = 0; i < rows; i++) {
+                if (data != null) {
+                    input.readRow(i, data, i * cols);
+                } else {
+                    input.readRow(i, floatData, i * cols);
+                }
+            }
+            int elements = data != null ? Arrays.hashCode(data) : Arrays.hashCode(floatData);
+            hash = 31 * (31 * (31 * dtype.ordinal() + rows) + cols) + elements;
+        }
+
+        long byteSize() {
+            return (long) rows * cols * dtype.getByteSize();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash == other.hash && dtype == other.dtype && rows == other.rows && cols == other.cols
+                    && Arrays.equals(data, other.data) && Arrays.equals(floatData, other.floatData);
+        }
+    }
+}
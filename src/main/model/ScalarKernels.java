@@ -0,0 +1,250 @@
+package model;
+
+// Implements the kernels with plain scalar loops; used when SIMD kernels are unavailable.
+class ScalarKernels extends Kernels {
+
+    @Override
+    String name() {
+        return "scalar";
+    }
+
+    @Override
+    void add(double[] dst, int dOff, double[] src, int sOff, int len) {
+        for (int i = 0; i < len; i++) {
+            dst[dOff + i] += src[sOff + i];
+        }
+    }
+
+    @Override
+    void multiply(double[] dst, int dOff, double[] src, int sOff, int len) {
+        for (int i = 0; i < len; i++) {
+            dst[dOff + i] *= src[sOff + i];
+        }
+    }
+
+    @Override
+    void relu(double[] in, int iOff, double[] out, int oOff, int len) {
+        for (int i = 0; i < len; i++) {
+            out[oOff + i] = Math.max(0, in[iOff + i]);
+        }
+    }
+
+    @Override
+    void reluBackward(double[] in, int iOff, double[] grad, int gOff, double[] out, int oOff, int len) {
+        for (int i = 0; i < len; i++) {
+            double derivative = in[iOff + i] > 0 ? 1 : 0;
+            out[oOff + i] = grad[gOff + i] * derivative;
+        }
+    }
+
+    @Override
+    void sigmoid(double[] in, int iOff, double[] out, int oOff, int len) {
+        for (int i = 0; i < len; i++) {
+            out[oOff + i] = 1 / (1 + Math.exp(-in[iOff + i]));
+        }
+    }
+
+    @Override
+    void sigmoidBackward(double[] in, int iOff, double[] grad, int gOff, double[] out, int oOff, int len) {
+        for (int i = 0; i < len; i++) {
+            double sigmoid = 1 / (1 + Math.exp(-in[iOff + i]));
+            out[oOff + i] = grad[gOff + i] * (sigmoid * (1 - sigmoid));
+        }
+    }
+
+    @Override
+    double sumSquaredDifference(double[] a, int aOff, double[] b, int bOff, int len) {
+        double sum = 0.0;
+        for (int i = 0; i < len; i++) {
+            double diff = a[aOff + i] - b[bOff + i];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    @Override
+    void scaledDifference(double[] a, int aOff, double[] b, int bOff, double count,
+            double[] out, int oOff, int len) {
+        for (int i = 0; i < len; i++) {
+            out[oOff + i] = 2 * (a[aOff + i] - b[bOff + i]) / count;
+        }
+    }
+
+    // Keeps all MR * NR partial sums of the tile in locals for the whole kc loop
+    @Override
+    @SuppressWarnings({"methodlength", "onestatementperline", "multiplevariabledeclarations"})
+    void gemmMicroKernel(double[] pa, int aIdx, double[] pb, int bIdx, int kc,
+            double[] c, int cIdx, int ldc) {
+        double c00 = 0, c01 = 0, c02 = 0, c03 = 0;
+        double c10 = 0, c11 = 0, c12 = 0, c13 = 0;
+        double c20 = 0, c21 = 0, c22 = 0, c23 = 0;
+        double c30 = 0, c31 = 0, c32 = 0, c33 = 0;
+        double c40 = 0, c41 = 0, c42 = 0, c43 = 0;
+        double c50 = 0, c51 = 0, c52 = 0, c53 = 0;
+        double c60 = 0, c61 = 0, c62 = 0, c63 = 0;
+        double c70 = 0, c71 = 0, c72 = 0, c73 = 0;
+        for (int p = 0; p < kc; p++, aIdx += Gemm.MR, bIdx += Gemm.NR) {
+            double b0 = pb[bIdx];
+            double b1 = pb[bIdx + 1];
+            double b2 = pb[bIdx + 2];
+            double b3 = pb[bIdx + 3];
+            double a0 = pa[aIdx];
+            c00 += a0 * b0; c01 += a0 * b1; c02 += a0 * b2; c03 += a0 * b3;
+            double a1 = pa[aIdx + 1];
+            c10 += a1 * b0; c11 += a1 * b1; c12 += a1 * b2; c13 += a1 * b3;
+            double a2 = pa[aIdx + 2];
+            c20 += a2 * b0; c21 += a2 * b1; c22 += a2 * b2; c23 += a2 * b3;
+            double a3 = pa[aIdx + 3];
+            c30 += a3 * b0; c31 += a3 * b1; c32 += a3 * b2; c33 += a3 * b3;
+            double a4 = pa[aIdx + 4];
+            c40 += a4 * b0; c41 += a4 * b1; c42 += a4 * b2; c43 += a4 * b3;
+            double a5 = pa[aIdx + 5];
+            c50 += a5 * b0; c51 += a5 * b1; c52 += a5 * b2; c53 += a5 * b3;
+            double a6 = pa[aIdx + 6];
+            c60 += a6 * b0; c61 += a6 * b1; c62 += a6 * b2; c63 += a6 * b3;
+            double a7 = pa[aIdx + 7];
+            c70 += a7 * b0; c71 += a7 * b1; c72 += a7 * b2; c73 += a7 * b3;
+        }
+        addRow(c, cIdx, c00, c01, c02, c03);
+        addRow(c, cIdx + ldc, c10, c11, c12, c13);
+        addRow(c, cIdx + 2 * ldc, c20, c21, c22, c23);
+        addRow(c, cIdx + 3 * ldc, c30, c31, c32, c33);
+        addRow(c, cIdx + 4 * ldc, c40, c41, c42, c43);
+        addRow(c, cIdx + 5 * ldc, c50, c51, c52, c53);
+        addRow(c, cIdx + 6 * ldc, c60, c61, c62, c63);
+        addRow(c, cIdx + 7 * ldc, c70, c71, c72, c73);
+    }
+
+    // Helper method to add one row of a micro-kernel tile into c
+    private static void addRow(double[] c, int idx, double v0, double v1, double v2, double v3) {
+        c[idx] += v0;
+        c[idx + 1] += v1;
+        c[idx + 2] += v2;
+        c[idx + 3] += v3;
+    }
+
+    @Override
+    void add(float[] dst, int dOff, float[] src, int sOff, int len) {
+        for (int i = 0; i < len; i++) {
+            dst[dOff + i] += src[sOff + i];
+        }
+    }
+
+    @Override
+    void multiply(float[] dst, int dOff, float[] src, int sOff, int len) {
+        for (int i = 0; i < len; i++) {
+            dst[dOff + i] *= src[sOff + i];
+        }
+    }
+
+    @Override
+    void relu(float[] in, int iOff, float[] out, int oOff, int len) {
+        for (int i = 0; i < len; i++) {
+            out[oOff + i] = Math.max(0f, in[iOff + i]);
+        }
+    }
+
+    @Override
+    void reluBackward(float[] in, int iOff, float[] grad, int gOff, float[] out, int oOff, int len) {
+        for (int i = 0; i < len; i++) {
+            float derivative = in[iOff + i] > 0 ? 1 : 0;
+            out[oOff + i] = grad[gOff + i] * derivative;
+        }
+    }
+
+    @Override
+    void sigmoid(float[] in, int iOff, float[] out, int oOff, int len) {
+        for (int i = 0; i < len; i++) {
+            out[oOff + i] = 1 / (1 + (float) Math.exp(-in[iOff + i]));
+        }
+    }
+
+    @Override
+    void sigmoidBackward(float[] in, int iOff, float[] grad, int gOff, float[] out, int oOff, int len) {
+        for (int i = 0; i < len; i++) {
+            float sigmoid = 1 / (1 + (float) Math.exp(-in[iOff + i]));
+            out[oOff + i] = grad[gOff + i] * (sigmoid * (1 - sigmoid));
+        }
+    }
+
+    @Override
+    double sumSquaredDifference(float[] a, int aOff, float[] b, int bOff, int len) {
+        double sum = 0.0;
+        for (int i = 0; i < len; i++) {
+            float diff = a[aOff + i] - b[bOff + i];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    @Override
+    void scaledDifference(float[] a, int aOff, float[] b, int bOff, double count,
+            float[] out, int oOff, int len) {
+        float divisor = (float) count;
+        for (int i = 0; i < len; i++) {
+            out[oOff + i] = 2 * (a[aOff + i] - b[bOff + i]) / divisor;
+        }
+    }
+
+    // The float tile is twice as wide as the double one, so it is computed as two halves that
+    // each keep 8 x 4 partial sums in locals
+    @Override
+    void gemmMicroKernel(float[] pa, int aIdx, float[] pb, int bIdx, int kc,
+            float[] c, int cIdx, int ldc) {
+        gemmHalfTile(pa, aIdx, pb, bIdx, kc, c, cIdx, ldc);
+        gemmHalfTile(pa, aIdx, pb, bIdx + FloatGemm.NR / 2, kc, c, cIdx + FloatGemm.NR / 2, ldc);
+    }
+
+    // Helper method adding the product of the packed A sliver and four columns of the packed
+    // B sliver, starting at bIdx, to an 8 x 4 tile of c
+    @SuppressWarnings({"methodlength", "onestatementperline", "multiplevariabledeclarations"})
+    private static void gemmHalfTile(float[] pa, int aIdx, float[] pb, int bIdx, int kc,
+            float[] c, int cIdx, int ldc) {
+        float c00 = 0, c01 = 0, c02 = 0, c03 = 0;
+        float c10 = 0, c11 = 0, c12 = 0, c13 = 0;
+        float c20 = 0, c21 = 0, c22 = 0, c23 = 0;
+        float c30 = 0, c31 = 0, c32 = 0, c33 = 0;
+        float c40 = 0, c41 = 0, c42 = 0, c43 = 0;
+        float c50 = 0, c51 = 0, c52 = 0, c53 = 0;
+        float c60 = 0, c61 = 0, c62 = 0, c63 = 0;
+        float c70 = 0, c71 = 0, c72 = 0, c73 = 0;
+        for (int p = 0; p < kc; p++, aIdx += FloatGemm.MR, bIdx += FloatGemm.NR) {
+            float b0 = pb[bIdx];
+            float b1 = pb[bIdx + 1];
+            float b2 = pb[bIdx + 2];
+            float b3 = pb[bIdx + 3];
+            float a0 = pa[aIdx];
+            c00 += a0 * b0; c01 += a0 * b1; c02 += a0 * b2; c03 += a0 * b3;
+            float a1 = pa[aIdx + 1];
+            c10 += a1 * b0; c11 += a1 * b1; c12 += a1 * b2; c13 += a1 * b3;
+            float a2 = pa[aIdx + 2];
+            c20 += a2 * b0; c21 += a2 * b1; c22 += a2 * b2; c23 += a2 * b3;
+            float a3 = pa[aIdx + 3];
+            c30 += a3 * b0; c31 += a3 * b1; c32 += a3 * b2; c33 += a3 * b3;
+            float a4 = pa[aIdx + 4];
+            c40 += a4 * b0; c41 += a4 * b1; c42 += a4 * b2; c43 += a4 * b3;
+            float a5 = pa[aIdx + 5];
+            c50 += a5 * b0; c51 += a5 * b1; c52 += a5 * b2; c53 += a5 * b3;
+            float a6 = pa[aIdx + 6];
+            c60 += a6 * b0; c61 += a6 * b1; c62 += a6 * b2; c63 += a6 * b3;
+            float a7 = pa[aIdx + 7];
+            c70 += a7 * b0; c71 += a7 * b1; c72 += a7 * b2; c73 += a7 * b3;
+        }
+        addRow(c, cIdx, c00, c01, c02, c03);
+        addRow(c, cIdx + ldc, c10, c11, c12, c13);
+        addRow(c, cIdx + 2 * ldc, c20, c21, c22, c23);
+        addRow(c, cIdx + 3 * ldc, c30, c31, c32, c33);
+        addRow(c, cIdx + 4 * ldc, c40, c41, c42, c43);
+        addRow(c, cIdx + 5 * ldc, c50, c51, c52, c53);
+        addRow(c, cIdx + 6 * ldc, c60, c61, c62, c63);
+        addRow(c, cIdx + 7 * ldc, c70, c71, c72, c73);
+    }
+
+    // Helper method to add one row of a float micro-kernel half tile into c
+    private static void addRow(float[] c, int idx, float v0, float v1, float v2, float v3) {
+        c[idx] += v0;
+        c[idx + 1] += v1;
+        c[idx + 2] += v2;
+        c[idx + 3] += v3;
+    }
+}
@@ -1,5 +1,8 @@
 package model;
 
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+
 import org.json.JSONObject;
 
 // Implements the stochastic gradient descent (SGD) optimization algorithm.
@@ -11,12 +14,12 @@ public class SgdOptimizer extends Optimizer {
     // throws IllegalArgumentException if learningRate <= 0
     public SgdOptimizer(double learningRate) {
         if (learningRate <= 0) {
-            EventLog.getInstance().logEvent(
-                    new Event("Attempted to initialize SgdOptimizer with invalid learning rate: " + learningRate));
+            EventLog.getInstance().warn(() -> "Attempted to initialize SgdOptimizer with invalid learning rate: "
+                    + learningRate);
             throw new IllegalArgumentException("Learning rate must be positive");
         }
         this.learningRate = learningRate;
-        EventLog.getInstance().logEvent(new Event("Initialized SgdOptimizer with learning rate: " + learningRate));
+        EventLog.getInstance().info(() -> "Initialized SgdOptimizer with learning rate: " + learningRate);
     }
 
     // MODIFIES: layer
@@ -25,34 +28,78 @@ public class SgdOptimizer extends Optimizer {
     @Override
     public void updateParameters(Layer layer) {
         if (layer == null) {
-            EventLog.getInstance()
-                    .logEvent(new Event("Attempted to update parameters with a null layer in SgdOptimizer."));
+            EventLog.getInstance().warn(() -> "Attempted to update parameters with a null layer in SgdOptimizer.");
             throw new IllegalArgumentException("Layer cannot be null");
         }
         if (layer instanceof DenseLayer) {
             DenseLayer denseLayer = (DenseLayer) layer;
+            denseLayer.ensureWritableParameters(); // Parameters mapped read-only are copied on first update
 
-            double[][] weightData = denseLayer.getWeights().getData();
-            double[][] weightGradData = denseLayer.getWeightGradients().getData();
-            applyGradients(weightData, weightGradData);
+            // Update the weights and biases in the layer's own storage
+            applyGradients(denseLayer.getWeights(), denseLayer.getWeightGradients());
+            applyGradients(denseLayer.getBiases(), denseLayer.getBiasGradients());
+        }
+    }
 
-            double[][] biasData = denseLayer.getBiases().getData();
-            double[][] biasGradData = denseLayer.getBiasGradients().getData();
-            applyGradients(biasData, biasGradData);
+    // Helper method to apply gradients to the data
+    // MODIFIES: params
+    // EFFECTS: applies grads to params in place using the SGD update rule
+    private void applyGradients(Tensor params, Tensor grads) {
+        if (params.isOffHeap()) {
+            applyOffHeapGradients(params, grads);
+            return;
+        }
+        if (params.getDType() == DType.FLOAT32) {
+            applyFloatGradients(params, grads);
+            return;
+        }
+        double[] paramData = params.array();
+        double[] gradData = grads.array();
+        for (int i = 0; i < params.getRows(); i++) {
+            int paramRow = params.rowStart(i);
+            int gradRow = grads.rowStart(i);
+            for (int j = 0; j < params.getCols(); j++) {
+                paramData[paramRow + j] -= learningRate * gradData[gradRow + j];
+            }
+        }
+    }
 
-            // Update the weights and biases in the layer
-            denseLayer.setWeights(new Tensor(weightData));
-            denseLayer.setBiases(new Tensor(biasData));
+    // Helper method applying the SGD update rule to FLOAT32 parameters
+    private void applyFloatGradients(Tensor params, Tensor grads) {
+        float[] paramData = params.floatArray();
+        float[] gradData = grads.floatArray();
+        float rate = (float) learningRate;
+        for (int i = 0; i < params.getRows(); i++) {
+            int paramRow = params.rowStart(i);
+            int gradRow = grads.rowStart(i);
+            for (int j = 0; j < params.getCols(); j++) {
+                paramData[paramRow + j] -= rate * gradData[gradRow + j];
+            }
         }
     }
 
-    // Helper method to apply gradients to the data
-    // MODIFIES: data
-    // EFFECTS: applies the gradients to the data using the SGD update rule
-    private void applyGradients(double[][] data, double[][] gradData) {
-        for (int i = 0; i < data.length; i++) {
-            for (int j = 0; j < data[i].length; j++) {
-                data[i][j] -= learningRate * gradData[i][j];
+    // Helper method applying the SGD update rule to parameters stored off-heap, in place
+    private void applyOffHeapGradients(Tensor params, Tensor grads) {
+        if (params.getDType() == DType.FLOAT32) {
+            FloatBuffer paramData = params.floatBuffer();
+            FloatBuffer gradData = grads.floatBuffer();
+            float rate = (float) learningRate;
+            for (int i = 0; i < params.getRows(); i++) {
+                int paramRow = params.rowStart(i);
+                int gradRow = grads.rowStart(i);
+                for (int j = 0; j < params.getCols(); j++) {
+                    paramData.put(paramRow + j, paramData.get(paramRow + j) - rate * gradData.get(gradRow + j));
+                }
+            }
+            return;
+        }
+        DoubleBuffer paramData = params.doubleBuffer();
+        DoubleBuffer gradData = grads.doubleBuffer();
+        for (int i = 0; i < params.getRows(); i++) {
+            int paramRow = params.rowStart(i);
+            int gradRow = grads.rowStart(i);
+            for (int j = 0; j < params.getCols(); j++) {
+                paramData.put(paramRow + j, paramData.get(paramRow + j) - learningRate * gradData.get(gradRow + j));
             }
         }
     }
@@ -61,12 +108,12 @@ public class SgdOptimizer extends Optimizer {
     // throws IllegalArgumentException if learningRate is negative
     public void setLearningRate(double learningRate) {
         if (learningRate <= 0) {
-            EventLog.getInstance()
-                    .logEvent(new Event("Attempted to set invalid learning rate in SgdOptimizer: " + learningRate));
+            EventLog.getInstance().warn(() -> "Attempted to set invalid learning rate in SgdOptimizer: "
+                    + learningRate);
             throw new IllegalArgumentException("Learning rate must be positive");
         }
         this.learningRate = learningRate;
-        EventLog.getInstance().logEvent(new Event("SgdOptimizer learning rate set to: " + learningRate));
+        EventLog.getInstance().info(() -> "SgdOptimizer learning rate set to: " + learningRate);
     }
 
     public double getLearningRate() {
@@ -81,11 +128,22 @@ public class SgdOptimizer extends Optimizer {
         return json;
     }
 
+    // MODIFIES: this
+    // EFFECTS: restores the learning rate saved by toJson; plain SGD keeps no other state;
+    // throws IllegalArgumentException if state is null or not an SgdOptimizer
+    @Override
+    public void restoreState(JSONObject state) {
+        if (state == null || !"SgdOptimizer".equals(state.optString("type"))) {
+            EventLog.getInstance().warn(() -> "Attempted to restore SgdOptimizer from incompatible state.");
+            throw new IllegalArgumentException("State was not saved by an SgdOptimizer");
+        }
+        setLearningRate(state.getDouble("learningRate"));
+    }
+
     // EFFECTS: Construct an SgdOptimizer from a JSONObject
     public static SgdOptimizer fromJson(JSONObject json) {
         double learningRate = json.getDouble("learningRate");
-        EventLog.getInstance()
-                .logEvent(new Event("Deserialized SgdOptimizer from JSON with learning rate: " + learningRate));
+        EventLog.getInstance().debug(() -> "Deserialized SgdOptimizer from JSON with learning rate: " + learningRate);
         return new SgdOptimizer(learningRate);
     }
 }
@@ -1,14 +1,35 @@
 package model;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+
 import org.json.JSONArray;
 import org.json.JSONObject;
 
 import persistence.Writable;
 
 // Represents a multi-dimensional array of numbers used in neural networks.
+// Elements are stored in a single row-major array; the element at (row, col) lives at index
+// offset + row * rowStride + col. Views made by sliceRows share the array of their source.
+// A tensor stores either doubles (FLOAT64, the default) or floats (FLOAT32); values read and
+// written through the public API are doubles either way, rounded to float on the way in.
+// Elements live in a Java array unless the tensor was allocated off-heap (allocateDirect or an
+// OffHeapArena), in which case they live in native memory that the garbage collector neither
+// counts nor scans; exactly one of the four storage fields is non-null.
 public class Tensor implements Writable {
 
-    private double[][] data;
+    private final DType dtype;
+    private final double[] data; // FLOAT64 heap storage
+    private final float[] floatData; // FLOAT32 heap storage
+    private final DoubleBuffer directData; // FLOAT64 off-heap storage
+    private final FloatBuffer directFloatData; // FLOAT32 off-heap storage
+    private final OffHeapArena arena; // Owner of the off-heap storage, null if the collector frees it
+    private final int rows;
+    private final int cols;
+    private final int rowStride;
+    private final int offset;
 
     // EFFECTS: initializes this tensor with the given data;
     // throws IllegalArgumentException if data is null
@@ -16,15 +37,249 @@ public class Tensor implements Writable {
         if (data == null) {
             throw new IllegalArgumentException("Data cannot be null");
         }
-        int rows = data.length;
-        int cols = data[0].length;
-        this.data = new double[rows][cols];
+        this.dtype = DType.FLOAT64;
+        this.rows = data.length;
+        this.cols = data[0].length;
+        this.rowStride = cols;
+        this.offset = 0;
+        this.data = new double[rows * cols];
+        this.floatData = null;
+        this.directData = null;
+        this.directFloatData = null;
+        this.arena = null;
         for (int i = 0; i < rows; i++) {
             if (data[i].length != cols) {
                 throw new IllegalArgumentException("All rows must have the same number of columns");
             }
-            System.arraycopy(data[i], 0, this.data[i], 0, cols); // Faster copying
+            System.arraycopy(data[i], 0, this.data, i * rowStride, cols); // Faster copying
+        }
+    }
+
+    // EFFECTS: initializes this tensor with rows x cols zeros;
+    // throws IllegalArgumentException if rows <= 0 or cols <= 0
+    public Tensor(int rows, int cols) {
+        this(rows, cols, DType.FLOAT64);
+    }
+
+    // EFFECTS: initializes this tensor with rows x cols zeros stored as dtype;
+    // throws IllegalArgumentException if rows <= 0, cols <= 0 or dtype is null
+    public Tensor(int rows, int cols, DType dtype) {
+        this(requireDType(dtype), dtype == DType.FLOAT64 ? new double[checkedSize(rows, cols)] : null,
+                dtype == DType.FLOAT32 ? new float[checkedSize(rows, cols)] : null, 0, rows, cols, cols);
+    }
+
+    // REQUIRES: data.length >= rows * cols
+    // EFFECTS: initializes this FLOAT64 tensor as a row-major wrapper around data without copying it
+    Tensor(int rows, int cols, double[] data) {
+        this(DType.FLOAT64, data, null, 0, rows, cols, cols);
+    }
+
+    // REQUIRES: data.length >= rows * cols
+    // EFFECTS: initializes this FLOAT32 tensor as a row-major wrapper around data without copying it
+    Tensor(int rows, int cols, float[] data) {
+        this(DType.FLOAT32, null, data, 0, rows, cols, cols);
+    }
+
+    // REQUIRES: the array matching dtype holds rows rows of cols elements, rowStride apart,
+    // starting at offset, and the other array is null
+    // EFFECTS: initializes this tensor as a view of that array without copying it
+    private Tensor(DType dtype, double[] data, float[] floatData, int offset, int rows, int cols, int rowStride) {
+        this.dtype = dtype;
+        this.data = data;
+        this.floatData = floatData;
+        this.directData = null;
+        this.directFloatData = null;
+        this.arena = null;
+        this.offset = offset;
+        this.rows = rows;
+        this.cols = cols;
+        this.rowStride = rowStride;
+    }
+
+    // REQUIRES: storage is a native-order buffer of checkedByteSize(rows, cols, dtype) bytes
+    // EFFECTS: initializes this tensor as a row-major wrapper around the off-heap storage, which
+    // stays valid until arena is closed (or for as long as it is reachable if arena is null)
+    Tensor(int rows, int cols, DType dtype, ByteBuffer storage, OffHeapArena arena) {
+        this.dtype = dtype;
+        this.data = null;
+        this.floatData = null;
+        this.directData = dtype == DType.FLOAT64 ? storage.asDoubleBuffer() : null;
+        this.directFloatData = dtype == DType.FLOAT32 ? storage.asFloatBuffer() : null;
+        this.arena = arena;
+        this.offset = 0;
+        this.rows = rows;
+        this.cols = cols;
+        this.rowStride = cols;
+    }
+
+    // REQUIRES: the given window lies inside source
+    // EFFECTS: initializes this tensor as a view of source's storage starting at offset
+    private Tensor(Tensor source, int offset, int rows, int cols) {
+        this.dtype = source.dtype;
+        this.data = source.data;
+        this.floatData = source.floatData;
+        this.directData = source.directData;
+        this.directFloatData = source.directFloatData;
+        this.arena = source.arena;
+        this.offset = offset;
+        this.rows = rows;
+        this.cols = cols;
+        this.rowStride = source.rowStride;
+    }
+
+    // EFFECTS: returns a new rows x cols tensor of zeros stored as dtype in native memory outside
+    // the heap, which is released once the tensor and all its views are unreachable; use an
+    // OffHeapArena to release it at a known point instead;
+    // throws IllegalArgumentException if rows <= 0, cols <= 0, dtype is null, or the tensor
+    // would need more than Integer.MAX_VALUE bytes
+    public static Tensor allocateDirect(int rows, int cols, DType dtype) {
+        ByteBuffer storage = ByteBuffer.allocateDirect(checkedByteSize(rows, cols, dtype));
+        return new Tensor(rows, cols, dtype, storage.order(ByteOrder.nativeOrder()), null);
+    }
+
+    // EFFECTS: returns a rows x cols tensor of dtype whose row-major elements are the bytes of
+    // storage from its position on, read in storage's byte order, without copying them; writes to
+    // the tensor change storage, and the tensor is read-only if storage is. This is how
+    // memory-mapped files become tensors: the tensor is off-heap and stays valid for as long as it
+    // is reachable;
+    // throws IllegalArgumentException if storage is null or not direct, a dimension is not
+    // positive, dtype is null, or fewer than the needed bytes remain in storage
+    public static Tensor wrap(ByteBuffer storage, int rows, int cols, DType dtype) {
+        int bytes = checkedByteSize(rows, cols, dtype);
+        if (storage == null || !storage.isDirect() || storage.remaining() < bytes) {
+            EventLog.getInstance().warn(() -> "Invalid buffer provided for a " + rows + "x" + cols + " tensor.");
+            throw new IllegalArgumentException("Storage must be a direct buffer with " + bytes + " bytes remaining");
+        }
+        ByteBuffer window = storage.slice().limit(bytes);
+        return new Tensor(rows, cols, dtype, window.order(storage.order()), null);
+    }
+
+    // EFFECTS: returns the number of bytes an off-heap rows x cols tensor of dtype needs;
+    // throws IllegalArgumentException if a dimension is not positive, dtype is null, or the
+    // size does not fit in a single buffer
+    static int checkedByteSize(int rows, int cols, DType dtype) {
+        requireDType(dtype);
+        if (rows <= 0 || cols <= 0) {
+            throw new IllegalArgumentException("Tensor dimensions must be positive");
+        }
+        long bytes = (long) rows * cols * dtype.getByteSize();
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Off-heap tensors are limited to " + Integer.MAX_VALUE + " bytes");
         }
+        return (int) bytes;
+    }
+
+    // Helper method returning the number of elements of a rows x cols tensor;
+    // throws IllegalArgumentException if either dimension is not positive or the number of
+    // elements does not fit in a single array
+    private static int checkedSize(int rows, int cols) {
+        if (rows <= 0 || cols <= 0) {
+            throw new IllegalArgumentException("Tensor dimensions must be positive");
+        }
+        long size = (long) rows * cols;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Tensors are limited to " + Integer.MAX_VALUE + " elements");
+        }
+        return (int) size;
+    }
+
+    // Helper method returning dtype; throws IllegalArgumentException if it is null
+    private static DType requireDType(DType dtype) {
+        if (dtype == null) {
+            throw new IllegalArgumentException("Data type cannot be null");
+        }
+        return dtype;
+    }
+
+    // EFFECTS: returns buffer if it is a rows x cols tensor of dtype, otherwise a new zero-filled one
+    static Tensor reuseOrAllocate(Tensor buffer, int rows, int cols, DType dtype) {
+        if (buffer != null && buffer.rows == rows && buffer.cols == cols && buffer.dtype == dtype) {
+            return buffer;
+        }
+        return new Tensor(rows, cols, dtype);
+    }
+
+    // EFFECTS: returns this tensor if it already stores dtype, otherwise a new heap tensor of the
+    // same shape holding the elements converted to dtype (rounded to the nearest float when
+    // narrowing);
+    // throws IllegalArgumentException if dtype is null
+    public Tensor toDType(DType dtype) {
+        if (requireDType(dtype) == this.dtype) {
+            return this;
+        }
+        Tensor converted = new Tensor(rows, cols, dtype);
+        converted.copyScaled(this, 1.0);
+        return converted;
+    }
+
+    // EFFECTS: returns this tensor if its elements are on the heap, otherwise a heap copy of it
+    public Tensor toHeap() {
+        if (!isOffHeap()) {
+            return this;
+        }
+        Tensor copy = new Tensor(rows, cols, dtype);
+        copy.copyScaled(this, 1.0);
+        return copy;
+    }
+
+    // EFFECTS: returns true if the elements of this tensor are stored outside the heap
+    public boolean isOffHeap() {
+        return data == null && floatData == null;
+    }
+
+    // EFFECTS: returns true if the elements cannot be changed, as for a tensor wrapping a read-only
+    // buffer such as a read-only file mapping; changing one throws ReadOnlyBufferException
+    public boolean isReadOnly() {
+        if (directData != null) {
+            return directData.isReadOnly();
+        }
+        return directFloatData != null && directFloatData.isReadOnly();
+    }
+
+    // REQUIRES: source has the same shape as this tensor
+    // MODIFIES: this
+    // EFFECTS: sets each element of this tensor to factor times the matching element of source,
+    // converting between dtypes; returns false if any stored result is infinite or NaN
+    boolean copyScaled(Tensor source, double factor) {
+        checkAccessible();
+        source.checkAccessible();
+        boolean finite = true;
+        for (int i = 0; i < rows; i++) {
+            int src = source.rowStart(i);
+            int dst = rowStart(i);
+            for (int j = 0; j < cols; j++) {
+                double value = source.read(src + j) * factor;
+                if (dtype == DType.FLOAT32) {
+                    value = (float) value; // May overflow when rounded
+                }
+                write(dst + j, value);
+                finite &= Double.isFinite(value);
+            }
+        }
+        return finite;
+    }
+
+    // REQUIRES: source has the same shape as this tensor
+    // MODIFIES: this
+    // EFFECTS: copies the elements of source into this tensor, row by row with System.arraycopy
+    // when both are on the heap with the same dtype, converting between dtypes otherwise
+    void copyFrom(Tensor source) {
+        if (source.dtype != dtype || isOffHeap() || source.isOffHeap()) {
+            copyScaled(source, 1.0);
+            return;
+        }
+        for (int i = 0; i < rows; i++) {
+            if (dtype == DType.FLOAT32) {
+                System.arraycopy(source.floatData, source.rowStart(i), floatData, rowStart(i), cols);
+            } else {
+                System.arraycopy(source.data, source.rowStart(i), data, rowStart(i), cols);
+            }
+        }
+    }
+
+    // EFFECTS: returns the element type of this tensor
+    public DType getDType() {
+        return dtype;
     }
 
     // MODIFIES: this
@@ -32,18 +287,25 @@ public class Tensor implements Writable {
     // throws IllegalArgumentException if other is null or dimensions do not match
     public void add(Tensor other) {
         if (other == null) {
-            EventLog.getInstance().logEvent(new Event("Attempted to add a null tensor."));
+            EventLog.getInstance().warn(() -> "Attempted to add a null tensor.");
             throw new IllegalArgumentException("Other tensor cannot be null");
         }
-        double[][] otherData = other.getData();
-        if (data.length != otherData.length || data[0].length != otherData[0].length) {
-            EventLog.getInstance().logEvent(new Event("Tensor dimension mismatch in add operation: dimensions "
-                    + data.length + "x" + data[0].length + " and " + otherData.length + "x" + otherData[0].length));
+        if (!sameShape(other)) {
+            EventLog.getInstance().warn(() -> "Tensor dimension mismatch in add operation: dimensions " + rows
+                    + "x" + cols + " and " + other.rows + "x" + other.cols);
             throw new IllegalArgumentException("Tensor dimensions must match");
         }
-        for (int i = 0; i < data.length; i++) {
-            for (int j = 0; j < data[i].length; j++) {
-                data[i][j] += otherData[i][j];
+        checkSameDType("add", other);
+        if (isOffHeap() || other.isOffHeap()) {
+            combineOffHeap(other, false);
+            return;
+        }
+        Kernels kernels = Kernels.active();
+        for (int i = 0; i < rows; i++) {
+            if (data != null) {
+                kernels.add(data, rowStart(i), other.data, other.rowStart(i), cols);
+            } else {
+                kernels.add(floatData, rowStart(i), other.floatData, other.rowStart(i), cols);
             }
         }
     }
@@ -53,29 +315,283 @@ public class Tensor implements Writable {
     // throws IllegalArgumentException if other is null or dimensions do not match
     public void multiply(Tensor other) {
         if (other == null) {
-            EventLog.getInstance().logEvent(new Event("Attempted to multiply by a null tensor."));
+            EventLog.getInstance().warn(() -> "Attempted to multiply by a null tensor.");
             throw new IllegalArgumentException("Other tensor cannot be null");
         }
-        double[][] otherData = other.getData();
-        if (data.length != otherData.length || data[0].length != otherData[0].length) {
-            EventLog.getInstance().logEvent(new Event("Tensor dimension mismatch in multiply operation: dimensions "
-                    + data.length + "x" + data[0].length + " and " + otherData.length + "x" + otherData[0].length));
+        if (!sameShape(other)) {
+            EventLog.getInstance().warn(() -> "Tensor dimension mismatch in multiply operation: dimensions " + rows
+                    + "x" + cols + " and " + other.rows + "x" + other.cols);
             throw new IllegalArgumentException("Tensor dimensions must match");
         }
-        for (int i = 0; i < data.length; i++) {
-            for (int j = 0; j < data[i].length; j++) {
-                data[i][j] *= otherData[i][j];
+        checkSameDType("multiply", other);
+        if (isOffHeap() || other.isOffHeap()) {
+            combineOffHeap(other, true);
+            return;
+        }
+        Kernels kernels = Kernels.active();
+        for (int i = 0; i < rows; i++) {
+            if (data != null) {
+                kernels.multiply(data, rowStart(i), other.data, other.rowStart(i), cols);
+            } else {
+                kernels.multiply(floatData, rowStart(i), other.floatData, other.rowStart(i), cols);
+            }
+        }
+    }
+
+    // Helper method computing add or multiply element by element when either tensor is off-heap,
+    // rounding each result to float for FLOAT32 tensors as the kernels do
+    private void combineOffHeap(Tensor other, boolean multiply) {
+        checkAccessible();
+        other.checkAccessible();
+        for (int i = 0; i < rows; i++) {
+            int row = rowStart(i);
+            int otherRow = other.rowStart(i);
+            for (int j = 0; j < cols; j++) {
+                double a = read(row + j);
+                double b = other.read(otherRow + j);
+                double value = multiply ? a * b : a + b;
+                write(row + j, dtype == DType.FLOAT32 ? (float) value : value);
+            }
+        }
+    }
+
+    // Helper method to check that other stores the same element type as this tensor;
+    // throws IllegalArgumentException otherwise
+    private void checkSameDType(String operation, Tensor other) {
+        if (other.dtype != dtype) {
+            EventLog.getInstance().warn(() -> "Tensor dtype mismatch in " + operation + " operation: " + dtype
+                    + " and " + other.dtype);
+            throw new IllegalArgumentException("Tensor dtypes must match");
+        }
+    }
+
+    // EFFECTS: returns true if other has the same number of rows and columns as this tensor
+    public boolean sameShape(Tensor other) {
+        return other != null && rows == other.rows && cols == other.cols;
+    }
+
+    // EFFECTS: returns the element at (row, col);
+    // throws IndexOutOfBoundsException if row or col is out of range
+    public double get(int row, int col) {
+        int index = index(row, col);
+        checkAccessible();
+        return read(index);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: sets the element at (row, col) to value, rounded to float for FLOAT32 tensors;
+    // throws IndexOutOfBoundsException if row or col is out of range
+    public void set(int row, int col, double value) {
+        int index = index(row, col);
+        checkAccessible();
+        write(index, value);
+    }
+
+    // Helper method reading the element at index of whichever storage this tensor uses
+    private double read(int index) {
+        if (data != null) {
+            return data[index];
+        } else if (floatData != null) {
+            return floatData[index];
+        }
+        return directData != null ? directData.get(index) : directFloatData.get(index);
+    }
+
+    // Helper method writing value at index of whichever storage this tensor uses, rounding it to
+    // float for FLOAT32 tensors
+    private void write(int index, double value) {
+        if (data != null) {
+            data[index] = value;
+        } else if (floatData != null) {
+            floatData[index] = (float) value;
+        } else if (directData != null) {
+            directData.put(index, value);
+        } else {
+            directFloatData.put(index, (float) value);
+        }
+    }
+
+    // Helper method to check that the storage of an arena-scoped tensor has not been released;
+    // throws IllegalStateException otherwise
+    private void checkAccessible() {
+        if (arena != null && !arena.isOpen()) {
+            throw new IllegalStateException("Off-heap tensor used after its arena was closed");
+        }
+    }
+
+    // Helper method to map (row, col) to an index into the backing array
+    private int index(int row, int col) {
+        if (row < 0 || row >= rows || col < 0 || col >= cols) {
+            throw new IndexOutOfBoundsException("Index (" + row + ", " + col + ") out of bounds for shape "
+                    + rows + "x" + cols);
+        }
+        return rowStart(row) + col;
+    }
+
+    // EFFECTS: returns the index in the backing array of the first element of row
+    int rowStart(int row) {
+        return offset + row * rowStride;
+    }
+
+    // EFFECTS: returns a view of rows [start, end) that shares this tensor's storage, so writes
+    // through either tensor are visible in the other;
+    // throws IndexOutOfBoundsException if the range is empty or out of bounds
+    public Tensor sliceRows(int start, int end) {
+        if (start < 0 || end > rows || start >= end) {
+            throw new IndexOutOfBoundsException("Row range [" + start + ", " + end + ") out of bounds for "
+                    + rows + " rows");
+        }
+        return new Tensor(this, rowStart(start), end - start, cols);
+    }
+
+    // REQUIRES: 0 <= r0 < r1 <= rows and 0 <= c0 < c1 <= cols
+    // EFFECTS: returns a view of rows [r0, r1) and columns [c0, c1) that shares this tensor's storage
+    Tensor view(int r0, int r1, int c0, int c1) {
+        return new Tensor(this, rowStart(r0) + c0, r1 - r0, c1 - c0);
+    }
+
+    // EFFECTS: returns the number of rows
+    public int getRows() {
+        return rows;
+    }
+
+    // EFFECTS: returns the number of columns
+    public int getCols() {
+        return cols;
+    }
+
+    // EFFECTS: returns the shape of this tensor as {rows, cols}
+    public int[] getShape() {
+        return new int[] {rows, cols};
+    }
+
+    // EFFECTS: returns the distance in the backing array between the starts of consecutive rows
+    public int getRowStride() {
+        return rowStride;
+    }
+
+    // EFFECTS: returns a read-only, zero-copy view of this tensor's elements in row-major order;
+    // element (row, col) is at position row * getRowStride() + col, and later writes to this
+    // tensor are visible through the view;
+    // throws IllegalStateException if this is a FLOAT32 tensor (use asReadOnlyFloatBuffer)
+    // For an arena-scoped tensor the view must not be used after the arena is closed
+    public DoubleBuffer asReadOnlyBuffer() {
+        if (dtype != DType.FLOAT64) {
+            throw new IllegalStateException("Tensor stores " + dtype + " elements");
+        }
+        return doubleBuffer().slice(offset, (rows - 1) * rowStride + cols).asReadOnlyBuffer();
+    }
+
+    // EFFECTS: returns a read-only, zero-copy view of this tensor's elements laid out as for
+    // asReadOnlyBuffer;
+    // throws IllegalStateException if this is a FLOAT64 tensor (use asReadOnlyBuffer)
+    public FloatBuffer asReadOnlyFloatBuffer() {
+        if (dtype != DType.FLOAT32) {
+            throw new IllegalStateException("Tensor stores " + dtype + " elements");
+        }
+        return floatBuffer().slice(offset, (rows - 1) * rowStride + cols).asReadOnlyBuffer();
+    }
+
+    // EFFECTS: calls visitor once for each element in row-major order without copying the data
+    public void forEach(ElementVisitor visitor) {
+        checkAccessible();
+        for (int i = 0; i < rows; i++) {
+            int base = rowStart(i);
+            for (int j = 0; j < cols; j++) {
+                visitor.visit(i, j, read(base + j));
             }
         }
     }
 
-    // EFFECTS: returns the data of this tensor
+    // Represents a callback that receives the elements of a tensor one at a time
+    @FunctionalInterface
+    public interface ElementVisitor {
+        // EFFECTS: handles the element at (row, col) with the given value
+        void visit(int row, int col, double value);
+    }
+
+    // EFFECTS: returns the backing row-major array of a FLOAT64 tensor, or null for a FLOAT32
+    // tensor; the array may be shared with other views, and callers in the model package index
+    // it through rowStart and must not hand it out;
+    // throws IllegalStateException if the tensor is off-heap (see doubleBuffer)
+    double[] array() {
+        checkOnHeap();
+        return data;
+    }
+
+    // EFFECTS: returns the backing row-major array of a FLOAT32 tensor, or null for a FLOAT64
+    // tensor; shared in the same way as array();
+    // throws IllegalStateException if the tensor is off-heap (see floatBuffer)
+    float[] floatArray() {
+        checkOnHeap();
+        return floatData;
+    }
+
+    // Helper method to check that the elements are in a Java array;
+    // throws IllegalStateException otherwise
+    private void checkOnHeap() {
+        if (isOffHeap()) {
+            throw new IllegalStateException("Tensor is stored off-heap");
+        }
+    }
+
+    // REQUIRES: this is a FLOAT64 tensor
+    // EFFECTS: returns the storage of this tensor as a buffer indexed like array(), whether it is
+    // on or off the heap, without copying it; shared in the same way as array();
+    // throws IllegalStateException if the arena owning the storage has been closed
+    DoubleBuffer doubleBuffer() {
+        checkAccessible();
+        return directData != null ? directData : DoubleBuffer.wrap(data);
+    }
+
+    // REQUIRES: this is a FLOAT32 tensor
+    // EFFECTS: returns the storage of this tensor as a buffer indexed like floatArray(), as for
+    // doubleBuffer
+    FloatBuffer floatBuffer() {
+        checkAccessible();
+        return directFloatData != null ? directFloatData : FloatBuffer.wrap(floatData);
+    }
+
+    // MODIFIES: dst
+    // EFFECTS: copies the elements of row into dst starting at dstOffset, converting them to
+    // double, from whichever storage this tensor uses
+    void readRow(int row, double[] dst, int dstOffset) {
+        checkAccessible();
+        int start = rowStart(row);
+        if (data != null) {
+            System.arraycopy(data, start, dst, dstOffset, cols);
+        } else if (directData != null) {
+            directData.get(start, dst, dstOffset, cols);
+        } else {
+            for (int j = 0; j < cols; j++) {
+                dst[dstOffset + j] = read(start + j);
+            }
+        }
+    }
+
+    // MODIFIES: dst
+    // EFFECTS: copies the elements of row into dst starting at dstOffset, rounding them to float,
+    // from whichever storage this tensor uses
+    void readRow(int row, float[] dst, int dstOffset) {
+        checkAccessible();
+        int start = rowStart(row);
+        if (floatData != null) {
+            System.arraycopy(floatData, start, dst, dstOffset, cols);
+        } else if (directFloatData != null) {
+            directFloatData.get(start, dst, dstOffset, cols);
+        } else {
+            for (int j = 0; j < cols; j++) {
+                dst[dstOffset + j] = (float) read(start + j);
+            }
+        }
+    }
+
+    // EFFECTS: returns a copy of the data of this tensor; prefer get, forEach or
+    // asReadOnlyBuffer when the data only needs to be read
     public double[][] getData() {
-        int rows = data.length;
-        int cols = data[0].length;
         double[][] copyData = new double[rows][cols];
         for (int i = 0; i < rows; i++) {
-            System.arraycopy(data[i], 0, copyData[i], 0, cols);
+            readRow(i, copyData[i], 0);
         }
         return copyData;
     }
@@ -84,33 +600,50 @@ public class Tensor implements Writable {
     public JSONObject toJson() {
         JSONObject json = new JSONObject();
         JSONArray dataArray = new JSONArray();
-        for (double[] row : data) {
+        checkAccessible();
+        for (int i = 0; i < rows; i++) {
             JSONArray rowArray = new JSONArray();
-            for (double val : row) {
-                rowArray.put(val);
+            for (int j = 0; j < cols; j++) {
+                if (dtype == DType.FLOAT64) {
+                    rowArray.put(read(rowStart(i) + j));
+                } else {
+                    rowArray.put((float) read(rowStart(i) + j)); // Shortest decimal that reads back exactly
+                }
             }
             dataArray.put(rowArray);
         }
         json.put("data", dataArray);
-        EventLog.getInstance().logEvent(new Event("Serialized Tensor to JSON with dimensions "
-                + data.length + "x" + data[0].length));
+        if (dtype != DType.FLOAT64) {
+            json.put("dtype", dtype.name()); // Absent in FLOAT64 files, including those written before dtypes
+        }
+        EventLog.getInstance().debug(() -> "Serialized Tensor to JSON with dimensions " + rows + "x" + cols);
         return json;
     }
 
-    // EFFECTS: Construct a Tensor from a JSONObject
+    // EFFECTS: Construct a Tensor from a JSONObject, keeping the dtype it was saved with
     public static Tensor fromJson(JSONObject json) {
+        return fromJson(json, DType.valueOf(json.optString("dtype", DType.FLOAT64.name())));
+    }
+
+    // EFFECTS: Construct a Tensor of the given dtype from a JSONObject, converting the saved
+    // values if they were written with another dtype;
+    // throws IllegalArgumentException if dtype is null or the rows have different lengths
+    public static Tensor fromJson(JSONObject json, DType dtype) {
         JSONArray dataArray = json.getJSONArray("data");
         int rows = dataArray.length();
         int cols = dataArray.getJSONArray(0).length();
-        double[][] data = new double[rows][cols];
+        Tensor tensor = new Tensor(rows, cols, dtype);
         for (int i = 0; i < rows; i++) {
             JSONArray rowArray = dataArray.getJSONArray(i);
+            if (rowArray.length() != cols) {
+                throw new IllegalArgumentException("All rows must have the same number of columns");
+            }
             for (int j = 0; j < cols; j++) {
-                data[i][j] = rowArray.getDouble(j);
+                tensor.set(i, j, rowArray.getDouble(j));
             }
         }
-        EventLog.getInstance().logEvent(new Event("Deserialized Tensor from JSON with dimensions "
-                + data.length + "x" + data[0].length));
-        return new Tensor(data);
+        EventLog.getInstance().debug(() -> "Deserialized " + dtype + " Tensor from JSON with dimensions " + rows
+                + "x" + cols);
+        return tensor;
     }
 }
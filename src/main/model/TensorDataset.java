@@ -0,0 +1,40 @@
+package model;
+
+// Represents a dataset whose samples are the rows of an input tensor and a target tensor
+public class TensorDataset implements Dataset {
+    private final Tensor inputs;
+    private final Tensor targets;
+
+    // EFFECTS: creates a dataset over the rows of inputs and targets without copying them; either
+    // may be stored off-heap, in which case only the rows of each batch are copied to the heap;
+    // throws IllegalArgumentException if either is null or their row counts differ
+    public TensorDataset(Tensor inputs, Tensor targets) {
+        if (inputs == null || targets == null || inputs.getRows() != targets.getRows()) {
+            EventLog.getInstance().warn(() -> "Invalid tensors provided for dataset.");
+            throw new IllegalArgumentException("Inputs and targets must be non-null with the same number of rows");
+        }
+        this.inputs = inputs;
+        this.targets = targets;
+    }
+
+    @Override
+    public int size() {
+        return inputs.getRows();
+    }
+
+    @Override
+    public int inputSize() {
+        return inputs.getCols();
+    }
+
+    @Override
+    public int targetSize() {
+        return targets.getCols();
+    }
+
+    @Override
+    public void load(int index, double[] input, int inputOffset, double[] target, int targetOffset) {
+        inputs.readRow(index, input, inputOffset);
+        targets.readRow(index, target, targetOffset);
+    }
+}
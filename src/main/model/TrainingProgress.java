@@ -0,0 +1,121 @@
+package model;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+import java.util.Random;
+
+// Represents how far training has got: the optimizer steps taken so far, and within the running
+// train call the epoch, the batches of it already trained and the batch order drawn for it.
+// Together with the state of the shuffle random source this is enough to continue an
+// interrupted train call exactly where a checkpoint was taken.
+final class TrainingProgress {
+    private static final ObjectInputFilter RANDOM_ONLY = ObjectInputFilter.Config.createFilter(
+            "java.util.Random;maxdepth=1;!*");
+
+    private long step;
+    private int epoch;
+    private int batch;
+    private int[] order; // Batch order of the current epoch, or null if batches are not shuffled
+
+    // MODIFIES: this
+    // EFFECTS: records the start of epoch, whose batches are visited in order (null if unshuffled),
+    // with the first trained batches already done before a resume
+    void startEpoch(int epoch, int[] order, int trained) {
+        this.epoch = epoch;
+        this.batch = trained;
+        this.order = order;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records that one more batch has been trained with one optimizer step
+    void finishStep() {
+        step++;
+        batch++;
+    }
+
+    // EFFECTS: returns the number of optimizer steps taken so far
+    long getStep() {
+        return step;
+    }
+
+    // EFFECTS: returns the epoch of the running train call, counting from 0
+    int getEpoch() {
+        return epoch;
+    }
+
+    // EFFECTS: returns the number of batches of the current epoch already trained
+    int getBatch() {
+        return batch;
+    }
+
+    // EFFECTS: returns the batch order of the current epoch, or null if batches are not shuffled
+    int[] getOrder() {
+        return order;
+    }
+
+    // EFFECTS: returns the progress and the state of shuffleRandom as JSON
+    JSONObject toJson(Random shuffleRandom) {
+        JSONObject json = new JSONObject();
+        json.put("step", step);
+        json.put("epoch", epoch);
+        json.put("batch", batch);
+        if (order != null) {
+            json.put("order", new JSONArray(order));
+        }
+        json.put("shuffleRandom", saveRandom(shuffleRandom));
+        return json;
+    }
+
+    // EFFECTS: returns the progress saved by toJson;
+    // throws org.json.JSONException if json lacks a field
+    static TrainingProgress fromJson(JSONObject json) {
+        TrainingProgress progress = new TrainingProgress();
+        progress.step = json.getLong("step");
+        progress.epoch = json.getInt("epoch");
+        progress.batch = json.getInt("batch");
+        JSONArray order = json.optJSONArray("order");
+        if (order != null) {
+            progress.order = new int[order.length()];
+            for (int i = 0; i < order.length(); i++) {
+                progress.order[i] = order.getInt(i);
+            }
+        }
+        return progress;
+    }
+
+    // EFFECTS: returns the state of random, from which loadRandom recreates the same sequence
+    static String saveRandom(Random random) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(random);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Cannot happen when writing to memory
+        }
+        return Base64.getEncoder().encodeToString(bytes.toByteArray());
+    }
+
+    // EFFECTS: returns a random source in the state saved by saveRandom;
+    // throws IllegalArgumentException if state is not a saved random source
+    static Random loadRandom(String state) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(
+                Base64.getDecoder().decode(state)))) {
+            in.setObjectInputFilter(RANDOM_ONLY); // Never instantiate other classes from a checkpoint
+            Object random = in.readObject();
+            if (!(random instanceof Random)) {
+                throw new IllegalArgumentException("Not a saved random source");
+            }
+            return (Random) random;
+        } catch (IOException | ClassNotFoundException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Not a saved random source", e);
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package model;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// Implements the kernels with the JDK Vector API. Only loaded reflectively by Kernels when the
+// jdk.incubator.vector module is present; compiling it requires --add-modules jdk.incubator.vector.
+// The GEMM micro-kernels hold each row of their MR x NR tile in one 256-bit vector, which fits
+// twice as many floats as doubles, and element-wise loops use the same 256-bit vectors, finishing
+// with a scalar tail. Wider vectors would speed up the element-wise loops on AVX-512 hardware, but
+// the JIT profiles vector operations per vector class, so mixing two sizes makes it box the tile
+// rows and allocate on every matrix product.
+class VectorKernels extends ScalarKernels {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_256;
+    private static final VectorSpecies<Double> TILE = SPECIES;
+    private static final VectorSpecies<Float> FLOAT_SPECIES = FloatVector.SPECIES_256;
+    private static final VectorSpecies<Float> FLOAT_TILE = FLOAT_SPECIES;
+
+    // EFFECTS: creates the vector kernels;
+    // throws UnsupportedOperationException if the hardware lacks 256-bit vectors, where the
+    // Vector API would fall back to a slow emulation
+    VectorKernels() {
+        if (DoubleVector.SPECIES_PREFERRED.vectorBitSize() < SPECIES.vectorBitSize() || TILE.length() != Gemm.NR
+                || FLOAT_TILE.length() != FloatGemm.NR) {
+            throw new UnsupportedOperationException("256-bit vectors are not supported");
+        }
+    }
+
+    @Override
+    String name() {
+        return "vector-" + SPECIES.vectorBitSize();
+    }
+
+    @Override
+    void add(double[] dst, int dOff, double[] src, int sOff, int len) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(len); i < bound; i += SPECIES.length()) {
+            DoubleVector d = DoubleVector.fromArray(SPECIES, dst, dOff + i);
+            d.add(DoubleVector.fromArray(SPECIES, src, sOff + i)).intoArray(dst, dOff + i);
+        }
+        super.add(dst, dOff + i, src, sOff + i, len - i);
+    }
+
+    @Override
+    void multiply(double[] dst, int dOff, double[] src, int sOff, int len) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(len); i < bound; i += SPECIES.length()) {
+            DoubleVector d = DoubleVector.fromArray(SPECIES, dst, dOff + i);
+            d.mul(DoubleVector.fromArray(SPECIES, src, sOff + i)).intoArray(dst, dOff + i);
+        }
+        super.multiply(dst, dOff + i, src, sOff + i, len - i);
+    }
+
+    @Override
+    void relu(double[] in, int iOff, double[] out, int oOff, int len) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(len); i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, in, iOff + i).max(0.0).intoArray(out, oOff + i);
+        }
+        super.relu(in, iOff + i, out, oOff + i, len - i);
+    }
+
+    @Override
+    void reluBackward(double[] in, int iOff, double[] grad, int gOff, double[] out, int oOff, int len) {
+        DoubleVector zero = DoubleVector.zero(SPECIES);
+        DoubleVector one = DoubleVector.broadcast(SPECIES, 1.0);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(len); i < bound; i += SPECIES.length()) {
+            VectorMask<Double> positive = DoubleVector.fromArray(SPECIES, in, iOff + i)
+                    .compare(VectorOperators.GT, 0.0);
+            DoubleVector derivative = zero.blend(one, positive);
+            DoubleVector.fromArray(SPECIES, grad, gOff + i).mul(derivative).intoArray(out, oOff + i);
+        }
+        super.reluBackward(in, iOff + i, grad, gOff + i, out, oOff + i, len - i);
+    }
+
+    @Override
+    void sigmoid(double[] in, int iOff, double[] out, int oOff, int len) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(len); i < bound; i += SPECIES.length()) {
+            sigmoid(DoubleVector.fromArray(SPECIES, in, iOff + i)).intoArray(out, oOff + i);
+        }
+        super.sigmoid(in, iOff + i, out, oOff + i, len - i);
+    }
+
+    @Override
+    void sigmoidBackward(double[] in, int iOff, double[] grad, int gOff, double[] out, int oOff, int len) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(len); i < bound; i += SPECIES.length()) {
+            DoubleVector s = sigmoid(DoubleVector.fromArray(SPECIES, in, iOff + i));
+            DoubleVector derivative = s.mul(s.neg().add(1.0));
+            DoubleVector.fromArray(SPECIES, grad, gOff + i).mul(derivative).intoArray(out, oOff + i);
+        }
+        super.sigmoidBackward(in, iOff + i, grad, gOff + i, out, oOff + i, len - i);
+    }
+
+    // Helper method computing 1 / (1 + exp(-x)) lane-wise
+    private static DoubleVector sigmoid(DoubleVector x) {
+        return DoubleVector.broadcast(x.species(), 1.0).div(x.neg().lanewise(VectorOperators.EXP).add(1.0));
+    }
+
+    @Override
+    double sumSquaredDifference(double[] a, int aOff, double[] b, int bOff, int len) {
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(len); i < bound; i += SPECIES.length()) {
+            DoubleVector diff = DoubleVector.fromArray(SPECIES, a, aOff + i)
+                    .sub(DoubleVector.fromArray(SPECIES, b, bOff + i));
+            acc = diff.fma(diff, acc);
+        }
+        return acc.reduceLanes(VectorOperators.ADD) + super.sumSquaredDifference(a, aOff + i, b, bOff + i, len - i);
+    }
+
+    @Override
+    void scaledDifference(double[] a, int aOff, double[] b, int bOff, double count,
+            double[] out, int oOff, int len) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(len); i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, a, aOff + i)
+                    .sub(DoubleVector.fromArray(SPECIES, b, bOff + i))
+                    .mul(2.0).div(count).intoArray(out, oOff + i);
+        }
+        super.scaledDifference(a, aOff + i, b, bOff + i, count, out, oOff + i, len - i);
+    }
+
+    // Broadcasts each element of the A sliver and multiplies it by the NR-wide B row in one
+    // fused multiply-add, keeping the MR tile rows in vector registers
+    @Override
+    void gemmMicroKernel(double[] pa, int aIdx, double[] pb, int bIdx, int kc,
+            double[] c, int cIdx, int ldc) {
+        DoubleVector c0 = DoubleVector.zero(TILE);
+        DoubleVector c1 = c0;
+        DoubleVector c2 = c0;
+        DoubleVector c3 = c0;
+        DoubleVector c4 = c0;
+        DoubleVector c5 = c0;
+        DoubleVector c6 = c0;
+        DoubleVector c7 = c0;
+        for (int p = 0; p < kc; p++, aIdx += Gemm.MR, bIdx += Gemm.NR) {
+            DoubleVector b = DoubleVector.fromArray(TILE, pb, bIdx);
+            c0 = DoubleVector.broadcast(TILE, pa[aIdx]).fma(b, c0);
+            c1 = DoubleVector.broadcast(TILE, pa[aIdx + 1]).fma(b, c1);
+            c2 = DoubleVector.broadcast(TILE, pa[aIdx + 2]).fma(b, c2);
+            c3 = DoubleVector.broadcast(TILE, pa[aIdx + 3]).fma(b, c3);
+            c4 = DoubleVector.broadcast(TILE, pa[aIdx + 4]).fma(b, c4);
+            c5 = DoubleVector.broadcast(TILE, pa[aIdx + 5]).fma(b, c5);
+            c6 = DoubleVector.broadcast(TILE, pa[aIdx + 6]).fma(b, c6);
+            c7 = DoubleVector.broadcast(TILE, pa[aIdx + 7]).fma(b, c7);
+        }
+        addRow(c, cIdx, c0);
+        addRow(c, cIdx + ldc, c1);
+        addRow(c, cIdx + 2 * ldc, c2);
+        addRow(c, cIdx + 3 * ldc, c3);
+        addRow(c, cIdx + 4 * ldc, c4);
+        addRow(c, cIdx + 5 * ldc, c5);
+        addRow(c, cIdx + 6 * ldc, c6);
+        addRow(c, cIdx + 7 * ldc, c7);
+    }
+
+    // Helper method to add one row of a micro-kernel tile into c
+    private static void addRow(double[] c, int idx, DoubleVector row) {
+        DoubleVector.fromArray(TILE, c, idx).add(row).intoArray(c, idx);
+    }
+
+    @Override
+    void add(float[] dst, int dOff, float[] src, int sOff, int len) {
+        int i = 0;
+        for (int bound = FLOAT_SPECIES.loopBound(len); i < bound; i += FLOAT_SPECIES.length()) {
+            FloatVector d = FloatVector.fromArray(FLOAT_SPECIES, dst, dOff + i);
+            d.add(FloatVector.fromArray(FLOAT_SPECIES, src, sOff + i)).intoArray(dst, dOff + i);
+        }
+        super.add(dst, dOff + i, src, sOff + i, len - i);
+    }
+
+    @Override
+    void multiply(float[] dst, int dOff, float[] src, int sOff, int len) {
+        int i = 0;
+        for (int bound = FLOAT_SPECIES.loopBound(len); i < bound; i += FLOAT_SPECIES.length()) {
+            FloatVector d = FloatVector.fromArray(FLOAT_SPECIES, dst, dOff + i);
+            d.mul(FloatVector.fromArray(FLOAT_SPECIES, src, sOff + i)).intoArray(dst, dOff + i);
+        }
+        super.multiply(dst, dOff + i, src, sOff + i, len - i);
+    }
+
+    @Override
+    void relu(float[] in, int iOff, float[] out, int oOff, int len) {
+        int i = 0;
+        for (int bound = FLOAT_SPECIES.loopBound(len); i < bound; i += FLOAT_SPECIES.length()) {
+            FloatVector.fromArray(FLOAT_SPECIES, in, iOff + i).max(0f).intoArray(out, oOff + i);
+        }
+        super.relu(in, iOff + i, out, oOff + i, len - i);
+    }
+
+    @Override
+    void reluBackward(float[] in, int iOff, float[] grad, int gOff, float[] out, int oOff, int len) {
+        FloatVector zero = FloatVector.zero(FLOAT_SPECIES);
+        FloatVector one = FloatVector.broadcast(FLOAT_SPECIES, 1f);
+        int i = 0;
+        for (int bound = FLOAT_SPECIES.loopBound(len); i < bound; i += FLOAT_SPECIES.length()) {
+            VectorMask<Float> positive = FloatVector.fromArray(FLOAT_SPECIES, in, iOff + i)
+                    .compare(VectorOperators.GT, 0f);
+            FloatVector derivative = zero.blend(one, positive);
+            FloatVector.fromArray(FLOAT_SPECIES, grad, gOff + i).mul(derivative).intoArray(out, oOff + i);
+        }
+        super.reluBackward(in, iOff + i, grad, gOff + i, out, oOff + i, len - i);
+    }
+
+    @Override
+    void sigmoid(float[] in, int iOff, float[] out, int oOff, int len) {
+        int i = 0;
+        for (int bound = FLOAT_SPECIES.loopBound(len); i < bound; i += FLOAT_SPECIES.length()) {
+            sigmoid(FloatVector.fromArray(FLOAT_SPECIES, in, iOff + i)).intoArray(out, oOff + i);
+        }
+        super.sigmoid(in, iOff + i, out, oOff + i, len - i);
+    }
+
+    @Override
+    void sigmoidBackward(float[] in, int iOff, float[] grad, int gOff, float[] out, int oOff, int len) {
+        int i = 0;
+        for (int bound = FLOAT_SPECIES.loopBound(len); i < bound; i += FLOAT_SPECIES.length()) {
+            FloatVector s = sigmoid(FloatVector.fromArray(FLOAT_SPECIES, in, iOff + i));
+            FloatVector derivative = s.mul(s.neg().add(1f));
+            FloatVector.fromArray(FLOAT_SPECIES, grad, gOff + i).mul(derivative).intoArray(out, oOff + i);
+        }
+        super.sigmoidBackward(in, iOff + i, grad, gOff + i, out, oOff + i, len - i);
+    }
+
+    // Helper method computing 1 / (1 + exp(-x)) lane-wise
+    private static FloatVector sigmoid(FloatVector x) {
+        return FloatVector.broadcast(x.species(), 1f).div(x.neg().lanewise(VectorOperators.EXP).add(1f));
+    }
+
+    // Squares the differences in float like the scalar kernel, then widens each half of the vector
+    // to double before adding it, so the sum keeps double precision on large batches
+    @Override
+    double sumSquaredDifference(float[] a, int aOff, float[] b, int bOff, int len) {
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int i = 0;
+        for (int bound = FLOAT_SPECIES.loopBound(len); i < bound; i += FLOAT_SPECIES.length()) {
+            FloatVector diff = FloatVector.fromArray(FLOAT_SPECIES, a, aOff + i)
+                    .sub(FloatVector.fromArray(FLOAT_SPECIES, b, bOff + i));
+            FloatVector squared = diff.mul(diff);
+            acc = acc.add((DoubleVector) squared.convertShape(VectorOperators.F2D, SPECIES, 0))
+                    .add((DoubleVector) squared.convertShape(VectorOperators.F2D, SPECIES, 1));
+        }
+        return acc.reduceLanes(VectorOperators.ADD) + super.sumSquaredDifference(a, aOff + i, b, bOff + i, len - i);
+    }
+
+    @Override
+    void scaledDifference(float[] a, int aOff, float[] b, int bOff, double count,
+            float[] out, int oOff, int len) {
+        float divisor = (float) count;
+        int i = 0;
+        for (int bound = FLOAT_SPECIES.loopBound(len); i < bound; i += FLOAT_SPECIES.length()) {
+            FloatVector.fromArray(FLOAT_SPECIES, a, aOff + i)
+                    .sub(FloatVector.fromArray(FLOAT_SPECIES, b, bOff + i))
+                    .mul(2f).div(divisor).intoArray(out, oOff + i);
+        }
+        super.scaledDifference(a, aOff + i, b, bOff + i, count, out, oOff + i, len - i);
+    }
+
+    // Same scheme as the double micro-kernel, with 8 floats per tile row
+    @Override
+    void gemmMicroKernel(float[] pa, int aIdx, float[] pb, int bIdx, int kc,
+            float[] c, int cIdx, int ldc) {
+        FloatVector c0 = FloatVector.zero(FLOAT_TILE);
+        FloatVector c1 = c0;
+        FloatVector c2 = c0;
+        FloatVector c3 = c0;
+        FloatVector c4 = c0;
+        FloatVector c5 = c0;
+        FloatVector c6 = c0;
+        FloatVector c7 = c0;
+        for (int p = 0; p < kc; p++, aIdx += FloatGemm.MR, bIdx += FloatGemm.NR) {
+            FloatVector b = FloatVector.fromArray(FLOAT_TILE, pb, bIdx);
+            c0 = FloatVector.broadcast(FLOAT_TILE, pa[aIdx]).fma(b, c0);
+            c1 = FloatVector.broadcast(FLOAT_TILE, pa[aIdx + 1]).fma(b, c1);
+            c2 = FloatVector.broadcast(FLOAT_TILE, pa[aIdx + 2]).fma(b, c2);
+            c3 = FloatVector.broadcast(FLOAT_TILE, pa[aIdx + 3]).fma(b, c3);
+            c4 = FloatVector.broadcast(FLOAT_TILE, pa[aIdx + 4]).fma(b, c4);
+            c5 = FloatVector.broadcast(FLOAT_TILE, pa[aIdx + 5]).fma(b, c5);
+            c6 = FloatVector.broadcast(FLOAT_TILE, pa[aIdx + 6]).fma(b, c6);
+            c7 = FloatVector.broadcast(FLOAT_TILE, pa[aIdx + 7]).fma(b, c7);
+        }
+        addRow(c, cIdx, c0);
+        addRow(c, cIdx + ldc, c1);
+        addRow(c, cIdx + 2 * ldc, c2);
+        addRow(c, cIdx + 3 * ldc, c3);
+        addRow(c, cIdx + 4 * ldc, c4);
+        addRow(c, cIdx + 5 * ldc, c5);
+        addRow(c, cIdx + 6 * ldc, c6);
+        addRow(c, cIdx + 7 * ldc, c7);
+    }
+
+    // Helper method to add one row of a float micro-kernel tile into c
+    private static void addRow(float[] c, int idx, FloatVector row) {
+        FloatVector.fromArray(FLOAT_TILE, c, idx).add(row).intoArray(c, idx);
+    }
+}
@@ -0,0 +1,125 @@
+package persistence;
+
+import model.ActivationLayer;
+import model.DType;
+import model.DenseLayer;
+import model.Layer;
+import model.NeuralNetwork;
+import model.Tensor;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Represents a reader that loads a neural network from a binary checkpoint written by
+// CheckpointWriter. Only the header is read; every tensor is memory-mapped from the file, so
+// loading takes about as long as parsing the header and the weights are paged in on first use.
+// The mappings are read-only, so the file only needs to be readable and is never changed: a
+// parameter is copied onto the heap the first time an optimizer step updates it.
+public class CheckpointReader {
+    private final String source;
+
+    // EFFECTS: Constructs a reader to read from source file
+    public CheckpointReader(String source) {
+        this.source = source;
+    }
+
+    // EFFECTS: Reads the network stored in the source file, with every parameter mapped from the
+    // file rather than copied onto the heap;
+    // throws IOException if the file cannot be read or is not a valid checkpoint
+    public NeuralNetwork read() throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(source), StandardOpenOption.READ)) {
+            JSONObject header = readHeader(channel);
+            NeuralNetwork nn = new NeuralNetwork();
+            nn.setDType(DType.valueOf(header.getString("dtype")));
+            JSONArray layers = header.getJSONArray("layers");
+            for (int i = 0; i < layers.length(); i++) {
+                Layer layer = readLayer(channel, layers.getJSONObject(i));
+                if (layer != null) {
+                    nn.addLayer(layer);
+                }
+            }
+            return nn;
+        } catch (JSONException | IllegalArgumentException e) {
+            throw new IOException("Malformed checkpoint header in " + source, e);
+        }
+    }
+
+    // EFFECTS: Reads the training state stored with the network (see CheckpointWriter.write), or
+    // returns null if the checkpoint was saved without one;
+    // throws IOException if the file cannot be read or is not a valid checkpoint
+    public JSONObject readTrainingState() throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(source), StandardOpenOption.READ)) {
+            return readHeader(channel).optJSONObject("training");
+        } catch (JSONException e) {
+            throw new IOException("Malformed checkpoint header in " + source, e);
+        }
+    }
+
+    // Helper method checking the preamble and returning the parsed header
+    private JSONObject readHeader(FileChannel channel) throws IOException {
+        ByteBuffer preamble = readFully(channel, 0, CheckpointWriter.PREAMBLE_BYTES);
+        byte[] magic = new byte[CheckpointWriter.MAGIC.length];
+        preamble.get(magic);
+        if (!Arrays.equals(magic, CheckpointWriter.MAGIC)) {
+            throw new IOException(source + " is not a JTorch checkpoint");
+        }
+        int version = preamble.getInt();
+        if (version != CheckpointWriter.VERSION) {
+            throw new IOException("Unsupported checkpoint version " + version + " in " + source);
+        }
+        int length = preamble.getInt();
+        if (length < 0 || length > channel.size() - CheckpointWriter.PREAMBLE_BYTES) {
+            throw new IOException("Truncated checkpoint header in " + source);
+        }
+        ByteBuffer header = readFully(channel, CheckpointWriter.PREAMBLE_BYTES, length);
+        return new JSONObject(StandardCharsets.UTF_8.decode(header).toString());
+    }
+
+    // Helper method building the layer described by json, or returning null for unknown types
+    private Layer readLayer(FileChannel channel, JSONObject json) throws IOException {
+        String type = json.getString("type");
+        if (type.equals("DenseLayer")) {
+            Tensor weights = mapTensor(channel, json.getJSONObject("weights"));
+            Tensor biases = mapTensor(channel, json.getJSONObject("biases"));
+            return new DenseLayer(weights, biases);
+        } else if (type.equals("ActivationLayer")) {
+            return ActivationLayer.fromJson(json);
+        }
+        return null;
+    }
+
+    // Helper method mapping the blob described by json as a tensor
+    private Tensor mapTensor(FileChannel channel, JSONObject json) throws IOException {
+        int rows = json.getInt("rows");
+        int cols = json.getInt("cols");
+        DType dtype = DType.valueOf(json.getString("dtype"));
+        long offset = json.getLong("offset");
+        long bytes = (long) rows * cols * dtype.getByteSize();
+        if (offset < 0 || bytes > Integer.MAX_VALUE || offset + bytes > channel.size()) {
+            throw new IOException("Tensor data out of bounds in " + source);
+        }
+        ByteBuffer blob = channel.map(FileChannel.MapMode.READ_ONLY, offset, bytes);
+        return Tensor.wrap(blob.order(ByteOrder.LITTLE_ENDIAN), rows, cols, dtype);
+    }
+
+    // Helper method reading length bytes at position into a little-endian buffer
+    private ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of checkpoint " + source);
+            }
+        }
+        return buffer.flip();
+    }
+}
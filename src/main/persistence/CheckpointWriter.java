@@ -0,0 +1,179 @@
+package persistence;
+
+import model.DType;
+import model.DenseLayer;
+import model.Layer;
+import model.NeuralNetwork;
+import model.Tensor;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// Represents a writer that saves a neural network as a binary checkpoint: a short preamble, a
+// JSON header describing the layers, and then the raw little-endian elements of every tensor,
+// each starting on an ALIGNMENT-byte boundary so that CheckpointReader can map them in place.
+//
+// Layout: the MAGIC bytes, the format VERSION and the header length as little-endian ints, the
+// UTF-8 header, and the tensor blobs. In the header, each tensor of a layer's JSON is replaced by
+// {"rows", "cols", "dtype", "offset"}, where offset is the position of its blob in the file.
+public class CheckpointWriter {
+    static final byte[] MAGIC = {'J', 'T', 'C', 'K'};
+    static final int VERSION = 1;
+    static final int PREAMBLE_BYTES = MAGIC.length + 2 * Integer.BYTES;
+    static final int ALIGNMENT = 64;
+
+    private static final int CHUNK_BYTES = 1 << 20;
+
+    private final String destination;
+
+    // EFFECTS: Constructs a writer to write to destination file
+    public CheckpointWriter(String destination) {
+        this.destination = destination;
+    }
+
+    // EFFECTS: Writes nn to the destination file, replacing any existing file;
+    // throws IOException if the file cannot be written
+    public void write(NeuralNetwork nn) throws IOException {
+        write(nn, null);
+    }
+
+    // EFFECTS: Writes nn to the destination file, replacing any existing file, with trainingState
+    // (e.g. the step count and optimizer settings) stored under "training" in the header unless it
+    // is null; throws IOException if the file cannot be written
+    public void write(NeuralNetwork nn, JSONObject trainingState) throws IOException {
+        // The header holds the blob offsets, which depend on the header's own length
+        long dataStart = 0;
+        byte[] header = buildHeader(nn, trainingState, dataStart);
+        while (align(PREAMBLE_BYTES + header.length) > dataStart) {
+            dataStart = align(PREAMBLE_BYTES + header.length);
+            header = buildHeader(nn, trainingState, dataStart);
+        }
+        try (FileChannel channel = FileChannel.open(Paths.get(destination), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer preamble = ByteBuffer.allocate(PREAMBLE_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            preamble.put(MAGIC).putInt(VERSION).putInt(header.length).flip();
+            writeFully(channel, preamble);
+            writeFully(channel, ByteBuffer.wrap(header));
+            ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            long offset = dataStart;
+            for (Tensor tensor : tensors(nn)) {
+                writeTensor(channel, tensor, offset, chunk);
+                offset = align(offset + byteSize(tensor));
+            }
+        }
+    }
+
+    // EFFECTS: returns the UTF-8 header describing nn and trainingState, with the blobs laid out
+    // from dataStart on
+    private static byte[] buildHeader(NeuralNetwork nn, JSONObject trainingState, long dataStart) {
+        JSONArray layers = new JSONArray();
+        long offset = dataStart;
+        for (Layer layer : nn.getLayers()) {
+            if (layer instanceof DenseLayer) {
+                // Built from the shapes alone: DenseLayer.toJson would serialize every parameter
+                DenseLayer dense = (DenseLayer) layer;
+                JSONObject json = new JSONObject();
+                json.put("type", "DenseLayer");
+                json.put("weights", describe(dense.getWeights(), offset));
+                offset = align(offset + byteSize(dense.getWeights()));
+                json.put("biases", describe(dense.getBiases(), offset));
+                offset = align(offset + byteSize(dense.getBiases()));
+                layers.put(json);
+            } else {
+                layers.put(layer.toJson());
+            }
+        }
+        JSONObject header = new JSONObject();
+        header.put("dtype", nn.getDType().name());
+        header.put("layers", layers);
+        if (trainingState != null) {
+            header.put("training", trainingState);
+        }
+        return header.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // EFFECTS: returns the tensors of nn in the order their blobs are stored
+    private static List<Tensor> tensors(NeuralNetwork nn) {
+        List<Tensor> tensors = new ArrayList<>();
+        for (Layer layer : nn.getLayers()) {
+            if (layer instanceof DenseLayer) {
+                tensors.add(((DenseLayer) layer).getWeights());
+                tensors.add(((DenseLayer) layer).getBiases());
+            }
+        }
+        return tensors;
+    }
+
+    // Helper method padding the file up to offset and appending the elements of tensor
+    private static void writeTensor(FileChannel channel, Tensor tensor, long offset, ByteBuffer chunk)
+            throws IOException {
+        writeFully(channel, ByteBuffer.allocate((int) (offset - channel.position())));
+        writeElements(channel, tensor, chunk);
+    }
+
+    // MODIFIES: chunk
+    // EFFECTS: writes the elements of tensor to channel in row-major order and in the byte order of
+    // chunk, copying them through chunk (a direct buffer) one slice at a time
+    static void writeElements(WritableByteChannel channel, Tensor tensor, ByteBuffer chunk) throws IOException {
+        for (int i = 0; i < tensor.getRows(); i++) {
+            int rowStart = i * tensor.getRowStride();
+            if (tensor.getDType() == DType.FLOAT32) {
+                FloatBuffer row = tensor.asReadOnlyFloatBuffer().slice(rowStart, tensor.getCols());
+                while (row.hasRemaining()) {
+                    int count = Math.min(row.remaining(), chunk.capacity() / Float.BYTES);
+                    chunk.clear().asFloatBuffer().put(row.slice(row.position(), count));
+                    row.position(row.position() + count);
+                    writeFully(channel, chunk.limit(count * Float.BYTES));
+                }
+            } else {
+                DoubleBuffer row = tensor.asReadOnlyBuffer().slice(rowStart, tensor.getCols());
+                while (row.hasRemaining()) {
+                    int count = Math.min(row.remaining(), chunk.capacity() / Double.BYTES);
+                    chunk.clear().asDoubleBuffer().put(row.slice(row.position(), count));
+                    row.position(row.position() + count);
+                    writeFully(channel, chunk.limit(count * Double.BYTES));
+                }
+            }
+        }
+    }
+
+    // EFFECTS: writes all remaining bytes of buffer to channel
+    static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    // EFFECTS: returns the header entry describing tensor stored at offset
+    private static JSONObject describe(Tensor tensor, long offset) {
+        JSONObject json = new JSONObject();
+        json.put("rows", tensor.getRows());
+        json.put("cols", tensor.getCols());
+        json.put("dtype", tensor.getDType().name());
+        json.put("offset", offset);
+        return json;
+    }
+
+    // EFFECTS: returns the number of bytes the elements of tensor occupy in the file
+    private static long byteSize(Tensor tensor) {
+        return (long) tensor.getRows() * tensor.getCols() * tensor.getDType().getByteSize();
+    }
+
+    // EFFECTS: returns position rounded up to a multiple of ALIGNMENT
+    static long align(long position) {
+        return (position + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+}
@@ -1,11 +1,22 @@
 package persistence;
 
+import model.ActivationLayer;
+import model.DType;
+import model.DenseLayer;
+import model.Layer;
+import model.NeuralNetwork;
+import model.Tensor;
+
+import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.List;
 
 // Represents a reader that reads neural network from JSON data stored in file
 public class JsonReader {
@@ -24,6 +35,78 @@ public class JsonReader {
         return new JSONObject(jsonData);
     }
 
+    // EFFECTS: Reads a tensor ({"data": [[...], ...]}) from file, parsing the numbers straight into
+    // its storage so no more than the tensor itself is held in memory;
+    // throws IOException if the file cannot be read or does not hold a tensor
+    public Tensor readTensor() throws IOException {
+        Object value = stream();
+        if (!(value instanceof Tensor)) {
+            throw new IOException(source + " does not contain a tensor");
+        }
+        return (Tensor) value;
+    }
+
+    // EFFECTS: Reads a neural network ({"layers": [...]}) from file, parsing its parameters straight
+    // into tensor storage, with the dtype it was saved with;
+    // throws IOException if the file cannot be read or does not hold a neural network
+    public NeuralNetwork readNetwork() throws IOException {
+        Object value = stream();
+        try {
+            JSONObject json = (JSONObject) value;
+            NeuralNetwork nn = new NeuralNetwork();
+            DType dtype = DType.valueOf(json.optString("dtype", DType.FLOAT64.name()));
+            nn.setDType(dtype);
+            JSONArray layers = json.getJSONArray("layers");
+            for (int i = 0; i < layers.length(); i++) {
+                Layer layer = readLayer(layers.getJSONObject(i), dtype);
+                if (layer != null) {
+                    nn.addLayer(layer);
+                }
+            }
+            return nn;
+        } catch (ClassCastException | JSONException | IllegalArgumentException e) {
+            throw new IOException(source + " does not contain a neural network", e);
+        }
+    }
+
+    // Helper method building the layer described by json, or returning null for unknown types
+    private Layer readLayer(JSONObject json, DType dtype) {
+        String type = json.getString("type");
+        if (type.equals("DenseLayer")) {
+            Tensor weights = (Tensor) json.get("weights");
+            Tensor biases = (Tensor) json.get("biases");
+            // Like NeuralNetwork.fromJson, store parameters in the network's dtype
+            return new DenseLayer(convert(weights, dtype), convert(biases, dtype));
+        } else if (type.equals("ActivationLayer")) {
+            return ActivationLayer.fromJson(json);
+        }
+        return null;
+    }
+
+    // EFFECTS: returns tensor if it already has dtype, otherwise a copy converted to dtype
+    private static Tensor convert(Tensor tensor, DType dtype) {
+        return tensor.getDType() == dtype ? tensor : tensor.toDType(dtype);
+    }
+
+    // Helper method parsing the source file with JsonStreamParser: a first pass records the shape of
+    // every tensor without converting any numbers, and a second pass fills the preallocated tensors
+    private Object stream() throws IOException {
+        List<JsonStreamParser.TensorShape> shapes;
+        try (Reader in = open()) {
+            JsonStreamParser scan = new JsonStreamParser(in, null);
+            scan.parseDocument();
+            shapes = scan.getShapes();
+        }
+        try (Reader in = open()) {
+            return new JsonStreamParser(in, shapes).parseDocument();
+        }
+    }
+
+    // Helper method opening the source file as UTF-8 text
+    private Reader open() throws IOException {
+        return Files.newBufferedReader(Paths.get(source), StandardCharsets.UTF_8);
+    }
+
     // MODIFIES: this
     // EFFECTS: Reads source file as string and returns it
     private String readFile(String source) throws IOException {
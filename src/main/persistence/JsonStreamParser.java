@@ -0,0 +1,351 @@
+package persistence;
+
+import model.DType;
+import model.Tensor;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+// Represents a one-pass JSON parser over a character stream that reads the "data" matrix of every
+// tensor object ({"data": [[...], ...], "dtype": ...}) straight into a Tensor instead of building
+// a tree of boxed numbers. Everything else becomes JSONObjects, JSONArrays, Strings, Numbers,
+// Booleans and JSONObject.NULL as usual, and tensor objects become Tensors.
+//
+// A tensor has to be allocated before its first number is read, so the file is parsed twice:
+// first with no shapes given, which only records the shape and dtype of each tensor in the order
+// they appear, and then with those shapes, which fills the tensors.
+final class JsonStreamParser {
+    private static final int BUFFER_CHARS = 1 << 16;
+
+    private final Reader in;
+    private final List<TensorShape> shapes; // Recorded in the first pass, consumed in the second
+    private final boolean recording;
+    private final char[] buffer = new char[BUFFER_CHARS];
+    private final StringBuilder token = new StringBuilder();
+    private int length;
+    private int position;
+    private long consumed; // Characters before the buffer, for error messages
+    private int nextShape;
+
+    // EFFECTS: creates a parser over in; if shapes is null it records the tensor shapes it meets
+    // and leaves tensor objects as null, otherwise it fills tensors with the given shapes in order
+    JsonStreamParser(Reader in, List<TensorShape> shapes) {
+        this.in = in;
+        this.recording = shapes == null;
+        this.shapes = recording ? new ArrayList<>() : shapes;
+    }
+
+    // EFFECTS: returns the shapes of the tensors read so far, in order of appearance
+    List<TensorShape> getShapes() {
+        return shapes;
+    }
+
+    // EFFECTS: parses the single JSON value in the stream and returns it;
+    // throws IOException if the stream cannot be read or is not valid JSON
+    Object parseDocument() throws IOException {
+        Object value = parseValue();
+        if (skipWhitespace() != -1) {
+            throw error("Unexpected content after the JSON value");
+        }
+        return value;
+    }
+
+    // Helper method parsing the value starting at the next non-whitespace character
+    private Object parseValue() throws IOException {
+        int c = skipWhitespace();
+        switch (c) {
+            case '{':
+                return parseObject();
+            case '[':
+                return parseArray();
+            case '"':
+                return parseString();
+            case 't':
+                return parseLiteral("true", Boolean.TRUE);
+            case 'f':
+                return parseLiteral("false", Boolean.FALSE);
+            case 'n':
+                return parseLiteral("null", JSONObject.NULL);
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    return parseNumber();
+                }
+                throw error(c == -1 ? "Unexpected end of input" : "Unexpected character '" + (char) c + "'");
+        }
+    }
+
+    // Helper method parsing an object, or the tensor it describes if it has a "data" matrix
+    private Object parseObject() throws IOException {
+        expect('{');
+        JSONObject object = new JSONObject();
+        Object tensor = null;
+        if (skipWhitespace() != '}') {
+            do {
+                Object matrix = parseMember(object);
+                tensor = matrix != null ? matrix : tensor;
+            } while (consumeIf(','));
+        }
+        expect('}');
+        return tensor == null ? object : finishTensor(object, tensor);
+    }
+
+    // Helper method parsing one "key": value pair into object, except that a "data" matrix is
+    // returned instead (as a shape while recording, as a tensor otherwise); returns null for the rest
+    private Object parseMember(JSONObject object) throws IOException {
+        if (skipWhitespace() != '"') {
+            throw error("Expected an object key");
+        }
+        String key = parseString();
+        expect(':');
+        if (!key.equals("data") || skipWhitespace() != '[') {
+            object.put(key, parseValue());
+        } else if (openArray() == '[') {
+            return parseMatrix();
+        } else {
+            object.put(key, parseElements());
+        }
+        return null;
+    }
+
+    // Helper method completing a tensor object once its other keys are known: while recording,
+    // stores its shape with the dtype and returns null; otherwise returns the filled tensor
+    private Object finishTensor(JSONObject object, Object tensor) throws IOException {
+        if (!recording) {
+            return tensor;
+        }
+        TensorShape shape = (TensorShape) tensor;
+        try {
+            shape.dtype = DType.valueOf(object.optString("dtype", DType.FLOAT64.name()));
+        } catch (IllegalArgumentException e) {
+            throw error("Unknown dtype " + object.opt("dtype"));
+        }
+        shapes.add(shape);
+        return null;
+    }
+
+    // Helper method parsing an array of values
+    private JSONArray parseArray() throws IOException {
+        openArray();
+        return parseElements();
+    }
+
+    // Helper method consuming the '[' of an array and returning the next non-whitespace character
+    private int openArray() throws IOException {
+        expect('[');
+        return skipWhitespace();
+    }
+
+    // Helper method parsing the elements of an array whose '[' has been consumed
+    private JSONArray parseElements() throws IOException {
+        JSONArray array = new JSONArray();
+        if (skipWhitespace() != ']') {
+            do {
+                array.put(parseValue());
+            } while (consumeIf(','));
+        }
+        expect(']');
+        return array;
+    }
+
+    // Helper method parsing a matrix of numbers whose outer '[' has been consumed: while recording,
+    // returns its shape; otherwise fills and returns the next tensor
+    private Object parseMatrix() throws IOException {
+        TensorShape shape = recording ? new TensorShape() : nextShape();
+        Tensor tensor = recording ? null : new Tensor(shape.rows, shape.cols, shape.dtype);
+        int row = 0;
+        do {
+            expect('[');
+            int col = 0;
+            if (skipWhitespace() != ']') {
+                do {
+                    double value = parseMatrixNumber();
+                    if (!recording && col < shape.cols) {
+                        tensor.set(row, col, value);
+                    }
+                    col++;
+                } while (consumeIf(','));
+            }
+            expect(']');
+            checkRowLength(shape, row, col);
+            row++;
+        } while (consumeIf(','));
+        expect(']');
+        shape.rows = row;
+        return recording ? shape : tensor;
+    }
+
+    // Helper method returning the next recorded shape; throws IOException if there is none
+    private TensorShape nextShape() throws IOException {
+        if (nextShape >= shapes.size()) {
+            throw error("More tensors than in the first pass");
+        }
+        return shapes.get(nextShape++);
+    }
+
+    // Helper method checking that every row of a matrix has the same, positive length
+    private void checkRowLength(TensorShape shape, int row, int cols) throws IOException {
+        if (row == 0 && recording) {
+            shape.cols = cols;
+        }
+        if (cols == 0 || cols != shape.cols || (!recording && row >= shape.rows)) {
+            throw error("All rows must have the same, positive number of columns");
+        }
+    }
+
+    // Helper method reading one element of a matrix; the first pass only skips over it
+    private double parseMatrixNumber() throws IOException {
+        int c = skipWhitespace();
+        if (c != '-' && (c < '0' || c > '9')) {
+            throw error("Tensor data must be numeric");
+        }
+        readNumberToken();
+        return recording ? 0.0 : parseDouble();
+    }
+
+    // Helper method parsing a number outside a matrix
+    private Number parseNumber() throws IOException {
+        readNumberToken();
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (c == '.' || c == 'e' || c == 'E') {
+                return parseDouble();
+            }
+        }
+        try {
+            long value = Long.parseLong(token.toString());
+            return value == (int) value ? Integer.valueOf((int) value) : Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            return parseDouble();
+        }
+    }
+
+    // Helper method collecting the characters of a number into token
+    private void readNumberToken() throws IOException {
+        token.setLength(0);
+        int c = peek();
+        while (c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E' || (c >= '0' && c <= '9')) {
+            token.append((char) c);
+            position++;
+            c = peek();
+        }
+    }
+
+    // Helper method converting token to a double; throws IOException if it is not a number
+    private double parseDouble() throws IOException {
+        try {
+            return Double.parseDouble(token.toString());
+        } catch (NumberFormatException e) {
+            throw error("Invalid number '" + token + "'");
+        }
+    }
+
+    // Helper method parsing a string literal, including its escape sequences
+    private String parseString() throws IOException {
+        expect('"');
+        token.setLength(0);
+        int c = next();
+        while (c != '"') {
+            if (c == -1) {
+                throw error("Unterminated string");
+            }
+            token.append(c == '\\' ? parseEscape() : (char) c);
+            c = next();
+        }
+        return token.toString();
+    }
+
+    // Helper method decoding the escape sequence after a backslash
+    private char parseEscape() throws IOException {
+        int c = next();
+        int simple = "\"\\/bfnrt".indexOf(c);
+        if (simple >= 0) {
+            return "\"\\/\b\f\n\r\t".charAt(simple);
+        }
+        if (c != 'u') {
+            throw error("Invalid escape sequence");
+        }
+        int code = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(next(), 16);
+            if (digit < 0) {
+                throw error("Invalid unicode escape");
+            }
+            code = code * 16 + digit;
+        }
+        return (char) code;
+    }
+
+    // Helper method matching one of the literals true, false and null
+    private Object parseLiteral(String literal, Object value) throws IOException {
+        for (int i = 0; i < literal.length(); i++) {
+            if (next() != literal.charAt(i)) {
+                throw error("Invalid literal, expected " + literal);
+            }
+        }
+        return value;
+    }
+
+    // Helper method consuming c after optional whitespace; throws IOException if it is not there
+    private void expect(char c) throws IOException {
+        if (skipWhitespace() != c) {
+            throw error("Expected '" + c + "'");
+        }
+        position++;
+    }
+
+    // Helper method consuming c after optional whitespace if it is there
+    private boolean consumeIf(char c) throws IOException {
+        if (skipWhitespace() == c) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    // Helper method skipping whitespace and returning the next character without consuming it,
+    // or -1 at the end of the stream
+    private int skipWhitespace() throws IOException {
+        int c = peek();
+        while (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+            position++;
+            c = peek();
+        }
+        return c;
+    }
+
+    // Helper method returning and consuming the next character, or -1 at the end of the stream
+    private int next() throws IOException {
+        int c = peek();
+        if (c != -1) {
+            position++;
+        }
+        return c;
+    }
+
+    // Helper method returning the next character without consuming it, or -1 at the end of the stream
+    private int peek() throws IOException {
+        if (position == length) {
+            consumed += length;
+            position = 0;
+            length = Math.max(0, in.read(buffer));
+        }
+        return position < length ? buffer[position] : -1;
+    }
+
+    // EFFECTS: returns an exception describing a syntax error at the current position
+    private IOException error(String message) {
+        return new IOException(message + " at character " + (consumed + position));
+    }
+
+    // Represents the shape and dtype of a tensor found in the first pass
+    static final class TensorShape {
+        int rows;
+        int cols;
+        DType dtype;
+    }
+}
@@ -2,12 +2,21 @@
 
 package persistence;
 
+import model.DType;
+import model.DenseLayer;
+import model.Layer;
+import model.NeuralNetwork;
+import model.Tensor;
+
+import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.*;
 
 // Represents a reader that reads neural network from JSON data on file
 public class JsonWriter {
+    private static final String INDENT = "    ";
+
     private PrintWriter writer;
     private String destination;
 
@@ -23,10 +32,20 @@ public class JsonWriter {
     }
 
     // MODIFIES: nn
-    // EFFECTS: Writes JSON representation of a Writable object to file
+    // EFFECTS: Writes JSON representation of a Writable object to file; tensors and neural networks
+    // are streamed number by number instead of being built as a JSONObject first;
+    // throws JSONException, before writing anything, if a tensor holds a NaN or infinite value
     public void write(Writable writable) {
-        JSONObject json = writable.toJson();
-        saveToFile(json.toString(4)); // Indent with 4 spaces
+        if (writable instanceof Tensor) {
+            checkFinite((Tensor) writable);
+            writeTensor((Tensor) writable, "");
+        } else if (writable instanceof NeuralNetwork) {
+            checkFinite((NeuralNetwork) writable);
+            writeNetwork((NeuralNetwork) writable);
+        } else {
+            JSONObject json = writable.toJson();
+            saveToFile(json.toString(4)); // Indent with 4 spaces
+        }
     }
 
     // EFFECTS: Closes the writer
@@ -38,4 +57,87 @@ public class JsonWriter {
     private void saveToFile(String json) {
         writer.print(json);
     }
+
+    // EFFECTS: throws JSONException if a parameter of nn is NaN or infinite
+    private static void checkFinite(NeuralNetwork nn) {
+        for (Layer layer : nn.getLayers()) {
+            if (layer instanceof DenseLayer) {
+                checkFinite(((DenseLayer) layer).getWeights());
+                checkFinite(((DenseLayer) layer).getBiases());
+            }
+        }
+    }
+
+    // EFFECTS: throws JSONException if tensor holds a NaN or infinite value, as org.json does;
+    // checked up front so that a failed write leaves no partial JSON in the file
+    private static void checkFinite(Tensor tensor) {
+        tensor.forEach((i, j, value) -> {
+            if (!Double.isFinite(value)) {
+                throw new JSONException("JSON does not allow non-finite numbers.");
+            }
+        });
+    }
+
+    // EFFECTS: Writes nn in the format of NeuralNetwork.toJson, streaming the parameters of dense layers
+    private void writeNetwork(NeuralNetwork nn) {
+        writer.print("{\n" + INDENT + "\"layers\": [");
+        String separator = "\n";
+        for (Layer layer : nn.getLayers()) {
+            writer.print(separator + INDENT + INDENT);
+            if (layer instanceof DenseLayer) {
+                writeDenseLayer((DenseLayer) layer, INDENT + INDENT);
+            } else {
+                writer.print(layer.toJson().toString());
+            }
+            separator = ",\n";
+        }
+        writer.print("\n" + INDENT + "]");
+        if (nn.getDType() != DType.FLOAT64) {
+            writer.print(",\n" + INDENT + "\"dtype\": " + JSONObject.quote(nn.getDType().name()));
+        }
+        writer.print("\n}");
+    }
+
+    // EFFECTS: Writes layer in the format of DenseLayer.toJson, with its opening brace at indent
+    private void writeDenseLayer(DenseLayer layer, String indent) {
+        String inner = indent + INDENT;
+        writer.print("{\n" + inner + "\"type\": \"DenseLayer\",\n" + inner + "\"weights\": ");
+        writeTensor(layer.getWeights(), inner);
+        writer.print(",\n" + inner + "\"biases\": ");
+        writeTensor(layer.getBiases(), inner);
+        writer.print("\n" + indent + "}");
+    }
+
+    // EFFECTS: Writes tensor in the format of Tensor.toJson, one row per line, with its opening
+    // brace at indent; FLOAT32 values are written as the shortest decimal that reads back exactly
+    private void writeTensor(Tensor tensor, String indent) {
+        String inner = indent + INDENT;
+        writer.print("{\n" + inner + "\"data\": [");
+        for (int i = 0; i < tensor.getRows(); i++) {
+            writer.print(i == 0 ? "\n" : ",\n");
+            writer.print(inner + INDENT + "[");
+            for (int j = 0; j < tensor.getCols(); j++) {
+                if (j > 0) {
+                    writer.print(", ");
+                }
+                writeNumber(tensor.get(i, j), tensor.getDType());
+            }
+            writer.print("]");
+        }
+        writer.print("\n" + inner + "]");
+        if (tensor.getDType() != DType.FLOAT64) {
+            writer.print(",\n" + inner + "\"dtype\": " + JSONObject.quote(tensor.getDType().name()));
+        }
+        writer.print("\n" + indent + "}");
+    }
+
+    // REQUIRES: value is finite
+    // EFFECTS: Writes value as a JSON number
+    private void writeNumber(double value, DType dtype) {
+        if (dtype == DType.FLOAT64) {
+            writer.print(Double.toString(value));
+        } else {
+            writer.print(Float.toString((float) value));
+        }
+    }
 }
@@ -0,0 +1,175 @@
+package persistence;
+
+import model.DType;
+import model.Tensor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Reads and writes the NumPy .npy format (https://numpy.org/doc/stable/reference/generated/numpy.lib.format.html),
+// shared by the .npy and .npz readers and writers: the MAGIC string, a major and minor version, the
+// header length (2 bytes in version 1, 4 bytes after), and a header holding a Python dict literal
+// such as {'descr': '<f8', 'fortran_order': False, 'shape': (3, 4), }, padded with spaces and a
+// newline so that the elements start on an ALIGNMENT-byte boundary. Only C-order float32 and
+// float64 arrays of up to two dimensions are supported; vectors become 1 x n tensors and scalars
+// 1 x 1 tensors.
+final class NpyFormat {
+    static final byte[] MAGIC = {(byte) 0x93, 'N', 'U', 'M', 'P', 'Y'};
+    static final int ALIGNMENT = 64;
+    static final int CHUNK_BYTES = 1 << 20;
+
+    private static final int VERSION_BYTES = 2;
+    private static final Pattern DESCR = Pattern.compile("['\"]descr['\"]\\s*:\\s*['\"]([^'\"]*)['\"]");
+    private static final Pattern FORTRAN_ORDER = Pattern.compile("['\"]fortran_order['\"]\\s*:\\s*(True|False)");
+    private static final Pattern SHAPE = Pattern.compile("['\"]shape['\"]\\s*:\\s*\\(([^)]*)\\)");
+
+    private NpyFormat() {
+    }
+
+    // Represents the layout of an array as described by its header
+    static final class Header {
+        int rows;
+        int cols;
+        DType dtype;
+        ByteOrder order;
+        long dataOffset; // Bytes from the start of the array to its first element
+
+        // EFFECTS: returns the number of bytes the elements occupy
+        long byteSize() {
+            return (long) rows * cols * dtype.getByteSize();
+        }
+    }
+
+    // EFFECTS: reads the preamble and header of an array from channel, leaving it at the first
+    // element, and returns the layout; source names the array in error messages;
+    // throws IOException if the header is truncated, malformed or describes an unsupported array
+    static Header readHeader(ReadableByteChannel channel, String source) throws IOException {
+        ByteBuffer preamble = readFully(channel, ByteBuffer.allocate(MAGIC.length + VERSION_BYTES), source);
+        byte[] magic = Arrays.copyOf(preamble.array(), MAGIC.length);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException(source + " is not a NumPy array");
+        }
+        int major = preamble.get(MAGIC.length);
+        if (major < 1 || major > 3) {
+            throw new IOException("Unsupported .npy version " + major + " in " + source);
+        }
+        int lengthBytes = major == 1 ? Short.BYTES : Integer.BYTES;
+        ByteBuffer length = readFully(channel, ByteBuffer.allocate(lengthBytes), source).order(ByteOrder.LITTLE_ENDIAN);
+        long headerLength = major == 1 ? Short.toUnsignedInt(length.getShort())
+                : Integer.toUnsignedLong(length.getInt());
+        if (headerLength > Integer.MAX_VALUE) {
+            throw new IOException("Header too long in " + source);
+        }
+        ByteBuffer text = readFully(channel, ByteBuffer.allocate((int) headerLength), source);
+        // Versions 1 and 2 store the header in latin-1, version 3 in UTF-8
+        String dict = new String(text.array(), major == 3 ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1);
+        Header header = parseHeader(dict, source);
+        header.dataOffset = MAGIC.length + VERSION_BYTES + lengthBytes + headerLength;
+        return header;
+    }
+
+    // Helper method parsing the dict literal of a header
+    private static Header parseHeader(String dict, String source) throws IOException {
+        Matcher descr = DESCR.matcher(dict);
+        Matcher fortranOrder = FORTRAN_ORDER.matcher(dict);
+        Matcher shape = SHAPE.matcher(dict);
+        if (!descr.find() || !fortranOrder.find() || !shape.find()) {
+            throw new IOException("Malformed .npy header in " + source + ": " + dict.trim());
+        }
+        if (fortranOrder.group(1).equals("True")) {
+            throw new IOException("Fortran-order arrays are not supported: " + source);
+        }
+        Header header = new Header();
+        parseDescr(header, descr.group(1), source);
+        parseShape(header, shape.group(1), source);
+        return header;
+    }
+
+    // Helper method setting the dtype and byte order of header from a descr such as '<f4'
+    private static void parseDescr(Header header, String descr, String source) throws IOException {
+        if (descr.equals("<f8") || descr.equals(">f8") || descr.equals("=f8")) {
+            header.dtype = DType.FLOAT64;
+        } else if (descr.equals("<f4") || descr.equals(">f4") || descr.equals("=f4")) {
+            header.dtype = DType.FLOAT32;
+        } else {
+            throw new IOException("Unsupported dtype '" + descr + "' in " + source + "; expected float32 or float64");
+        }
+        // '=' means native order, which NumPy never writes for multi-byte types; read it as little-endian
+        header.order = descr.charAt(0) == '>' ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+    }
+
+    // Helper method setting the dimensions of header from a shape tuple such as "3, 4" or "5,"
+    private static void parseShape(Header header, String shape, String source) throws IOException {
+        String[] parts = shape.trim().isEmpty() ? new String[0] : shape.split(",");
+        int ndim = parts.length > 0 && parts[parts.length - 1].trim().isEmpty() ? parts.length - 1 : parts.length;
+        if (ndim > 2) {
+            throw new IOException("Only arrays of up to two dimensions can become tensors: " + source);
+        }
+        long[] dims = {1, 1};
+        try {
+            for (int i = 0; i < ndim; i++) {
+                dims[i + 2 - ndim] = Long.parseLong(parts[i].trim());
+            }
+        } catch (NumberFormatException e) {
+            throw new IOException("Malformed shape (" + shape + ") in " + source, e);
+        }
+        if (dims[0] <= 0 || dims[1] <= 0 || dims[0] > Integer.MAX_VALUE || dims[1] > Integer.MAX_VALUE) {
+            throw new IOException("Unsupported shape (" + shape + ") in " + source);
+        }
+        header.rows = (int) dims[0];
+        header.cols = (int) dims[1];
+    }
+
+    // EFFECTS: returns the tensor described by header whose elements are the bytes of data,
+    // without copying them; throws IOException if the tensor is too large for a single buffer
+    static Tensor wrap(ByteBuffer data, Header header, String source) throws IOException {
+        try {
+            return Tensor.wrap(data.order(header.order), header.rows, header.cols, header.dtype);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Cannot load " + source + ": " + e.getMessage(), e);
+        }
+    }
+
+    // EFFECTS: returns the version 1.0 preamble and header describing tensor, padded so that the
+    // elements that follow start on an ALIGNMENT-byte boundary
+    static byte[] header(Tensor tensor) {
+        String descr = tensor.getDType() == DType.FLOAT32 ? "<f4" : "<f8";
+        StringBuilder dict = new StringBuilder("{'descr': '" + descr + "', 'fortran_order': False, 'shape': ("
+                + tensor.getRows() + ", " + tensor.getCols() + "), }");
+        int prefix = MAGIC.length + VERSION_BYTES + Short.BYTES;
+        while ((prefix + dict.length() + 1) % ALIGNMENT != 0) {
+            dict.append(' ');
+        }
+        dict.append('\n');
+        ByteBuffer bytes = ByteBuffer.allocate(prefix + dict.length()).order(ByteOrder.LITTLE_ENDIAN);
+        bytes.put(MAGIC).put((byte) 1).put((byte) 0).putShort((short) dict.length());
+        bytes.put(dict.toString().getBytes(StandardCharsets.ISO_8859_1));
+        return bytes.array();
+    }
+
+    // EFFECTS: writes tensor to channel as a complete .npy array, streaming the elements through a
+    // direct chunk rather than copying the tensor
+    static void write(WritableByteChannel channel, Tensor tensor) throws IOException {
+        CheckpointWriter.writeFully(channel, ByteBuffer.wrap(header(tensor)));
+        ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        CheckpointWriter.writeElements(channel, tensor, chunk);
+    }
+
+    // EFFECTS: fills the remaining space of buffer from channel and returns it flipped;
+    // throws IOException if the channel ends first
+    static ByteBuffer readFully(ReadableByteChannel channel, ByteBuffer buffer, String source) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Unexpected end of " + source);
+            }
+        }
+        return buffer.flip();
+    }
+}
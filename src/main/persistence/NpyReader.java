@@ -0,0 +1,42 @@
+package persistence;
+
+import model.Tensor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// Represents a reader that loads a NumPy .npy file (float32 or float64, C order, up to two
+// dimensions) as a tensor. Only the header is read; the elements are memory-mapped from the file,
+// so loading takes about as long as opening it and the data is paged in on first use. As with
+// CheckpointReader, the mapping is read-only: the file only needs to be readable, and a tensor
+// that will be changed must first be copied with toHeap.
+public class NpyReader {
+    private final String source;
+
+    // EFFECTS: Constructs a reader to read from source file
+    public NpyReader(String source) {
+        this.source = source;
+    }
+
+    // EFFECTS: Reads the array stored in the source file as a read-only, off-heap tensor mapped
+    // from the file; vectors become 1 x n tensors and scalars 1 x 1 tensors;
+    // throws IOException if the file cannot be read, is not a valid .npy file, or holds an array
+    // that cannot be a tensor
+    public Tensor read() throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(source), StandardOpenOption.READ)) {
+            NpyFormat.Header header = NpyFormat.readHeader(channel, source);
+            if (header.dataOffset + header.byteSize() > channel.size()) {
+                throw new IOException("Truncated array data in " + source);
+            }
+            if (header.byteSize() > Integer.MAX_VALUE) {
+                throw new IOException("Cannot load " + source + ": tensors are limited to "
+                        + Integer.MAX_VALUE + " bytes");
+            }
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, header.dataOffset, header.byteSize());
+            return NpyFormat.wrap(data, header, source);
+        }
+    }
+}
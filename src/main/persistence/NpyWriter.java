@@ -0,0 +1,28 @@
+package persistence;
+
+import model.Tensor;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// Represents a writer that saves a tensor as a NumPy .npy file, readable with numpy.load, holding
+// a little-endian float32 or float64 array of shape (rows, cols)
+public class NpyWriter {
+    private final String destination;
+
+    // EFFECTS: Constructs a writer to write to destination file
+    public NpyWriter(String destination) {
+        this.destination = destination;
+    }
+
+    // EFFECTS: Writes tensor to the destination file, replacing any existing file;
+    // throws IOException if the file cannot be written
+    public void write(Tensor tensor) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(destination), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            NpyFormat.write(channel, tensor);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package persistence;
+
+import model.Tensor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+// Represents a reader that loads the arrays of a NumPy .npz archive (as written by numpy.savez or
+// numpy.savez_compressed) as tensors. Entries may be stored or deflated, so they cannot be mapped:
+// each array is decompressed straight into the off-heap storage of its tensor, with no
+// intermediate copy.
+public class NpzReader {
+    private final String source;
+
+    // EFFECTS: Constructs a reader to read from source file
+    public NpzReader(String source) {
+        this.source = source;
+    }
+
+    // EFFECTS: Reads every .npy entry of the source archive, in archive order, keyed by its name
+    // without the .npy suffix (e.g. "arr_0" for the first unnamed array passed to numpy.savez);
+    // throws IOException if the file cannot be read, is not a zip archive, or holds an array that
+    // cannot be a tensor
+    public Map<String, Tensor> read() throws IOException {
+        Map<String, Tensor> arrays = new LinkedHashMap<>();
+        try (ZipFile zip = new ZipFile(source)) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (entry.isDirectory() || !entry.getName().endsWith(".npy")) {
+                    continue;
+                }
+                String name = entry.getName().substring(0, entry.getName().length() - ".npy".length());
+                try (InputStream in = zip.getInputStream(entry)) {
+                    arrays.put(name, readArray(Channels.newChannel(in), source + "!" + entry.getName()));
+                }
+            }
+        }
+        return arrays;
+    }
+
+    // Helper method reading one .npy array from channel into a new direct buffer
+    private static Tensor readArray(ReadableByteChannel channel, String name) throws IOException {
+        NpyFormat.Header header = NpyFormat.readHeader(channel, name);
+        if (header.byteSize() > Integer.MAX_VALUE) {
+            throw new IOException("Cannot load " + name + ": tensors are limited to " + Integer.MAX_VALUE + " bytes");
+        }
+        ByteBuffer data = ByteBuffer.allocateDirect((int) header.byteSize());
+        return NpyFormat.wrap(NpyFormat.readFully(channel, data, name), header, name);
+    }
+}
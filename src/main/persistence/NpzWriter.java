@@ -0,0 +1,79 @@
+package persistence;
+
+import model.Tensor;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// Represents a writer that saves named tensors as a NumPy .npz archive, readable with numpy.load,
+// with one .npy entry per tensor. Entries are deflated like numpy.savez_compressed, or stored like
+// numpy.savez, which is larger but faster to write and read.
+public class NpzWriter {
+    private final String destination;
+    private final boolean compressed;
+
+    // EFFECTS: Constructs a writer to write to destination file, deflating entries if compressed
+    public NpzWriter(String destination, boolean compressed) {
+        this.destination = destination;
+        this.compressed = compressed;
+    }
+
+    // EFFECTS: Writes each tensor of arrays as the entry "<name>.npy" of a new archive at the
+    // destination, in iteration order, replacing any existing file;
+    // throws IOException if the file cannot be written
+    public void write(Map<String, Tensor> arrays) throws IOException {
+        try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(Paths.get(destination)), NpyFormat.CHUNK_BYTES))) {
+            WritableByteChannel channel = Channels.newChannel(zip);
+            for (Map.Entry<String, Tensor> array : arrays.entrySet()) {
+                ZipEntry entry = new ZipEntry(array.getKey() + ".npy");
+                if (compressed) {
+                    entry.setMethod(ZipEntry.DEFLATED);
+                } else {
+                    describeStored(entry, array.getValue());
+                }
+                zip.putNextEntry(entry);
+                NpyFormat.write(channel, array.getValue());
+                zip.closeEntry();
+            }
+        }
+    }
+
+    // Helper method setting the size and checksum a stored entry needs before its data is written,
+    // by streaming tensor through a CRC first
+    private static void describeStored(ZipEntry entry, Tensor tensor) throws IOException {
+        CRC32 crc = new CRC32();
+        NpyFormat.write(new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) {
+                int count = src.remaining();
+                crc.update(src);
+                return count;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        }, tensor);
+        long size = NpyFormat.header(tensor).length
+                + (long) tensor.getRows() * tensor.getCols() * tensor.getDType().getByteSize();
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(size);
+        entry.setCompressedSize(size);
+        entry.setCrc(crc.getValue());
+    }
+}
@@ -0,0 +1,170 @@
+package server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import model.EventLog;
+import model.InferenceSession;
+import model.Tensor;
+
+// Represents a queue that gathers concurrent predictions into batches for an InferenceSession.
+// A single worker thread takes the oldest waiting request, then keeps adding requests until the
+// batch holds maxBatchRows rows or maxWaitMicros have passed since it started, and runs the whole
+// batch through one forward pass; each caller gets back its own rows of the output. A request
+// that does not fit, or has a different number of columns than the batch, waits for the next one.
+public final class DynamicBatcher implements AutoCloseable {
+    private final InferenceSession session;
+    private final int maxBatchRows;
+    private final long maxWaitNanos;
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final Histogram batchRows = new Histogram();
+    private final Thread worker;
+    private volatile boolean closed;
+    private Request carried; // Taken from the queue but left for the next batch; worker thread only
+
+    // EFFECTS: starts a batcher running batches of up to maxBatchRows rows on session, waiting at
+    // most maxWaitMicros for a batch to fill;
+    // throws IllegalArgumentException if session is null, maxBatchRows <= 0 or maxWaitMicros < 0
+    public DynamicBatcher(InferenceSession session, int maxBatchRows, long maxWaitMicros) {
+        if (session == null || maxBatchRows <= 0 || maxWaitMicros < 0) {
+            EventLog.getInstance().warn(() -> "Invalid batcher settings: maxBatchRows " + maxBatchRows
+                    + ", maxWaitMicros " + maxWaitMicros);
+            throw new IllegalArgumentException("Batcher needs a session, a positive batch size and a wait >= 0");
+        }
+        this.session = session;
+        this.maxBatchRows = maxBatchRows;
+        this.maxWaitNanos = TimeUnit.MICROSECONDS.toNanos(maxWaitMicros);
+        this.worker = new Thread(this::run, "inference-batcher");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // EFFECTS: returns the output for input once the batch it joined has run; the calling thread
+    // blocks meanwhile;
+    // throws IllegalArgumentException if input is null or the batch rejects it, IllegalStateException
+    // if the batcher is closed, and InterruptedException if interrupted while waiting
+    public Tensor predict(Tensor input) throws InterruptedException {
+        if (input == null) {
+            EventLog.getInstance().warn(() -> "Attempted to predict with null input tensor.");
+            throw new IllegalArgumentException("Input cannot be null");
+        }
+        if (closed) {
+            throw new IllegalStateException("Batcher is closed");
+        }
+        Request request = new Request(input);
+        queue.add(request);
+        if (closed && queue.remove(request)) { // Closed before it could be drained
+            throw new IllegalStateException("Batcher is closed");
+        }
+        try {
+            return request.result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // EFFECTS: returns the histogram of the number of rows in each batch run
+    public Histogram getBatchRows() {
+        return batchRows;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops the worker; requests still waiting fail with IllegalStateException. If the
+    // calling thread is interrupted meanwhile, returns without waiting for the worker to finish its
+    // batch and keeps the thread's interrupt status set
+    @Override
+    public void close() {
+        closed = true;
+        worker.interrupt();
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        IllegalStateException failure = new IllegalStateException("Batcher is closed");
+        for (Request request = queue.poll(); request != null; request = queue.poll()) {
+            request.result.completeExceptionally(failure);
+        }
+    }
+
+    // Helper method run by the worker thread until the batcher is closed; a request still in hand
+    // when it stops, because close() interrupted a wait or a batch finished after close() began,
+    // fails with IllegalStateException
+    private void run() {
+        List<Request> batch = new ArrayList<>();
+        try {
+            while (!closed) {
+                collect(batch);
+                runBatch(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // Closed while waiting for requests
+        } finally {
+            IllegalStateException failure = new IllegalStateException("Batcher is closed");
+            batch.forEach(request -> request.result.completeExceptionally(failure));
+            if (carried != null) {
+                carried.result.completeExceptionally(failure);
+            }
+        }
+    }
+
+    // Helper method waiting for the first request and adding the others that fit until the batch
+    // is full or its wait time is up
+    private void collect(List<Request> batch) throws InterruptedException {
+        Request first = carried != null ? carried : queue.take();
+        carried = null;
+        batch.add(first);
+        int rows = first.input.getRows();
+        long deadline = System.nanoTime() + maxWaitNanos;
+        while (rows < maxBatchRows) {
+            Request next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            if (rows + next.input.getRows() > maxBatchRows || next.input.getCols() != first.input.getCols()) {
+                carried = next;
+                return;
+            }
+            batch.add(next);
+            rows += next.input.getRows();
+        }
+    }
+
+    // Helper method running one batch and handing each caller its rows of the output
+    private void runBatch(List<Request> batch) {
+        List<Tensor> inputs = new ArrayList<>(batch.size());
+        int rows = 0;
+        for (Request request : batch) {
+            inputs.add(request.input);
+            rows += request.input.getRows();
+        }
+        try {
+            List<Tensor> outputs = session.predictAll(inputs);
+            batchRows.record(rows);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(outputs.get(i));
+            }
+        } catch (RuntimeException e) {
+            batch.forEach(request -> request.result.completeExceptionally(e));
+        }
+    }
+
+    // Represents one caller's input and the output it is waiting for
+    private static final class Request {
+        final Tensor input;
+        final CompletableFuture<Tensor> result = new CompletableFuture<>();
+
+        Request(Tensor input) {
+            this.input = input;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package server;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+// Represents a histogram of non-negative values that any number of threads may record into at once.
+// Values below 128 are counted exactly; larger values share a bucket with those within 1/64 of
+// them (log-linear buckets), so percentiles are exact for small values such as batch sizes and
+// within about 1.6% for large ones such as latencies in microseconds.
+public final class Histogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int EXACT_LIMIT = 2 * SUB_BUCKETS; // Values below this get their own bucket
+    private static final int EXACT_BITS = SUB_BUCKET_BITS + 1;
+    private static final int BUCKETS = EXACT_LIMIT + (Long.SIZE - 1 - EXACT_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    // MODIFIES: this
+    // EFFECTS: counts value once;
+    // throws IllegalArgumentException if value < 0
+    public void record(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Histogram values cannot be negative");
+        }
+        counts.incrementAndGet(bucket(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    // EFFECTS: returns the number of recorded values
+    public long getCount() {
+        return count.get();
+    }
+
+    // EFFECTS: returns the mean of the recorded values, or 0 if there are none
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0.0 : (double) sum.get() / n;
+    }
+
+    // EFFECTS: returns the largest recorded value, or 0 if there are none
+    public long getMax() {
+        return max.get();
+    }
+
+    // EFFECTS: returns the smallest value v such that a fraction q of the recorded values are at
+    // most v, rounded up to the top of its bucket and never above the largest recorded value;
+    // returns 0 if there are no values;
+    // throws IllegalArgumentException if q is not in [0, 1]
+    public long percentile(double q) {
+        if (!(q >= 0.0 && q <= 1.0)) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 1");
+        }
+        long rank = Math.max(1, (long) Math.ceil(q * count.get()));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts.get(b);
+            if (seen >= rank) {
+                return Math.min(lowestValue(b) + bucketWidth(b) - 1, max.get());
+            }
+        }
+        return max.get();
+    }
+
+    // EFFECTS: returns the count, mean, p50, p90, p99 and max of the recorded values, and the
+    // non-empty buckets as [lowest value, count] pairs in increasing order
+    public JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        json.put("count", getCount());
+        json.put("mean", getMean());
+        json.put("p50", percentile(0.50));
+        json.put("p90", percentile(0.90));
+        json.put("p99", percentile(0.99));
+        json.put("max", getMax());
+        JSONArray buckets = new JSONArray();
+        for (int b = 0; b < BUCKETS; b++) {
+            long n = counts.get(b);
+            if (n > 0) {
+                buckets.put(new JSONArray().put(lowestValue(b)).put(n));
+            }
+        }
+        json.put("buckets", buckets);
+        return json;
+    }
+
+    // EFFECTS: returns the index of the bucket holding value
+    static int bucket(long value) {
+        if (value < EXACT_LIMIT) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return EXACT_LIMIT + (exponent - EXACT_BITS) * SUB_BUCKETS + subBucket;
+    }
+
+    // EFFECTS: returns the smallest value counted in bucket b
+    static long lowestValue(int b) {
+        if (b < EXACT_LIMIT) {
+            return b;
+        }
+        int shift = (b - EXACT_LIMIT) / SUB_BUCKETS + EXACT_BITS - SUB_BUCKET_BITS;
+        return (long) (SUB_BUCKETS + (b - EXACT_LIMIT) % SUB_BUCKETS) << shift;
+    }
+
+    // EFFECTS: returns the number of distinct values counted in bucket b
+    private static long bucketWidth(int b) {
+        return b < EXACT_LIMIT ? 1 : 1L << ((b - EXACT_LIMIT) / SUB_BUCKETS + EXACT_BITS - SUB_BUCKET_BITS);
+    }
+}
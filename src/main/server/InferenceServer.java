@@ -0,0 +1,187 @@
+package server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import model.EventLog;
+import model.InferenceSession;
+import model.NeuralNetwork;
+import model.Tensor;
+import persistence.JsonReader;
+
+// Represents a local HTTP server for predictions that batches concurrent requests together.
+// POST /predict takes a tensor in the {"data": [[...]]} JSON format, one row per sample, and
+// answers with the output tensor in the same format; requests arriving together run through one
+// forward pass (see DynamicBatcher). GET /stats reports the request latency in microseconds and
+// the number of rows per batch, each with p50, p90, p99 and a histogram.
+public final class InferenceServer implements AutoCloseable {
+    private final HttpServer http;
+    private final ExecutorService handlers;
+    private final DynamicBatcher batcher;
+    private final InferenceSession session;
+    private final Histogram latencyMicros = new Histogram();
+
+    // EFFECTS: creates a server on address for session that batches up to maxBatchRows rows and
+    // waits at most maxWaitMicros for a batch to fill; requests are handled by 2 * maxBatchRows
+    // threads so that one batch can fill while the previous one runs. Call start() to serve.
+    // throws IllegalArgumentException if session or address is null, maxBatchRows <= 0 or
+    // maxWaitMicros < 0, and IOException if the address cannot be bound
+    public InferenceServer(InferenceSession session, InetSocketAddress address, int maxBatchRows,
+            long maxWaitMicros) throws IOException {
+        if (session == null || address == null || maxBatchRows <= 0 || maxWaitMicros < 0) {
+            EventLog.getInstance().warn(() -> "Invalid inference server settings: address " + address
+                    + ", maxBatchRows " + maxBatchRows + ", maxWaitMicros " + maxWaitMicros);
+            throw new IllegalArgumentException("Server needs a session, an address, a positive batch size "
+                    + "and a wait >= 0");
+        }
+        this.session = session;
+        this.http = HttpServer.create(address, 0);
+        this.batcher = new DynamicBatcher(session, maxBatchRows, maxWaitMicros);
+        AtomicInteger threads = new AtomicInteger();
+        this.handlers = Executors.newFixedThreadPool(2 * maxBatchRows, task -> {
+            Thread thread = new Thread(task, "inference-http-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        http.setExecutor(handlers);
+        http.createContext("/predict", this::handlePredict);
+        http.createContext("/stats", this::handleStats);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: starts accepting requests
+    public void start() {
+        http.start();
+        EventLog.getInstance().info(() -> "Inference server listening on port " + getPort());
+    }
+
+    // EFFECTS: returns the port the server is bound to, e.g. the one picked for port 0
+    public int getPort() {
+        return http.getAddress().getPort();
+    }
+
+    // EFFECTS: returns the histogram of request latencies in microseconds, from the request being
+    // received to its response being ready
+    public Histogram getLatencyMicros() {
+        return latencyMicros;
+    }
+
+    // EFFECTS: returns the histogram of the number of rows in each batch run
+    public Histogram getBatchRows() {
+        return batcher.getBatchRows();
+    }
+
+    // EFFECTS: returns the request count, latency and batch size statistics as JSON
+    public JSONObject statsJson() {
+        JSONObject json = new JSONObject();
+        json.put("requests", latencyMicros.getCount());
+        json.put("batches", batcher.getBatchRows().getCount());
+        json.put("latencyMicros", latencyMicros.toJson());
+        json.put("batchRows", batcher.getBatchRows().toJson());
+        return json;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops accepting requests, fails those still waiting for a batch and releases the
+    // threads; if the calling thread is interrupted meanwhile, stops waiting for the handlers and
+    // keeps the thread's interrupt status set
+    @Override
+    public void close() {
+        http.stop(0);
+        batcher.close();
+        handlers.shutdown();
+        try {
+            handlers.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        EventLog.getInstance().info(() -> "Inference server stopped");
+    }
+
+    // Helper method answering POST /predict
+    private void handlePredict(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        try {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                respond(exchange, 405, error("Use POST"));
+                return;
+            }
+            Tensor output;
+            try {
+                output = batcher.predict(readTensor(exchange.getRequestBody()));
+            } catch (JSONException | IllegalArgumentException e) {
+                respond(exchange, 400, error(e.getMessage()));
+                return;
+            } catch (InterruptedException | IllegalStateException e) {
+                respond(exchange, 503, error("Server is shutting down"));
+                return;
+            }
+            String body = output.toJson().toString();
+            latencyMicros.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+            respond(exchange, 200, body);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // Helper method answering GET /stats
+    private void handleStats(HttpExchange exchange) throws IOException {
+        try {
+            respond(exchange, 200, statsJson().toString());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // Helper method parsing a request body into a tensor in the session's dtype
+    private Tensor readTensor(InputStream body) throws IOException {
+        String text = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        return Tensor.fromJson(new JSONObject(text), session.getDType());
+    }
+
+    // Helper method building an error response body
+    private static String error(String message) {
+        return new JSONObject().put("error", String.valueOf(message)).toString();
+    }
+
+    // Helper method sending a JSON response
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // EFFECTS: serves the network saved as JSON in args[0] on localhost; optional arguments are
+    // the port (default 8080), the largest batch in rows (default 32) and the longest wait for a
+    // batch in microseconds (default 2000)
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: InferenceServer <network.json> [port] [maxBatchRows] [maxWaitMicros]");
+            return;
+        }
+        NeuralNetwork network = new JsonReader(args[0]).readNetwork();
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+        int maxBatchRows = args.length > 2 ? Integer.parseInt(args[2]) : 32;
+        long maxWaitMicros = args.length > 3 ? Long.parseLong(args[3]) : 2000;
+        InferenceServer server = new InferenceServer(network.newInferenceSession(),
+                new InetSocketAddress("localhost", port), maxBatchRows, maxWaitMicros);
+        server.start();
+        System.out.println("Serving " + args[0] + " on http://localhost:" + server.getPort() + "/predict");
+    }
+}
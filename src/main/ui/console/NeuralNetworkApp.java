@@ -261,17 +261,16 @@ public class NeuralNetworkApp implements TrainingListener {
             return;
         }
 
-        List<Tensor> inputs = new ArrayList<>();
-        inputs.add(tensors.get(inputTensorName));
-        List<Tensor> targets = new ArrayList<>();
-        targets.add(tensors.get(targetTensorName));
+        Tensor inputs = tensors.get(inputTensorName);
+        Tensor targets = tensors.get(targetTensorName);
+        int batchSize = getIntegerInput("Enter batch size (rows per optimizer step): ");
 
         // Setting neural network's listener
         neuralNetwork.setTrainingListener(this);
 
         System.out.println("Training started...");
         try {
-            neuralNetwork.train(inputs, targets, epochs, optimizer);
+            neuralNetwork.train(inputs, targets, batchSize, epochs, optimizer);
             System.out.println("Training completed.");
         } catch (IllegalArgumentException e) {
             System.out.println("Training failed: " + e.getMessage());
@@ -319,8 +318,7 @@ public class NeuralNetworkApp implements TrainingListener {
         String filename = getStringInput("Enter filename to load the tensor from: ");
         JsonReader jsonReader = new JsonReader(filename);
         try {
-            JSONObject json = jsonReader.readJson();
-            Tensor tensor = Tensor.fromJson(json);
+            Tensor tensor = jsonReader.readTensor();
             tensors.put(tensorName, tensor);
             System.out.println("Tensor '" + tensorName + "' loaded from " + filename);
         } catch (IOException e) {
@@ -385,8 +383,7 @@ public class NeuralNetworkApp implements TrainingListener {
         String filename = getStringInput("Enter filename to load the neural network: ");
         JsonReader jsonReader = new JsonReader(filename);
         try {
-            JSONObject json = jsonReader.readJson();
-            neuralNetwork = NeuralNetwork.fromJson(json);
+            neuralNetwork = jsonReader.readNetwork();
             System.out.println("Neural network loaded from " + filename);
         } catch (IOException e) {
             System.out.println("Unable to read from file: " + filename);
@@ -5,8 +5,14 @@ import model.Optimizer;
 import model.SgdOptimizer;
 import model.Tensor;
 import org.json.JSONObject;
+import persistence.CheckpointReader;
+import persistence.CheckpointWriter;
 import persistence.JsonReader;
 import persistence.JsonWriter;
+import persistence.NpyReader;
+import persistence.NpyWriter;
+import persistence.NpzReader;
+import persistence.NpzWriter;
 
 import java.io.File;
 import java.io.IOException;
@@ -70,37 +76,71 @@ public class ApplicationController {
         }
     }
 
-    // EFFECTS: Sets the neural network to the given neural network.
+    // EFFECTS: Saves the tensor to the given file, as a NumPy array if its name ends in .npy, as a
+    // compressed NumPy archive holding it as "arr_0" if it ends in .npz, and as JSON otherwise.
     public void saveTensorToFile(Tensor tensor, File file) throws IOException {
+        if (hasExtension(file, ".npy")) {
+            new NpyWriter(file.getAbsolutePath()).write(tensor);
+            return;
+        } else if (hasExtension(file, ".npz")) {
+            new NpzWriter(file.getAbsolutePath(), true).write(Map.of("arr_0", tensor));
+            return;
+        }
         JsonWriter jsonWriter = new JsonWriter(file.getAbsolutePath());
         jsonWriter.open();
         jsonWriter.write(tensor);
         jsonWriter.close();
     }
 
-    // EFFECTS: Loads a tensor from the given file.
+    // EFFECTS: Loads a tensor from the given file: a NumPy array (.npy, memory-mapped), the single
+    // array of a NumPy archive (.npz), or JSON otherwise.
     public Tensor loadTensorFromFile(File file) throws IOException {
-        JsonReader jsonReader = new JsonReader(file.getAbsolutePath());
-        JSONObject json = jsonReader.readJson();
-        return Tensor.fromJson(json);
+        if (hasExtension(file, ".npy")) {
+            return new NpyReader(file.getAbsolutePath()).read();
+        } else if (hasExtension(file, ".npz")) {
+            Map<String, Tensor> arrays = new NpzReader(file.getAbsolutePath()).read();
+            if (arrays.size() != 1) {
+                throw new IOException(file.getName() + " holds " + arrays.size() + " arrays; expected one");
+            }
+            return arrays.values().iterator().next();
+        }
+        return new JsonReader(file.getAbsolutePath()).readTensor();
     }
 
-    // EFFECTS: Saves the neural network to the given file.
+    // EFFECTS: Saves the neural network to the given file, as a binary checkpoint if its name
+    // ends in .ckpt and as JSON otherwise.
     public void saveNetworkToFile(File file) throws IOException {
+        if (isCheckpoint(file)) {
+            new CheckpointWriter(file.getAbsolutePath()).write(neuralNetwork);
+            return;
+        }
         JsonWriter jsonWriter = new JsonWriter(file.getAbsolutePath());
         jsonWriter.open();
         jsonWriter.write(neuralNetwork);
         jsonWriter.close();
     }
     
-    // EFFECTS: Loads a neural network from the given file.
+    // EFFECTS: Loads a neural network from the given file, mapping its weights if it is a binary
+    // checkpoint (.ckpt) and parsing it as JSON otherwise.
     public void loadNetworkFromFile(File file) throws IOException {
-        JsonReader jsonReader = new JsonReader(file.getAbsolutePath());
-        JSONObject json = jsonReader.readJson();
-        neuralNetwork = NeuralNetwork.fromJson(json);
+        if (isCheckpoint(file)) {
+            neuralNetwork = new CheckpointReader(file.getAbsolutePath()).read();
+        } else {
+            neuralNetwork = new JsonReader(file.getAbsolutePath()).readNetwork();
+        }
         notifyLayerListeners();
     }
 
+    // EFFECTS: Returns true if the file name marks a binary checkpoint.
+    private static boolean isCheckpoint(File file) {
+        return hasExtension(file, ".ckpt");
+    }
+
+    // EFFECTS: Returns true if the file name ends in extension, ignoring case.
+    private static boolean hasExtension(File file, String extension) {
+        return file.getName().toLowerCase().endsWith(extension);
+    }
+
     // EFFECTS: Saves the optimizer to the given file.
     public void saveOptimizerToFile(Optimizer optimizer, File file) throws IOException {
         JsonWriter jsonWriter = new JsonWriter(file.getAbsolutePath());
@@ -1,5 +1,6 @@
 package ui.gui;
 
+import model.EventLog;
 import model.NeuralNetwork;
 import model.Tensor;
 import model.Optimizer;
@@ -9,8 +10,6 @@ import model.TrainingListener;
 import javax.swing.*;
 import java.awt.*;
 import java.io.File;
-import java.util.Arrays;
-import java.util.List;
 
 /**
  * Panel for training the neural network.
@@ -19,6 +18,7 @@ public class TrainPanel extends JPanel implements TrainingListener, TensorChange
     private ApplicationController controller;
     private GraphPanel graphPanel;
     private JTextField epochsField;
+    private JTextField batchSizeField;
     private JButton trainButton;
     private JProgressBar progressBar;
     private JComboBox<String> inputTensorComboBox;
@@ -60,45 +60,54 @@ public class TrainPanel extends JPanel implements TrainingListener, TensorChange
         epochsField = new JTextField(10);
         inputPanel.add(epochsField, gbc);
 
-        // Row 1: Input Tensor
+        // Row 1: Batch Size (blank trains on the whole tensor at once)
         gbc.gridx = 0;
         gbc.gridy = 1;
+        inputPanel.add(new JLabel("Batch Size:"), gbc);
+
+        gbc.gridx = 1;
+        batchSizeField = new JTextField(10);
+        inputPanel.add(batchSizeField, gbc);
+
+        // Row 2: Input Tensor
+        gbc.gridx = 0;
+        gbc.gridy = 2;
         inputPanel.add(new JLabel("Input Tensor:"), gbc);
 
         gbc.gridx = 1;
         inputTensorComboBox = new JComboBox<>();
         inputPanel.add(inputTensorComboBox, gbc);
 
-        // Row 2: Target Tensor
+        // Row 3: Target Tensor
         gbc.gridx = 0;
-        gbc.gridy = 2;
+        gbc.gridy = 3;
         inputPanel.add(new JLabel("Target Tensor:"), gbc);
 
         gbc.gridx = 1;
         targetTensorComboBox = new JComboBox<>();
         inputPanel.add(targetTensorComboBox, gbc);
 
-        // Row 3: Optimizer
+        // Row 4: Optimizer
         gbc.gridx = 0;
-        gbc.gridy = 3;
+        gbc.gridy = 4;
         inputPanel.add(new JLabel("Optimizer:"), gbc);
 
         gbc.gridx = 1;
         optimizerComboBox = new JComboBox<>(new String[]{"SGD"});
         inputPanel.add(optimizerComboBox, gbc);
 
-        // Row 4: Learning Rate
+        // Row 5: Learning Rate
         gbc.gridx = 0;
-        gbc.gridy = 4;
+        gbc.gridy = 5;
         inputPanel.add(new JLabel("Learning Rate:"), gbc);
 
         gbc.gridx = 1;
         learningRateField = new JTextField(10);
         inputPanel.add(learningRateField, gbc);
 
-        // Row 5: Save and Load Optimizer Buttons
+        // Row 6: Save and Load Optimizer Buttons
         gbc.gridx = 0;
-        gbc.gridy = 5;
+        gbc.gridy = 6;
         gbc.gridwidth = 2;
         gbc.anchor = GridBagConstraints.CENTER;
 
@@ -161,6 +170,14 @@ public class TrainPanel extends JPanel implements TrainingListener, TensorChange
             return;
         }
 
+        int batchSize;
+        try {
+            batchSize = parseBatchSize(batchSizeField.getText().trim());
+        } catch (IllegalArgumentException ex) {
+            JOptionPane.showMessageDialog(this, "Please enter a positive integer for batch size.");
+            return;
+        }
+
         String inputTensorName = (String) inputTensorComboBox.getSelectedItem();
         String targetTensorName = (String) targetTensorComboBox.getSelectedItem();
 
@@ -202,15 +219,13 @@ public class TrainPanel extends JPanel implements TrainingListener, TensorChange
         graphPanel.clearData();
 
         final Optimizer optimizerFinal = optimizer;
+        final int batchSizeFinal = batchSize > 0 ? batchSize : inputTensor.getRows();
 
         // Start training in a separate thread
         SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
             @Override
             protected Void doInBackground() throws Exception {
-                List<Tensor> inputs = Arrays.asList(inputTensor);
-                List<Tensor> targets = Arrays.asList(targetTensor);
-
-                neuralNetwork.train(inputs, targets, epochs, optimizerFinal);
+                neuralNetwork.train(inputTensor, targetTensor, batchSizeFinal, epochs, optimizerFinal);
                 return null;
             }
 
@@ -224,6 +239,20 @@ public class TrainPanel extends JPanel implements TrainingListener, TensorChange
         worker.execute();
     }
 
+    // EFFECTS: Returns the batch size entered as text, or 0 (the whole tensor) if text is blank;
+    // throws IllegalArgumentException if text is not a positive integer
+    private static int parseBatchSize(String text) {
+        if (text.isEmpty()) {
+            return 0;
+        }
+        int batchSize = Integer.parseInt(text);
+        if (batchSize <= 0) {
+            EventLog.getInstance().warn(() -> "Invalid batch size entered: " + batchSize);
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        return batchSize;
+    }
+
     // MODIFIES: this
     // EFFECTS: Saves the configured optimizer to a file.
     private void saveOptimizer() {
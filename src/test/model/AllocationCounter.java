@@ -0,0 +1,30 @@
+package model;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import com.sun.management.ThreadMXBean;
+
+import java.lang.management.ManagementFactory;
+
+// Measures the heap memory the current thread allocates, for tests checking that a code path
+// allocates little or nothing
+final class AllocationCounter {
+    private final ThreadMXBean threadBean;
+    private final long threadId;
+
+    // EFFECTS: creates a counter for the current thread; skips the calling test if the JVM cannot
+    // measure the memory a thread allocates
+    AllocationCounter() {
+        threadBean = ManagementFactory.getPlatformMXBean(ThreadMXBean.class);
+        assumeTrue(threadBean != null && threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+        threadId = Thread.currentThread().getId();
+    }
+
+    // EFFECTS: runs action and returns the number of bytes the thread allocated meanwhile
+    long bytesAllocatedBy(Runnable action) {
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        action.run();
+        return threadBean.getThreadAllocatedBytes(threadId) - before;
+    }
+}
@@ -0,0 +1,80 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Unit tests for the EventFileSink class
+public class EventFileSinkTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testWritesEventsLoggedAfterCreation() throws IOException {
+        EventLog log = new EventLog(64);
+        log.logEvent(new Event("before"));
+        Path file = dir.resolve("events.log");
+        try (EventFileSink sink = new EventFileSink(log, file, 1 << 20, 2)) {
+            sink.start();
+            for (int i = 0; i < 10; i++) {
+                log.logEvent(new Event("event " + i));
+            }
+        }
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(10, lines.size());
+        assertTrue(lines.get(0).endsWith(" event 0"));
+        assertTrue(lines.get(9).endsWith(" event 9"));
+    }
+
+    @Test
+    public void testRollsOverAndKeepsBackups() throws IOException {
+        EventLog log = new EventLog(4096);
+        Path file = dir.resolve("events.log");
+        EventFileSink sink = new EventFileSink(log, file, 2000, 2);
+        sink.start();
+        for (int i = 0; i < 500; i++) {
+            log.logEvent(new Event("event " + i));
+        }
+        sink.close();
+
+        assertTrue(Files.exists(sink.backup(1)));
+        assertTrue(Files.exists(sink.backup(2)));
+        assertFalse(Files.exists(sink.backup(3)));
+        List<String> lines = new ArrayList<>(Files.readAllLines(sink.backup(1)));
+        lines.addAll(Files.readAllLines(file));
+        assertTrue(lines.get(lines.size() - 1).endsWith(" event 499"));
+        assertTrue(Files.size(sink.backup(1)) < 2100);
+    }
+
+    @Test
+    public void testReportsDroppedEvents() throws IOException {
+        EventLog log = new EventLog(4);
+        Path file = dir.resolve("events.log");
+        EventFileSink sink = new EventFileSink(log, file, 1 << 20, 0);
+        for (int i = 0; i < 10; i++) {
+            log.logEvent(new Event("event " + i));
+        }
+        sink.start();
+        sink.close();
+        List<String> lines = Files.readAllLines(file);
+        assertEquals("... 6 events dropped or cleared", lines.get(0));
+        assertEquals(5, lines.size());
+    }
+
+    @Test
+    public void testInvalidParameters() {
+        EventLog log = new EventLog(4);
+        Path file = dir.resolve("events.log");
+        assertThrows(IllegalArgumentException.class, () -> new EventFileSink(null, file, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new EventFileSink(log, null, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new EventFileSink(log, file, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new EventFileSink(log, file, 1, -1));
+    }
+}
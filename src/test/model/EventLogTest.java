@@ -9,6 +9,8 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 // Unit tests for the EventLog class
@@ -51,4 +53,106 @@ public class EventLogTest {
 		assertEquals("Event log cleared.", itr.next().getDescription());
 		assertFalse(itr.hasNext());
 	}
+
+	@Test
+	public void testGetInstanceIsShared() throws InterruptedException {
+		EventLog[] seen = new EventLog[4];
+		Thread[] threads = new Thread[seen.length];
+		for (int i = 0; i < threads.length; i++) {
+			int index = i;
+			threads[i] = new Thread(() -> seen[index] = EventLog.getInstance());
+			threads[i].start();
+		}
+		for (int i = 0; i < threads.length; i++) {
+			threads[i].join();
+			assertSame(EventLog.getInstance(), seen[i]);
+		}
+	}
+
+	@Test
+	public void testCapacityOverwritesOldest() {
+		EventLog el = new EventLog(3);
+		assertEquals(4, el.getCapacity());
+		for (int i = 0; i < 10; i++) {
+			el.logEvent(new Event("E" + i));
+		}
+		assertEquals(List.of("E6", "E7", "E8", "E9"), descriptions(el));
+		el.clear();
+		assertEquals(List.of("Event log cleared."), descriptions(el));
+		assertThrows(IllegalArgumentException.class, () -> new EventLog(0));
+	}
+
+	@Test
+	public void testConcurrentLogging() throws InterruptedException {
+		EventLog el = new EventLog(1024);
+		int perThread = 5000;
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			String prefix = "T" + t + "-";
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < perThread; i++) {
+					el.logEvent(new Event(prefix + i));
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(threads.length * perThread, el.getNextSequence());
+		List<String> kept = descriptions(el);
+		assertEquals(1024, kept.size());
+		// Each thread's surviving events appear in the order that thread logged them
+		for (int t = 0; t < threads.length; t++) {
+			int last = -1;
+			for (String description : kept) {
+				if (description.startsWith("T" + t + "-")) {
+					int index = Integer.parseInt(description.substring(description.indexOf('-') + 1));
+					assertTrue(index > last);
+					last = index;
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testLevels() {
+		EventLog el = new EventLog(16);
+		assertEquals(LogLevel.INFO, el.getLevel());
+		assertFalse(el.isEnabled(LogLevel.DEBUG));
+		assertTrue(el.isEnabled(LogLevel.WARN));
+
+		el.debug(() -> {
+			throw new AssertionError("Disabled messages must not be built");
+		});
+		el.logEvent(new Event(LogLevel.TRACE, "dropped"));
+		el.info(() -> "kept info");
+		el.warn(() -> "kept warn");
+		el.logEvent(new Event("kept event"));
+		assertEquals(List.of("kept info", "kept warn", "kept event"), descriptions(el));
+
+		el.setLevel(LogLevel.TRACE);
+		el.trace(() -> "kept trace");
+		el.log(LogLevel.DEBUG, () -> "kept debug");
+		Iterator<Event> itr = el.iterator();
+		assertEquals(LogLevel.INFO, itr.next().getLevel());
+		assertEquals(LogLevel.WARN, itr.next().getLevel());
+		itr.next();
+		assertEquals(LogLevel.TRACE, itr.next().getLevel());
+		assertEquals(LogLevel.DEBUG, itr.next().getLevel());
+
+		el.setLevel(LogLevel.WARN);
+		el.info(() -> "dropped");
+		assertEquals(5, descriptions(el).size());
+		assertThrows(IllegalArgumentException.class, () -> el.setLevel(null));
+	}
+
+	// Helper method returning the descriptions of the events in el, oldest first
+	private static List<String> descriptions(EventLog el) {
+		List<String> descriptions = new ArrayList<>();
+		for (Event event : el) {
+			descriptions.add(event.getDescription());
+		}
+		return descriptions;
+	}
 }
@@ -45,6 +45,16 @@ public class TestActivationLayer {
         assertArrayEquals(expectedData, outputTensor.getData());
     }
 
+    @Test
+    void testInferMatchesForwardWithoutDisturbingBackward() {
+        activationLayer.forward(inputTensor);
+        Tensor inferred = activationLayer.infer(new Tensor(new double[][]{{2.0, -2.0, -3.0}}));
+        assertArrayEquals(new double[][]{{2.0, 0.0, 0.0}}, inferred.getData());
+        Tensor inputGradient = activationLayer.backward(new Tensor(new double[][]{{0.1, 0.2, 0.3}}));
+        assertArrayEquals(new double[][]{{0.0, 0.0, 0.3}}, inputGradient.getData());
+        assertThrows(IllegalArgumentException.class, () -> activationLayer.infer(null));
+    }
+
     @Test
     void testForwardWithNullInput() {
         assertThrows(IllegalArgumentException.class, () -> {
@@ -61,6 +71,30 @@ public class TestActivationLayer {
         assertNotNull(inputGradient);
     }
 
+    @Test
+    void testOffHeapInputAndGradient() {
+        Tensor input = new Tensor(new double[][]{{-1.0, 0.5, 2.0}, {3.0, -0.5, 0.0}});
+        Tensor gradient = new Tensor(new double[][]{{0.1, 0.2, 0.3}, {-0.4, 0.5, 0.6}});
+        for (String function : new String[]{"relu", "sigmoid"}) {
+            for (DType dtype : DType.values()) {
+                ActivationLayer heap = new ActivationLayer(function);
+                ActivationLayer direct = new ActivationLayer(function);
+                Tensor expected = heap.forward(input.toDType(dtype));
+                assertArrayEquals(expected.getData(), direct.forward(offHeap(input, dtype)).getData());
+                assertArrayEquals(expected.getData(), direct.infer(offHeap(input, dtype)).getData());
+                assertArrayEquals(heap.backward(gradient.toDType(dtype)).getData(),
+                        direct.backward(offHeap(gradient, dtype)).getData());
+            }
+        }
+    }
+
+    // EFFECTS: returns an off-heap copy of tensor with dtype
+    private static Tensor offHeap(Tensor tensor, DType dtype) {
+        Tensor direct = Tensor.allocateDirect(tensor.getRows(), tensor.getCols(), dtype);
+        direct.copyFrom(tensor);
+        return direct;
+    }
+
     @Test
     void testBackwardWithNullGradient() {
         assertThrows(IllegalArgumentException.class, () -> {
@@ -0,0 +1,132 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import persistence.CheckpointReader;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class TestCheckpointPolicy {
+    @TempDir
+    Path dir;
+
+    private NeuralNetwork network;
+    private Tensor inputs;
+    private Tensor targets;
+
+    @BeforeEach
+    void runBefore() {
+        network = new NeuralNetwork();
+        network.addLayer(new DenseLayer(2, 4));
+        network.addLayer(new ActivationLayer("sigmoid"));
+        network.addLayer(new DenseLayer(4, 1));
+        inputs = new Tensor(new double[][]{{0, 0}, {0, 1}, {1, 0}, {1, 1}, {0.5, 0.5}, {0.2, 0.8}, {0.9, 0.1}, {1, 1}});
+        targets = new Tensor(new double[][]{{0}, {1}, {1}, {0}, {0.5}, {0.8}, {0.9}, {0}});
+    }
+
+    @Test
+    public void testConstructorRejectsInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new CheckpointPolicy(null, 1, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new CheckpointPolicy(dir, 0, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new CheckpointPolicy(dir, -1, 10, 1));
+        assertThrows(IllegalArgumentException.class, () -> new CheckpointPolicy(dir, 1, -1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new CheckpointPolicy(dir, 1, 0, 0));
+    }
+
+    @Test
+    public void testCheckpointsEveryNStepsAndKeepsTheNewest() throws Exception {
+        SgdOptimizer optimizer = new SgdOptimizer(0.1);
+        Tensor probe = new Tensor(new double[][]{{0.3, 0.7}});
+        try (CheckpointPolicy policy = new CheckpointPolicy(dir.resolve("ckpt"), 4, 0, 2)) {
+            network.setCheckpointPolicy(policy);
+            for (int epoch = 1; epoch <= 3; epoch++) {
+                network.train(inputs, targets, 2, 1, optimizer); // 4 steps, so one checkpoint per call
+                policy.awaitWrites();
+                Path newest = policy.getCheckpoints().get(policy.getCheckpoints().size() - 1);
+                assertEquals(String.format("checkpoint-%010d.ckpt", 4 * epoch), newest.getFileName().toString());
+                NeuralNetwork loaded = new CheckpointReader(newest.toString()).read();
+                assertArrayEquals(network.predict(probe).getData()[0], loaded.predict(probe).getData()[0], 1e-12);
+            }
+            assertEquals(2, policy.getCheckpoints().size());
+            assertEquals(0, policy.getDeferredSteps());
+        }
+        assertEquals(List.of("checkpoint-0000000008.ckpt", "checkpoint-0000000012.ckpt"), listFiles());
+
+        JSONObject training = header(dir.resolve("ckpt/checkpoint-0000000012.ckpt")).getJSONObject("training");
+        assertEquals(12, training.getLong("step"));
+        assertEquals(0.1, training.getJSONObject("optimizer").getDouble("learningRate"));
+    }
+
+    @Test
+    public void testCountsCheckpointsAlreadyInDirectory() throws Exception {
+        Path ckpt = Files.createDirectories(dir.resolve("ckpt"));
+        for (String name : new String[]{"checkpoint-0000000010.ckpt", "checkpoint-0000000002.ckpt",
+                "checkpoint-5.ckpt", "notes.txt"}) {
+            Files.write(ckpt.resolve(name), new byte[]{1});
+        }
+        try (CheckpointPolicy policy = new CheckpointPolicy(ckpt, 4, 0, 2)) {
+            assertEquals(List.of(ckpt.resolve("checkpoint-0000000002.ckpt"),
+                    ckpt.resolve("checkpoint-0000000010.ckpt")), policy.getCheckpoints());
+            network.setCheckpointPolicy(policy);
+            network.train(inputs, targets, 2, 1, new SgdOptimizer(0.1));
+            policy.awaitWrites();
+            assertEquals(List.of(ckpt.resolve("checkpoint-0000000010.ckpt"),
+                    ckpt.resolve("checkpoint-0000000004.ckpt")), policy.getCheckpoints());
+        }
+        assertEquals(List.of("checkpoint-0000000004.ckpt", "checkpoint-0000000010.ckpt", "checkpoint-5.ckpt",
+                "notes.txt"), listFiles());
+    }
+
+    @Test
+    public void testTimedCheckpointsNeverLeaveTemporaryFiles() throws IOException {
+        network.setDType(DType.FLOAT32);
+        try (CheckpointPolicy policy = new CheckpointPolicy(dir.resolve("ckpt"), 0, 1, 3)) {
+            network.setCheckpointPolicy(policy);
+            for (int i = 0; i < 20; i++) {
+                network.train(inputs, targets, 2, 5, new SgdOptimizer(0.1));
+            }
+        }
+        network.setCheckpointPolicy(null);
+        List<String> files = listFiles();
+        assertFalse(files.isEmpty());
+        assertTrue(files.size() <= 3);
+        for (String file : files) {
+            assertTrue(file.endsWith(".ckpt"));
+            assertEquals(DType.FLOAT32, new CheckpointReader(dir.resolve("ckpt").resolve(file).toString()).read()
+                    .getDType());
+        }
+    }
+
+    @Test
+    public void testCloseStopsCheckpointing() throws IOException {
+        CheckpointPolicy policy = new CheckpointPolicy(dir.resolve("ckpt"), 1, 0, 5);
+        network.setCheckpointPolicy(policy);
+        policy.close();
+        network.train(inputs, targets, 2, 1, new SgdOptimizer(0.1));
+        assertTrue(policy.getCheckpoints().isEmpty());
+        assertFalse(Files.exists(dir.resolve("ckpt")));
+    }
+
+    private List<String> listFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir.resolve("ckpt"))) {
+            return files.map(file -> file.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+    }
+
+    // Reads the JSON header of a checkpoint, which follows the 12-byte preamble
+    private static JSONObject header(Path file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        int length = (bytes[8] & 0xff) | (bytes[9] & 0xff) << 8 | (bytes[10] & 0xff) << 16 | (bytes[11] & 0xff) << 24;
+        return new JSONObject(new String(bytes, 12, length, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,179 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TestDataLoader {
+    private static final int SAMPLES = 10;
+
+    private Tensor inputs;
+    private Tensor targets;
+    private TensorDataset dataset;
+
+    @BeforeEach
+    void runBefore() {
+        inputs = new Tensor(SAMPLES, 2);
+        targets = new Tensor(SAMPLES, 1);
+        for (int i = 0; i < SAMPLES; i++) {
+            inputs.set(i, 0, i);
+            inputs.set(i, 1, -i);
+            targets.set(i, 0, 10 * i);
+        }
+        dataset = new TensorDataset(inputs, targets);
+    }
+
+    @Test
+    void testSequentialBatches() {
+        DataLoader loader = new DataLoader(dataset, 4);
+        List<Double> firstColumn = collectFirstColumn(loader);
+        assertEquals(3, loader.batchesPerEpoch());
+        assertEquals(SAMPLES, loader.samplesPerEpoch());
+        assertEquals(List.of(0.0, 1.0, 2.0, 3.0, 4.0, 5.0, 6.0, 7.0, 8.0, 9.0), firstColumn);
+
+        Iterator<DataLoader.Batch> epoch = loader.iterator();
+        DataLoader.Batch first = epoch.next();
+        assertArrayEquals(new double[][]{{0.0, 0.0}, {1.0, -1.0}, {2.0, -2.0}, {3.0, -3.0}},
+                first.getInputs().getData());
+        assertArrayEquals(new double[][]{{0.0}, {10.0}, {20.0}, {30.0}}, first.getTargets().getData());
+        epoch.next();
+        assertEquals(2, epoch.next().getInputs().getRows());
+        assertFalse(epoch.hasNext());
+        assertThrows(NoSuchElementException.class, epoch::next);
+    }
+
+    @Test
+    void testDropLast() {
+        DataLoader loader = new DataLoader(dataset, 4, false, true, 0, 1);
+        assertEquals(2, loader.batchesPerEpoch());
+        assertEquals(8, loader.samplesPerEpoch());
+        assertEquals(8, collectFirstColumn(loader).size());
+    }
+
+    @Test
+    void testShuffleVisitsEverySampleOnce() {
+        DataLoader loader = new DataLoader(dataset, 3, true, false, 0, 1);
+        loader.setSeed(5L);
+        List<Double> first = collectFirstColumn(loader);
+        List<Double> second = collectFirstColumn(loader);
+        assertEquals(SAMPLES, new HashSet<>(first).size());
+        assertEquals(new HashSet<>(first), new HashSet<>(second));
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    void testWorkersMatchSequentialOrder() {
+        DataLoader sequential = new DataLoader(dataset, 3, true, false, 0, 1);
+        try (DataLoader parallel = new DataLoader(dataset, 3, true, false, 3, 2)) {
+            sequential.setSeed(9L);
+            parallel.setSeed(9L);
+            for (int epoch = 0; epoch < 3; epoch++) {
+                Iterator<DataLoader.Batch> expected = sequential.iterator();
+                for (DataLoader.Batch batch : parallel) {
+                    DataLoader.Batch reference = expected.next();
+                    assertArrayEquals(reference.getInputs().getData(), batch.getInputs().getData());
+                    assertArrayEquals(reference.getTargets().getData(), batch.getTargets().getData());
+                }
+                assertFalse(expected.hasNext());
+            }
+        }
+    }
+
+    @Test
+    void testPrefetchIsBounded() throws InterruptedException {
+        CountingDataset counting = new CountingDataset(dataset);
+        try (DataLoader loader = new DataLoader(counting, 1, false, false, 2, 3)) {
+            Iterator<DataLoader.Batch> epoch = loader.iterator();
+            waitForLoads(counting, 3);
+            Thread.sleep(50);
+            assertEquals(3, counting.loads.get());
+            epoch.next();
+            waitForLoads(counting, 4);
+            Thread.sleep(50);
+            assertEquals(4, counting.loads.get());
+        }
+    }
+
+    @Test
+    void testWorkerFailureIsRethrown() {
+        Dataset failing = new CountingDataset(dataset) {
+            @Override
+            public void load(int index, double[] input, int inputOffset, double[] target, int targetOffset) {
+                throw new IllegalStateException("corrupt sample " + index);
+            }
+        };
+        try (DataLoader loader = new DataLoader(failing, 2, false, false, 1, 2)) {
+            Iterator<DataLoader.Batch> epoch = loader.iterator();
+            IllegalStateException e = assertThrows(IllegalStateException.class, epoch::next);
+            assertEquals("corrupt sample 0", e.getMessage());
+        }
+    }
+
+    @Test
+    void testInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new DataLoader(null, 2));
+        assertThrows(IllegalArgumentException.class, () -> new DataLoader(dataset, 0));
+        assertThrows(IllegalArgumentException.class, () -> new DataLoader(dataset, 2, false, false, -1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new DataLoader(dataset, 2, false, false, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new DataLoader(dataset, 11, false, true, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TensorDataset(inputs, new Tensor(3, 1)));
+        assertThrows(IllegalArgumentException.class, () -> new TensorDataset(null, targets));
+    }
+
+    // Helper method returning the first input column of every sample in one epoch, in order
+    private static List<Double> collectFirstColumn(DataLoader loader) {
+        List<Double> values = new ArrayList<>();
+        for (DataLoader.Batch batch : loader) {
+            for (int i = 0; i < batch.getInputs().getRows(); i++) {
+                values.add(batch.getInputs().get(i, 0));
+            }
+        }
+        return values;
+    }
+
+    // Helper method waiting until the dataset has loaded at least count samples
+    private static void waitForLoads(CountingDataset dataset, int count) throws InterruptedException {
+        for (int i = 0; i < 200 && dataset.loads.get() < count; i++) {
+            Thread.sleep(5);
+        }
+    }
+
+    // Dataset wrapper that counts how many samples have been loaded
+    private static class CountingDataset implements Dataset {
+        private final Dataset source;
+        private final AtomicInteger loads = new AtomicInteger();
+
+        CountingDataset(Dataset source) {
+            this.source = source;
+        }
+
+        @Override
+        public int size() {
+            return source.size();
+        }
+
+        @Override
+        public int inputSize() {
+            return source.inputSize();
+        }
+
+        @Override
+        public int targetSize() {
+            return source.targetSize();
+        }
+
+        @Override
+        public void load(int index, double[] input, int inputOffset, double[] target, int targetOffset) {
+            loads.incrementAndGet();
+            source.load(index, input, inputOffset, target, targetOffset);
+        }
+    }
+}
@@ -2,6 +2,9 @@ package model;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
 import org.json.JSONObject;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -25,6 +28,25 @@ public class TestDenseLayer {
         assertNotNull(denseLayer);
     }
 
+    @Test
+    void testSeededConstructor() {
+        DenseLayer first = new DenseLayer(3, 2, DType.FLOAT64, new Random(5));
+        DenseLayer second = new DenseLayer(3, 2, DType.FLOAT64, new Random(5));
+        for (int i = 0; i < 3; i++) {
+            assertArrayEquals(first.getWeights().getData()[i], second.getWeights().getData()[i], 0.0);
+        }
+        assertArrayEquals(first.getBiases().getData()[0], second.getBiases().getData()[0], 0.0);
+    }
+
+    @Test
+    void testConstructorWithNullSettings() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> new DenseLayer(3, 2, DType.FLOAT64, null));
+        assertEquals("Random generator cannot be null", e.getMessage());
+        e = assertThrows(IllegalArgumentException.class, () -> new DenseLayer(3, 2, null, new Random(5)));
+        assertEquals("Data type cannot be null", e.getMessage());
+    }
+
     @Test
     void testConstructorWithInvalidSizes() {
         assertThrows(IllegalArgumentException.class, () -> {
@@ -41,6 +63,62 @@ public class TestDenseLayer {
         assertNotNull(outputTensor);
     }
 
+    @Test
+    void testForwardValues() {
+        DenseLayer layer = new DenseLayer(new Tensor(new double[][]{{1.0, 2.0, 3.0}, {4.0, 5.0, 6.0}}),
+                new Tensor(new double[][]{{0.5, -0.5, 1.0}}));
+        Tensor output = layer.forward(new Tensor(new double[][]{{1.0, 2.0}, {-1.0, 0.0}}));
+        assertArrayEquals(new double[][]{{9.5, 11.5, 16.0}, {-0.5, -2.5, -2.0}}, output.getData());
+    }
+
+    @Test
+    void testBackwardValues() {
+        DenseLayer layer = new DenseLayer(new Tensor(new double[][]{{1.0, 2.0, 3.0}, {4.0, 5.0, 6.0}}),
+                new Tensor(new double[][]{{0.0, 0.0, 0.0}}));
+        layer.forward(new Tensor(new double[][]{{1.0, 2.0}, {-1.0, 0.0}}));
+        Tensor prevGradient = layer.backward(new Tensor(new double[][]{{1.0, 0.0, 2.0}, {0.0, 1.0, 0.0}}));
+        assertArrayEquals(new double[][]{{7.0, 16.0}, {2.0, 5.0}}, prevGradient.getData());
+        assertArrayEquals(new double[][]{{1.0, -1.0, 2.0}, {2.0, 0.0, 4.0}}, layer.getWeightGradients().getData());
+        assertArrayEquals(new double[][]{{1.0, 1.0, 2.0}}, layer.getBiasGradients().getData());
+    }
+
+    @Test
+    void testInferMatchesForwardWithoutDisturbingBackward() {
+        DenseLayer layer = new DenseLayer(new Tensor(new double[][]{{1.0, 2.0, 3.0}, {4.0, 5.0, 6.0}}),
+                new Tensor(new double[][]{{0.0, 0.0, 0.0}}));
+        Tensor input = new Tensor(new double[][]{{1.0, 2.0}, {-1.0, 0.0}});
+        layer.setReuseBuffers(true);
+        Tensor output = layer.forward(input);
+        Tensor inferred = layer.infer(new Tensor(new double[][]{{2.0, 0.0}}));
+        assertNotSame(output, inferred);
+        assertArrayEquals(new double[][]{{2.0, 4.0, 6.0}}, inferred.getData());
+        assertArrayEquals(output.getData(), layer.infer(input).getData());
+        layer.backward(new Tensor(new double[][]{{1.0, 0.0, 2.0}, {0.0, 1.0, 0.0}}));
+        assertArrayEquals(new double[][]{{1.0, -1.0, 2.0}, {2.0, 0.0, 4.0}}, layer.getWeightGradients().getData());
+        assertThrows(IllegalArgumentException.class, () -> layer.infer(null));
+        assertThrows(IllegalArgumentException.class, () -> layer.infer(new Tensor(new double[][]{{1.0}})));
+    }
+
+    @Test
+    void testReplicaSharesParametersAndAddsGradients() {
+        DenseLayer layer = new DenseLayer(new Tensor(new double[][]{{1.0, 2.0, 3.0}, {4.0, 5.0, 6.0}}),
+                new Tensor(new double[][]{{0.0, 0.0, 0.0}}));
+        DenseLayer replica = (DenseLayer) layer.replica();
+        assertSame(layer.getWeights(), replica.getWeights());
+        layer.forward(new Tensor(new double[][]{{1.0, 2.0}}));
+        replica.forward(new Tensor(new double[][]{{-1.0, 0.0}}));
+        layer.backward(new Tensor(new double[][]{{1.0, 0.0, 2.0}}));
+        replica.backward(new Tensor(new double[][]{{0.0, 1.0, 0.0}}));
+        layer.addGradients(replica);
+        assertArrayEquals(new double[][]{{1.0, -1.0, 2.0}, {2.0, 0.0, 4.0}}, layer.getWeightGradients().getData());
+        assertArrayEquals(new double[][]{{1.0, 1.0, 2.0}}, layer.getBiasGradients().getData());
+
+        layer.setWeights(new Tensor(new double[][]{{1.0, 0.0, 0.0}, {0.0, 1.0, 0.0}}));
+        replica.shareParameters(layer);
+        assertArrayEquals(new double[][]{{1.0, 2.0, 0.0}},
+                replica.forward(new Tensor(new double[][]{{1.0, 2.0}})).getData());
+    }
+
     @Test
     void testForwardWithNullInput() {
         assertThrows(IllegalArgumentException.class, () -> {
@@ -88,6 +166,180 @@ public class TestDenseLayer {
         });
     }
 
+    @Test
+    void testTrainingStepAllocation() {
+        AllocationCounter counter = new AllocationCounter();
+        int size = 256;
+        DenseLayer layer = new DenseLayer(size, size);
+        Optimizer optimizer = new SgdOptimizer(0.01);
+        Tensor input = new Tensor(1, size);
+        Tensor gradient = new Tensor(1, size);
+        for (int i = 0; i < 20; i++) {
+            trainingStep(layer, optimizer, input, gradient);
+        }
+
+        int steps = 10;
+        long perStep = counter.bytesAllocatedBy(() -> {
+            for (int i = 0; i < steps; i++) {
+                trainingStep(layer, optimizer, input, gradient);
+            }
+        }) / steps;
+
+        // Parameters are read without copying and updated in place, so a step allocates
+        // only the new gradient storage rather than several extra copies of the model
+        long modelBytes = (long) (size * size + size) * Double.BYTES;
+        assertTrue(perStep < 2 * modelBytes, "Allocated " + perStep + " bytes per step");
+    }
+
+    // Helper method to run one forward, backward and update step on layer
+    private static void trainingStep(DenseLayer layer, Optimizer optimizer, Tensor input, Tensor gradient) {
+        layer.forward(input);
+        layer.backward(gradient);
+        layer.updateParameters(optimizer);
+    }
+
+    @Test
+    void testReusedBuffers() {
+        Tensor input = new Tensor(new double[][]{{1.0, 2.0}});
+        Tensor gradient = new Tensor(new double[][]{{0.5, 1.0, -1.0}});
+        Tensor fresh = denseLayer.forward(input);
+        assertNotSame(fresh, denseLayer.forward(input));
+
+        denseLayer.setReuseBuffers(true);
+        Tensor output = denseLayer.forward(input);
+        Tensor prevGrad = denseLayer.backward(gradient);
+        Tensor weightGrad = denseLayer.getWeightGradients();
+        assertSame(output, denseLayer.forward(input));
+        assertSame(prevGrad, denseLayer.backward(gradient));
+        assertSame(weightGrad, denseLayer.getWeightGradients());
+        assertArrayEquals(fresh.getData(), output.getData());
+
+        // A new batch shape gets new buffers
+        Tensor batch = new Tensor(new double[][]{{1.0, 2.0}, {3.0, 4.0}});
+        Tensor batchOutput = denseLayer.forward(batch);
+        assertNotSame(output, batchOutput);
+        assertEquals(2, batchOutput.getRows());
+        denseLayer.setReuseBuffers(false);
+        assertNotSame(batchOutput, denseLayer.forward(batch));
+    }
+
+    @Test
+    void testFloat32MatchesFloat64() {
+        DenseLayer single = DenseLayer.fromJson(denseLayer.toJson(), DType.FLOAT32);
+        assertEquals(DType.FLOAT32, single.getDType());
+        assertEquals(DType.FLOAT32, single.getBiases().getDType());
+        Tensor input = inputTensor.toDType(DType.FLOAT32);
+        Tensor gradient = new Tensor(new double[][]{{0.1, -0.2, 0.3}});
+
+        Tensor expected = denseLayer.forward(inputTensor);
+        Tensor actual = single.forward(input);
+        assertEquals(DType.FLOAT32, actual.getDType());
+        assertArrayEquals(expected.getData()[0], actual.getData()[0], 1e-6);
+
+        Tensor expectedGrad = denseLayer.backward(gradient);
+        Tensor actualGrad = single.backward(gradient.toDType(DType.FLOAT32));
+        assertArrayEquals(expectedGrad.getData()[0], actualGrad.getData()[0], 1e-6);
+        assertArrayEquals(denseLayer.getWeightGradients().getData()[1],
+                single.getWeightGradients().getData()[1], 1e-6);
+    }
+
+    @Test
+    void testSetDType() {
+        double[][] weights = denseLayer.getWeights().getData();
+        denseLayer.forward(inputTensor);
+        denseLayer.backward(new Tensor(new double[][]{{0.1, 0.2, 0.3}}));
+        denseLayer.setDType(DType.FLOAT32);
+        assertEquals(DType.FLOAT32, denseLayer.getDType());
+        assertNull(denseLayer.getWeightGradients());
+        assertEquals((float) weights[1][2], denseLayer.getWeights().get(1, 2));
+        assertThrows(IllegalArgumentException.class, () -> denseLayer.forward(inputTensor));
+        assertThrows(IllegalArgumentException.class, () -> denseLayer.setDType(null));
+        assertThrows(IllegalArgumentException.class, () -> {
+            new DenseLayer(new Tensor(2, 3), new Tensor(1, 3, DType.FLOAT32));
+        });
+        assertEquals(DType.FLOAT32, new DenseLayer(4, 2, DType.FLOAT32).getWeights().getDType());
+    }
+
+    @Test
+    void testComputeDType() {
+        denseLayer.setComputeDType(DType.FLOAT32);
+        assertEquals(DType.FLOAT64, denseLayer.getDType());
+        assertThrows(IllegalArgumentException.class, () -> denseLayer.forward(inputTensor));
+        Tensor output = denseLayer.forward(inputTensor.toDType(DType.FLOAT32));
+        assertEquals(DType.FLOAT32, output.getDType());
+        denseLayer.backward(new Tensor(new double[][]{{0.1, 0.2, 0.3}}).toDType(DType.FLOAT32));
+        assertNull(denseLayer.getWeightGradients());
+
+        assertTrue(denseLayer.unscaleGradients(0.5));
+        Tensor weightGradients = denseLayer.getWeightGradients();
+        assertEquals(DType.FLOAT64, weightGradients.getDType());
+        assertEquals(0.5 * 2.0 * 0.3, weightGradients.get(1, 2), 1e-7);
+        assertEquals(0.5 * 0.2, denseLayer.getBiasGradients().get(0, 1), 1e-7);
+        assertFalse(denseLayer.unscaleGradients(Double.POSITIVE_INFINITY));
+
+        denseLayer.getWeights().set(0, 0, 1.0 + 1e-12);
+        denseLayer.refreshComputeParameters();
+        Tensor single = denseLayer.forward(new Tensor(new double[][]{{1.0, 0.0}}).toDType(DType.FLOAT32));
+        assertEquals(1.0f + (float) denseLayer.getBiases().get(0, 0), single.get(0, 0), 1e-6);
+    }
+
+    @Test
+    void testOffHeapParameters() {
+        try (OffHeapArena arena = new OffHeapArena()) {
+            DenseLayer direct = new DenseLayer(arena.copyOf(denseLayer.getWeights()),
+                    arena.copyOf(denseLayer.getBiases()));
+            Tensor gradient = new Tensor(new double[][]{{0.1, 0.2, 0.3}});
+            SgdOptimizer optimizer = new SgdOptimizer(0.1);
+            for (DenseLayer layer : new DenseLayer[]{denseLayer, direct}) {
+                layer.forward(inputTensor);
+                layer.backward(gradient);
+                layer.updateParameters(optimizer);
+            }
+            assertTrue(direct.getWeights().isOffHeap());
+            assertArrayEquals(denseLayer.getWeights().getData()[1], direct.getWeights().getData()[1], 1e-12);
+            assertArrayEquals(denseLayer.forward(inputTensor).getData()[0], direct.forward(inputTensor).getData()[0],
+                    1e-12);
+            arena.close();
+            assertThrows(IllegalStateException.class, () -> direct.forward(inputTensor));
+        }
+    }
+
+    @Test
+    void testOffHeapInputAndGradient() {
+        Tensor gradient = new Tensor(new double[][]{{0.1, 0.2, 0.3}, {-0.4, 0.5, 0.6}});
+        Tensor input = new Tensor(new double[][]{{1.0, -2.0}, {0.5, 3.0}});
+        for (DType dtype : DType.values()) {
+            try (OffHeapArena arena = new OffHeapArena()) {
+                DenseLayer heap = new DenseLayer(2, 3, dtype, new Random(4));
+                DenseLayer direct = new DenseLayer(2, 3, dtype, new Random(4));
+                heap.forward(input.toDType(dtype));
+                direct.forward(arena.copyOf(input.toDType(dtype)));
+                Tensor expected = heap.backward(gradient.toDType(dtype));
+                Tensor actual = direct.backward(arena.copyOf(gradient.toDType(dtype)));
+                for (int i = 0; i < 2; i++) {
+                    assertArrayEquals(expected.getData()[i], actual.getData()[i], 1e-6);
+                    assertArrayEquals(heap.getWeightGradients().getData()[i],
+                            direct.getWeightGradients().getData()[i], 1e-6);
+                }
+                assertArrayEquals(heap.getBiasGradients().getData()[0], direct.getBiasGradients().getData()[0], 1e-6);
+            }
+        }
+    }
+
+    @Test
+    void testComputePool() {
+        assertEquals(ForkJoinPool.commonPool(), denseLayer.getComputePool());
+        denseLayer.setComputePool(null);
+        assertNull(denseLayer.getComputePool());
+        assertNotNull(denseLayer.forward(inputTensor));
+    }
+
+    @Test
+    void testGetInputAndOutputSize() {
+        assertEquals(inputSize, denseLayer.getInputSize());
+        assertEquals(outputSize, denseLayer.getOutputSize());
+    }
+
     @Test
     void testUpdateParametersWithNullOptimizer() {
         assertThrows(IllegalArgumentException.class, () -> {
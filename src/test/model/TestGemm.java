@@ -0,0 +1,245 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+public class TestGemm {
+    private static final double DELTA = 1e-9;
+
+    @Test
+    void testSmallProduct() {
+        Tensor a = new Tensor(new double[][]{{1.0, 2.0}, {3.0, 4.0}});
+        Tensor b = new Tensor(new double[][]{{5.0, 6.0, 7.0}, {8.0, 9.0, 10.0}});
+        Tensor c = new Tensor(2, 3);
+        Gemm.multiply(a, false, b, false, c, false);
+        assertArrayEquals(new double[][]{{21.0, 24.0, 27.0}, {47.0, 54.0, 61.0}}, c.getData());
+    }
+
+    @Test
+    void testAccumulate() {
+        Tensor a = new Tensor(new double[][]{{1.0, 2.0}});
+        Tensor b = new Tensor(new double[][]{{3.0}, {4.0}});
+        Tensor c = new Tensor(new double[][]{{10.0}});
+        Gemm.multiply(a, false, b, false, c, true);
+        assertEquals(21.0, c.get(0, 0));
+        Gemm.multiply(a, false, b, false, c, false);
+        assertEquals(11.0, c.get(0, 0));
+    }
+
+    @Test
+    void testIncompatibleShapes() {
+        Tensor a = new Tensor(2, 3);
+        Tensor b = new Tensor(2, 3);
+        assertThrows(IllegalArgumentException.class, () -> {
+            Gemm.multiply(a, false, b, false, new Tensor(2, 3), false);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            Gemm.multiply(a, false, b, true, new Tensor(3, 3), false);
+        });
+    }
+
+    @Test
+    void testBlockedMatchesReferenceForAllTransposes() {
+        // Sizes straddle the micro-kernel and cache block boundaries
+        int[][] shapes = {{37, 45, 29}, {Gemm.MC + 3, Gemm.NR * 3 + 1, Gemm.KC + 5}, {9, Gemm.NC + 7, 70}};
+        Random rand = new Random(42);
+        for (int[] shape : shapes) {
+            for (int mode = 0; mode < 4; mode++) {
+                boolean transA = (mode & 1) != 0;
+                boolean transB = (mode & 2) != 0;
+                checkAgainstReference(rand, shape[0], shape[1], shape[2], transA, transB);
+            }
+        }
+    }
+
+    @Test
+    void testParallelMatchesSequential() {
+        // Tall, wide and square products exercise row, column and 2D tiling
+        int[][] shapes = {{1024, 24, 256}, {2, 2048, 600}, {200, 300, 160}};
+        Random rand = new Random(7);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int[] shape : shapes) {
+                for (int mode = 0; mode < 4; mode++) {
+                    boolean transA = (mode & 1) != 0;
+                    boolean transB = (mode & 2) != 0;
+                    int m = shape[0];
+                    int n = shape[1];
+                    int k = shape[2];
+                    Tensor a = randomTensor(rand, transA ? k : m, transA ? m : k);
+                    Tensor b = randomTensor(rand, transB ? n : k, transB ? k : n);
+                    Tensor sequential = new Tensor(m, n);
+                    Tensor parallel = new Tensor(m, n);
+                    Gemm.multiply(a, transA, b, transB, sequential, false);
+                    Gemm.multiply(a, transA, b, transB, parallel, false, pool);
+                    assertArrayEquals(sequential.array(), parallel.array(), DELTA);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testParallelWithIncompatibleShapes() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            assertThrows(IllegalArgumentException.class, () -> {
+                Gemm.multiply(new Tensor(512, 512), false, new Tensor(256, 512), false, new Tensor(512, 512), false,
+                        pool);
+            });
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testFloatMatchesDoubleForAllTransposes() {
+        int[][] shapes = {{37, 45, 29}, {FloatGemm.MC + 3, FloatGemm.NR * 3 + 1, FloatGemm.KC + 5},
+            {9, FloatGemm.NC + 7, 70}};
+        Random rand = new Random(13);
+        for (int[] shape : shapes) {
+            for (int mode = 0; mode < 4; mode++) {
+                boolean transA = (mode & 1) != 0;
+                boolean transB = (mode & 2) != 0;
+                int m = shape[0];
+                int n = shape[1];
+                int k = shape[2];
+                Tensor a = randomTensor(rand, transA ? k : m, transA ? m : k).toDType(DType.FLOAT32);
+                Tensor b = randomTensor(rand, transB ? n : k, transB ? k : n).toDType(DType.FLOAT32);
+                Tensor expected = new Tensor(m, n);
+                Tensor actual = new Tensor(m, n, DType.FLOAT32);
+                Gemm.multiply(a.toDType(DType.FLOAT64), transA, b.toDType(DType.FLOAT64), transB, expected, false);
+                Gemm.multiply(a, transA, b, transB, actual, false);
+                for (int i = 0; i < m; i++) {
+                    assertArrayEquals(expected.getData()[i], actual.getData()[i], 1e-4,
+                            "Mismatch at row " + i + " for " + m + "x" + n + "x" + k);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testOffHeapOperandsMatchHeap() {
+        Random rand = new Random(19);
+        try (OffHeapArena arena = new OffHeapArena()) {
+            for (DType dtype : DType.values()) {
+                for (int mode = 0; mode < 4; mode++) {
+                    boolean transA = (mode & 1) != 0;
+                    boolean transB = (mode & 2) != 0;
+                    Tensor a = randomTensor(rand, 70, 40).toDType(dtype);
+                    Tensor b = randomTensor(rand, transA == transB ? 40 : 70, transA == transB ? 70 : 40)
+                            .toDType(dtype);
+                    int m = transA ? 40 : 70;
+                    int n = transB ? b.getRows() : b.getCols();
+                    Tensor expected = new Tensor(m, n, dtype);
+                    Tensor actual = new Tensor(m, n, dtype);
+                    Gemm.multiply(a, transA, b, transB, expected, false);
+                    Gemm.multiply(arena.copyOf(a), transA, b, transB, actual, false);
+                    assertArrayEquals(expected.getData()[m - 1], actual.getData()[m - 1], 1e-4);
+                    Gemm.multiply(a, transA, arena.copyOf(b).sliceRows(0, b.getRows()), transB, actual, false);
+                    assertArrayEquals(expected.getData()[0], actual.getData()[0], 1e-4);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testFloatParallelMatchesSequential() {
+        Random rand = new Random(17);
+        Tensor a = randomTensor(rand, 300, 200).toDType(DType.FLOAT32);
+        Tensor b = randomTensor(rand, 200, 260).toDType(DType.FLOAT32);
+        Tensor sequential = new Tensor(300, 260, DType.FLOAT32);
+        Tensor parallel = new Tensor(300, 260, DType.FLOAT32);
+        Tensor sums = new Tensor(1, 200, DType.FLOAT32);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Gemm.multiply(a, false, b, false, sequential, false);
+            Gemm.multiply(a, false, b, false, parallel, false, pool);
+            Gemm.sumRows(a, sums, pool);
+        } finally {
+            pool.shutdown();
+        }
+        assertArrayEquals(sequential.floatArray(), parallel.floatArray(), 1e-5f);
+        double expected = 0;
+        for (int i = 0; i < 300; i++) {
+            expected += a.get(i, 7);
+        }
+        assertEquals(expected, sums.get(0, 7), 1e-3);
+    }
+
+    @Test
+    void testMismatchedDTypes() {
+        Tensor a = new Tensor(2, 3, DType.FLOAT32);
+        assertThrows(IllegalArgumentException.class, () -> {
+            Gemm.multiply(a, false, new Tensor(3, 2), false, new Tensor(2, 2), false);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            Gemm.sumRows(a, new Tensor(1, 3), null);
+        });
+    }
+
+    @Test
+    void testSumRows() {
+        Tensor a = new Tensor(new double[][]{{1.0, 2.0, 3.0}, {4.0, 5.0, 6.0}});
+        Tensor sums = new Tensor(new double[][]{{9.0, 9.0, 9.0}});
+        Gemm.sumRows(a, sums, null);
+        assertArrayEquals(new double[][]{{5.0, 7.0, 9.0}}, sums.getData());
+        assertThrows(IllegalArgumentException.class, () -> {
+            Gemm.sumRows(a, new Tensor(1, 2), null);
+        });
+    }
+
+    @Test
+    void testParallelSumRowsMatchesSequential() {
+        Tensor a = randomTensor(new Random(3), 4096, 700);
+        Tensor sequential = new Tensor(1, 700);
+        Tensor parallel = new Tensor(1, 700);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Gemm.sumRows(a, sequential, null);
+            Gemm.sumRows(a, parallel, pool);
+        } finally {
+            pool.shutdown();
+        }
+        assertArrayEquals(sequential.array(), parallel.array(), 0.0);
+    }
+
+    // Helper method comparing Gemm.multiply with a naive triple loop
+    private static void checkAgainstReference(Random rand, int m, int n, int k, boolean transA, boolean transB) {
+        Tensor a = randomTensor(rand, transA ? k : m, transA ? m : k);
+        Tensor b = randomTensor(rand, transB ? n : k, transB ? k : n);
+        Tensor c = randomTensor(rand, m, n);
+        double[][] expected = c.getData();
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                for (int p = 0; p < k; p++) {
+                    double av = transA ? a.get(p, i) : a.get(i, p);
+                    double bv = transB ? b.get(j, p) : b.get(p, j);
+                    expected[i][j] += av * bv;
+                }
+            }
+        }
+        Gemm.multiply(a, transA, b, transB, c, true);
+        for (int i = 0; i < m; i++) {
+            assertArrayEquals(expected[i], c.getData()[i], DELTA,
+                    "Mismatch at row " + i + " for " + m + "x" + n + "x" + k + " transA=" + transA
+                            + " transB=" + transB);
+        }
+    }
+
+    // Helper method to build a tensor of uniform random values
+    private static Tensor randomTensor(Random rand, int rows, int cols) {
+        Tensor tensor = new Tensor(rows, cols);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                tensor.set(i, j, rand.nextDouble() - 0.5);
+            }
+        }
+        return tensor;
+    }
+}
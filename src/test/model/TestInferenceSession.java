@@ -0,0 +1,118 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TestInferenceSession {
+    private NeuralNetwork network;
+
+    @BeforeEach
+    void runBefore() {
+        Random random = new Random(3);
+        network = new NeuralNetwork();
+        network.addLayer(new DenseLayer(8, 64, DType.FLOAT64, random));
+        network.addLayer(new ActivationLayer("relu"));
+        network.addLayer(new DenseLayer(64, 4, DType.FLOAT64, random));
+        network.addLayer(new ActivationLayer("sigmoid"));
+    }
+
+    @Test
+    void testPredictMatchesNetwork() {
+        InferenceSession session = network.newInferenceSession();
+        Tensor input = input(new Random(5), 3);
+        assertArrayEquals(network.predict(input).getData(), session.predict(input).getData());
+        assertEquals(DType.FLOAT64, session.getDType());
+        assertEquals(4, session.getLayerCount());
+    }
+
+    @Test
+    void testPredictAllMatchesSeparatePredictions() {
+        InferenceSession session = network.newInferenceSession();
+        Random random = new Random(13);
+        List<Tensor> inputs = List.of(input(random, 1), input(random, 3), input(random, 2));
+        List<Tensor> outputs = session.predictAll(inputs);
+        assertEquals(3, outputs.size());
+        for (int i = 0; i < inputs.size(); i++) {
+            assertArrayEquals(session.predict(inputs.get(i)).getData(), outputs.get(i).getData());
+        }
+        assertThrows(IllegalArgumentException.class, () -> session.predictAll(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> session.predictAll(null));
+        assertThrows(IllegalArgumentException.class,
+                () -> session.predictAll(List.of(input(random, 1), new Tensor(1, 3))));
+    }
+
+    @Test
+    void testConcurrentPredictionsMatchSequential() throws Exception {
+        InferenceSession session = new InferenceSession(network);
+        List<Tensor> inputs = new ArrayList<>();
+        List<double[][]> expected = new ArrayList<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 64; i++) {
+            Tensor input = input(random, 1 + i % 5);
+            inputs.add(input);
+            expected.add(session.predict(input).getData());
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            for (int round = 0; round < 20; round++) {
+                List<Future<double[][]>> results = new ArrayList<>();
+                for (Tensor input : inputs) {
+                    results.add(pool.submit(() -> session.predict(input).getData()));
+                }
+                for (int i = 0; i < inputs.size(); i++) {
+                    assertArrayEquals(expected.get(i), results.get(i).get());
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testSessionKeepsItsLayers() {
+        InferenceSession session = network.newInferenceSession();
+        Tensor input = input(new Random(9), 2);
+        double[][] before = session.predict(input).getData();
+        network.removeLayer(3);
+        assertArrayEquals(before, session.predict(input).getData());
+        assertEquals(4, session.getLayerCount());
+    }
+
+    @Test
+    void testMixedPrecision() {
+        network.setMixedPrecision(true);
+        InferenceSession session = network.newInferenceSession();
+        Tensor input = input(new Random(11), 2);
+        Tensor output = session.predict(input);
+        assertEquals(DType.FLOAT32, output.getDType());
+        assertArrayEquals(network.predict(input).getData(), output.getData());
+    }
+
+    @Test
+    void testInvalidArguments() {
+        InferenceSession session = network.newInferenceSession();
+        assertThrows(IllegalArgumentException.class, () -> new InferenceSession(null));
+        assertThrows(IllegalArgumentException.class, () -> session.predict(null));
+        assertThrows(IllegalArgumentException.class, () -> session.predict(new Tensor(1, 3)));
+    }
+
+    // Helper building a rows x 8 input of Gaussian values
+    private static Tensor input(Random random, int rows) {
+        Tensor input = new Tensor(rows, 8);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < 8; j++) {
+                input.set(i, j, random.nextGaussian());
+            }
+        }
+        return input;
+    }
+}
@@ -0,0 +1,200 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+// Checks the active kernels (vector kernels when the incubator module is enabled) against the
+// scalar reference, using lengths and offsets that leave a scalar tail
+public class TestKernels {
+    private static final double DELTA = 1e-12;
+    private static final int LEN = 37;
+    private static final int OFF = 3;
+
+    private Kernels active;
+    private Kernels scalar;
+    private double[] x;
+    private double[] y;
+
+    @BeforeEach
+    void runBefore() {
+        active = Kernels.active();
+        scalar = Kernels.scalar();
+        Random rand = new Random(11);
+        x = new double[LEN + OFF];
+        y = new double[LEN + OFF];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = rand.nextGaussian() * 4;
+            y[i] = rand.nextGaussian();
+        }
+        x[OFF] = 0.0;
+    }
+
+    @Test
+    void testName() {
+        assertEquals("scalar", scalar.name());
+        assertNotNull(active.name());
+    }
+
+    @Test
+    void testAddAndMultiply() {
+        double[] expected = x.clone();
+        double[] actual = x.clone();
+        scalar.add(expected, OFF, y, 0, LEN);
+        active.add(actual, OFF, y, 0, LEN);
+        assertArrayEquals(expected, actual, DELTA);
+
+        scalar.multiply(expected, 0, y, OFF, LEN);
+        active.multiply(actual, 0, y, OFF, LEN);
+        assertArrayEquals(expected, actual, DELTA);
+    }
+
+    @Test
+    void testActivations() {
+        double[] expected = new double[LEN];
+        double[] actual = new double[LEN];
+        scalar.relu(x, OFF, expected, 0, LEN);
+        active.relu(x, OFF, actual, 0, LEN);
+        assertArrayEquals(expected, actual, DELTA);
+
+        scalar.reluBackward(x, OFF, y, 0, expected, 0, LEN);
+        active.reluBackward(x, OFF, y, 0, actual, 0, LEN);
+        assertArrayEquals(expected, actual, DELTA);
+
+        scalar.sigmoid(x, OFF, expected, 0, LEN);
+        active.sigmoid(x, OFF, actual, 0, LEN);
+        assertArrayEquals(expected, actual, DELTA);
+
+        scalar.sigmoidBackward(x, OFF, y, 0, expected, 0, LEN);
+        active.sigmoidBackward(x, OFF, y, 0, actual, 0, LEN);
+        assertArrayEquals(expected, actual, DELTA);
+    }
+
+    @Test
+    void testLossKernels() {
+        assertEquals(scalar.sumSquaredDifference(x, OFF, y, 0, LEN),
+                active.sumSquaredDifference(x, OFF, y, 0, LEN), 1e-9);
+
+        double[] expected = new double[LEN];
+        double[] actual = new double[LEN];
+        scalar.scaledDifference(x, OFF, y, 0, 74, expected, 0, LEN);
+        active.scaledDifference(x, OFF, y, 0, 74, actual, 0, LEN);
+        assertArrayEquals(expected, actual, DELTA);
+    }
+
+    @Test
+    void testFloatKernels() {
+        float[] fx = toFloat(x);
+        float[] fy = toFloat(y);
+        float[] expected = fx.clone();
+        float[] actual = fx.clone();
+        scalar.add(expected, OFF, fy, 0, LEN);
+        active.add(actual, OFF, fy, 0, LEN);
+        scalar.multiply(expected, 0, fy, OFF, LEN);
+        active.multiply(actual, 0, fy, OFF, LEN);
+        assertArrayEquals(expected, actual, 1e-6f);
+
+        expected = new float[LEN];
+        actual = new float[LEN];
+        scalar.reluBackward(fx, OFF, fy, 0, expected, 0, LEN);
+        active.reluBackward(fx, OFF, fy, 0, actual, 0, LEN);
+        assertArrayEquals(expected, actual, 0f);
+        scalar.sigmoidBackward(fx, OFF, fy, 0, expected, 0, LEN);
+        active.sigmoidBackward(fx, OFF, fy, 0, actual, 0, LEN);
+        assertArrayEquals(expected, actual, 1e-6f);
+        scalar.scaledDifference(fx, OFF, fy, 0, 74, expected, 0, LEN);
+        active.scaledDifference(fx, OFF, fy, 0, 74, actual, 0, LEN);
+        assertArrayEquals(expected, actual, 1e-6f);
+
+        double reference = scalar.sumSquaredDifference(x, OFF, y, 0, LEN);
+        assertEquals(reference, scalar.sumSquaredDifference(fx, OFF, fy, 0, LEN), reference * 1e-6);
+        assertEquals(reference, active.sumSquaredDifference(fx, OFF, fy, 0, LEN), reference * 1e-6);
+    }
+
+    @Test
+    void testFloatSumSquaredDifferenceKeepsDoublePrecision() {
+        float[] fx = new float[1 << 20];
+        float[] fy = new float[fx.length];
+        Random rand = new Random(12);
+        for (int i = 0; i < fx.length; i++) {
+            fx[i] = (float) rand.nextGaussian();
+        }
+        double expected = scalar.sumSquaredDifference(fx, 0, fy, 0, fx.length);
+        assertEquals(expected, active.sumSquaredDifference(fx, 0, fy, 0, fx.length), expected * 1e-12);
+    }
+
+    @Test
+    void testFloatActivationsMatchDouble() {
+        double[] reference = new double[LEN];
+        float[] actual = new float[LEN];
+        active.relu(toFloat(x), OFF, actual, 0, LEN);
+        scalar.relu(x, OFF, reference, 0, LEN);
+        assertArrayEquals(toFloat(reference), actual, 0f);
+        active.sigmoid(toFloat(x), OFF, actual, 0, LEN);
+        scalar.sigmoid(x, OFF, reference, 0, LEN);
+        assertArrayEquals(toFloat(reference), actual, 1e-6f);
+    }
+
+    @Test
+    void testFloatGemmMicroKernel() {
+        int kc = 19;
+        Random rand = new Random(5);
+        float[] packedA = new float[kc * FloatGemm.MR];
+        float[] packedB = new float[kc * FloatGemm.NR];
+        for (int i = 0; i < packedA.length; i++) {
+            packedA[i] = rand.nextFloat();
+        }
+        for (int i = 0; i < packedB.length; i++) {
+            packedB[i] = rand.nextFloat();
+        }
+        int ldc = FloatGemm.NR + 2;
+        float[] expected = new float[FloatGemm.MR * ldc];
+        float[] actual = new float[FloatGemm.MR * ldc];
+        for (int r = 0; r < FloatGemm.MR; r++) {
+            for (int s = 0; s < FloatGemm.NR; s++) {
+                for (int p = 0; p < kc; p++) {
+                    expected[1 + r * ldc + s] += packedA[p * FloatGemm.MR + r] * packedB[p * FloatGemm.NR + s];
+                }
+            }
+        }
+        scalar.gemmMicroKernel(packedA, 0, packedB, 0, kc, actual, 1, ldc);
+        assertArrayEquals(expected, actual, 1e-4f);
+        actual = new float[FloatGemm.MR * ldc];
+        active.gemmMicroKernel(packedA, 0, packedB, 0, kc, actual, 1, ldc);
+        assertArrayEquals(expected, actual, 1e-4f);
+    }
+
+    @Test
+    void testGemmMicroKernel() {
+        int kc = 19;
+        Random rand = new Random(5);
+        double[] packedA = new double[kc * Gemm.MR];
+        double[] packedB = new double[kc * Gemm.NR];
+        for (int i = 0; i < packedA.length; i++) {
+            packedA[i] = rand.nextDouble();
+        }
+        for (int i = 0; i < packedB.length; i++) {
+            packedB[i] = rand.nextDouble();
+        }
+        int ldc = Gemm.NR + 2;
+        double[] expected = new double[Gemm.MR * ldc];
+        double[] actual = new double[Gemm.MR * ldc];
+        expected[1] = 1.0;
+        actual[1] = 1.0;
+        scalar.gemmMicroKernel(packedA, 0, packedB, 0, kc, expected, 1, ldc);
+        active.gemmMicroKernel(packedA, 0, packedB, 0, kc, actual, 1, ldc);
+        assertArrayEquals(expected, actual, 1e-9);
+    }
+
+    // Helper method rounding values to float
+    private static float[] toFloat(double[] values) {
+        float[] result = new float[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = (float) values[i];
+        }
+        return result;
+    }
+}
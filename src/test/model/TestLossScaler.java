@@ -0,0 +1,51 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class TestLossScaler {
+
+    @Test
+    void testDefaults() {
+        LossScaler scaler = new LossScaler();
+        assertEquals(65536.0, scaler.getScale());
+        assertEquals(0, scaler.getSkippedSteps());
+    }
+
+    @Test
+    void testGrowthAndBackoff() {
+        LossScaler scaler = new LossScaler(8.0, 3);
+        scaler.update(true);
+        scaler.update(true);
+        assertEquals(8.0, scaler.getScale());
+        scaler.update(true);
+        assertEquals(16.0, scaler.getScale());
+
+        scaler.update(true);
+        scaler.update(false);
+        assertEquals(8.0, scaler.getScale());
+        assertEquals(1, scaler.getSkippedSteps());
+        scaler.update(true);
+        scaler.update(true);
+        assertEquals(8.0, scaler.getScale()); // The count of good steps restarts after an overflow
+    }
+
+    @Test
+    void testScaleNeverDropsBelowOne() {
+        LossScaler scaler = new LossScaler(2.0, 100);
+        scaler.update(false);
+        scaler.update(false);
+        scaler.update(false);
+        assertEquals(1.0, scaler.getScale());
+        assertEquals(3, scaler.getSkippedSteps());
+    }
+
+    @Test
+    void testInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new LossScaler(0.5, 10));
+        assertThrows(IllegalArgumentException.class, () -> new LossScaler(Double.NaN, 10));
+        assertThrows(IllegalArgumentException.class, () -> new LossScaler(Double.POSITIVE_INFINITY, 10));
+        assertThrows(IllegalArgumentException.class, () -> new LossScaler(2.0, 0));
+    }
+}
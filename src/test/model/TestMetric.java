@@ -46,6 +46,40 @@ public class TestMetric {
         });
     }
 
+    @Test
+    void testFloat32Loss() {
+        Tensor output = new Tensor(new double[][]{{0.8, 0.1}, {0.3, 0.6}});
+        Tensor target = new Tensor(new double[][]{{1.0, 0.0}, {0.0, 1.0}});
+        Tensor singleOutput = output.toDType(DType.FLOAT32);
+        Tensor singleTarget = target.toDType(DType.FLOAT32);
+        assertEquals(metric.calculateLoss(output, target), metric.calculateLoss(singleOutput, singleTarget), 1e-6);
+        Tensor gradient = metric.lossGradient(singleOutput, singleTarget);
+        assertEquals(DType.FLOAT32, gradient.getDType());
+        assertArrayEquals(metric.lossGradient(output, target).getData()[1], gradient.getData()[1], 1e-6);
+        assertEquals(1.0, metric.calculateAccuracy(singleOutput, singleTarget));
+        assertThrows(IllegalArgumentException.class, () -> metric.calculateLoss(singleOutput, target));
+    }
+
+    @Test
+    void testOffHeapTensors() {
+        Tensor output = new Tensor(new double[][]{{0.8, 0.1}, {0.3, 0.6}});
+        Tensor target = new Tensor(new double[][]{{1.0, 0.0}, {0.0, 1.0}});
+        for (DType dtype : DType.values()) {
+            Tensor heapOutput = output.toDType(dtype);
+            Tensor heapTarget = target.toDType(dtype);
+            Tensor directOutput = Tensor.allocateDirect(2, 2, dtype);
+            Tensor directTarget = Tensor.allocateDirect(2, 2, dtype);
+            directOutput.copyFrom(output);
+            directTarget.copyFrom(target);
+            double loss = metric.calculateLoss(heapOutput, heapTarget);
+            assertEquals(loss, metric.calculateLoss(heapOutput, directTarget));
+            assertEquals(loss, metric.calculateLoss(directOutput, directTarget));
+            double[][] gradient = metric.lossGradient(heapOutput, heapTarget).getData();
+            assertArrayEquals(gradient, metric.lossGradient(heapOutput, directTarget).getData());
+            assertArrayEquals(gradient, metric.lossGradient(directOutput, directTarget).getData());
+        }
+    }
+
     @Test
     void testCalculateAccuracy() {
         double accuracy = metric.calculateAccuracy(outputTensor, targetTensor);
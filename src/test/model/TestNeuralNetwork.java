@@ -5,9 +5,14 @@ import static org.junit.jupiter.api.Assertions.*;
 import org.json.JSONObject;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 public class TestNeuralNetwork {
     private NeuralNetwork network;
@@ -92,6 +97,47 @@ public class TestNeuralNetwork {
         assertNotNull(outputTensor);
     }
 
+    @Test
+    void testPredictionCache() {
+        PredictionCache cache = new PredictionCache(100, 1 << 20);
+        network.setPredictionCache(cache);
+        assertSame(cache, network.getPredictionCache());
+        double[][] first = network.predict(inputTensor).getData();
+        assertArrayEquals(first, network.predict(inputTensor).getData());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        network.train(List.of(inputTensor), List.of(new Tensor(new double[][]{{5.0}})), 1, new SgdOptimizer(0.1));
+        assertEquals(0, cache.size());
+        double[][] trained = network.predict(inputTensor).getData();
+        assertNotEquals(first[0][0], trained[0][0]);
+        assertEquals(2, cache.getMissCount());
+
+        network.setPredictionCache(null);
+        network.predict(inputTensor);
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    void testPredictionCacheInvalidatedByLayerChanges() {
+        PredictionCache cache = new PredictionCache(100, 1 << 20);
+        network.setPredictionCache(cache);
+        network.predict(inputTensor);
+        network.addLayer(new ActivationLayer("sigmoid"));
+        assertEquals(0, cache.size());
+        network.predict(inputTensor);
+        network.updateLayer(3, new ActivationLayer("relu"));
+        assertEquals(0, cache.size());
+        network.predict(inputTensor);
+        network.removeLayer(3);
+        assertEquals(0, cache.size());
+        network.predict(inputTensor);
+        network.setDType(DType.FLOAT32);
+        assertEquals(0, cache.size());
+        assertEquals(4, cache.getMissCount());
+        assertEquals(0, cache.getHitCount());
+    }
+
     @Test
     void testPredictWithNullInput() {
         assertThrows(IllegalArgumentException.class, () -> {
@@ -113,6 +159,67 @@ public class TestNeuralNetwork {
         });
     }
 
+    @Test
+    void testTrainTakesOneStepPerBatchPerEpoch() {
+        List<Tensor> inputs = new ArrayList<>();
+        List<Tensor> targets = new ArrayList<>();
+        inputs.add(inputTensor);
+        inputs.add(new Tensor(new double[][]{{0.5, -1.0}}));
+        targets.add(new Tensor(new double[][]{{1.0}}));
+        targets.add(new Tensor(new double[][]{{0.0}}));
+        int[] updates = new int[1];
+        Optimizer optimizer = new SgdOptimizer(0.01) {
+            @Override
+            public void updateParameters(Layer layer) {
+                updates[0]++;
+                super.updateParameters(layer);
+            }
+        };
+
+        network.train(inputs, targets, 3, optimizer);
+        // Two dense layers are updated per step, for two batches in each of three epochs
+        assertEquals(2 * 2 * 3, updates[0]);
+
+        updates[0] = 0;
+        Tensor rows = new Tensor(new double[][]{{1.0, 2.0}, {0.5, -1.0}, {2.0, 0.0}});
+        network.train(rows, new Tensor(3, 1), 2, 3, optimizer);
+        assertEquals(2 * 2 * 3, updates[0]);
+    }
+
+    @Test
+    void testSteadyStateTrainingStepAllocatesNothing() {
+        AllocationCounter counter = new AllocationCounter();
+        NeuralNetwork mlp = new NeuralNetwork();
+        mlp.addLayer(new DenseLayer(64, 64));
+        mlp.addLayer(new ActivationLayer("sigmoid"));
+        mlp.addLayer(new DenseLayer(64, 8));
+        Tensor input = new Tensor(32, 64);
+        Tensor target = new Tensor(32, 8);
+        Optimizer optimizer = new SgdOptimizer(0.01);
+        Metric metric = new Metric();
+
+        // Steady state is reached once the JIT has compiled the step (the Vector API kernels box
+        // their vectors until then). The bound allows for a one-off allocation by the JVM during
+        // the window, but not for a single object allocated by every step
+        Runnable steps = () -> {
+            for (int i = 0; i < 500; i++) {
+                mlp.trainBatch(input, target, optimizer, metric);
+            }
+        };
+        for (int round = 0; round < 6; round++) {
+            steps.run();
+        }
+        long allocated = counter.bytesAllocatedBy(steps);
+        assertTrue(allocated < 4096, "Allocated " + allocated + " bytes in 500 steps");
+
+        // Outside of training, results are fresh tensors that later calls do not overwrite
+        Tensor first = mlp.predict(input);
+        double[][] firstData = first.getData();
+        mlp.predict(new Tensor(32, 64));
+        mlp.trainBatch(input, target, optimizer, metric);
+        assertArrayEquals(firstData, first.getData());
+    }
+
     @Test
     void testTrainWithNullInputs() {
         List<Tensor> targets = new ArrayList<>();
@@ -165,6 +272,197 @@ public class TestNeuralNetwork {
         });
     }
 
+    @Test
+    void testTrainMiniBatches() {
+        Tensor inputs = new Tensor(new double[][]{{1.0, 2.0}, {0.5, -1.0}, {2.0, 0.0}, {-1.0, 1.0}, {0.0, 3.0}});
+        Tensor targets = new Tensor(new double[][]{{1.0}, {0.0}, {2.0}, {-1.0}, {3.0}});
+        double[][] inputsBefore = inputs.getData();
+        List<Double> losses = new ArrayList<>();
+        network.setTrainingListener((epoch, totalEpochs, loss) -> losses.add(loss));
+        network.setShuffleSeed(1L);
+
+        network.train(inputs, targets, 2, 4, new SgdOptimizer(0.01));
+
+        assertEquals(4, losses.size());
+        assertArrayEquals(inputsBefore, inputs.getData());
+        assertEquals(5, network.predict(inputs).getRows());
+    }
+
+    @Test
+    void testTrainIsReproducibleWithShuffleSeed() {
+        NeuralNetwork copy = NeuralNetwork.fromJson(network.toJson());
+        Tensor inputs = new Tensor(new double[][]{{1.0, 2.0}, {0.5, -1.0}, {2.0, 0.0}, {-1.0, 1.0}});
+        Tensor targets = new Tensor(new double[][]{{1.0}, {0.0}, {2.0}, {-1.0}});
+        network.setShuffleSeed(42L);
+        copy.setShuffleSeed(42L);
+
+        network.train(inputs, targets, 1, 3, new SgdOptimizer(0.05));
+        copy.train(inputs, targets, 1, 3, new SgdOptimizer(0.05));
+
+        assertArrayEquals(copy.predict(inputs).getData(), network.predict(inputs).getData());
+    }
+
+    @Test
+    void testActivationFirstNetworkTrainsOnOffHeapTensors() {
+        NeuralNetwork heap = new NeuralNetwork();
+        heap.addLayer(new ActivationLayer("sigmoid"));
+        heap.addLayer(new DenseLayer(2, 1));
+        NeuralNetwork direct = NeuralNetwork.fromJson(heap.toJson());
+        Tensor inputs = new Tensor(new double[][]{{1.0, 2.0}, {0.5, -1.0}, {2.0, 0.0}, {-1.0, 1.0}});
+        Tensor targets = new Tensor(new double[][]{{1.0}, {0.0}, {2.0}, {-1.0}});
+        Tensor directInputs = Tensor.allocateDirect(4, 2, DType.FLOAT64);
+        Tensor directTargets = Tensor.allocateDirect(4, 1, DType.FLOAT64);
+        directInputs.copyFrom(inputs);
+        directTargets.copyFrom(targets);
+        heap.setShuffleSeed(7L);
+        direct.setShuffleSeed(7L);
+
+        heap.train(inputs, targets, 2, 3, new SgdOptimizer(0.05));
+        direct.train(directInputs, directTargets, 2, 3, new SgdOptimizer(0.05));
+        direct.trainBatch(directInputs, directTargets, new SgdOptimizer(0.05), new Metric());
+        heap.trainBatch(inputs, targets, new SgdOptimizer(0.05), new Metric());
+
+        assertArrayEquals(heap.predict(inputs).getData(), direct.predict(directInputs).getData());
+    }
+
+    @Test
+    void testFloat32Training() {
+        NeuralNetwork single = NeuralNetwork.fromJson(network.toJson(), DType.FLOAT32);
+        assertEquals(DType.FLOAT32, single.getDType());
+        Tensor inputs = new Tensor(new double[][]{{1.0, 2.0}, {0.5, -1.0}, {2.0, 0.0}, {-1.0, 1.0}});
+        Tensor targets = new Tensor(new double[][]{{1.0}, {0.0}, {2.0}, {-1.0}});
+        network.setShuffleSeed(3L);
+        single.setShuffleSeed(3L);
+
+        network.train(inputs, targets, 2, 5, new SgdOptimizer(0.05));
+        single.train(inputs, targets, 2, 5, new SgdOptimizer(0.05));
+
+        Tensor expected = network.predict(inputs);
+        Tensor actual = single.predict(inputs);
+        assertEquals(DType.FLOAT32, actual.getDType());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(expected.get(i, 0), actual.get(i, 0), 1e-4);
+        }
+    }
+
+    @Test
+    void testSetDType() {
+        network.setDType(DType.FLOAT32);
+        assertEquals(DType.FLOAT32, ((DenseLayer) network.getLayers().get(0)).getDType());
+        network.addLayer(new DenseLayer(1, 2));
+        assertEquals(DType.FLOAT32, ((DenseLayer) network.getLayers().get(3)).getDType());
+        assertEquals(DType.FLOAT32, network.predict(inputTensor).getDType());
+
+        JSONObject json = network.toJson();
+        assertEquals("FLOAT32", json.getString("dtype"));
+        assertEquals(DType.FLOAT32, NeuralNetwork.fromJson(json).getDType());
+        assertEquals(DType.FLOAT64, NeuralNetwork.fromJson(json, DType.FLOAT64).getDType());
+        assertThrows(IllegalArgumentException.class, () -> network.setDType(null));
+    }
+
+    @Test
+    void testMixedPrecisionTraining() {
+        NeuralNetwork mixed = NeuralNetwork.fromJson(network.toJson());
+        mixed.setMixedPrecision(true);
+        assertTrue(mixed.isMixedPrecision());
+        assertEquals(DType.FLOAT32, mixed.getComputeDType());
+        Tensor inputs = new Tensor(new double[][]{{1.0, 2.0}, {0.5, -1.0}, {2.0, 0.0}, {-1.0, 1.0}});
+        Tensor targets = new Tensor(new double[][]{{1.0}, {0.0}, {2.0}, {-1.0}});
+        network.setShuffleSeed(3L);
+        mixed.setShuffleSeed(3L);
+
+        network.train(inputs, targets, 2, 5, new SgdOptimizer(0.05));
+        mixed.train(inputs, targets, 2, 5, new SgdOptimizer(0.05));
+
+        assertEquals(DType.FLOAT64, ((DenseLayer) mixed.getLayers().get(0)).getWeights().getDType());
+        assertEquals(0, mixed.getLossScaler().getSkippedSteps());
+        Tensor expected = network.predict(inputs);
+        Tensor actual = mixed.predict(inputs);
+        assertEquals(DType.FLOAT32, actual.getDType());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(expected.get(i, 0), actual.get(i, 0), 1e-4);
+        }
+
+        mixed.setMixedPrecision(false);
+        assertEquals(DType.FLOAT64, mixed.predict(inputs).getDType());
+    }
+
+    @Test
+    void testMixedPrecisionKeepsSmallUpdates() {
+        Tensor input = new Tensor(new double[][]{{1.0}});
+        Tensor target = new Tensor(new double[][]{{1000.0 + 1e-3}});
+        NeuralNetwork mixed = new NeuralNetwork();
+        mixed.addLayer(new DenseLayer(new Tensor(new double[][]{{1000.0}}), new Tensor(1, 1)));
+        mixed.setMixedPrecision(true);
+        NeuralNetwork single = NeuralNetwork.fromJson(mixed.toJson(), DType.FLOAT32);
+
+        // Each step moves the weight by about 2e-7, far below the float32 spacing of 6e-5 at 1000
+        for (int i = 0; i < 100; i++) {
+            mixed.train(input, target, 1, 1, new SgdOptimizer(1e-4));
+            single.train(input, target, 1, 1, new SgdOptimizer(1e-4));
+        }
+        double master = ((DenseLayer) mixed.getLayers().get(0)).getWeights().get(0, 0);
+        assertTrue(master > 1000.0 + 1e-5);
+        assertEquals(1000.0, ((DenseLayer) single.getLayers().get(0)).getWeights().get(0, 0));
+    }
+
+    @Test
+    void testMixedPrecisionSkipsOverflowingSteps() {
+        network.setMixedPrecision(true);
+        network.setLossScaler(new LossScaler(1e38, 10));
+        DenseLayer first = (DenseLayer) network.getLayers().get(0);
+        double[][] before = first.getWeights().getData();
+        Tensor target = new Tensor(new double[][]{{100.0}});
+
+        network.train(inputTensor, target, 1, 1, new SgdOptimizer(0.1));
+        assertArrayEquals(before, first.getWeights().getData());
+        assertEquals(1, network.getLossScaler().getSkippedSteps());
+        assertEquals(5e37, network.getLossScaler().getScale());
+        assertThrows(IllegalArgumentException.class, () -> network.setLossScaler(null));
+    }
+
+    @Test
+    void testTrainWithDataLoader() {
+        Tensor inputs = new Tensor(new double[][]{{1.0, 2.0}, {0.5, -1.0}, {2.0, 0.0}, {-1.0, 1.0}, {0.0, 3.0}});
+        Tensor targets = new Tensor(new double[][]{{1.0}, {0.0}, {2.0}, {-1.0}, {3.0}});
+        NeuralNetwork copy = NeuralNetwork.fromJson(network.toJson());
+        List<Double> losses = new ArrayList<>();
+        network.setTrainingListener((epoch, totalEpochs, loss) -> losses.add(loss));
+
+        // Unshuffled loader batches match the tensor overload's batches when there is a single batch
+        try (DataLoader loader = new DataLoader(new TensorDataset(inputs, targets), 5, false, false, 2, 2)) {
+            network.train(loader, 3, new SgdOptimizer(0.05));
+        }
+        copy.train(inputs, targets, 5, 3, new SgdOptimizer(0.05));
+
+        assertEquals(3, losses.size());
+        assertArrayEquals(copy.predict(inputs).getData(), network.predict(inputs).getData());
+        assertThrows(IllegalArgumentException.class, () -> {
+            network.train((DataLoader) null, 1, new SgdOptimizer(0.05));
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            network.train(new DataLoader(new TensorDataset(inputs, targets), 2), 0, new SgdOptimizer(0.05));
+        });
+    }
+
+    @Test
+    void testTrainWithInvalidBatchParameters() {
+        Tensor targets = new Tensor(new double[][]{{1.0}});
+        Optimizer optimizer = new SgdOptimizer(0.01);
+        assertThrows(IllegalArgumentException.class, () -> {
+            network.train(inputTensor, targets, 0, 1, optimizer);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            network.train(inputTensor, targets, 1, 0, optimizer);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            network.train(inputTensor, new Tensor(2, 1), 1, 1, optimizer);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            network.train((Tensor) null, targets, 1, 1, optimizer);
+        });
+    }
+
     @Test
     void testGetArchitecture() {
         String architecture = network.getArchitecture();
@@ -265,6 +563,143 @@ public class TestNeuralNetwork {
         }
     }
 
+    @Test
+    void testResumeMatchesUninterruptedRun(@TempDir Path dir) throws Exception {
+        Tensor inputs = resumeInputs();
+        Tensor targets = inputs.sliceRows(0, inputs.getRows()); // Learn the identity
+        NeuralNetwork uninterrupted = seededNetwork();
+        uninterrupted.train(inputs, targets, 2, 3, new SgdOptimizer(0.1));
+
+        // Mid-epoch (step 7 is batch 2 of epoch 2) and end-of-epoch (step 10) checkpoints; at most
+        // two are due per run, so neither waits for a free snapshot
+        for (int step : new int[]{7, 10, 14, 15}) {
+            NeuralNetwork checkpointed = seededNetwork();
+            try (CheckpointPolicy policy = new CheckpointPolicy(dir.resolve("run" + step), step, 0, 2)) {
+                checkpointed.setCheckpointPolicy(policy);
+                checkpointed.train(inputs, targets, 2, 3, new SgdOptimizer(0.1));
+            }
+            SgdOptimizer optimizer = new SgdOptimizer(0.5);
+            Path checkpoint = dir.resolve("run" + step).resolve(String.format("checkpoint-%010d.ckpt", step));
+            NeuralNetwork resumed = NeuralNetwork.resume(checkpoint.toString(), optimizer);
+            assertEquals(step, resumed.getStepCount());
+            assertEquals(0.1, optimizer.getLearningRate());
+            resumed.train(inputs, targets, 2, 3, optimizer);
+            assertEquals(15, resumed.getStepCount());
+            assert2dArrayEquals(uninterrupted.predict(inputs).getData(), resumed.predict(inputs).getData(), 0.0);
+        }
+    }
+
+    @Test
+    void testResumeListTrainingAndMixedPrecision(@TempDir Path dir) throws Exception {
+        List<Tensor> batches = List.of(resumeInputs().sliceRows(0, 5), resumeInputs().sliceRows(5, 10));
+        NeuralNetwork checkpointed = seededNetwork();
+        checkpointed.setMixedPrecision(true);
+        checkpointed.setLossScaler(new LossScaler(1024, 3));
+        try (CheckpointPolicy policy = new CheckpointPolicy(dir, 3, 0, 1)) {
+            checkpointed.setCheckpointPolicy(policy);
+            checkpointed.train(batches, batches, 2, new SgdOptimizer(0.1));
+        }
+        NeuralNetwork resumed = NeuralNetwork.resume(dir.resolve("checkpoint-0000000003.ckpt").toString(),
+                new SgdOptimizer(0.1));
+        assertTrue(resumed.isMixedPrecision());
+        assertEquals(2048.0, resumed.getLossScaler().getScale());
+        resumed.train(batches, batches, 2, new SgdOptimizer(0.1));
+        assert2dArrayEquals(checkpointed.predict(batches.get(0)).getData(), resumed.predict(batches.get(0)).getData(),
+                0.0);
+    }
+
+    @Test
+    void testResumeRejectsInvalidState(@TempDir Path dir) throws Exception {
+        Tensor inputs = resumeInputs();
+        Path plain = dir.resolve("plain.ckpt");
+        new persistence.CheckpointWriter(plain.toString()).write(network);
+        assertThrows(IOException.class, () -> NeuralNetwork.resume(plain.toString(), new SgdOptimizer(0.1)));
+
+        NeuralNetwork checkpointed = seededNetwork();
+        try (CheckpointPolicy policy = new CheckpointPolicy(dir, 3, 0, 1)) {
+            checkpointed.setCheckpointPolicy(policy);
+            checkpointed.train(inputs, inputs, 2, 1, new SgdOptimizer(0.1));
+        }
+        String checkpoint = dir.resolve("checkpoint-0000000003.ckpt").toString();
+        NeuralNetwork resumed = NeuralNetwork.resume(checkpoint, new SgdOptimizer(0.1));
+        assertThrows(IllegalArgumentException.class, () -> resumed.train(inputs, inputs, 3, 1, new SgdOptimizer(0.1)));
+    }
+
+    // Helper method building a 3-4-3 network with seeded initialization and batch order
+    private static NeuralNetwork seededNetwork() {
+        Random random = new Random(42);
+        NeuralNetwork nn = new NeuralNetwork();
+        nn.addLayer(new DenseLayer(3, 4, DType.FLOAT64, random));
+        nn.addLayer(new ActivationLayer("sigmoid"));
+        nn.addLayer(new DenseLayer(4, 3, DType.FLOAT64, random));
+        nn.setShuffleSeed(7);
+        return nn;
+    }
+
+    @Test
+    void testDataParallelMatchesSingleThread() {
+        Tensor inputs = new Tensor(30, 3);
+        for (int i = 0; i < 30; i++) {
+            for (int j = 0; j < 3; j++) {
+                inputs.set(i, j, Math.sin(i * 3 + j));
+            }
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int shards : new int[]{2, 3, 4, 16}) {
+                NeuralNetwork single = seededNetwork();
+                NeuralNetwork parallel = seededNetwork();
+                parallel.setDataParallelism(shards, pool);
+                assertEquals(shards, parallel.getDataParallelism());
+                single.train(inputs, inputs, 7, 3, new SgdOptimizer(0.5));
+                parallel.train(inputs, inputs, 7, 3, new SgdOptimizer(0.5));
+                for (int i = 0; i < 3; i += 2) {
+                    DenseLayer expected = (DenseLayer) single.getLayers().get(i);
+                    DenseLayer actual = (DenseLayer) parallel.getLayers().get(i);
+                    assert2dArrayEquals(expected.getWeights().getData(), actual.getWeights().getData(), 1e-12);
+                    assert2dArrayEquals(expected.getBiases().getData(), actual.getBiases().getData(), 1e-12);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testDataParallelFollowsLayerChanges() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            NeuralNetwork single = seededNetwork();
+            NeuralNetwork parallel = seededNetwork();
+            parallel.setDataParallelism(2, pool);
+            for (NeuralNetwork nn : List.of(single, parallel)) {
+                nn.train(resumeInputs(), resumeInputs(), 2, 1, new SgdOptimizer(0.5));
+                nn.updateLayer(1, new ActivationLayer("relu"));
+                nn.setMixedPrecision(true);
+                nn.train(resumeInputs(), resumeInputs(), 5, 2, new SgdOptimizer(0.5));
+            }
+            Tensor probe = resumeInputs();
+            assert2dArrayEquals(single.predict(probe).getData(), parallel.predict(probe).getData(), 1e-6);
+            parallel.setDataParallelism(1, null);
+            assertEquals(1, parallel.getDataParallelism());
+        } finally {
+            pool.shutdown();
+        }
+        assertThrows(IllegalArgumentException.class, () -> network.setDataParallelism(0, ForkJoinPool.commonPool()));
+        assertThrows(IllegalArgumentException.class, () -> network.setDataParallelism(2, null));
+    }
+
+    // Helper method returning 10 rows of 3 features, i.e. 5 batches of 2
+    private static Tensor resumeInputs() {
+        Tensor inputs = new Tensor(10, 3);
+        for (int i = 0; i < 10; i++) {
+            for (int j = 0; j < 3; j++) {
+                inputs.set(i, j, Math.sin(i * 3 + j));
+            }
+        }
+        return inputs;
+    }
+
     // Helper method
     private static void assert2dArrayEquals(double[][] expected, double[][] actual, double delta) {
         assertEquals(expected.length, actual.length, "Row count mismatch");
@@ -0,0 +1,56 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class TestOffHeapArena {
+
+    @Test
+    void testAllocate() {
+        try (OffHeapArena arena = new OffHeapArena()) {
+            Tensor doubles = arena.allocate(4, 8, DType.FLOAT64);
+            Tensor floats = arena.allocate(2, 3, DType.FLOAT32);
+            assertTrue(doubles.isOffHeap());
+            assertEquals(DType.FLOAT32, floats.getDType());
+            assertEquals(0.0, doubles.get(3, 7));
+            assertEquals(4 * 8 * 8 + 2 * 3 * 4, arena.getAllocatedBytes());
+            assertTrue(arena.isOpen());
+        }
+    }
+
+    @Test
+    void testCopyOf() {
+        try (OffHeapArena arena = new OffHeapArena()) {
+            Tensor source = new Tensor(new double[][]{{1.0, 2.0}, {3.0, 4.0}}).sliceRows(1, 2);
+            Tensor copy = arena.copyOf(source);
+            assertArrayEquals(new double[]{3.0, 4.0}, copy.getData()[0]);
+            copy.set(0, 0, 9.0);
+            assertEquals(3.0, source.get(0, 0));
+            assertThrows(IllegalArgumentException.class, () -> arena.copyOf(null));
+        }
+    }
+
+    @Test
+    void testClose() {
+        OffHeapArena arena = new OffHeapArena();
+        Tensor tensor = arena.allocate(2, 2, DType.FLOAT64);
+        Tensor view = tensor.sliceRows(0, 1);
+        arena.close();
+        assertFalse(arena.isOpen());
+        assertEquals(0, arena.getAllocatedBytes());
+        assertThrows(IllegalStateException.class, () -> tensor.get(0, 0));
+        assertThrows(IllegalStateException.class, () -> view.set(0, 0, 1.0));
+        assertThrows(IllegalStateException.class, () -> view.asReadOnlyBuffer());
+        assertThrows(IllegalStateException.class, () -> arena.allocate(1, 1, DType.FLOAT64));
+        arena.close();
+    }
+
+    @Test
+    void testInvalidAllocation() {
+        try (OffHeapArena arena = new OffHeapArena()) {
+            assertThrows(IllegalArgumentException.class, () -> arena.allocate(0, 1, DType.FLOAT64));
+            assertThrows(IllegalArgumentException.class, () -> arena.allocate(1, 1, null));
+        }
+    }
+}
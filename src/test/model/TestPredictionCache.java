@@ -0,0 +1,115 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TestPredictionCache {
+    private AtomicInteger calls;
+    private UnaryOperator<Tensor> doubler;
+
+    @BeforeEach
+    void runBefore() {
+        calls = new AtomicInteger();
+        doubler = input -> {
+            calls.incrementAndGet();
+            Tensor output = new Tensor(input.getRows(), input.getCols(), input.getDType());
+            output.add(input);
+            output.add(input);
+            return output;
+        };
+    }
+
+    @Test
+    void testHitsReturnCachedOutput() {
+        PredictionCache cache = new PredictionCache(10, 1 << 20);
+        Tensor output = cache.getOrCompute(row(1.0, 2.0), doubler);
+        assertArrayEquals(new double[][]{{2.0, 4.0}}, output.getData());
+        output.set(0, 0, 99.0); // Callers own the returned tensor
+        Tensor again = cache.getOrCompute(row(1.0, 2.0), doubler);
+        assertArrayEquals(new double[][]{{2.0, 4.0}}, again.getData());
+        assertEquals(1, calls.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0.5, cache.getHitRate());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testKeysCompareContent() {
+        PredictionCache cache = new PredictionCache(10, 1 << 20);
+        Tensor input = row(1.0, 2.0);
+        cache.getOrCompute(input, doubler);
+        input.set(0, 0, 3.0); // Changing the input afterwards does not change the cached key
+        assertArrayEquals(new double[][]{{6.0, 4.0}}, cache.getOrCompute(input, doubler).getData());
+        cache.getOrCompute(new Tensor(new double[][]{{1.0}, {2.0}}), doubler);
+        cache.getOrCompute(row(1.0, 2.0).toDType(DType.FLOAT32), doubler);
+        cache.getOrCompute(row(-0.0, 2.0), doubler);
+        cache.getOrCompute(row(0.0, 2.0), doubler);
+        assertEquals(6, calls.get());
+        cache.getOrCompute(row(1.0, 2.0).sliceRows(0, 1), doubler);
+        assertEquals(6, calls.get());
+    }
+
+    @Test
+    void testEntryBoundEvictsLeastRecentlyUsed() {
+        PredictionCache cache = new PredictionCache(2, 1 << 20);
+        cache.getOrCompute(row(1.0), doubler);
+        cache.getOrCompute(row(2.0), doubler);
+        cache.getOrCompute(row(1.0), doubler); // 2.0 is now the least recently used
+        cache.getOrCompute(row(3.0), doubler);
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        cache.getOrCompute(row(1.0), doubler);
+        assertEquals(3, calls.get());
+        cache.getOrCompute(row(2.0), doubler);
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    void testByteBound() {
+        PredictionCache cache = new PredictionCache(1000, 4096);
+        for (int i = 0; i < 100; i++) {
+            cache.getOrCompute(row(i, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0), doubler);
+            assertTrue(cache.getBytes() <= 4096);
+        }
+        assertTrue(cache.size() < 100);
+        assertTrue(cache.getEvictionCount() > 0);
+        PredictionCache tiny = new PredictionCache(10, 16);
+        tiny.getOrCompute(row(1.0), doubler);
+        assertEquals(0, tiny.size());
+        assertEquals(0, tiny.getBytes());
+    }
+
+    @Test
+    void testInvalidate() {
+        PredictionCache cache = new PredictionCache(10, 1 << 20);
+        cache.getOrCompute(row(1.0), doubler);
+        cache.invalidate();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getBytes());
+        cache.getOrCompute(row(1.0), doubler);
+        assertEquals(2, calls.get());
+        Tensor stale = cache.getOrCompute(row(5.0), input -> {
+            cache.invalidate(); // The model changed while this output was being computed
+            return doubler.apply(input);
+        });
+        assertArrayEquals(new double[][]{{10.0}}, stale.getData());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testInvalidBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new PredictionCache(0, 1024));
+        assertThrows(IllegalArgumentException.class, () -> new PredictionCache(10, 0));
+    }
+
+    // Helper building a one-row tensor
+    private static Tensor row(double... values) {
+        return new Tensor(new double[][]{values});
+    }
+}
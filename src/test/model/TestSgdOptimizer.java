@@ -50,8 +50,8 @@ public class TestSgdOptimizer {
         layer.backward(gradientTensor);
 
         // Store original weights and biases
-        Tensor originalWeights = layer.getWeights();
-        Tensor originalBiases = layer.getBiases();
+        double[][] originalWeights = layer.getWeights().getData();
+        double[][] originalBiases = layer.getBiases().getData();
 
         // Update parameters
         assertDoesNotThrow(() -> {
@@ -65,8 +65,53 @@ public class TestSgdOptimizer {
         // Assertions to check if weights and biases have been updated
         assertNotNull(updatedWeights);
         assertNotNull(updatedBiases);
-        assertFalse(arraysEqual(originalWeights.getData(), updatedWeights.getData()));
-        assertFalse(arraysEqual(originalBiases.getData(), updatedBiases.getData()));
+        assertFalse(arraysEqual(originalWeights, updatedWeights.getData()));
+        assertFalse(arraysEqual(originalBiases, updatedBiases.getData()));
+    }
+
+    @Test
+    void testUpdateParametersInPlace() {
+        layer.forward(inputTensor);
+        layer.backward(gradientTensor);
+        Tensor weights = layer.getWeights();
+        Tensor biases = layer.getBiases();
+
+        double[][] expectedWeights = expectedUpdate(weights.getData(), layer.getWeightGradients().getData());
+        double[][] expectedBiases = expectedUpdate(biases.getData(), layer.getBiasGradients().getData());
+        optimizer.updateParameters(layer);
+
+        assertSame(weights, layer.getWeights());
+        assertSame(biases, layer.getBiases());
+        assertTrue(arraysEqual(expectedWeights, layer.getWeights().getData()));
+        assertTrue(arraysEqual(expectedBiases, layer.getBiases().getData()));
+    }
+
+    // Helper method computing the reference SGD update on copies of the data
+    private double[][] expectedUpdate(double[][] data, double[][] gradData) {
+        for (int i = 0; i < data.length; i++) {
+            for (int j = 0; j < data[i].length; j++) {
+                data[i][j] -= optimizer.getLearningRate() * gradData[i][j];
+            }
+        }
+        return data;
+    }
+
+    @Test
+    void testUpdateFloat32Parameters() {
+        DenseLayer single = DenseLayer.fromJson(layer.toJson(), DType.FLOAT32);
+        layer.forward(inputTensor);
+        layer.backward(gradientTensor);
+        single.forward(inputTensor.toDType(DType.FLOAT32));
+        single.backward(gradientTensor.toDType(DType.FLOAT32));
+
+        optimizer.updateParameters(layer);
+        optimizer.updateParameters(single);
+
+        assertEquals(DType.FLOAT32, single.getWeights().getDType());
+        for (int i = 0; i < 2; i++) {
+            assertArrayEquals(layer.getWeights().getData()[i], single.getWeights().getData()[i], 1e-6);
+        }
+        assertArrayEquals(layer.getBiases().getData()[0], single.getBiases().getData()[0], 1e-6);
     }
 
     @Test
@@ -126,6 +171,16 @@ public class TestSgdOptimizer {
         return true;
     }
 
+    @Test
+    void testRestoreState() {
+        optimizer.restoreState(new SgdOptimizer(0.25).toJson());
+        assertEquals(0.25, optimizer.getLearningRate());
+        assertThrows(IllegalArgumentException.class, () -> optimizer.restoreState(null));
+        JSONObject other = new JSONObject().put("type", "AdamOptimizer").put("learningRate", 0.5);
+        assertThrows(IllegalArgumentException.class, () -> optimizer.restoreState(other));
+        assertEquals(0.25, optimizer.getLearningRate());
+    }
+
     @Test
     void testSetLearningRateValid() {
         optimizer.setLearningRate(0.05);
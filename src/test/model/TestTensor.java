@@ -2,6 +2,11 @@ package model;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.ReadOnlyBufferException;
+
 import org.json.JSONObject;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -35,6 +40,219 @@ public class TestTensor {
         });
     }
 
+    @Test
+    void testShapeConstructor() {
+        Tensor zeros = new Tensor(2, 3);
+        assertEquals(2, zeros.getRows());
+        assertEquals(3, zeros.getCols());
+        assertArrayEquals(new int[]{2, 3}, zeros.getShape());
+        assertArrayEquals(new double[][]{{0.0, 0.0, 0.0}, {0.0, 0.0, 0.0}}, zeros.getData());
+    }
+
+    @Test
+    void testShapeConstructorWithInvalidDimensions() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            new Tensor(0, 3);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            new Tensor(2, -1);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            new Tensor(65536, 65536);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            new Tensor(65536, 65537, DType.FLOAT32);
+        });
+    }
+
+    @Test
+    void testConstructorWithJaggedData() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            new Tensor(new double[][]{{1.0, 2.0}, {3.0}});
+        });
+    }
+
+    @Test
+    void testGetAndSet() {
+        assertEquals(3.0, tensor1.get(1, 0));
+        tensor1.set(1, 0, 9.0);
+        assertEquals(9.0, tensor1.get(1, 0));
+        assertArrayEquals(new double[][]{{1.0, 2.0}, {9.0, 4.0}}, tensor1.getData());
+    }
+
+    @Test
+    void testGetOutOfBounds() {
+        assertThrows(IndexOutOfBoundsException.class, () -> {
+            tensor1.get(2, 0);
+        });
+        assertThrows(IndexOutOfBoundsException.class, () -> {
+            tensor1.get(0, 2);
+        });
+        assertThrows(IndexOutOfBoundsException.class, () -> {
+            tensor1.set(-1, 0, 1.0);
+        });
+    }
+
+    @Test
+    void testRowMajorLayout() {
+        assertEquals(2, tensor1.getRowStride());
+        assertArrayEquals(new double[]{1.0, 2.0, 3.0, 4.0}, tensor1.array());
+    }
+
+    @Test
+    void testGetDataReturnsCopy() {
+        double[][] copy = tensor1.getData();
+        copy[0][0] = 100.0;
+        assertEquals(1.0, tensor1.get(0, 0));
+    }
+
+    @Test
+    void testAsReadOnlyBuffer() {
+        DoubleBuffer view = tensor1.asReadOnlyBuffer();
+        assertTrue(view.isReadOnly());
+        assertEquals(4, view.remaining());
+        assertEquals(3.0, view.get(1 * tensor1.getRowStride() + 0));
+        tensor1.set(1, 0, 7.0);
+        assertEquals(7.0, view.get(1 * tensor1.getRowStride() + 0));
+        assertThrows(ReadOnlyBufferException.class, () -> {
+            view.put(0, 1.0);
+        });
+    }
+
+    @Test
+    void testSliceRows() {
+        Tensor tensor = new Tensor(new double[][]{{1.0, 2.0}, {3.0, 4.0}, {5.0, 6.0}});
+        Tensor view = tensor.sliceRows(1, 3);
+        assertArrayEquals(new double[][]{{3.0, 4.0}, {5.0, 6.0}}, view.getData());
+        view.set(0, 1, 9.0);
+        assertEquals(9.0, tensor.get(1, 1));
+        assertArrayEquals(new double[][]{{5.0, 6.0}}, view.sliceRows(1, 2).getData());
+        assertEquals(5.0, view.asReadOnlyBuffer().get(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> view.get(2, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> tensor.sliceRows(2, 2));
+        assertThrows(IndexOutOfBoundsException.class, () -> tensor.sliceRows(-1, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> tensor.sliceRows(0, 4));
+    }
+
+    @Test
+    void testFloat32Storage() {
+        Tensor tensor = new Tensor(2, 3, DType.FLOAT32);
+        assertEquals(DType.FLOAT32, tensor.getDType());
+        assertEquals(DType.FLOAT64, tensor1.getDType());
+        assertEquals(4, DType.FLOAT32.getByteSize());
+        tensor.set(1, 2, 0.1);
+        assertEquals((float) 0.1, tensor.get(1, 2));
+        assertNotEquals(0.1, tensor.get(1, 2));
+        assertEquals((float) 0.1, tensor.sliceRows(1, 2).getData()[0][2]);
+
+        FloatBuffer view = tensor.asReadOnlyFloatBuffer();
+        assertEquals(6, view.remaining());
+        assertEquals(0.1f, view.get(5));
+        assertThrows(IllegalStateException.class, tensor::asReadOnlyBuffer);
+        assertThrows(IllegalStateException.class, tensor1::asReadOnlyFloatBuffer);
+        assertThrows(IllegalArgumentException.class, () -> new Tensor(2, 2, (DType) null));
+    }
+
+    @Test
+    void testOffHeapStorage() {
+        Tensor direct = Tensor.allocateDirect(3, 2, DType.FLOAT64);
+        assertTrue(direct.isOffHeap());
+        assertFalse(new Tensor(3, 2).isOffHeap());
+        direct.set(1, 0, 2.5);
+        direct.set(2, 1, -1.0);
+        assertEquals(2.5, direct.get(1, 0));
+        assertArrayEquals(new double[]{0.0, -1.0}, direct.getData()[2]);
+
+        Tensor slice = direct.sliceRows(1, 3);
+        assertTrue(slice.isOffHeap());
+        slice.set(0, 1, 4.0);
+        assertEquals(4.0, direct.get(1, 1));
+        assertEquals(4.0, slice.asReadOnlyBuffer().get(1));
+
+        Tensor heap = slice.toHeap();
+        assertFalse(heap.isOffHeap());
+        assertArrayEquals(slice.getData()[1], heap.getData()[1]);
+        assertSame(heap, heap.toHeap());
+        assertEquals(slice.toJson().toString(), heap.toJson().toString());
+        assertThrows(IllegalStateException.class, direct::array);
+    }
+
+    @Test
+    void testReadOnlyStorage() {
+        ByteBuffer storage = ByteBuffer.allocateDirect(16);
+        storage.putDouble(0, 1.5).putDouble(8, -2.0);
+        Tensor writable = Tensor.wrap(storage, 1, 2, DType.FLOAT64);
+        Tensor readOnly = Tensor.wrap(storage.asReadOnlyBuffer(), 1, 2, DType.FLOAT32);
+        assertFalse(writable.isReadOnly());
+        assertTrue(readOnly.isReadOnly());
+        assertFalse(new Tensor(1, 2).isReadOnly());
+        assertFalse(readOnly.toHeap().isReadOnly());
+        assertEquals(-2.0, Tensor.wrap(storage.asReadOnlyBuffer(), 1, 2, DType.FLOAT64).get(0, 1));
+        assertThrows(ReadOnlyBufferException.class, () -> readOnly.set(0, 0, 1.0));
+    }
+
+    @Test
+    void testOffHeapFloat32Arithmetic() {
+        Tensor direct = Tensor.allocateDirect(1, 2, DType.FLOAT32);
+        direct.set(0, 0, 1.5);
+        direct.set(0, 1, 0.1);
+        Tensor other = new Tensor(new double[][]{{2.0, 3.0}}).toDType(DType.FLOAT32);
+        direct.multiply(other);
+        direct.add(other);
+        assertEquals(5.0, direct.get(0, 0));
+        assertEquals(0.1f * 3.0f + 3.0f, direct.get(0, 1));
+        assertEquals(0.1f * 3.0f + 3.0f, direct.asReadOnlyFloatBuffer().get(1));
+        assertThrows(IllegalArgumentException.class, () -> Tensor.allocateDirect(0, 2, DType.FLOAT32));
+        assertThrows(IllegalArgumentException.class, () -> Tensor.allocateDirect(1 << 16, 1 << 16, DType.FLOAT64));
+    }
+
+    @Test
+    void testCopyScaled() {
+        Tensor source = new Tensor(new double[][]{{1.0, -2.0}, {3.0, 1e30}});
+        Tensor single = new Tensor(2, 2, DType.FLOAT32);
+        assertTrue(single.copyScaled(source, 0.5));
+        assertEquals(-1.0, single.get(0, 1));
+        assertEquals(5e29, single.get(1, 1), 1e24);
+
+        Tensor wide = new Tensor(2, 2);
+        assertTrue(wide.copyScaled(single, 2.0));
+        assertEquals(3.0, wide.get(1, 0));
+        assertFalse(single.copyScaled(source, 1e10)); // 1e40 overflows a float
+        source.set(0, 0, Double.NaN);
+        assertFalse(wide.copyScaled(source, 1.0));
+    }
+
+    @Test
+    void testToDType() {
+        assertSame(tensor1, tensor1.toDType(DType.FLOAT64));
+        Tensor single = tensor1.sliceRows(1, 2).toDType(DType.FLOAT32);
+        assertEquals(DType.FLOAT32, single.getDType());
+        assertArrayEquals(new double[][]{{3.0, 4.0}}, single.getData());
+        single.set(0, 0, 1.0 / 3);
+        Tensor wide = single.toDType(DType.FLOAT64);
+        assertEquals(DType.FLOAT64, wide.getDType());
+        assertEquals((float) (1.0 / 3), wide.get(0, 0));
+        wide.set(0, 1, 0.0);
+        assertEquals(4.0, single.get(0, 1));
+    }
+
+    @Test
+    void testFloat32Arithmetic() {
+        Tensor a = tensor1.toDType(DType.FLOAT32);
+        a.add(tensor2.toDType(DType.FLOAT32));
+        a.multiply(tensor2.toDType(DType.FLOAT32));
+        assertArrayEquals(new double[][]{{30.0, 48.0}, {70.0, 96.0}}, a.getData());
+        assertThrows(IllegalArgumentException.class, () -> a.add(tensor2));
+        assertThrows(IllegalArgumentException.class, () -> tensor2.multiply(a));
+    }
+
+    @Test
+    void testForEach() {
+        double[][] visited = new double[2][2];
+        tensor1.forEach((row, col, value) -> visited[row][col] = value);
+        assertArrayEquals(data1, visited);
+    }
+
     @Test
     void testAdd() {
         tensor1.add(tensor2);
@@ -102,6 +320,25 @@ public class TestTensor {
         assert2dArrayEquals(tensor1.getData(), deserializedTensor.getData(), 0.0001);
     }
 
+    @Test
+    public void testFloat32JsonRoundTrip() {
+        assertFalse(tensor1.toJson().has("dtype"));
+        Tensor single = new Tensor(1, 2, DType.FLOAT32);
+        single.set(0, 0, 0.1);
+        single.set(0, 1, -2.5e-7);
+        JSONObject json = single.toJson();
+        assertEquals("FLOAT32", json.getString("dtype"));
+
+        Tensor restored = Tensor.fromJson(json);
+        assertEquals(DType.FLOAT32, restored.getDType());
+        assertArrayEquals(single.getData(), restored.getData());
+
+        Tensor converted = Tensor.fromJson(tensor1.toJson(), DType.FLOAT32);
+        assertEquals(DType.FLOAT32, converted.getDType());
+        assertArrayEquals(data1, converted.getData());
+        assertEquals(DType.FLOAT64, Tensor.fromJson(json, DType.FLOAT64).getDType());
+    }
+
     // Helper method to compare 2D arrays
     private static void assert2dArrayEquals(double[][] expected, double[][] actual, double delta) {
         assertEquals(expected.length, actual.length, "Row count mismatch");
@@ -0,0 +1,96 @@
+package persistence;
+
+import model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class TestCheckpointReader {
+    @TempDir
+    Path dir;
+
+    private NeuralNetwork network;
+    private Tensor input;
+
+    @BeforeEach
+    void runBefore() {
+        network = new NeuralNetwork();
+        network.addLayer(new DenseLayer(4, 8));
+        network.addLayer(new ActivationLayer("sigmoid"));
+        network.addLayer(new DenseLayer(8, 2));
+        input = new Tensor(new double[][]{{1.0, -2.0, 0.5, 3.0}, {0.0, 1.0, -1.0, 2.0}});
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Path file = dir.resolve("network.ckpt");
+        new CheckpointWriter(file.toString()).write(network);
+        NeuralNetwork loaded = new CheckpointReader(file.toString()).read();
+
+        assertEquals(network.getArchitecture(), loaded.getArchitecture());
+        DenseLayer layer = (DenseLayer) loaded.getLayers().get(0);
+        assertTrue(layer.getWeights().isOffHeap());
+        assertEquals(network.toJson().toString(), loaded.toJson().toString());
+        assertArrayEquals(network.predict(input).getData()[1], loaded.predict(input).getData()[1], 1e-12);
+    }
+
+    @Test
+    public void testFloat32RoundTrip() throws IOException {
+        network.setDType(DType.FLOAT32);
+        Path file = dir.resolve("float.ckpt");
+        new CheckpointWriter(file.toString()).write(network);
+        NeuralNetwork loaded = new CheckpointReader(file.toString()).read();
+
+        assertEquals(DType.FLOAT32, loaded.getDType());
+        assertEquals(network.toJson().toString(), loaded.toJson().toString());
+    }
+
+    @Test
+    public void testTrainingDoesNotChangeFile() throws IOException {
+        Path file = dir.resolve("network.ckpt");
+        new CheckpointWriter(file.toString()).write(network);
+        byte[] before = Files.readAllBytes(file);
+        NeuralNetwork loaded = new CheckpointReader(file.toString()).read();
+
+        Tensor target = new Tensor(new double[][]{{1.0, 0.0}, {0.0, 1.0}});
+        loaded.train(input, target, 2, 3, new SgdOptimizer(0.1));
+        assertNotEquals(network.toJson().toString(), loaded.toJson().toString());
+        assertArrayEquals(before, Files.readAllBytes(file));
+    }
+
+    @Test
+    public void testReadOnlyFile() throws IOException {
+        Path file = dir.resolve("readonly.ckpt");
+        new CheckpointWriter(file.toString()).write(network);
+        assertTrue(file.toFile().setReadOnly());
+        NeuralNetwork loaded = new CheckpointReader(file.toString()).read();
+
+        DenseLayer layer = (DenseLayer) loaded.getLayers().get(0);
+        assertTrue(layer.getWeights().isReadOnly());
+        Tensor target = new Tensor(new double[][]{{1.0, 0.0}, {0.0, 1.0}});
+        loaded.train(input, target, 2, 1, new SgdOptimizer(0.1));
+        assertFalse(layer.getWeights().isReadOnly());
+        assertFalse(layer.getBiases().isReadOnly());
+        assertNotEquals(network.toJson().toString(), loaded.toJson().toString());
+    }
+
+    @Test
+    public void testInvalidFiles() throws IOException {
+        Path notCheckpoint = dir.resolve("not.ckpt");
+        Files.write(notCheckpoint, "{\"layers\": []}".getBytes());
+        assertThrows(IOException.class, () -> new CheckpointReader(notCheckpoint.toString()).read());
+
+        Path file = dir.resolve("network.ckpt");
+        new CheckpointWriter(file.toString()).write(network);
+        byte[] bytes = Files.readAllBytes(file);
+        Path truncated = dir.resolve("truncated.ckpt");
+        Files.write(truncated, java.util.Arrays.copyOf(bytes, bytes.length - 8));
+        assertThrows(IOException.class, () -> new CheckpointReader(truncated.toString()).read());
+        assertThrows(IOException.class, () -> new CheckpointReader(dir.resolve("missing.ckpt").toString()).read());
+    }
+}
@@ -0,0 +1,90 @@
+package persistence;
+
+import model.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.json.JSONObject;
+
+public class TestCheckpointWriter {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testLayout() throws IOException {
+        Tensor weights = new Tensor(new double[][]{{1.0, 2.0, 3.0}, {4.0, 5.0, 6.0}});
+        NeuralNetwork nn = new NeuralNetwork();
+        nn.addLayer(new DenseLayer(weights, new Tensor(new double[][]{{0.5, -0.5, 0.25}})));
+        nn.addLayer(new ActivationLayer("relu"));
+        Path file = dir.resolve("layout.ckpt");
+        new CheckpointWriter(file.toString()).write(nn);
+
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals('J', bytes.get(0));
+        assertEquals('K', bytes.get(3));
+        assertEquals(CheckpointWriter.VERSION, bytes.getInt(4));
+        int headerLength = bytes.getInt(8);
+        long dataStart = CheckpointWriter.align(CheckpointWriter.PREAMBLE_BYTES + headerLength);
+        assertEquals(0, dataStart % CheckpointWriter.ALIGNMENT);
+        assertEquals(1.0, bytes.getDouble((int) dataStart));
+        assertEquals(6.0, bytes.getDouble((int) dataStart + 5 * Double.BYTES));
+        long biasStart = CheckpointWriter.align(dataStart + 6 * Double.BYTES);
+        assertEquals(-0.5, bytes.getDouble((int) biasStart + Double.BYTES));
+        assertEquals(biasStart + 3 * Double.BYTES, Files.size(file));
+    }
+
+    @Test
+    public void testWriteViewsAndFloat32() throws IOException {
+        NeuralNetwork nn = new NeuralNetwork();
+        nn.setDType(DType.FLOAT32);
+        Tensor source = new Tensor(new double[][]{{1.0, 2.0}, {3.0, 4.0}, {5.0, 6.0}}).toDType(DType.FLOAT32);
+        nn.addLayer(new DenseLayer(source.sliceRows(1, 3), new Tensor(1, 2, DType.FLOAT32)));
+        Path file = dir.resolve("float.ckpt");
+        new CheckpointWriter(file.toString()).write(nn);
+
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        int dataStart = (int) CheckpointWriter.align(CheckpointWriter.PREAMBLE_BYTES + bytes.getInt(8));
+        assertEquals(3.0f, bytes.getFloat(dataStart));
+        assertEquals(6.0f, bytes.getFloat(dataStart + 3 * Float.BYTES));
+    }
+
+    @Test
+    public void testHeaderDoesNotSerializeParameters() throws IOException {
+        long[] headerLengths = new long[2];
+        int[] widths = {4, 512};
+        for (int i = 0; i < widths.length; i++) {
+            CountingDenseLayer layer = new CountingDenseLayer(widths[i]);
+            NeuralNetwork nn = new NeuralNetwork();
+            nn.addLayer(layer);
+            Path file = dir.resolve("header" + i + ".ckpt");
+            new CheckpointWriter(file.toString()).write(nn);
+
+            assertEquals(0, layer.toJsonCalls);
+            headerLengths[i] = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN).getInt(8);
+        }
+        // 16 vs 262,144 weights: only the digits of the shapes and offsets differ
+        assertTrue(headerLengths[1] - headerLengths[0] < 16, headerLengths[0] + " vs " + headerLengths[1]);
+    }
+
+    // Dense layer that counts how often it is serialized to JSON
+    private static class CountingDenseLayer extends DenseLayer {
+        private int toJsonCalls;
+
+        CountingDenseLayer(int width) {
+            super(width, width);
+        }
+
+        @Override
+        public JSONObject toJson() {
+            toJsonCalls++;
+            return super.toJson();
+        }
+    }
+}
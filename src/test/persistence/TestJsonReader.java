@@ -3,12 +3,21 @@ package persistence;
 import model.*;
 import org.json.JSONObject;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 public class TestJsonReader {
     private static final String TENSOR_FILE = "./data/testTensorRead.json";
+    private static final String NETWORK_FILE = "./data/neuralNetwork.json";
+    private static final String INPUT_FILE = "./data/inputData.json";
+
+    @TempDir
+    Path tempDir;
 
     @Test
     public void testReadTensor() {
@@ -24,6 +33,58 @@ public class TestJsonReader {
         }
     }
 
+    @Test
+    public void testReadTensorStreaming() throws IOException {
+        Tensor tensor = new JsonReader(TENSOR_FILE).readTensor();
+        assertEquals(DType.FLOAT64, tensor.getDType());
+        assert2dArrayEquals(new double[][] {{1.0, 2.0}, {3.0, 4.0}}, tensor.getData(), 0.0);
+
+        Tensor expected = Tensor.fromJson(new JsonReader(INPUT_FILE).readJson());
+        Tensor input = new JsonReader(INPUT_FILE).readTensor();
+        assert2dArrayEquals(expected.getData(), input.getData(), 0.0);
+    }
+
+    @Test
+    public void testReadTensorKeepsDType() throws IOException {
+        Path file = write("{\"dtype\": \"FLOAT32\", \"data\": [[0.1, -2e3], [1E-2, 4]]}");
+        Tensor tensor = new JsonReader(file.toString()).readTensor();
+        assertEquals(DType.FLOAT32, tensor.getDType());
+        assert2dArrayEquals(new double[][] {{0.1f, -2000.0}, {0.01f, 4.0}}, tensor.getData(), 0.0);
+    }
+
+    @Test
+    public void testReadNetworkStreaming() throws IOException {
+        NeuralNetwork expected = NeuralNetwork.fromJson(new JsonReader(NETWORK_FILE).readJson());
+        NeuralNetwork nn = new JsonReader(NETWORK_FILE).readNetwork();
+        assertEquals(expected.getLayers().size(), nn.getLayers().size());
+        assertEquals(expected.getDType(), nn.getDType());
+        for (int i = 0; i < nn.getLayers().size(); i++) {
+            assertEquals(expected.getLayers().get(i).toJson().toString(), nn.getLayers().get(i).toJson().toString());
+        }
+    }
+
+    @Test
+    public void testReadMalformed() throws IOException {
+        assertThrows(IOException.class, () -> new JsonReader(write("{\"data\": [[1, 2], [3]]}").toString())
+                .readTensor());
+        assertThrows(IOException.class, () -> new JsonReader(write("{\"data\": [[1, 2], [3, 4]]").toString())
+                .readTensor());
+        assertThrows(IOException.class, () -> new JsonReader(write("{\"data\": [[1, \"a\"]]}").toString())
+                .readTensor());
+        assertThrows(IOException.class, () -> new JsonReader(write("{\"data\": [[]]}").toString())
+                .readTensor());
+        assertThrows(IOException.class, () -> new JsonReader("./data/optimizer.json").readTensor());
+        assertThrows(IOException.class, () -> new JsonReader(TENSOR_FILE).readNetwork());
+        assertThrows(IOException.class, () -> new JsonReader(tempDir.resolve("missing.json").toString())
+                .readTensor());
+    }
+
+    private Path write(String json) throws IOException {
+        Path file = Files.createTempFile(tempDir, "tensor", ".json");
+        Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
     private static void assert2dArrayEquals(double[][] expected, double[][] actual, double delta) {
         assertEquals(expected.length, actual.length, "Row count mismatch");
         for (int i = 0; i < expected.length; i++) {
@@ -1,16 +1,21 @@
 package persistence;
 
 import model.*;
+import org.json.JSONException;
 import org.json.JSONObject;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 public class TestJsonWriter {
     private Tensor tensor;
-    private static final String TENSOR_FILE = "./data/testTensorWrite.json";
+    @TempDir
+    Path tempDir;
 
     @BeforeEach
     void runBefore() {
@@ -20,13 +25,14 @@ public class TestJsonWriter {
 
     @Test
     public void testWriteTensor() {
-        JsonWriter writer = new JsonWriter(TENSOR_FILE);
+        String file = tempDir.resolve("tensor.json").toString();
+        JsonWriter writer = new JsonWriter(file);
         try {
             writer.open();
             writer.write(tensor);
             writer.close();
 
-            JsonReader reader = new JsonReader(TENSOR_FILE);
+            JsonReader reader = new JsonReader(file);
             JSONObject json = reader.readJson();
             Tensor loadedTensor = Tensor.fromJson(json);
             assert2dArrayEquals(tensor.getData(), loadedTensor.getData(), 0.0001);
@@ -35,6 +41,68 @@ public class TestJsonWriter {
         }
     }
 
+    @Test
+    public void testWriteFloat32Tensor() throws IOException {
+        String file = tempDir.resolve("tensor.json").toString();
+        Tensor single = new Tensor(new double[][] {{0.1, -1e-7, 3.0}}).toDType(DType.FLOAT32);
+        JsonWriter writer = new JsonWriter(file);
+        writer.open();
+        writer.write(single);
+        writer.close();
+
+        Tensor viaTree = Tensor.fromJson(new JsonReader(file).readJson());
+        Tensor streamed = new JsonReader(file).readTensor();
+        assertEquals(DType.FLOAT32, viaTree.getDType());
+        assertEquals(DType.FLOAT32, streamed.getDType());
+        assert2dArrayEquals(single.getData(), viaTree.getData(), 0.0);
+        assert2dArrayEquals(single.getData(), streamed.getData(), 0.0);
+    }
+
+    @Test
+    public void testWriteNetwork() throws IOException {
+        String file = tempDir.resolve("network.json").toString();
+        NeuralNetwork nn = new NeuralNetwork();
+        nn.addLayer(new DenseLayer(3, 4));
+        nn.addLayer(new ActivationLayer("relu"));
+        nn.addLayer(new DenseLayer(4, 2));
+        nn.setDType(DType.FLOAT32);
+        JsonWriter writer = new JsonWriter(file);
+        writer.open();
+        writer.write(nn);
+        writer.close();
+
+        NeuralNetwork viaTree = NeuralNetwork.fromJson(new JsonReader(file).readJson());
+        NeuralNetwork streamed = new JsonReader(file).readNetwork();
+        assertEquals(DType.FLOAT32, viaTree.getDType());
+        assertEquals(DType.FLOAT32, streamed.getDType());
+        Tensor input = new Tensor(new double[][] {{0.5, -1.0, 2.0}});
+        assert2dArrayEquals(nn.predict(input).getData(), viaTree.predict(input).getData(), 0.0);
+        assert2dArrayEquals(nn.predict(input).getData(), streamed.predict(input).getData(), 0.0);
+    }
+
+    @Test
+    public void testWriteNonFiniteTensor() throws IOException {
+        JsonWriter writer = new JsonWriter(tempDir.resolve("nan.json").toString());
+        writer.open();
+        assertThrows(JSONException.class, () -> writer.write(new Tensor(new double[][] {{1.0, Double.NaN}})));
+        writer.close();
+        assertEquals("", Files.readString(tempDir.resolve("nan.json")));
+    }
+
+    @Test
+    public void testWriteNonFiniteNetworkWritesNothing() throws IOException {
+        NeuralNetwork nn = new NeuralNetwork();
+        nn.addLayer(new DenseLayer(3, 2));
+        nn.addLayer(new DenseLayer(2, 1));
+        ((DenseLayer) nn.getLayers().get(1)).getBiases().set(0, 0, Double.POSITIVE_INFINITY);
+        Path file = tempDir.resolve("inf.json");
+        JsonWriter writer = new JsonWriter(file.toString());
+        writer.open();
+        assertThrows(JSONException.class, () -> writer.write(nn));
+        writer.close();
+        assertEquals("", Files.readString(file));
+    }
+
     private static void assert2dArrayEquals(double[][] expected, double[][] actual, double delta) {
         assertEquals(expected.length, actual.length, "Row count mismatch");
         for (int i = 0; i < expected.length; i++) {
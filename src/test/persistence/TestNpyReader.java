@@ -0,0 +1,123 @@
+package persistence;
+
+import model.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ReadOnlyBufferException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class TestNpyReader {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testReadFloat64Matrix() throws IOException {
+        Path file = npy("{'descr': '<f8', 'fortran_order': False, 'shape': (2, 3), }", ByteOrder.LITTLE_ENDIAN,
+                1, 2, 3, 4, 5, 6.5);
+        Tensor tensor = new NpyReader(file.toString()).read();
+
+        assertTrue(tensor.isOffHeap());
+        assertEquals(DType.FLOAT64, tensor.getDType());
+        assertArrayEquals(new double[]{1, 2, 3}, tensor.getData()[0]);
+        assertArrayEquals(new double[]{4, 5, 6.5}, tensor.getData()[1]);
+    }
+
+    @Test
+    public void testReadFloat32Vector() throws IOException {
+        Path file = npy("{'descr': '<f4', 'fortran_order': False, 'shape': (3,), }", ByteOrder.LITTLE_ENDIAN,
+                0.1f, -2f, 3f);
+        Tensor tensor = new NpyReader(file.toString()).read();
+
+        assertEquals(DType.FLOAT32, tensor.getDType());
+        assertEquals(1, tensor.getRows());
+        assertArrayEquals(new double[]{0.1f, -2, 3}, tensor.getData()[0]);
+    }
+
+    @Test
+    public void testReadBigEndianScalar() throws IOException {
+        Path file = npy("{'descr': '>f8', 'fortran_order': False, 'shape': (), }", ByteOrder.BIG_ENDIAN, 42.25);
+        Tensor tensor = new NpyReader(file.toString()).read();
+
+        assertEquals(1, tensor.getRows());
+        assertEquals(1, tensor.getCols());
+        assertEquals(42.25, tensor.get(0, 0));
+    }
+
+    @Test
+    public void testChangesDoNotReachFile() throws IOException {
+        Path file = npy("{'descr': '<f8', 'fortran_order': False, 'shape': (1, 2), }", ByteOrder.LITTLE_ENDIAN,
+                1, 2);
+        Tensor tensor = new NpyReader(file.toString()).read();
+        assertTrue(tensor.isReadOnly());
+        assertThrows(ReadOnlyBufferException.class, () -> tensor.set(0, 0, 10.0));
+        Tensor copy = tensor.toHeap();
+        copy.set(0, 0, 10.0);
+        assertEquals(10.0, copy.get(0, 0));
+
+        assertEquals(1.0, new NpyReader(file.toString()).read().get(0, 0));
+    }
+
+    @Test
+    public void testReadOnlyFile() throws IOException {
+        Path file = npy("{'descr': '<f4', 'fortran_order': False, 'shape': (2,), }", ByteOrder.LITTLE_ENDIAN,
+                0.5, -1.5);
+        assertTrue(file.toFile().setReadOnly());
+
+        Tensor tensor = new NpyReader(file.toString()).read();
+        assertEquals(-1.5, tensor.get(0, 1));
+    }
+
+    @Test
+    public void testRejectsUnsupportedArrays() throws IOException {
+        assertRejected(npy("{'descr': '<i8', 'fortran_order': False, 'shape': (2,), }", ByteOrder.LITTLE_ENDIAN,
+                1, 2));
+        assertRejected(npy("{'descr': '<f8', 'fortran_order': True, 'shape': (1, 2), }", ByteOrder.LITTLE_ENDIAN,
+                1, 2));
+        assertRejected(npy("{'descr': '<f8', 'fortran_order': False, 'shape': (1, 1, 2), }",
+                ByteOrder.LITTLE_ENDIAN, 1, 2));
+        assertRejected(npy("{'descr': '<f8', 'fortran_order': False, 'shape': (0, 2), }", ByteOrder.LITTLE_ENDIAN));
+        assertRejected(npy("{'descr': '<f8', 'fortran_order': False, 'shape': (3, 2), }", ByteOrder.LITTLE_ENDIAN,
+                1, 2));
+        Path notNpy = dir.resolve("text.npy");
+        Files.writeString(notNpy, "{\"data\": [[1.0]]}");
+        assertRejected(notNpy);
+    }
+
+    private void assertRejected(Path file) {
+        assertThrows(IOException.class, () -> new NpyReader(file.toString()).read());
+    }
+
+    // Writes a version 1.0 .npy file the way numpy.save lays it out
+    static Path npy(Path file, String dict, ByteOrder order, double... values) throws IOException {
+        boolean single = dict.contains("f4");
+        StringBuilder header = new StringBuilder(dict);
+        while ((10 + header.length() + 1) % 64 != 0) {
+            header.append(' ');
+        }
+        header.append('\n');
+        ByteBuffer bytes = ByteBuffer.allocate(10 + header.length() + values.length * 8);
+        bytes.put(new byte[]{(byte) 0x93, 'N', 'U', 'M', 'P', 'Y', 1, 0});
+        bytes.order(ByteOrder.LITTLE_ENDIAN).putShort((short) header.length());
+        bytes.put(header.toString().getBytes(StandardCharsets.ISO_8859_1)).order(order);
+        for (double value : values) {
+            if (single) {
+                bytes.putFloat((float) value);
+            } else {
+                bytes.putDouble(value);
+            }
+        }
+        Files.write(file, java.util.Arrays.copyOf(bytes.array(), bytes.position()));
+        return file;
+    }
+
+    private Path npy(String dict, ByteOrder order, double... values) throws IOException {
+        return npy(Files.createTempFile(dir, "array", ".npy"), dict, order, values);
+    }
+}
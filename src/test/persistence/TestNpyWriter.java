@@ -0,0 +1,51 @@
+package persistence;
+
+import model.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class TestNpyWriter {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testWriteMatchesNumpyLayout() throws IOException {
+        Path file = dir.resolve("tensor.npy");
+        new NpyWriter(file.toString()).write(new Tensor(new double[][]{{0, 1, 2}, {3, 4, 5}}));
+
+        byte[] bytes = Files.readAllBytes(file);
+        assertEquals(128 + 6 * Double.BYTES, bytes.length);
+        String header = new String(bytes, 10, 118, StandardCharsets.ISO_8859_1);
+        assertTrue(header.startsWith("{'descr': '<f8', 'fortran_order': False, 'shape': (2, 3), }"));
+        assertTrue(header.endsWith(" \n"));
+        ByteBuffer data = ByteBuffer.wrap(bytes, 128, 48).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < 6; i++) {
+            assertEquals(i, data.getDouble());
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Tensor tensor = new Tensor(new double[][]{{0.1, -2.5}, {1e-30, 7}, {3, 4}}).toDType(DType.FLOAT32);
+        Tensor view = new Tensor(new double[][]{{1, 2, 3}, {4, 5, 6}}).sliceRows(1, 2);
+        Path file = dir.resolve("float.npy");
+        Path viewFile = dir.resolve("view.npy");
+        new NpyWriter(file.toString()).write(tensor);
+        new NpyWriter(viewFile.toString()).write(view);
+
+        Tensor loaded = new NpyReader(file.toString()).read();
+        assertEquals(DType.FLOAT32, loaded.getDType());
+        for (int i = 0; i < 3; i++) {
+            assertArrayEquals(tensor.getData()[i], loaded.getData()[i]);
+        }
+        assertArrayEquals(view.getData()[0], new NpyReader(viewFile.toString()).read().getData()[0]);
+    }
+}
@@ -0,0 +1,69 @@
+package persistence;
+
+import model.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class TestNpzReader {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testReadStoredAndDeflatedEntries() throws IOException {
+        Path weights = TestNpyReader.npy(dir.resolve("weights.npy"),
+                "{'descr': '<f4', 'fortran_order': False, 'shape': (2, 2), }", ByteOrder.LITTLE_ENDIAN, 1, 2, 3, 4);
+        Path bias = TestNpyReader.npy(dir.resolve("bias.npy"),
+                "{'descr': '<f8', 'fortran_order': False, 'shape': (2,), }", ByteOrder.LITTLE_ENDIAN, -1, 0.5);
+        Path archive = dir.resolve("params.npz");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(archive))) {
+            putEntry(zip, "weights.npy", Files.readAllBytes(weights), ZipEntry.STORED);
+            putEntry(zip, "bias.npy", Files.readAllBytes(bias), ZipEntry.DEFLATED);
+        }
+        Map<String, Tensor> arrays = new NpzReader(archive.toString()).read();
+
+        assertEquals(List.of("weights", "bias"), List.copyOf(arrays.keySet()));
+        assertEquals(DType.FLOAT32, arrays.get("weights").getDType());
+        assertArrayEquals(new double[]{3, 4}, arrays.get("weights").getData()[1]);
+        assertEquals(DType.FLOAT64, arrays.get("bias").getDType());
+        assertArrayEquals(new double[]{-1, 0.5}, arrays.get("bias").getData()[0]);
+    }
+
+    @Test
+    public void testRejectsInvalidArchives() throws IOException {
+        Path notZip = dir.resolve("text.npz");
+        Files.writeString(notZip, "not a zip archive");
+        assertThrows(IOException.class, () -> new NpzReader(notZip.toString()).read());
+
+        Path truncated = dir.resolve("truncated.npz");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(truncated))) {
+            putEntry(zip, "arr_0.npy", new byte[]{(byte) 0x93, 'N', 'U', 'M'}, ZipEntry.DEFLATED);
+        }
+        assertThrows(IOException.class, () -> new NpzReader(truncated.toString()).read());
+    }
+
+    private static void putEntry(ZipOutputStream zip, String name, byte[] bytes, int method) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(method);
+        if (method == ZipEntry.STORED) {
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            entry.setSize(bytes.length);
+            entry.setCompressedSize(bytes.length);
+            entry.setCrc(crc.getValue());
+        }
+        zip.putNextEntry(entry);
+        zip.write(bytes);
+        zip.closeEntry();
+    }
+}
@@ -0,0 +1,47 @@
+package persistence;
+
+import model.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+public class TestNpzWriter {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testStoredRoundTrip() throws IOException {
+        assertRoundTrip(false, ZipEntry.STORED);
+    }
+
+    @Test
+    public void testCompressedRoundTrip() throws IOException {
+        assertRoundTrip(true, ZipEntry.DEFLATED);
+    }
+
+    private void assertRoundTrip(boolean compressed, int method) throws IOException {
+        Map<String, Tensor> arrays = new LinkedHashMap<>();
+        arrays.put("weights", new Tensor(new double[][]{{1, 2, 3}, {4, 5, 6}}));
+        arrays.put("bias", new Tensor(new double[][]{{0.25, -0.5, 1e-3}}).toDType(DType.FLOAT32));
+        Path file = dir.resolve("arrays.npz");
+        new NpzWriter(file.toString(), compressed).write(arrays);
+
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            assertEquals(method, zip.getEntry("weights.npy").getMethod());
+            assertEquals(method, zip.getEntry("bias.npy").getMethod());
+        }
+        Map<String, Tensor> loaded = new NpzReader(file.toString()).read();
+        assertEquals(List.of("weights", "bias"), List.copyOf(loaded.keySet()));
+        assertArrayEquals(arrays.get("weights").getData()[1], loaded.get("weights").getData()[1]);
+        assertEquals(DType.FLOAT32, loaded.get("bias").getDType());
+        assertArrayEquals(arrays.get("bias").getData()[0], loaded.get("bias").getData()[0]);
+    }
+}
@@ -0,0 +1,197 @@
+package server;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import model.ActivationLayer;
+import model.DType;
+import model.DenseLayer;
+import model.InferenceSession;
+import model.Layer;
+import model.NeuralNetwork;
+import model.Optimizer;
+import model.Tensor;
+
+public class TestDynamicBatcher {
+    private InferenceSession session;
+
+    @BeforeEach
+    void runBefore() {
+        Random random = new Random(2);
+        NeuralNetwork network = new NeuralNetwork();
+        network.addLayer(new DenseLayer(4, 16, DType.FLOAT64, random));
+        network.addLayer(new ActivationLayer("relu"));
+        network.addLayer(new DenseLayer(16, 2, DType.FLOAT64, random));
+        session = network.newInferenceSession();
+    }
+
+    @Test
+    void testSingleRequestRunsAfterWait() throws Exception {
+        try (DynamicBatcher batcher = new DynamicBatcher(session, 8, 1000)) {
+            Tensor input = input(new Random(3), 2);
+            assertArrayEquals(session.predict(input).getData(), batcher.predict(input).getData());
+            assertEquals(1, batcher.getBatchRows().getCount());
+            assertEquals(2, batcher.getBatchRows().getMax());
+        }
+    }
+
+    @Test
+    void testConcurrentRequestsShareBatches() throws Exception {
+        int callers = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try (DynamicBatcher batcher = new DynamicBatcher(session, 8, 200_000)) {
+            CountDownLatch ready = new CountDownLatch(callers);
+            List<Tensor> inputs = new ArrayList<>();
+            List<Future<Tensor>> outputs = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                Tensor input = input(new Random(i), 1);
+                inputs.add(input);
+                outputs.add(pool.submit(() -> {
+                    ready.countDown();
+                    ready.await();
+                    return batcher.predict(input);
+                }));
+            }
+            for (int i = 0; i < callers; i++) {
+                assertArrayEquals(session.predict(inputs.get(i)).getData(), outputs.get(i).get().getData());
+            }
+            Histogram batches = batcher.getBatchRows();
+            assertTrue(batches.getCount() < callers, "batches: " + batches.getCount());
+            assertTrue(batches.getMax() <= 8);
+            assertEquals(callers, Math.round(batches.getMean() * batches.getCount()));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testFullBatchDoesNotWait() throws Exception {
+        try (DynamicBatcher batcher = new DynamicBatcher(session, 4, 60_000_000)) {
+            long start = System.nanoTime();
+            batcher.predict(input(new Random(5), 6));
+            assertTrue(System.nanoTime() - start < 10_000_000_000L);
+            assertEquals(6, batcher.getBatchRows().getMax());
+        }
+    }
+
+    @Test
+    void testRejectedInputFailsOnlyItsCaller() throws Exception {
+        try (DynamicBatcher batcher = new DynamicBatcher(session, 8, 1000)) {
+            assertThrows(IllegalArgumentException.class, () -> batcher.predict(new Tensor(1, 3)));
+            assertThrows(IllegalArgumentException.class, () -> batcher.predict(null));
+            Tensor input = input(new Random(6), 1);
+            assertArrayEquals(session.predict(input).getData(), batcher.predict(input).getData());
+        }
+    }
+
+    @Test
+    void testClosed() throws Exception {
+        DynamicBatcher batcher = new DynamicBatcher(session, 8, 1000);
+        batcher.close();
+        assertThrows(IllegalStateException.class, () -> batcher.predict(input(new Random(7), 1)));
+    }
+
+    @Test
+    void testCloseWhileBatchRuns() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        NeuralNetwork network = new NeuralNetwork();
+        network.addLayer(new BlockingLayer(running));
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            DynamicBatcher batcher = new DynamicBatcher(network.newInferenceSession(), 8, 60_000_000);
+            // Different widths never share a batch: one request runs, the other is carried over
+            List<Future<Tensor>> outputs = List.of(pool.submit(() -> batcher.predict(new Tensor(1, 4))),
+                    pool.submit(() -> batcher.predict(new Tensor(1, 5))));
+            running.await();
+            batcher.close();
+            int failed = 0;
+            for (Future<Tensor> output : outputs) {
+                try {
+                    output.get(10, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    assertInstanceOf(IllegalStateException.class, e.getCause());
+                    failed++;
+                }
+            }
+            assertEquals(1, failed);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void testInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new DynamicBatcher(null, 8, 1000));
+        assertThrows(IllegalArgumentException.class, () -> new DynamicBatcher(session, 0, 1000));
+        assertThrows(IllegalArgumentException.class, () -> new DynamicBatcher(session, 8, -1));
+    }
+
+    // Represents a layer passing its input through once the thread running it is interrupted,
+    // as a batch that was still running when the batcher was closed would
+    private static final class BlockingLayer extends Layer {
+        private final CountDownLatch running;
+
+        BlockingLayer(CountDownLatch running) {
+            this.running = running;
+        }
+
+        @Override
+        public Tensor infer(Tensor input) {
+            running.countDown();
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return input;
+        }
+
+        @Override
+        public Tensor forward(Tensor input) {
+            return infer(input);
+        }
+
+        @Override
+        public Tensor backward(Tensor gradient) {
+            return gradient;
+        }
+
+        @Override
+        public void updateParameters(Optimizer optimizer) {
+        }
+
+        @Override
+        public String getDescription() {
+            return "Blocking Layer";
+        }
+
+        @Override
+        public JSONObject toJson() {
+            return new JSONObject();
+        }
+    }
+
+    // Helper building a rows x 4 input of Gaussian values
+    static Tensor input(Random random, int rows) {
+        Tensor input = new Tensor(rows, 4);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < 4; j++) {
+                input.set(i, j, random.nextGaussian());
+            }
+        }
+        return input;
+    }
+}
@@ -0,0 +1,90 @@
+package server;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+public class TestHistogram {
+
+    @Test
+    void testEmpty() {
+        Histogram histogram = new Histogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0.0, histogram.getMean());
+        assertEquals(0, histogram.percentile(0.5));
+        assertEquals(0, histogram.toJson().getJSONArray("buckets").length());
+    }
+
+    @Test
+    void testSmallValuesAreExact() {
+        Histogram histogram = new Histogram();
+        for (int value = 1; value <= 100; value++) {
+            histogram.record(value);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(50.5, histogram.getMean(), 1e-12);
+        assertEquals(50, histogram.percentile(0.50));
+        assertEquals(99, histogram.percentile(0.99));
+        assertEquals(100, histogram.percentile(1.0));
+        assertEquals(1, histogram.percentile(0.0));
+        assertEquals(100, histogram.getMax());
+    }
+
+    @Test
+    void testLargeValuesWithinBucketPrecision() {
+        Histogram histogram = new Histogram();
+        Random random = new Random(1);
+        long[] values = new long[10_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(random.nextDouble() * 20);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        long exact = values[(int) Math.ceil(0.99 * values.length) - 1];
+        long estimate = histogram.percentile(0.99);
+        assertTrue(estimate >= exact && estimate <= exact + exact / 64 + 1, exact + " vs " + estimate);
+        assertEquals(values[values.length - 1], histogram.percentile(1.0));
+    }
+
+    @Test
+    void testBucketsCoverEveryValue() {
+        long[] values = {0, 127, 128, 129, 255, 256, 1_000_000, Long.MAX_VALUE};
+        for (long value : values) {
+            int bucket = Histogram.bucket(value);
+            assertTrue(Histogram.lowestValue(bucket) <= value);
+            if (value != Long.MAX_VALUE) {
+                assertTrue(Histogram.lowestValue(bucket + 1) > value);
+            }
+        }
+        assertEquals(128, Histogram.lowestValue(Histogram.bucket(129)));
+    }
+
+    @Test
+    void testToJson() {
+        Histogram histogram = new Histogram();
+        histogram.record(4);
+        histogram.record(4);
+        histogram.record(8);
+        JSONObject json = histogram.toJson();
+        assertEquals(3, json.getLong("count"));
+        assertEquals(4, json.getLong("p50"));
+        assertEquals(8, json.getLong("p99"));
+        JSONArray buckets = json.getJSONArray("buckets");
+        assertEquals(2, buckets.length());
+        assertEquals(4, buckets.getJSONArray(0).getLong(0));
+        assertEquals(2, buckets.getJSONArray(0).getLong(1));
+    }
+
+    @Test
+    void testInvalidArguments() {
+        Histogram histogram = new Histogram();
+        assertThrows(IllegalArgumentException.class, () -> histogram.record(-1));
+        assertThrows(IllegalArgumentException.class, () -> histogram.percentile(1.5));
+        assertThrows(IllegalArgumentException.class, () -> histogram.percentile(Double.NaN));
+    }
+}
@@ -0,0 +1,114 @@
+package server;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import model.DType;
+import model.DenseLayer;
+import model.InferenceSession;
+import model.NeuralNetwork;
+import model.Tensor;
+
+public class TestInferenceServer {
+    private InferenceSession session;
+    private InferenceServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    void runBefore() throws Exception {
+        NeuralNetwork network = new NeuralNetwork();
+        network.addLayer(new DenseLayer(4, 3, DType.FLOAT64, new Random(8)));
+        session = network.newInferenceSession();
+        server = new InferenceServer(session, new InetSocketAddress("localhost", 0), 16, 20_000);
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void runAfter() throws Exception {
+        server.close();
+    }
+
+    @Test
+    void testPredict() throws Exception {
+        Tensor input = TestDynamicBatcher.input(new Random(9), 2);
+        HttpResponse<String> response = post(input.toJson().toString());
+        assertEquals(200, response.statusCode());
+        Tensor output = Tensor.fromJson(new JSONObject(response.body()));
+        assertArrayEquals(session.predict(input).getData(), output.getData());
+    }
+
+    @Test
+    void testConcurrentRequestsAreBatched() throws Exception {
+        List<Tensor> inputs = new ArrayList<>();
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        Random random = new Random(10);
+        for (int i = 0; i < 24; i++) {
+            Tensor input = TestDynamicBatcher.input(random, 1);
+            inputs.add(input);
+            responses.add(client.sendAsync(request(input.toJson().toString()), HttpResponse.BodyHandlers.ofString()));
+        }
+        for (int i = 0; i < inputs.size(); i++) {
+            HttpResponse<String> response = responses.get(i).get();
+            assertEquals(200, response.statusCode());
+            Tensor output = Tensor.fromJson(new JSONObject(response.body()));
+            assertArrayEquals(session.predict(inputs.get(i)).getData(), output.getData());
+        }
+        JSONObject stats = new JSONObject(get("/stats").body());
+        assertEquals(24, stats.getLong("requests"));
+        assertTrue(stats.getLong("batches") <= 24);
+        assertEquals(24, Math.round(stats.getJSONObject("batchRows").getDouble("mean") * stats.getLong("batches")));
+        JSONObject latency = stats.getJSONObject("latencyMicros");
+        assertTrue(latency.getLong("p50") <= latency.getLong("p99"));
+        assertEquals(24, server.getLatencyMicros().getCount());
+    }
+
+    @Test
+    void testBadRequests() throws Exception {
+        assertEquals(400, post("not json").statusCode());
+        assertEquals(400, post(new Tensor(1, 2).toJson().toString()).statusCode());
+        assertEquals(400, post("{\"data\": []}").statusCode());
+        assertEquals(405, get("/predict").statusCode());
+        assertEquals(0, server.getLatencyMicros().getCount());
+    }
+
+    @Test
+    void testInvalidSettings() {
+        InetSocketAddress address = new InetSocketAddress("localhost", 0);
+        assertThrows(IllegalArgumentException.class, () -> new InferenceServer(null, address, 8, 0));
+        assertThrows(IllegalArgumentException.class, () -> new InferenceServer(session, null, 8, 0));
+        assertThrows(IllegalArgumentException.class, () -> new InferenceServer(session, address, 0, 0));
+    }
+
+    // Helper building a POST /predict request
+    private HttpRequest request(String body) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + "/predict"))
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+
+    // Helper sending a POST /predict request
+    private HttpResponse<String> post(String body) throws Exception {
+        return client.send(request(body), HttpResponse.BodyHandlers.ofString());
+    }
+
+    // Helper sending a GET request for path
+    private HttpResponse<String> get(String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path))
+                .GET().build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}